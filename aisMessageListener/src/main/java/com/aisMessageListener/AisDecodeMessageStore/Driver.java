@@ -1,16 +1,25 @@
 package com.aisMessageListener.AisDecodeMessageStore;
 
-import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
-import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionManager;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.ConnectionPool;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.MetricsServer;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.JournalReplayer;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.OverflowPolicy;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.SpillJournal;
+import com.aisMessageListener.AisDecodeMessageStore.replay.LogReplayer;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Main method for the tcp AIS message client.  Configures database connection then starts up client
- * on specified port number.
+ * on specified port number, or on the feeds listed in the ais.feeds system property.
  */
 public class Driver {
 
@@ -19,13 +28,18 @@ public class Driver {
    * file.
    *
    * @param args specifies 'test' or 'production'. This determines what filepath is used for
-   *             database access credentials.
+   *             database access credentials. May be followed by 'replay' and one or more kplex log
+   *             files or directories, which are loaded into the database instead of listening.
+   *             Batching, queue, journal and write mode options are read from system properties,
+   *             see {@link ListenerConfiguration}.
    * @throws InterruptedException does not need to be handled. Only occurs when another thread
    *                              interrupts the sleep method during connection recovery.
    */
   public static void main(String[] args) throws InterruptedException {
-    if (args.length != 1) {
-      System.err.println("Must specify whether this is a 'test' or 'production' deployment.\n");
+    boolean replay = args.length > 2 && args[1].equals("replay");
+    if (args.length != 1 && !replay) {
+      System.err.println("Must specify whether this is a 'test' or 'production' deployment, "
+              + "optionally followed by 'replay' and the logs to load.\n");
       System.exit(1);
     }
 
@@ -65,9 +79,116 @@ public class Driver {
       System.exit(4);
     }
 
-    DatabaseConnectionInterface dbConnection = new DatabaseConnectionManager(
-            databaseHost, databaseName, username, password);
+    ListenerConfiguration configuration = ListenerConfiguration.fromSystemProperties();
+    MetricsServer metricsServer = exposeIngestMetrics(configuration.getMetricsPort());
 
-    new AisTcpClient(tcpServerPort, dbConnection).start();
+    ConnectionPool pool = new ConnectionPool(databaseHost, databaseName, username, password,
+            configuration.getDatabasePoolSize(),
+            configuration.getDatabaseValidationIntervalMillis());
+    Listener.registerMBean(pool, "ConnectionPool");
+
+    SpillJournal journal = null;
+    try {
+      journal = new SpillJournal(configuration.getJournalDirectory(),
+              configuration.getJournalSegmentBytes());
+    } catch (IOException e) {
+      System.err.println("Could not open the spill journal.\n");
+      e.printStackTrace();
+      System.exit(3);
+    }
+
+    Listener.Builder builder = Listener.builder(configuration, pool)
+            .journal(journal)
+            .registerMBeans();
+    if (replay) {
+      // A replay can always wait for the writers, and must not lose messages. Replayed messages
+      // were received long ago; their age is not ingest lag.
+      builder.overflowPolicy(OverflowPolicy.BLOCK).receiveToCommitRecorded(false);
+    }
+    Listener listener = builder.build();
+
+    if (replay) {
+      List<Path> logs = new ArrayList<>();
+      for (int i = 2; i < args.length; i++) {
+        logs.add(Paths.get(args[i]));
+      }
+      replayLogs(logs, listener, configuration);
+      listener.close();
+      try {
+        journal.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      pool.close();
+      if (metricsServer != null) {
+        metricsServer.close();
+      }
+      return;
+    }
+
+    if (metricsServer != null) {
+      Runtime.getRuntime().addShutdownHook(
+              new Thread(metricsServer::close, "ais-metrics-shutdown"));
+    }
+
+    new JournalReplayer(journal, listener.getWriter(), configuration.getBatchSize(),
+            configuration.getJournalReplayRate()).start();
+
+    try {
+      listener.newFeedClient(configuration.getFeeds(tcpServerPort)).start();
+    } catch (IOException e) {
+      System.err.println("Could not start reading from the kplex feeds.\n");
+      e.printStackTrace();
+      System.exit(3);
+    }
+  }
+
+  /**
+   * Loads kplex logs into the database through the writer. Exits if a log cannot be read.
+   */
+  private static void replayLogs(List<Path> logs, Listener listener,
+                                 ListenerConfiguration configuration)
+          throws InterruptedException {
+    try {
+      new LogReplayer(logs, listener.getWriter(), listener.getRecords(),
+              configuration.getReplayThreads(), configuration.getReplayChunkBytes()).replay();
+    } catch (IOException e) {
+      System.err.println("Could not read the logs to replay.\n");
+      e.printStackTrace();
+      System.exit(3);
+    }
+  }
+
+  /**
+   * Registers the ingest metrics with JMX and, if a port is configured, serves them for
+   * Prometheus. The server keeps the JVM running until it is closed.
+   *
+   * @return the metrics server, or null if no port is configured or it could not be started.
+   */
+  private static MetricsServer exposeIngestMetrics(int port) {
+    IngestMetrics metrics = IngestMetrics.get();
+    Listener.registerMBean(metrics, "IngestMetrics");
+    Listener.registerMBean(metrics.getDecodeTime(), "IngestLatency,name=decode");
+    Listener.registerMBean(metrics.getQueueWait(), "IngestLatency,name=queueWait");
+    Listener.registerMBean(metrics.getReceiveToCommit(), "IngestLatency,name=receiveToCommit");
+    Listener.registerMBean(metrics.getPipelinedInsert(), "IngestLatency,name=pipelinedInsert");
+    for (IngestMetrics.Table table : IngestMetrics.Table.values()) {
+      Listener.registerMBean(metrics.getInsertLatency(table),
+              "IngestLatency,name=insert_" + table.getTableName());
+      if (table != IngestMetrics.Table.MESSAGE_DATA) {
+        Listener.registerMBean(metrics.getLookupLatency(table),
+                "IngestLatency,name=lookup_" + table.getTableName());
+      }
+    }
+
+    if (port > 0) {
+      try {
+        return new MetricsServer(port, metrics);
+      } catch (IOException e) {
+        System.err.println("Could not serve metrics on port " + port + ".\n");
+        e.printStackTrace();
+      }
+    }
+    return null;
   }
 }
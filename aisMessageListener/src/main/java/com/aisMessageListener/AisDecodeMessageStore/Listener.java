@@ -0,0 +1,279 @@
+package com.aisMessageListener.AisDecodeMessageStore;
+
+import com.aisMessageListener.AisDecodeMessageStore.feed.AisFeedClient;
+import com.aisMessageListener.AisDecodeMessageStore.feed.DeadBandFilter;
+import com.aisMessageListener.AisDecodeMessageStore.feed.DuplicateFilter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.ConnectionPool;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionManager;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.cache.VesselDataCache;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.cache.VesselSignatureCache;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchDatabaseInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.CopyDatabaseInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.PlannedBatchInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.BatchingMessageWriter;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.OverflowPolicy;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.SpillJournal;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The listener's components from the lookup caches to the feed client, wired from a
+ * {@link ListenerConfiguration}: one inserter of the configured write mode per writer thread over
+ * shared, warmed-up caches, the batching writer, the record pool, and the duplicate and dead band
+ * filters. The Driver and the end-to-end benchmark both build the listener here, so that what is
+ * measured is what ships.
+ *
+ * <p>The database pool, the spill journal and the metrics belong to the caller, which closes them
+ * after closing the listener.</p>
+ */
+public final class Listener implements AutoCloseable {
+
+  private static final String MBEAN_DOMAIN = "com.aisMessageListener.AisDecodeMessageStore";
+
+  private final ListenerConfiguration configuration;
+  private final BatchingMessageWriter writer;
+  private final MessageRecordPool records;
+  private final DuplicateFilter duplicates;
+  private final DeadBandFilter deadBand;
+
+  private Listener(Builder builder) {
+    this.configuration = builder.configuration;
+    boolean jmx = builder.registerMBeans;
+
+    VesselSignatureCache vesselSignatures =
+            new VesselSignatureCache(configuration.getVesselSignatureCacheSize());
+    VesselDataCache vesselData = new VesselDataCache(configuration.getVesselDataCacheSize());
+    if (jmx) {
+      registerMBean(vesselSignatures, "VesselSignatureCache");
+      registerMBean(vesselData, "VesselDataCache");
+    }
+
+    // Each writer borrows a pooled connection per batch, so transactions never interleave.
+    List<BatchInserterInterface> inserters = new ArrayList<>();
+    for (int i = 0; i < configuration.getWriterThreads(); i++) {
+      DatabaseConnectionManager dbConnection =
+              new DatabaseConnectionManager(builder.pool, vesselSignatures, vesselData);
+      dbConnection.setKeyBlockSize(configuration.getKeyBlockSize());
+      if (i == 0) {
+        warmUpCaches(dbConnection);
+      }
+      switch (configuration.getWriteMode()) {
+        case COPY:
+          inserters.add(new CopyDatabaseInserter(dbConnection));
+          break;
+        case PLANNED:
+          inserters.add(new PlannedBatchInserter(dbConnection));
+          break;
+        default:
+          inserters.add(new BatchDatabaseInserter(dbConnection));
+          break;
+      }
+    }
+
+    writer = new BatchingMessageWriter(
+            inserters,
+            configuration.getBatchSize(),
+            configuration.getBatchLingerMillis(),
+            configuration.getQueueCapacity(),
+            configuration.getQueueWaitStrategy(),
+            builder.overflowPolicy != null ? builder.overflowPolicy
+                    : configuration.getQueueOverflowPolicy(),
+            builder.journal);
+    writer.setReceiveToCommitRecorded(builder.receiveToCommitRecorded);
+    writer.start();
+
+    // Enough records for every queued message and every batch being written at once.
+    records = new MessageRecordPool(configuration.getQueueCapacity()
+            + configuration.getWriterThreads() * configuration.getBatchSize());
+
+    duplicates = configuration.isDuplicateSuppressionEnabled()
+            ? new DuplicateFilter(configuration.getDuplicateWindowMillis(),
+                    configuration.getDuplicateExpectedMessages())
+            : null;
+
+    if (configuration.isDeadBandEnabled()) {
+      deadBand = new DeadBandFilter(configuration.getDeadBandDistanceMeters(),
+              configuration.getDeadBandSpeedKnots(), configuration.getDeadBandCourseDegrees(),
+              configuration.getDeadBandHeartbeatSeconds(), configuration.getDeadBandMaxVessels());
+      if (jmx) {
+        registerMBean(deadBand, "DeadBandFilter");
+      }
+    } else {
+      deadBand = null;
+    }
+  }
+
+  /**
+   * Starts building a listener.
+   *
+   * @param configuration the listener options.
+   * @param pool          the database connections the writers borrow from.
+   * @return the builder.
+   */
+  public static Builder builder(ListenerConfiguration configuration, ConnectionPool pool) {
+    return new Builder(configuration, pool);
+  }
+
+  /**
+   * Gets the started writer that messages are submitted or replayed to.
+   *
+   * @return the writer.
+   */
+  public BatchingMessageWriter getWriter() {
+    return writer;
+  }
+
+  /**
+   * Gets the pool that decoded messages are taken from.
+   *
+   * @return the record pool.
+   */
+  public MessageRecordPool getRecords() {
+    return records;
+  }
+
+  /**
+   * Gets the dead band filter the feed client uses.
+   *
+   * @return the filter, or null if the dead band is off.
+   */
+  public DeadBandFilter getDeadBandFilter() {
+    return deadBand;
+  }
+
+  /**
+   * Creates a client that reads the given feeds into the writer through the filters. Call
+   * {@link AisFeedClient#start()} to begin reading.
+   *
+   * @param feeds the kplex feeds to read.
+   * @return the client.
+   */
+  public AisFeedClient newFeedClient(List<InetSocketAddress> feeds) {
+    return new AisFeedClient(feeds, writer, records, duplicates, deadBand,
+            configuration.getReassemblyTimeoutMillis(), configuration.getDecodeThreads(),
+            configuration.getQueueWaitStrategy());
+  }
+
+  /**
+   * Stops the writers once the queue has been drained.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer threads.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    writer.close();
+  }
+
+  /**
+   * Exposes a component's metrics over JMX under the listener's domain.
+   *
+   * @param mbean the component.
+   * @param type  the type key of its object name.
+   */
+  static void registerMBean(Object mbean, String type) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(mbean,
+              new ObjectName(MBEAN_DOMAIN + ":type=" + type));
+    } catch (JMException e) {
+      System.err.println("Could not register " + type + " metrics with JMX.\n");
+    }
+  }
+
+  /**
+   * Preloads the lookup caches. Failure is not fatal; the caches fill as messages arrive.
+   */
+  private static void warmUpCaches(DatabaseConnectionManager dbConnection) {
+    try {
+      int signatures = dbConnection.warmUpVesselSignatureCache();
+      int dimensions = dbConnection.warmUpVesselDataCache();
+      System.out.println("Loaded " + signatures + " vessel signatures and " + dimensions
+              + " vessel dimensions into the lookup caches.");
+    } catch (SQLException e) {
+      System.err.println("Could not warm up the lookup caches.\n");
+      e.printStackTrace();
+    } finally {
+      dbConnection.releaseConnection();
+    }
+  }
+
+  /**
+   * Options of a listener that are not in its configuration.
+   */
+  public static final class Builder {
+    private final ListenerConfiguration configuration;
+    private final ConnectionPool pool;
+    private SpillJournal journal;
+    private OverflowPolicy overflowPolicy;
+    private boolean receiveToCommitRecorded = true;
+    private boolean registerMBeans;
+
+    private Builder(ListenerConfiguration configuration, ConnectionPool pool) {
+      this.configuration = configuration;
+      this.pool = pool;
+    }
+
+    /**
+     * Sets where messages go while the database is unreachable. Required unless the overflow
+     * policy is BLOCK or DROP_OLDEST, in which case a lost connection stops the listener.
+     *
+     * @param journal the spill journal.
+     * @return this builder.
+     */
+    public Builder journal(SpillJournal journal) {
+      this.journal = journal;
+      return this;
+    }
+
+    /**
+     * Overrides the configured queue overflow policy.
+     *
+     * @param overflowPolicy what to do with a message when the queue is full.
+     * @return this builder.
+     */
+    public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+      return this;
+    }
+
+    /**
+     * Sets whether the time from each message being received to its commit is recorded.
+     *
+     * @param recorded false when messages were not received live; true by default.
+     * @return this builder.
+     * @see BatchingMessageWriter#setReceiveToCommitRecorded(boolean)
+     */
+    public Builder receiveToCommitRecorded(boolean recorded) {
+      this.receiveToCommitRecorded = recorded;
+      return this;
+    }
+
+    /**
+     * Registers the caches and the dead band filter with JMX. Off by default, since a component
+     * can only be registered once per JVM.
+     *
+     * @return this builder.
+     */
+    public Builder registerMBeans() {
+      this.registerMBeans = true;
+      return this;
+    }
+
+    /**
+     * Wires the listener, warms up the lookup caches and starts the writers.
+     *
+     * @return the listener.
+     */
+    public Listener build() {
+      return new Listener(this);
+    }
+  }
+}
@@ -0,0 +1,492 @@
+package com.aisMessageListener.AisDecodeMessageStore;
+
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.OverflowPolicy;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.WaitStrategies;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.WaitStrategy;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tuning options for the message listener. Database credentials and the default kplex port are
+ * still read from the credentials file by {@link Driver}; everything here has a sensible default
+ * and can be overridden with a JVM system property, e.g. {@code -Dais.batch.size=500}.
+ */
+public final class ListenerConfiguration {
+
+  static final String BATCH_SIZE = "ais.batch.size";
+  static final String BATCH_LINGER_MILLIS = "ais.batch.lingerMillis";
+  static final String WRITE_MODE = "ais.write.mode";
+  static final String WRITER_THREADS = "ais.writer.threads";
+  static final String QUEUE_CAPACITY = "ais.queue.capacity";
+  static final String QUEUE_WAIT_STRATEGY = "ais.queue.waitStrategy";
+  static final String QUEUE_OVERFLOW = "ais.queue.overflow";
+  static final String JOURNAL_DIR = "ais.journal.dir";
+  static final String JOURNAL_SEGMENT_BYTES = "ais.journal.segmentBytes";
+  static final String JOURNAL_REPLAY_RATE = "ais.journal.replayRate";
+  static final String VESSEL_SIGNATURE_CACHE_SIZE = "ais.cache.vesselSignatures";
+  static final String VESSEL_DATA_CACHE_SIZE = "ais.cache.vesselData";
+  static final String KEY_BLOCK_SIZE = "ais.keys.blockSize";
+  static final String DB_POOL_SIZE = "ais.db.poolSize";
+  static final String DB_VALIDATION_INTERVAL_MILLIS = "ais.db.validationIntervalMillis";
+  static final String FEEDS = "ais.feeds";
+  static final String DEDUP_ENABLED = "ais.dedup.enabled";
+  static final String DEDUP_WINDOW_MILLIS = "ais.dedup.windowMillis";
+  static final String DEDUP_EXPECTED_MESSAGES = "ais.dedup.expectedMessages";
+  static final String DEADBAND_ENABLED = "ais.deadband.enabled";
+  static final String DEADBAND_DISTANCE_METERS = "ais.deadband.distanceMeters";
+  static final String DEADBAND_SPEED_KNOTS = "ais.deadband.speedKnots";
+  static final String DEADBAND_COURSE_DEGREES = "ais.deadband.courseDegrees";
+  static final String DEADBAND_HEARTBEAT_SECONDS = "ais.deadband.heartbeatSeconds";
+  static final String DEADBAND_MAX_VESSELS = "ais.deadband.maxVessels";
+  static final String REASSEMBLY_TIMEOUT_MILLIS = "ais.reassembly.timeoutMillis";
+  static final String DECODE_THREADS = "ais.decode.threads";
+  static final String REPLAY_THREADS = "ais.replay.threads";
+  static final String REPLAY_CHUNK_BYTES = "ais.replay.chunkBytes";
+  static final String METRICS_PORT = "ais.metrics.port";
+
+  private static final int DEFAULT_BATCH_SIZE = 250;
+  private static final long DEFAULT_BATCH_LINGER_MILLIS = 200;
+  private static final int DEFAULT_WRITER_THREADS = 1;
+  private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+  private static final String DEFAULT_QUEUE_WAIT_STRATEGY = "blocking";
+  private static final String DEFAULT_JOURNAL_DIR = "ais-journal";
+  private static final int DEFAULT_JOURNAL_SEGMENT_BYTES = 16 * 1024 * 1024;
+  private static final long DEFAULT_JOURNAL_REPLAY_RATE = 2000;
+  private static final int DEFAULT_VESSEL_SIGNATURE_CACHE_SIZE = 4096;
+  private static final int DEFAULT_VESSEL_DATA_CACHE_SIZE = 65536;
+  private static final int DEFAULT_KEY_BLOCK_SIZE = 1000;
+  private static final long DEFAULT_DB_VALIDATION_INTERVAL_MILLIS = 30000;
+  private static final long DEFAULT_DEDUP_WINDOW_MILLIS = 10000;
+  private static final int DEFAULT_DEDUP_EXPECTED_MESSAGES = 65536;
+  private static final double DEFAULT_DEADBAND_DISTANCE_METERS = 10;
+  private static final double DEFAULT_DEADBAND_SPEED_KNOTS = 0.5;
+  private static final double DEFAULT_DEADBAND_COURSE_DEGREES = 5;
+  private static final long DEFAULT_DEADBAND_HEARTBEAT_SECONDS = 180;
+  private static final int DEFAULT_DEADBAND_MAX_VESSELS = 65536;
+  private static final long DEFAULT_REASSEMBLY_TIMEOUT_MILLIS = 5000;
+  private static final int DEFAULT_DECODE_THREADS = 1;
+  private static final long DEFAULT_REPLAY_CHUNK_BYTES = 8 * 1024 * 1024;
+  private static final long MAX_REPLAY_CHUNK_BYTES = 1024 * 1024 * 1024;
+  private static final int MAX_PORT = 65535;
+
+  private final Properties properties;
+
+  /**
+   * How batches are sent to the database. INSERT sends JDBC statement batches; COPY streams rows
+   * with PostgreSQL's bulk load protocol and suits backfills and very high-rate feeds; PLANNED
+   * writes each message with a single statement that resolves the lookup tables on the server.
+   */
+  public enum WriteMode {
+    INSERT, COPY, PLANNED
+  }
+
+  /**
+   * Creates a configuration backed by the provided properties.
+   *
+   * @param properties the properties to read options from.
+   */
+  public ListenerConfiguration(Properties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Creates a configuration backed by the JVM system properties.
+   *
+   * @return the listener configuration.
+   */
+  public static ListenerConfiguration fromSystemProperties() {
+    return new ListenerConfiguration(System.getProperties());
+  }
+
+  /**
+   * Gets the largest number of messages that will be written to the database in one transaction.
+   *
+   * @return the batch size, at least 1.
+   */
+  public int getBatchSize() {
+    return (int) getPositiveLong(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Gets the longest time a received message will wait for its batch to fill before the batch is
+   * written anyway.
+   *
+   * @return the linger time in milliseconds.
+   */
+  public long getBatchLingerMillis() {
+    return getPositiveLong(BATCH_LINGER_MILLIS, DEFAULT_BATCH_LINGER_MILLIS);
+  }
+
+  /**
+   * Gets how batches are sent to the database.
+   *
+   * @return the write mode, INSERT by default.
+   * @throws IllegalArgumentException if the option is not a known write mode.
+   */
+  public WriteMode getWriteMode() {
+    String value = properties.getProperty(WRITE_MODE, WriteMode.INSERT.name());
+    try {
+      return WriteMode.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+              WRITE_MODE + " must be 'insert', 'copy' or 'planned'.", e);
+    }
+  }
+
+  /**
+   * Gets the number of database writer threads. Messages are routed to writers by MMSI, so each
+   * vessel's messages are written in the order they were received.
+   *
+   * @return the writer thread count, at least 1.
+   */
+  public int getWriterThreads() {
+    return (int) getPositiveLong(WRITER_THREADS, DEFAULT_WRITER_THREADS);
+  }
+
+  /**
+   * Gets the number of decoded messages that can wait for a writer, rounded up to a power of two
+   * by the queue.
+   *
+   * @return the queue capacity.
+   */
+  public int getQueueCapacity() {
+    return (int) getPositiveLong(QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Gets how idle writer threads wait: busy-spin, yielding, sleeping or blocking.
+   *
+   * @return a new wait strategy.
+   * @throws IllegalArgumentException if the option is not a known wait strategy.
+   */
+  public WaitStrategy getQueueWaitStrategy() {
+    return WaitStrategies.forName(
+            properties.getProperty(QUEUE_WAIT_STRATEGY, DEFAULT_QUEUE_WAIT_STRATEGY));
+  }
+
+  /**
+   * Gets what the decoder does when the writer queue is full: block, drop-oldest or spill.
+   *
+   * @return the overflow policy, BLOCK by default.
+   * @throws IllegalArgumentException if the option is not a known overflow policy.
+   */
+  public OverflowPolicy getQueueOverflowPolicy() {
+    String value = properties.getProperty(QUEUE_OVERFLOW, OverflowPolicy.BLOCK.name());
+    try {
+      return OverflowPolicy.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+              QUEUE_OVERFLOW + " must be 'block', 'drop-oldest' or 'spill'.", e);
+    }
+  }
+
+  /**
+   * Gets the directory of the spill journal, which holds messages while the database is
+   * unreachable and, under the spill overflow policy, while the queue is full.
+   *
+   * @return the journal directory.
+   */
+  public Path getJournalDirectory() {
+    return Paths.get(properties.getProperty(JOURNAL_DIR, DEFAULT_JOURNAL_DIR));
+  }
+
+  /**
+   * Gets the size of each memory-mapped journal segment file.
+   *
+   * @return the segment size in bytes.
+   */
+  public int getJournalSegmentBytes() {
+    long bytes = getPositiveLong(JOURNAL_SEGMENT_BYTES, DEFAULT_JOURNAL_SEGMENT_BYTES);
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(JOURNAL_SEGMENT_BYTES + " must be less than 2 GiB.");
+    }
+    return (int) bytes;
+  }
+
+  /**
+   * Gets the fastest rate at which journaled messages are replayed once the database is back.
+   *
+   * @return the replay rate in messages per second.
+   */
+  public long getJournalReplayRate() {
+    return getPositiveLong(JOURNAL_REPLAY_RATE, DEFAULT_JOURNAL_REPLAY_RATE);
+  }
+
+  /**
+   * Gets the number of vessel_signature keys cached for each kind of lookup, by MMSI alone and
+   * by full signature.
+   *
+   * @return the cache capacity.
+   */
+  public int getVesselSignatureCacheSize() {
+    return (int) getPositiveLong(VESSEL_SIGNATURE_CACHE_SIZE, DEFAULT_VESSEL_SIGNATURE_CACHE_SIZE);
+  }
+
+  /**
+   * Gets the number of vessel dimension tuples whose vessel_data keys are cached.
+   *
+   * @return the cache capacity.
+   */
+  public int getVesselDataCacheSize() {
+    return (int) getPositiveLong(VESSEL_DATA_CACHE_SIZE, DEFAULT_VESSEL_DATA_CACHE_SIZE);
+  }
+
+  /**
+   * Gets the number of primary keys each connection reserves from a table's sequence at a time.
+   *
+   * @return the key block size.
+   */
+  public int getKeyBlockSize() {
+    return (int) getPositiveLong(KEY_BLOCK_SIZE, DEFAULT_KEY_BLOCK_SIZE);
+  }
+
+  /**
+   * Gets the number of pooled database connections. Defaults to one per writer thread plus one
+   * spare, so a connection is free while a writer's is being replaced.
+   *
+   * @return the pool size, at least 1.
+   */
+  public int getDatabasePoolSize() {
+    return (int) getPositiveLong(DB_POOL_SIZE, getWriterThreads() + 1);
+  }
+
+  /**
+   * Gets how often idle pooled connections are checked with the database server.
+   *
+   * @return the validation interval in milliseconds.
+   */
+  public long getDatabaseValidationIntervalMillis() {
+    return getPositiveLong(DB_VALIDATION_INTERVAL_MILLIS, DEFAULT_DB_VALIDATION_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Gets the kplex servers to read messages from, given as a comma-separated list of host:port
+   * pairs, e.g. {@code -Dais.feeds=localhost:10110,localhost:10111}. Host names are not resolved
+   * here.
+   *
+   * @param defaultPort the loopback port to read from if no feeds are configured.
+   * @return the feed addresses, at least one.
+   * @throws IllegalArgumentException if an entry is not a valid host:port pair.
+   */
+  public List<InetSocketAddress> getFeeds(int defaultPort) {
+    List<InetSocketAddress> feeds = new ArrayList<>();
+    String value = properties.getProperty(FEEDS, "");
+    for (String entry : value.split(",")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) {
+        continue;
+      }
+
+      int separator = entry.lastIndexOf(':');
+      if (separator <= 0) {
+        throw new IllegalArgumentException(FEEDS + " entries must be host:port, got '" + entry
+                + "'.");
+      }
+      try {
+        feeds.add(InetSocketAddress.createUnresolved(entry.substring(0, separator),
+                Integer.parseInt(entry.substring(separator + 1))));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(FEEDS + " entries must be host:port, got '" + entry
+                + "'.", e);
+      }
+    }
+
+    if (feeds.isEmpty()) {
+      feeds.add(InetSocketAddress.createUnresolved(
+              InetAddress.getLoopbackAddress().getHostAddress(), defaultPort));
+    }
+    return feeds;
+  }
+
+  /**
+   * Checks whether copies of a transmission received on both channels or from several feeds are
+   * dropped before they are written.
+   *
+   * @return true unless the option is set to false.
+   */
+  public boolean isDuplicateSuppressionEnabled() {
+    return Boolean.parseBoolean(properties.getProperty(DEDUP_ENABLED, "true").trim());
+  }
+
+  /**
+   * Gets how long a received message is remembered when looking for duplicates.
+   *
+   * @return the duplicate window in milliseconds.
+   */
+  public long getDuplicateWindowMillis() {
+    return getPositiveLong(DEDUP_WINDOW_MILLIS, DEFAULT_DEDUP_WINDOW_MILLIS);
+  }
+
+  /**
+   * Gets the number of distinct messages expected in half a duplicate window, which sizes the
+   * duplicate filter.
+   *
+   * @return the expected message count.
+   */
+  public int getDuplicateExpectedMessages() {
+    return (int) getPositiveLong(DEDUP_EXPECTED_MESSAGES, DEFAULT_DEDUP_EXPECTED_MESSAGES);
+  }
+
+  /**
+   * Checks whether position reports from vessels that have not noticeably moved are thinned
+   * before they are written.
+   *
+   * @return true if the option is set to true; off by default.
+   */
+  public boolean isDeadBandEnabled() {
+    return Boolean.parseBoolean(properties.getProperty(DEADBAND_ENABLED, "false").trim());
+  }
+
+  /**
+   * Gets how far a vessel must move before its position is stored again.
+   *
+   * @return the distance threshold in meters.
+   */
+  public double getDeadBandDistanceMeters() {
+    return getPositiveDouble(DEADBAND_DISTANCE_METERS, DEFAULT_DEADBAND_DISTANCE_METERS);
+  }
+
+  /**
+   * Gets how much a vessel's speed over ground must change before its position is stored again.
+   *
+   * @return the speed threshold in knots.
+   */
+  public double getDeadBandSpeedKnots() {
+    return getPositiveDouble(DEADBAND_SPEED_KNOTS, DEFAULT_DEADBAND_SPEED_KNOTS);
+  }
+
+  /**
+   * Gets how much a moving vessel's course over ground must change before its position is stored
+   * again.
+   *
+   * @return the course threshold in degrees.
+   */
+  public double getDeadBandCourseDegrees() {
+    return getPositiveDouble(DEADBAND_COURSE_DEGREES, DEFAULT_DEADBAND_COURSE_DEGREES);
+  }
+
+  /**
+   * Gets the longest time between stored position reports for a vessel, however still it is.
+   *
+   * @return the heartbeat interval in seconds.
+   */
+  public long getDeadBandHeartbeatSeconds() {
+    return getPositiveLong(DEADBAND_HEARTBEAT_SECONDS, DEFAULT_DEADBAND_HEARTBEAT_SECONDS);
+  }
+
+  /**
+   * Gets the number of vessels whose last stored position the dead-band filter remembers.
+   *
+   * @return the vessel capacity.
+   */
+  public int getDeadBandMaxVessels() {
+    return (int) getPositiveLong(DEADBAND_MAX_VESSELS, DEFAULT_DEADBAND_MAX_VESSELS);
+  }
+
+  /**
+   * Gets how long the first parts of a multi-part message wait for the rest before they are
+   * dropped.
+   *
+   * @return the reassembly timeout in milliseconds.
+   */
+  public long getReassemblyTimeoutMillis() {
+    return getPositiveLong(REASSEMBLY_TIMEOUT_MILLIS, DEFAULT_REASSEMBLY_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Gets the number of threads that decode the feeds' messages. With more than one, the selector
+   * thread only frames sentences and hands them to decoding threads by MMSI, so each vessel's
+   * messages are still decoded and written in the order they were received.
+   *
+   * @return the decoding thread count; 1, the default, decodes on the selector thread.
+   */
+  public int getDecodeThreads() {
+    return (int) getPositiveLong(DECODE_THREADS, DEFAULT_DECODE_THREADS);
+  }
+
+  /**
+   * Gets the number of threads that decode logs in replay mode.
+   *
+   * @return the decoding thread count, one per processor by default.
+   */
+  public int getReplayThreads() {
+    return (int) getPositiveLong(REPLAY_THREADS, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Gets the size of the pieces logs are split into for decoding in replay mode.
+   *
+   * @return the chunk size in bytes.
+   */
+  public long getReplayChunkBytes() {
+    long bytes = getPositiveLong(REPLAY_CHUNK_BYTES, DEFAULT_REPLAY_CHUNK_BYTES);
+    if (bytes > MAX_REPLAY_CHUNK_BYTES) {
+      throw new IllegalArgumentException(REPLAY_CHUNK_BYTES + " must be at most 1 GiB.");
+    }
+    return bytes;
+  }
+
+  /**
+   * Gets the loopback port on which the ingest metrics are served for Prometheus, at
+   * {@code /metrics}. They are always available over JMX.
+   *
+   * @return the port, or 0, the default, to not serve them over HTTP.
+   */
+  public int getMetricsPort() {
+    long port = getPositiveLong(METRICS_PORT, 0);
+    if (port > MAX_PORT) {
+      throw new IllegalArgumentException(METRICS_PORT + " must be at most " + MAX_PORT + ".");
+    }
+    return (int) port;
+  }
+
+  /**
+   * Reads a numeric option, falling back to the default if it is missing.
+   *
+   * @throws IllegalArgumentException if the option is set but is not a positive number.
+   */
+  private long getPositiveLong(String name, long defaultValue) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      long parsed = Long.parseLong(value.trim());
+      if (parsed < 1) {
+        throw new IllegalArgumentException(name + " must be at least 1.");
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a whole number.", e);
+    }
+  }
+
+  /**
+   * Reads a decimal option, falling back to the default if it is missing.
+   *
+   * @throws IllegalArgumentException if the option is set but is not a positive number.
+   */
+  private double getPositiveDouble(String name, double defaultValue) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      double parsed = Double.parseDouble(value.trim());
+      if (!(parsed > 0) || Double.isInfinite(parsed)) {
+        throw new IllegalArgumentException(name + " must be greater than 0.");
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number.", e);
+    }
+  }
+}
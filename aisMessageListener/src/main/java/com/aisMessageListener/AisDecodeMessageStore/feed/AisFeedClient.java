@@ -0,0 +1,157 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.BatchingMessageWriter;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.WaitStrategy;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A TCP client that reads AIS messages from one or more kplex NMEA multiplexers and uses them to
+ * update the message database. Each kplex server is usually a Raspberry Pi receiving messages from
+ * an AIS receiver over USB-Serial, reached through an ssh tunnel.
+ *
+ * <p>All feeds are read by a single thread with a {@link Selector}. Each feed reconnects on its
+ * own, backing off while its server stays unreachable, without holding up the others. With one
+ * decoding thread, the selector thread also decodes and submits to the
+ * {@link BatchingMessageWriter}; with more, a {@link DecodeStage} decodes on that many workers,
+ * each owning a share of the MMSIs so that every vessel's messages keep their order.</p>
+ *
+ * <p>With a {@link DuplicateFilter}, copies of a transmission already received on the other radio
+ * channel or from another feed are dropped before they are queued for the database. With a
+ * {@link DeadBandFilter}, position reports from vessels that have not noticeably moved are thinned
+ * as well.</p>
+ */
+public final class AisFeedClient {
+
+  private static final String MBEAN_NAME =
+          "com.aisMessageListener.AisDecodeMessageStore:type=Feed,name=";
+  private static final long TICK_MILLIS = 1000;
+
+  private final BatchingMessageWriter writer;
+  private final DeadBandFilter deadBand;
+  private final DecodeStage stage;
+  private final List<Feed> feeds = new ArrayList<>();
+
+  /**
+   * Creates a client for the provided feeds.
+   *
+   * @param feeds                   the kplex servers to read from. Host names are resolved on each
+   *                                connection attempt.
+   * @param writer                  the started writer that groups messages into database
+   *                                transactions.
+   * @param records                 the pool that decoded messages are copied into.
+   * @param duplicates              the filter for repeated transmissions, or null to write every
+   *                                message.
+   * @param deadBand                the filter for stationary vessels' position reports, or null
+   *                                to write every position report.
+   * @param reassemblyTimeoutMillis how long the first parts of a multi-part message wait for the
+   *                                rest.
+   * @param decodeThreads           the number of threads that decode messages; 1 decodes on the
+   *                                selector thread.
+   * @param waitStrategy            how idle decoding threads wait, when there is more than one.
+   */
+  public AisFeedClient(List<InetSocketAddress> feeds, BatchingMessageWriter writer,
+                       MessageRecordPool records, DuplicateFilter duplicates,
+                       DeadBandFilter deadBand, long reassemblyTimeoutMillis,
+                       int decodeThreads, WaitStrategy waitStrategy) {
+    if (feeds.isEmpty()) {
+      throw new IllegalArgumentException("At least one feed is required.");
+    }
+    this.writer = writer;
+    this.deadBand = deadBand;
+    this.stage = decodeThreads > 1
+            ? new DecodeStage(decodeThreads, records, this::insertMessageIntoDatabase,
+                    waitStrategy)
+            : null;
+    for (InetSocketAddress address : feeds) {
+      this.feeds.add(new Feed(address.getHostString(), address.getPort(), records, duplicates,
+              stage, this::insertMessageIntoDatabase, reassemblyTimeoutMillis));
+    }
+  }
+
+  /**
+   * Registers the feed metrics with JMX, then reads from every feed until the thread is
+   * interrupted. Received messages are forwarded to the batching writer for database update.
+   *
+   * @throws IOException          if the selector cannot be opened.
+   * @throws InterruptedException if interrupted while waiting for the decoding threads to finish.
+   */
+  public void start() throws IOException, InterruptedException {
+    for (Feed feed : feeds) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(feed,
+                new ObjectName(MBEAN_NAME + ObjectName.quote(feed.getAddress())));
+      } catch (JMException e) {
+        System.err.println("Could not register metrics for feed " + feed.getAddress()
+                + " with JMX.\n");
+      }
+    }
+
+    if (stage != null) {
+      stage.start();
+    }
+    try (Selector selector = Selector.open()) {
+      while (!Thread.currentThread().isInterrupted()) {
+        long now = System.nanoTime();
+        for (Feed feed : feeds) {
+          feed.tick(selector, now);
+        }
+
+        selector.select(TICK_MILLIS);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          Feed feed = (Feed) key.attachment();
+          if (key.isConnectable()) {
+            feed.finishConnect(key);
+          } else if (key.isReadable()) {
+            feed.read();
+          }
+        }
+      }
+    } finally {
+      for (Feed feed : feeds) {
+        feed.close();
+      }
+      if (stage != null) {
+        stage.close();
+      }
+    }
+  }
+
+  /**
+   * Queues a decoded AIS message to be inserted into the database with the next batch, unless it
+   * is inside the dead band. Blocks while the writer is behind, which in turn applies backpressure
+   * to every feed. Called by the thread that decoded the message.
+   *
+   * @param record a decoded AIS message.
+   */
+  private void insertMessageIntoDatabase(MessageRecord record) {
+    if (deadBand != null && !deadBand.shouldStore(record)) {
+      record.recycle();
+      return;
+    }
+
+    try {
+      writer.submit(record);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageCapabilities;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thins the position reports of vessels that are not going anywhere. Moored and anchored vessels
+ * report every few seconds with practically the same position, speed and course; this filter
+ * remembers the last position report stored for each MMSI and drops new ones until the vessel has
+ * moved, changed speed, course or navigation status by more than the configured thresholds, or
+ * until the heartbeat interval has passed since the last stored report.
+ *
+ * <p>Course changes are ignored while the vessel is below the speed threshold, as the course over
+ * ground of a stationary vessel is noise. Static and voyage data always passes, and is used to
+ * classify vessels for the reduction statistics.</p>
+ *
+ * <p>Per-vessel state is kept in primitive arrays indexed through an open-addressing table. When
+ * the table is full it is cleared, which at worst stores one extra report per vessel. Messages are
+ * checked one at a time, so the filter can be shared by the feed client's decoding threads; since
+ * each vessel is decoded by one thread, its reports are still checked in order.</p>
+ */
+public final class DeadBandFilter implements DeadBandFilterMXBean {
+
+  /**
+   * Vessel classes reported in the statistics, from the AIS ship type.
+   */
+  public enum VesselClass {
+    UNKNOWN, FISHING, TUG_AND_SERVICE, PLEASURE, HIGH_SPEED, PASSENGER, CARGO, TANKER, OTHER;
+
+    /**
+     * Classifies an AIS ship type code.
+     *
+     * @param shipType the ship type from static and voyage data.
+     * @return the vessel class.
+     */
+    public static VesselClass fromShipType(int shipType) {
+      if (shipType == 30) {
+        return FISHING;
+      } else if (shipType == 31 || shipType == 32 || (shipType >= 50 && shipType <= 59)) {
+        return TUG_AND_SERVICE;
+      } else if (shipType == 36 || shipType == 37) {
+        return PLEASURE;
+      } else if (shipType >= 40 && shipType <= 49) {
+        return HIGH_SPEED;
+      } else if (shipType >= 60 && shipType <= 69) {
+        return PASSENGER;
+      } else if (shipType >= 70 && shipType <= 79) {
+        return CARGO;
+      } else if (shipType >= 80 && shipType <= 89) {
+        return TANKER;
+      } else if (shipType <= 0) {
+        return UNKNOWN;
+      }
+      return OTHER;
+    }
+  }
+
+  private static final double EARTH_RADIUS_METERS = 6371000;
+  private static final long NEVER = Long.MIN_VALUE;
+  private static final VesselClass[] CLASSES = VesselClass.values();
+  private static final int POSITION_REPORT =
+          MessageCapabilities.GEOSPATIAL_DATA | MessageCapabilities.NAVIGATION_DATA;
+
+  private final double distanceMeters;
+  private final float speedKnots;
+  private final float courseDegrees;
+  private final long heartbeatMillis;
+  private final int capacity;
+  private final int mask;
+
+  private final int[] table;
+  private final int[] mmsis;
+  private final float[] lats;
+  private final float[] lons;
+  private final float[] speeds;
+  private final float[] courses;
+  private final int[] navStatuses;
+  private final long[] storedAt;
+  private final byte[] classes;
+  private volatile int size;
+
+  private final AtomicLongArray seen = new AtomicLongArray(CLASSES.length);
+  private final AtomicLongArray suppressed = new AtomicLongArray(CLASSES.length);
+
+  /**
+   * Creates a filter.
+   *
+   * @param distanceMeters   how far a vessel must move before its position is stored again.
+   * @param speedKnots       how much its speed over ground must change.
+   * @param courseDegrees    how much its course over ground must change while under way.
+   * @param heartbeatSeconds the longest time between stored reports for a vessel.
+   * @param maxVessels       the number of vessels tracked before the state is cleared.
+   */
+  public DeadBandFilter(double distanceMeters, double speedKnots, double courseDegrees,
+                        long heartbeatSeconds, int maxVessels) {
+    if (maxVessels < 1 || maxVessels > (1 << 29)) {
+      throw new IllegalArgumentException("Vessel capacity must be between 1 and 2^29.");
+    }
+    this.distanceMeters = distanceMeters;
+    this.speedKnots = (float) speedKnots;
+    this.courseDegrees = (float) courseDegrees;
+    this.heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+    this.capacity = maxVessels;
+
+    // At most half full, so probe sequences stay short.
+    int tableSize = Integer.highestOneBit(maxVessels * 2 - 1) << 1;
+    this.table = new int[tableSize];
+    this.mask = tableSize - 1;
+    this.mmsis = new int[maxVessels];
+    this.lats = new float[maxVessels];
+    this.lons = new float[maxVessels];
+    this.speeds = new float[maxVessels];
+    this.courses = new float[maxVessels];
+    this.navStatuses = new int[maxVessels];
+    this.storedAt = new long[maxVessels];
+    this.classes = new byte[maxVessels];
+  }
+
+  /**
+   * Decides whether a message should be written. Position reports are checked against the
+   * vessel's last stored report; every other message is written.
+   *
+   * @param message a decoded message.
+   * @return false if the message is a position report inside the dead band.
+   */
+  public synchronized boolean shouldStore(MessageDataInterface message) {
+    if (message.hasCapabilities(MessageCapabilities.VESSEL_SIGNATURE)) {
+      recordShipType(message);
+      return true;
+    }
+    if (!message.hasCapabilities(POSITION_REPORT)) {
+      return true;
+    }
+
+    float lat = message.getLatValue();
+    float lon = message.getLongValue();
+    float speed = message.getSpeedOverGroundValue();
+    float course = message.getCourseOverGroundValue();
+    if (Float.isNaN(lat) || Float.isNaN(lon) || Float.isNaN(speed) || Float.isNaN(course)) {
+      return true;
+    }
+
+    int vessel = vesselFor(message.getMMSI());
+    int vesselClass = classes[vessel];
+    seen.incrementAndGet(vesselClass);
+    long now = message.getTimeReceivedMillis();
+    int navStatus = message.getNavStatusId();
+
+    if (storedAt[vessel] != NEVER && navStatus == navStatuses[vessel]
+            && now - storedAt[vessel] < heartbeatMillis
+            && Math.abs(speed - speeds[vessel]) <= speedKnots
+            && (speed < speedKnots || courseChange(course, courses[vessel]) <= courseDegrees)
+            && distance(lat, lon, lats[vessel], lons[vessel]) <= distanceMeters) {
+      suppressed.incrementAndGet(vesselClass);
+      return false;
+    }
+
+    lats[vessel] = lat;
+    lons[vessel] = lon;
+    speeds[vessel] = speed;
+    courses[vessel] = course;
+    navStatuses[vessel] = navStatus;
+    storedAt[vessel] = now;
+    return true;
+  }
+
+  @Override
+  public int getTrackedVessels() {
+    return size;
+  }
+
+  @Override
+  public long getPositionReportsSeen() {
+    return sum(seen);
+  }
+
+  @Override
+  public long getPositionReportsSuppressed() {
+    return sum(suppressed);
+  }
+
+  @Override
+  public double getReductionRatio() {
+    return ratio(getPositionReportsSuppressed(), getPositionReportsSeen());
+  }
+
+  @Override
+  public Map<String, Double> getReductionRatioByVesselClass() {
+    Map<String, Double> ratios = new LinkedHashMap<>();
+    for (VesselClass vesselClass : CLASSES) {
+      int i = vesselClass.ordinal();
+      ratios.put(vesselClass.name(), ratio(suppressed.get(i), seen.get(i)));
+    }
+    return ratios;
+  }
+
+  private void recordShipType(MessageDataInterface message) {
+    Optional<Integer> shipType = message.getVesselTypeId();
+    if (shipType.isPresent()) {
+      classes[vesselFor(message.getMMSI())] =
+              (byte) VesselClass.fromShipType(shipType.get()).ordinal();
+    }
+  }
+
+  /**
+   * Finds the vessel's state, adding empty state if it is not tracked yet.
+   */
+  private int vesselFor(int mmsi) {
+    int slot = slotFor(mmsi);
+    while (table[slot] != 0) {
+      int vessel = table[slot] - 1;
+      if (mmsis[vessel] == mmsi) {
+        return vessel;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (size == capacity) {
+      Arrays.fill(table, 0);
+      size = 0;
+      slot = slotFor(mmsi);
+    }
+    int vessel = size++;
+    table[slot] = vessel + 1;
+    mmsis[vessel] = mmsi;
+    storedAt[vessel] = NEVER;
+    classes[vessel] = (byte) VesselClass.UNKNOWN.ordinal();
+    return vessel;
+  }
+
+  private int slotFor(int mmsi) {
+    int hash = mmsi * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Gets the smallest angle between two courses, in degrees.
+   */
+  private static float courseChange(float a, float b) {
+    float change = Math.abs(a - b) % 360;
+    return change > 180 ? 360 - change : change;
+  }
+
+  /**
+   * Gets the distance between two nearby positions in meters, using an equirectangular
+   * approximation that is accurate at the scale of the dead band.
+   */
+  private static double distance(float lat1, float lon1, float lat2, float lon2) {
+    double meanLat = Math.toRadians((lat1 + lat2) / 2.0);
+    double x = Math.toRadians(lon1 - lon2) * Math.cos(meanLat);
+    double y = Math.toRadians(lat1 - lat2);
+    return Math.sqrt(x * x + y * y) * EARTH_RADIUS_METERS;
+  }
+
+  private static long sum(AtomicLongArray counts) {
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  private static double ratio(long part, long whole) {
+    return whole == 0 ? 0 : (double) part / whole;
+  }
+}
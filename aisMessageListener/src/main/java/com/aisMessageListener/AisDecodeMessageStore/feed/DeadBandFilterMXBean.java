@@ -0,0 +1,47 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import java.util.Map;
+
+/**
+ * JMX view of the dead-band position filter.
+ */
+public interface DeadBandFilterMXBean {
+
+  /**
+   * Gets the number of vessels whose last stored position is remembered.
+   *
+   * @return the tracked vessel count.
+   */
+  int getTrackedVessels();
+
+  /**
+   * Gets the number of Class A position reports checked by the filter.
+   *
+   * @return the total since startup.
+   */
+  long getPositionReportsSeen();
+
+  /**
+   * Gets the number of position reports that were not written because the vessel had not
+   * noticeably moved or changed state.
+   *
+   * @return the total since startup.
+   */
+  long getPositionReportsSuppressed();
+
+  /**
+   * Gets the share of position reports that were not written.
+   *
+   * @return the suppressed fraction, 0 to 1.
+   */
+  double getReductionRatio();
+
+  /**
+   * Gets the share of position reports that were not written for each class of vessel, based on
+   * the ship type from the vessel's static data. Vessels whose static data has not been received
+   * are counted as UNKNOWN.
+   *
+   * @return the suppressed fraction, 0 to 1, by vessel class.
+   */
+  Map<String, Double> getReductionRatioByVesselClass();
+}
@@ -0,0 +1,211 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.PositionReportDecoder;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.RingBuffer;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.WaitStrategy;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.Metadata;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * Decodes the feeds' messages on a pool of worker threads, so that decoding is not limited to the
+ * one core running the selector. The selector thread still frames, reassembles and checks for
+ * duplicates, then hands each message's raw sentences to the worker that owns its MMSI, read
+ * straight from the payload header. Each worker decodes its messages into pooled records and
+ * passes them to the listener in the order they were handed over, so a vessel's messages stay in
+ * the order they were received.
+ *
+ * <p>Each worker has a fixed set of slots for pending messages, passed between the selector thread
+ * and the worker through two {@link RingBuffer}s: one of slots to decode and one of slots to
+ * reuse. When every slot of a worker is in use, the selector thread waits, which applies
+ * backpressure to every feed.</p>
+ */
+final class DecodeStage {
+
+  private static final int SLOTS_PER_WORKER = 1024;
+  private static final int MAX_SENTENCE_BYTES = 256;
+
+  private final MessageRecordPool records;
+  private final Feed.MessageListener listener;
+  private final WaitStrategy waitStrategy;
+  private final IngestMetrics metrics = IngestMetrics.get();
+  private final List<Worker> workers = new ArrayList<>();
+  private volatile boolean running;
+
+  /**
+   * Creates a stage. Call {@link #start()} before handing over messages.
+   *
+   * @param threads      the number of decoding threads.
+   * @param records      the pool that decoded messages are copied into.
+   * @param listener     receives every decoded message, on the worker thread that decoded it.
+   * @param waitStrategy how idle workers, and the selector thread when a worker is behind, wait.
+   */
+  DecodeStage(int threads, MessageRecordPool records, Feed.MessageListener listener,
+              WaitStrategy waitStrategy) {
+    this.records = records;
+    this.listener = listener;
+    this.waitStrategy = waitStrategy;
+    for (int i = 0; i < threads; i++) {
+      workers.add(new Worker());
+    }
+  }
+
+  /**
+   * Starts the worker threads.
+   */
+  void start() {
+    running = true;
+    for (int i = 0; i < workers.size(); i++) {
+      Worker worker = workers.get(i);
+      worker.thread = new Thread(worker::run, "ais-decoder-" + i);
+      worker.thread.start();
+    }
+  }
+
+  /**
+   * Hands a message to the worker that owns its MMSI. Must only be called from the selector
+   * thread. Waits while that worker has no free slot.
+   *
+   * @param feed     the feed the message arrived on.
+   * @param mmsi     the MMSI read from the payload header.
+   * @param sentence the sentence of a single-part message, or null.
+   * @param parts    the parts of a multi-part message, or null.
+   * @throws InterruptedException if interrupted while waiting for a slot.
+   */
+  void submit(Feed feed, int mmsi, String sentence, NMEAMessage[] parts)
+          throws InterruptedException {
+    Worker worker = workers.get(workerFor(mmsi));
+    PendingMessage pending;
+    int attempt = 0;
+    while ((pending = worker.free.poll()) == null) {
+      waitStrategy.idle(attempt++);
+    }
+
+    pending.feed = feed;
+    pending.sentence = sentence;
+    pending.parts = parts;
+    pending.receivedMillis = System.currentTimeMillis();
+    worker.pending.offer(pending);
+    waitStrategy.signalAll();
+  }
+
+  /**
+   * Stops the workers once they have decoded everything handed to them, and waits for them.
+   *
+   * @throws InterruptedException if interrupted while waiting for the worker threads.
+   */
+  void close() throws InterruptedException {
+    running = false;
+    waitStrategy.signalAll();
+    for (Worker worker : workers) {
+      if (worker.thread != null) {
+        worker.thread.join();
+      }
+    }
+  }
+
+  /**
+   * Picks the worker for an MMSI, mixed the same way as the writer's partitions.
+   */
+  private int workerFor(int mmsi) {
+    int hash = mmsi * 0x9E3779B9;
+    return Math.floorMod(hash ^ (hash >>> 16), workers.size());
+  }
+
+  /**
+   * A message waiting to be decoded. Slots are reused, so nothing is allocated to hand a message
+   * over.
+   */
+  private static final class PendingMessage {
+    private Feed feed;
+    private String sentence;
+    private NMEAMessage[] parts;
+    private long receivedMillis;
+  }
+
+  /**
+   * One decoding thread and its slots. The slots to decode are only offered by the selector
+   * thread, and the slots to reuse only by the worker, so each ring buffer has a single producer.
+   */
+  private final class Worker {
+    private final RingBuffer<PendingMessage> pending = new RingBuffer<>(SLOTS_PER_WORKER);
+    private final RingBuffer<PendingMessage> free = new RingBuffer<>(SLOTS_PER_WORKER);
+    private final PositionReportDecoder positionReports = new PositionReportDecoder();
+    private final byte[] line = new byte[MAX_SENTENCE_BYTES];
+    private final ByteBuffer lineBuffer = ByteBuffer.wrap(line);
+    private Thread thread;
+
+    private Worker() {
+      for (int i = 0; i < SLOTS_PER_WORKER; i++) {
+        free.offer(new PendingMessage());
+      }
+    }
+
+    private void run() {
+      try {
+        int attempt = 0;
+        while (running || pending.size() > 0) {
+          PendingMessage message = pending.poll();
+          if (message == null) {
+            waitStrategy.idle(attempt++);
+            continue;
+          }
+          attempt = 0;
+
+          long start = System.nanoTime();
+          MessageRecord record = decode(message);
+          message.feed = null;
+          message.sentence = null;
+          message.parts = null;
+          free.offer(message);
+          waitStrategy.signalAll();
+          if (record != null) {
+            metrics.recordDecode(start);
+            listener.onMessage(record);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Decodes a message, with the position report decoder if it can and the library otherwise.
+     *
+     * @return the filled record, or null if the message could not be decoded.
+     */
+    private MessageRecord decode(PendingMessage message) {
+      String sentence = message.sentence;
+      if (sentence != null && sentence.length() <= line.length) {
+        for (int i = 0; i < sentence.length(); i++) {
+          line[i] = (byte) sentence.charAt(i);
+        }
+        if (positionReports.loadSentence(lineBuffer, 0, sentence.length())) {
+          return records.acquire(positionReports, sentence, message.receivedMillis);
+        }
+      }
+
+      try {
+        NMEAMessage[] parts = message.parts != null
+                ? message.parts
+                : new NMEAMessage[] {NMEAMessage.fromString(sentence)};
+        AISMessage decoded = AISMessage.create(
+                new Metadata(message.feed.getAddress()), parts);
+        return records.acquire(decoded, Instant.ofEpochMilli(message.receivedMillis));
+      } catch (RuntimeException e) {
+        // Unsupported message types and payloads the decoder rejects are skipped.
+        message.feed.recordInvalidSentence();
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the messages seen recently so that copies of the same transmission, received on both
+ * radio channels or by more than one receiver, are only written once. Messages are identified by a
+ * 64-bit hash of their 6-bit payloads.
+ *
+ * <p>Hashes are kept in two open-addressing hash sets that take turns: new hashes go into the
+ * current set, lookups check both, and every half window the older set is cleared and becomes the
+ * current one. A message is therefore recognized as a duplicate for between half a window and a
+ * full window after it was first seen. If the current set fills up before half a window has
+ * passed, it is rotated early, which shortens the window while the feeds are very busy.</p>
+ *
+ * <p>Not thread safe; it is only used by the feed client's selector thread.</p>
+ */
+public final class DuplicateFilter {
+
+  private static final long EMPTY = 0;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final long halfWindowNanos;
+  private final int maxEntries;
+  private final int mask;
+  private long[] current;
+  private long[] previous;
+  private int currentSize;
+  private long currentStart;
+
+  /**
+   * Creates a filter.
+   *
+   * @param windowMillis    how long a message is remembered.
+   * @param expectedEntries the number of distinct messages expected in half a window.
+   */
+  public DuplicateFilter(long windowMillis, int expectedEntries) {
+    if (windowMillis < 1 || expectedEntries < 1) {
+      throw new IllegalArgumentException("Window and expected entries must be at least 1.");
+    }
+    // Keep each set at most half full.
+    int capacity = Integer.highestOneBit(Math.max(2, expectedEntries) - 1) << 2;
+    this.halfWindowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis) / 2;
+    this.maxEntries = capacity / 2;
+    this.mask = capacity - 1;
+    this.current = new long[capacity];
+    this.previous = new long[capacity];
+    this.currentStart = System.nanoTime();
+  }
+
+  /**
+   * Starts a payload hash.
+   *
+   * @return the initial hash value.
+   */
+  public static long startHash() {
+    return FNV_OFFSET_BASIS;
+  }
+
+  /**
+   * Adds one payload, such as one fragment of a multi-part message, to a hash.
+   *
+   * @param hash    the hash so far.
+   * @param payload the 6-bit armored payload.
+   * @return the updated hash.
+   */
+  public static long addToHash(long hash, CharSequence payload) {
+    for (int i = 0; i < payload.length(); i++) {
+      hash = (hash ^ payload.charAt(i)) * FNV_PRIME;
+    }
+    // Separate fragments, so that moving characters between them changes the hash.
+    return (hash ^ ',') * FNV_PRIME;
+  }
+
+  /**
+   * Adds one payload to a hash straight from a feed's read buffer. Gives the same hash as
+   * {@link #addToHash(long, CharSequence)} for the same characters.
+   *
+   * @param hash   the hash so far.
+   * @param buffer the buffer holding the 6-bit armored payload.
+   * @param start  the index of the payload's first character.
+   * @param end    the index after the payload's last character.
+   * @return the updated hash.
+   */
+  public static long addToHash(long hash, ByteBuffer buffer, int start, int end) {
+    for (int i = start; i < end; i++) {
+      hash = (hash ^ buffer.get(i)) * FNV_PRIME;
+    }
+    return (hash ^ ',') * FNV_PRIME;
+  }
+
+  /**
+   * Checks whether a message was seen within the window, and remembers it if not.
+   *
+   * @param hash the message's payload hash.
+   * @param now  the current {@link System#nanoTime()}.
+   * @return true if the message is a duplicate.
+   */
+  public boolean isDuplicate(long hash, long now) {
+    if (now - currentStart >= halfWindowNanos || currentSize >= maxEntries) {
+      rotate(now);
+    }
+
+    long key = mix(hash);
+    if (contains(previous, key)) {
+      return true;
+    }
+    int slot = (int) key & mask;
+    while (current[slot] != EMPTY) {
+      if (current[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    current[slot] = key;
+    currentSize++;
+    return false;
+  }
+
+  private boolean contains(long[] table, long key) {
+    int slot = (int) key & mask;
+    while (table[slot] != EMPTY) {
+      if (table[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  private void rotate(long now) {
+    long[] cleared = previous;
+    Arrays.fill(cleared, EMPTY);
+    previous = current;
+    current = cleared;
+    currentSize = 0;
+    currentStart = now;
+  }
+
+  /**
+   * Spreads the hash over the low bits used for the slot, and keeps it clear of the empty marker.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash == EMPTY ? 1 : hash;
+  }
+}
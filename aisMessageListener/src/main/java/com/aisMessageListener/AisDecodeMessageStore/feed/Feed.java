@@ -0,0 +1,414 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.PositionReportDecoder;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.Metadata;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * One kplex feed read by an {@link AisFeedClient}: its non-blocking channel, its read buffer and
+ * {@link NmeaFramer}, its reconnect backoff and its counters. Everything except the
+ * counters is only touched by the client's selector thread.
+ *
+ * <p>Each feed has its own {@link MultipartAssembler}, so the parts of a multi-part message are
+ * only combined with other parts from the same feed.</p>
+ *
+ * <p>Single-part position reports are unpacked by a {@link PositionReportDecoder} straight from
+ * the read buffer into a pooled record; every other message is decoded by the aismessages
+ * library. Duplicates are checked before either decoder runs. With a {@link DecodeStage}, the
+ * feed only frames, reassembles and checks for duplicates, and the stage's workers decode.</p>
+ */
+final class Feed implements FeedMXBean {
+
+  /**
+   * Receives the messages decoded from a feed.
+   */
+  interface MessageListener {
+
+    /**
+     * Called once per decoded message that is not a duplicate, on the selector thread or on the
+     * decode stage's worker for the message's MMSI.
+     *
+     * @param record the decoded message, which the listener must pass on or recycle.
+     */
+    void onMessage(MessageRecord record);
+  }
+
+  private static final long INITIAL_BACKOFF_MILLIS = 1000;
+  private static final long MAX_BACKOFF_MILLIS = 60000;
+  private static final long STALL_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+  private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final int READ_BUFFER_BYTES = 16 * 1024;
+
+  private final String host;
+  private final int port;
+  private final String address;
+  private final MessageRecordPool records;
+  private final DuplicateFilter duplicates;
+  private final MessageListener listener;
+  private final DecodeStage stage;
+  private final MultipartAssembler assembler;
+  private final PositionReportDecoder positionReports = new PositionReportDecoder();
+  private final IngestMetrics metrics = IngestMetrics.get();
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+  private final NmeaFramer framer = new NmeaFramer(this::decode);
+
+  private SocketChannel channel;
+  private boolean attempted;
+  private long nextAttemptNanos;
+  private long backoffMillis = INITIAL_BACKOFF_MILLIS;
+  private long lastReadNanos;
+
+  private volatile boolean connected;
+  private volatile long reconnects;
+  private volatile long bytesReceived;
+  private final AtomicLong invalidSentences = new AtomicLong();
+  private volatile long suppressedDuplicates;
+  private volatile double bytesPerSecond;
+  private volatile double sentencesPerSecond;
+  private long windowStart = System.nanoTime();
+  private long windowBytes;
+  private long windowSentences;
+
+  /**
+   * Creates a feed. It is connected by its client's selector thread.
+   *
+   * @param host                    the kplex host.
+   * @param port                    the kplex port.
+   * @param records                 the pool that decoded messages are copied into.
+   * @param duplicates              the filter for repeated transmissions, shared by every feed,
+   *                                or null to pass on every message.
+   * @param stage                   the workers that decode the feed's messages, or null to decode
+   *                                them on the selector thread.
+   * @param listener                receives every message decoded from the feed.
+   * @param reassemblyTimeoutMillis how long the first parts of a multi-part message wait for the
+   *                                rest.
+   */
+  Feed(String host, int port, MessageRecordPool records, DuplicateFilter duplicates,
+       DecodeStage stage, MessageListener listener, long reassemblyTimeoutMillis) {
+    this.host = host;
+    this.port = port;
+    this.address = host + ":" + port;
+    this.records = records;
+    this.duplicates = duplicates;
+    this.stage = stage;
+    this.listener = listener;
+    this.assembler = new MultipartAssembler(reassemblyTimeoutMillis);
+  }
+
+  /**
+   * Does the feed's periodic work: starts a connection if one is due, drops the connection if
+   * the feed has gone quiet, drops multi-part messages whose parts stopped arriving, and updates
+   * the rates.
+   *
+   * @param selector the client's selector.
+   * @param now      the current {@link System#nanoTime()}.
+   */
+  void tick(Selector selector, long now) {
+    if (channel == null && now - nextAttemptNanos >= 0) {
+      connect(selector, now);
+    } else if (connected && now - lastReadNanos >= STALL_TIMEOUT_NANOS) {
+      // A dropped ssh tunnel can leave the socket open with nothing arriving.
+      disconnect("no data received for " + TimeUnit.NANOSECONDS.toSeconds(STALL_TIMEOUT_NANOS)
+              + " seconds", now);
+    }
+
+    assembler.evictExpired(now);
+
+    long elapsed = now - windowStart;
+    if (elapsed >= RATE_WINDOW_NANOS) {
+      long sentences = framer.getFramedSentences();
+      bytesPerSecond = (bytesReceived - windowBytes) * 1e9 / elapsed;
+      sentencesPerSecond = (sentences - windowSentences) * 1e9 / elapsed;
+      windowStart = now;
+      windowBytes = bytesReceived;
+      windowSentences = sentences;
+    }
+  }
+
+  /**
+   * Completes a connection the selector reported as ready.
+   */
+  void finishConnect(SelectionKey key) {
+    try {
+      if (channel.finishConnect()) {
+        onConnected(key, System.nanoTime());
+      }
+    } catch (IOException e) {
+      disconnect(e.toString(), System.nanoTime());
+    }
+  }
+
+  /**
+   * Reads one buffer's worth of what the selector reported as available and decodes every
+   * complete sentence. Reading once per wakeup keeps a busy feed from starving the others.
+   */
+  void read() {
+    long now = System.nanoTime();
+    try {
+      int read = channel.read(readBuffer);
+      if (read < 0) {
+        disconnect("connection closed by server", now);
+        return;
+      }
+      lastReadNanos = now;
+      bytesReceived += read;
+      backoffMillis = INITIAL_BACKOFF_MILLIS;
+      readBuffer.flip();
+      long framed = framer.getFramedSentences();
+      framer.frame(readBuffer);
+      metrics.addSentencesRead(framer.getFramedSentences() - framed);
+    } catch (IOException e) {
+      disconnect(e.toString(), now);
+    }
+  }
+
+  /**
+   * Closes the channel, if open.
+   */
+  void close() {
+    closeChannel();
+  }
+
+  /**
+   * Counts a message from this feed that the decode stage could not decode. Safe to call from any
+   * thread.
+   */
+  void recordInvalidSentence() {
+    invalidSentences.incrementAndGet();
+  }
+
+  @Override
+  public String getAddress() {
+    return address;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return connected;
+  }
+
+  @Override
+  public long getReconnects() {
+    return reconnects;
+  }
+
+  @Override
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  @Override
+  public long getSentencesReceived() {
+    return framer.getFramedSentences();
+  }
+
+  @Override
+  public long getChecksumFailures() {
+    return framer.getChecksumFailures();
+  }
+
+  @Override
+  public long getMalformedSentences() {
+    return framer.getMalformedSentences();
+  }
+
+  @Override
+  public long getInvalidSentences() {
+    return invalidSentences.get();
+  }
+
+  @Override
+  public long getOrphanedFragments() {
+    return assembler.getOrphanedFragments();
+  }
+
+  @Override
+  public long getReassemblyTimeouts() {
+    return assembler.getTimeouts();
+  }
+
+  @Override
+  public long getSuppressedDuplicates() {
+    return suppressedDuplicates;
+  }
+
+  @Override
+  public double getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  @Override
+  public double getSentencesPerSecond() {
+    return sentencesPerSecond;
+  }
+
+  private void connect(Selector selector, long now) {
+    if (attempted) {
+      reconnects++;
+    }
+    attempted = true;
+
+    try {
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+      // Resolved on every attempt, so a moved host is picked up on reconnect.
+      SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+      if (channel.connect(new InetSocketAddress(host, port))) {
+        onConnected(key, now);
+      }
+    } catch (IOException | UnresolvedAddressException e) {
+      disconnect(e.toString(), now);
+    }
+  }
+
+  private void onConnected(SelectionKey key, long now) {
+    key.interestOps(SelectionKey.OP_READ);
+    connected = true;
+    lastReadNanos = now;
+    System.out.println("Connected to kplex server at " + getAddress() + ".");
+  }
+
+  /**
+   * Closes the connection and schedules the next attempt, doubling the backoff each time an
+   * attempt fails before any data arrives.
+   */
+  private void disconnect(String reason, long now) {
+    closeChannel();
+    System.err.println("Error connecting to kplex server at " + getAddress() + " (" + reason
+            + "), retrying in " + backoffMillis / 1000 + " seconds.\n");
+    nextAttemptNanos = now + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+    backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+  }
+
+  private void closeChannel() {
+    connected = false;
+    readBuffer.clear();
+    framer.reset();
+    assembler.reset();
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Nothing more can be done with a broken channel.
+    }
+    channel = null;
+  }
+
+  /**
+   * Decodes a sentence that passed the framer's checks, once every part of its message is here.
+   */
+  private void decode(NmeaFramer sentence) {
+    if (sentence.getFragmentCount() == 1) {
+      if (isDuplicate(sentence.hashPayload(DuplicateFilter.startHash()))) {
+        return;
+      }
+      if (stage != null) {
+        handOver(sentence.getMMSI(), sentence.getSentence(), null);
+        return;
+      }
+      long start = System.nanoTime();
+      if (sentence.loadPayload(positionReports)) {
+        MessageRecord record = records.acquire(positionReports, sentence.getSentence(),
+                System.currentTimeMillis());
+        metrics.recordDecode(start);
+        listener.onMessage(record);
+      } else {
+        decodeWithLibrary(sentence.getSentence(), null);
+      }
+      return;
+    }
+
+    NMEAMessage[] parts;
+    try {
+      parts = assembler.add(sentence, System.nanoTime());
+    } catch (RuntimeException e) {
+      invalidSentences.incrementAndGet();
+      return;
+    }
+    if (parts == null || isDuplicate(payloadHash(parts))) {
+      return;
+    }
+    if (stage != null) {
+      handOver(PositionReportDecoder.readMMSI(parts[0].getEncodedPayload()), null, parts);
+    } else {
+      decodeWithLibrary(null, parts);
+    }
+  }
+
+  /**
+   * Decodes a message with the aismessages library on the selector thread.
+   *
+   * @param sentence the sentence of a single-part message, or null.
+   * @param parts    the parts of a multi-part message, or null.
+   */
+  private void decodeWithLibrary(String sentence, NMEAMessage[] parts) {
+    long start = System.nanoTime();
+    MessageRecord record;
+    try {
+      if (parts == null) {
+        parts = new NMEAMessage[] {NMEAMessage.fromString(sentence)};
+      }
+      record = records.acquire(AISMessage.create(new Metadata(address), parts), null);
+    } catch (RuntimeException e) {
+      // Unsupported message types and payloads the decoder rejects are skipped.
+      invalidSentences.incrementAndGet();
+      return;
+    }
+    metrics.recordDecode(start);
+    listener.onMessage(record);
+  }
+
+  /**
+   * Hands a message to the decode stage, stopping the feed client if interrupted while the stage
+   * is full.
+   */
+  private void handOver(int mmsi, String sentence, NMEAMessage[] parts) {
+    try {
+      stage.submit(this, mmsi, sentence, parts);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Checks a message against the duplicate filter, counting it if it is dropped.
+   */
+  private boolean isDuplicate(long payloadHash) {
+    if (duplicates == null || !duplicates.isDuplicate(payloadHash, System.nanoTime())) {
+      return false;
+    }
+    suppressedDuplicates++;
+    return true;
+  }
+
+  /**
+   * Hashes the payloads of every part of a message. Copies of a transmission have the same
+   * payloads, whichever channel or receiver they came from.
+   */
+  private static long payloadHash(NMEAMessage[] parts) {
+    long hash = DuplicateFilter.startHash();
+    for (NMEAMessage part : parts) {
+      hash = DuplicateFilter.addToHash(hash, part.getEncodedPayload());
+    }
+    return hash;
+  }
+}
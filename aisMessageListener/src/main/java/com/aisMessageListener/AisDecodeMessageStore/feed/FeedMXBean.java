@@ -0,0 +1,104 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+/**
+ * JMX view of one kplex feed.
+ */
+public interface FeedMXBean {
+
+  /**
+   * Gets the address of the feed.
+   *
+   * @return the feed's host and port, as host:port.
+   */
+  String getAddress();
+
+  /**
+   * Checks whether the feed is currently connected.
+   *
+   * @return true while connected.
+   */
+  boolean isConnected();
+
+  /**
+   * Gets the number of times the feed has been reconnected after failing to connect, being
+   * disconnected or going quiet.
+   *
+   * @return the total reconnects since startup.
+   */
+  long getReconnects();
+
+  /**
+   * Gets the number of bytes received from the feed.
+   *
+   * @return the total bytes since startup.
+   */
+  long getBytesReceived();
+
+  /**
+   * Gets the number of NMEA sentences received from the feed, including invalid ones.
+   *
+   * @return the total sentences since startup.
+   */
+  long getSentencesReceived();
+
+  /**
+   * Gets the number of sentences dropped before decoding because their checksum did not match.
+   *
+   * @return the total since startup.
+   */
+  long getChecksumFailures();
+
+  /**
+   * Gets the number of lines dropped before decoding because they were not well-formed AIS
+   * sentences.
+   *
+   * @return the total since startup.
+   */
+  long getMalformedSentences();
+
+  /**
+   * Gets the number of multi-part message fragments dropped because the rest of their message was
+   * missing or out of order.
+   *
+   * @return the total since startup.
+   */
+  long getOrphanedFragments();
+
+  /**
+   * Gets the number of unfinished multi-part messages dropped because their remaining parts did not
+   * arrive in time.
+   *
+   * @return the total since startup.
+   */
+  long getReassemblyTimeouts();
+
+  /**
+   * Gets the number of well-formed sentences the decoder could not decode, e.g. unsupported
+   * message types.
+   *
+   * @return the total since startup.
+   */
+  long getInvalidSentences();
+
+  /**
+   * Gets the number of messages from the feed that were not written because the same
+   * transmission had already been received, on the other channel or from another feed.
+   *
+   * @return the total since startup.
+   */
+  long getSuppressedDuplicates();
+
+  /**
+   * Gets the feed's recent byte rate, measured over windows of about ten seconds.
+   *
+   * @return bytes received per second.
+   */
+  double getBytesPerSecond();
+
+  /**
+   * Gets the feed's recent sentence rate, measured over windows of about ten seconds.
+   *
+   * @return sentences received per second.
+   */
+  double getSentencesPerSecond();
+}
@@ -0,0 +1,182 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * Puts multi-part messages, such as two-part type 5 static and voyage data, back together for one
+ * feed. Parts are matched by radio channel and sequential message id, which together have only a
+ * few dozen values, so there is one preallocated slot for each; fragments are copied straight from
+ * the {@link NmeaFramer}'s buffer into their slot, and nothing is allocated until a message is
+ * complete.
+ *
+ * <p>Fragments that cannot belong to a message being assembled are dropped and counted as
+ * orphans: a later part with no first part, a part out of order, or a first part that replaces an
+ * unfinished message in the same slot. Unfinished messages older than the timeout are dropped and
+ * counted as timeouts. Memory use does not grow however noisy the feed is.</p>
+ *
+ * <p>Not thread safe; used only by the feed client's selector thread.</p>
+ */
+final class MultipartAssembler {
+
+  // Channels: none, A, B, 1, 2. Sequence ids: none, 0 to 9.
+  private static final int CHANNELS = 5;
+  private static final int SEQUENCE_IDS = 11;
+  private static final int SLOTS = CHANNELS * SEQUENCE_IDS;
+  private static final int MAX_PARTS = 9;
+  private static final int SLOT_BYTES = 2048;
+
+  private final long timeoutNanos;
+  private final byte[][] data = new byte[SLOTS][SLOT_BYTES];
+  private final int[][] partEnds = new int[SLOTS][MAX_PARTS];
+  private final int[] partCounts = new int[SLOTS];
+  private final int[] partsReceived = new int[SLOTS];
+  private final long[] startedAt = new long[SLOTS];
+  private int pending;
+
+  private volatile long orphans;
+  private volatile long timeouts;
+
+  /**
+   * Creates an assembler.
+   *
+   * @param timeoutMillis how long an unfinished message waits for its remaining parts.
+   */
+  MultipartAssembler(long timeoutMillis) {
+    this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+  }
+
+  /**
+   * Adds the sentence the framer is handing over.
+   *
+   * @param sentence the framer, describing a valid sentence.
+   * @param now      the current {@link System#nanoTime()}.
+   * @return the parts of the message, in order, if this sentence completed one; otherwise null.
+   */
+  NMEAMessage[] add(NmeaFramer sentence, long now) {
+    int count = sentence.getFragmentCount();
+    int number = sentence.getFragmentNumber();
+    if (count == 1) {
+      return new NMEAMessage[] {NMEAMessage.fromString(sentence.getSentence())};
+    }
+
+    int slot = slotFor(sentence.getChannel(), sentence.getSequenceId());
+    if (partCounts[slot] != 0 && now - startedAt[slot] >= timeoutNanos) {
+      timeouts++;
+      clear(slot);
+    }
+
+    if (number == 1) {
+      // A new first part abandons whatever was being assembled in the slot.
+      orphans += partsReceived[slot];
+      clear(slot);
+      partCounts[slot] = count;
+      startedAt[slot] = now;
+      pending++;
+    } else if (partCounts[slot] != count || partsReceived[slot] != number - 1) {
+      orphans += partsReceived[slot] + 1;
+      clear(slot);
+      return null;
+    }
+
+    int offset = partsReceived[slot] == 0 ? 0 : partEnds[slot][partsReceived[slot] - 1];
+    int length = sentence.getSentenceLength();
+    if (offset + length > SLOT_BYTES) {
+      orphans += partsReceived[slot] + 1;
+      clear(slot);
+      return null;
+    }
+    sentence.copySentence(data[slot], offset);
+    partEnds[slot][partsReceived[slot]++] = offset + length;
+    if (partsReceived[slot] < count) {
+      return null;
+    }
+
+    NMEAMessage[] parts = new NMEAMessage[count];
+    int start = 0;
+    for (int i = 0; i < count; i++) {
+      parts[i] = NMEAMessage.fromString(new String(data[slot], start, partEnds[slot][i] - start,
+              StandardCharsets.US_ASCII));
+      start = partEnds[slot][i];
+    }
+    clear(slot);
+    return parts;
+  }
+
+  /**
+   * Drops unfinished messages that have waited longer than the timeout.
+   *
+   * @param now the current {@link System#nanoTime()}.
+   */
+  void evictExpired(long now) {
+    if (pending == 0) {
+      return;
+    }
+    for (int slot = 0; slot < SLOTS; slot++) {
+      if (partCounts[slot] != 0 && now - startedAt[slot] >= timeoutNanos) {
+        timeouts++;
+        clear(slot);
+      }
+    }
+  }
+
+  /**
+   * Drops every unfinished message without counting it, e.g. after the feed reconnects.
+   */
+  void reset() {
+    for (int slot = 0; slot < SLOTS; slot++) {
+      clear(slot);
+    }
+  }
+
+  /**
+   * Gets the number of fragments dropped because they did not fit the message being assembled in
+   * their slot, including unfinished messages replaced by a new first part.
+   *
+   * @return the total since startup.
+   */
+  long getOrphanedFragments() {
+    return orphans;
+  }
+
+  /**
+   * Gets the number of unfinished messages dropped because their remaining parts did not arrive in
+   * time.
+   *
+   * @return the total since startup.
+   */
+  long getTimeouts() {
+    return timeouts;
+  }
+
+  private void clear(int slot) {
+    if (partCounts[slot] != 0) {
+      pending--;
+    }
+    partCounts[slot] = 0;
+    partsReceived[slot] = 0;
+  }
+
+  private static int slotFor(char channel, int sequenceId) {
+    int channelIndex;
+    switch (channel) {
+      case 'A':
+        channelIndex = 1;
+        break;
+      case 'B':
+        channelIndex = 2;
+        break;
+      case '1':
+        channelIndex = 3;
+        break;
+      case '2':
+        channelIndex = 4;
+        break;
+      default:
+        channelIndex = 0;
+    }
+    return channelIndex * SEQUENCE_IDS + sequenceId + 1;
+  }
+}
@@ -0,0 +1,262 @@
+package com.aisMessageListener.AisDecodeMessageStore.feed;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.NmeaSentence;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.PositionReportDecoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits the bytes read from a feed into NMEA sentences and checks each one before it reaches the
+ * decoder. Sentences are framed in place in the feed's read buffer: complete lines are checked
+ * where they lie, and only the partial line at the end is moved to the front of the buffer for the
+ * next read.
+ *
+ * <p>A sentence is passed on only if {@link NmeaSentence} finds it valid. Everything else is
+ * counted and dropped; no exceptions are thrown and nothing is allocated for a dropped
+ * sentence.</p>
+ *
+ * <p>While the handler runs, the getters describe the sentence being handed over.</p>
+ */
+final class NmeaFramer {
+
+  /**
+   * Receives each sentence that passes the checks.
+   */
+  interface SentenceHandler {
+
+    /**
+     * Called once per valid sentence.
+     *
+     * @param framer the framer, whose getters describe the sentence.
+     */
+    void onSentence(NmeaFramer framer);
+  }
+
+  private final SentenceHandler handler;
+  private final NmeaSentence fields = new NmeaSentence();
+  private final byte[] sentence = new byte[NmeaSentence.MAX_SENTENCE_BYTES];
+  private int scanned;
+  private boolean discarding;
+
+  private ByteBuffer buffer;
+  private int start;
+  private int end;
+
+  private volatile long framed;
+  private volatile long checksumFailures;
+  private volatile long malformed;
+
+  /**
+   * Creates a framer.
+   *
+   * @param handler receives each valid sentence.
+   */
+  NmeaFramer(SentenceHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Hands every complete line in the buffer to the checks, then compacts the buffer so that the
+   * partial line at the end, if any, is at its start. A buffer filled by a single line is emptied
+   * and the rest of that line is dropped.
+   *
+   * @param buffer a buffer just flipped for reading, whose start holds the partial line left by
+   *               the previous call.
+   */
+  void frame(ByteBuffer buffer) {
+    int lineStart = buffer.position();
+    int limit = buffer.limit();
+    for (int i = lineStart + scanned; i < limit; i++) {
+      byte b = buffer.get(i);
+      if (b != '\n' && b != '\r') {
+        continue;
+      }
+      if (discarding) {
+        discarding = false;
+        framed++;
+        malformed++;
+      } else if (i > lineStart) {
+        framed++;
+        check(buffer, lineStart, i);
+      }
+      lineStart = i + 1;
+    }
+
+    buffer.position(lineStart);
+    if (lineStart == 0 && limit == buffer.capacity()) {
+      // No line ending in a full buffer; drop everything up to the next one.
+      discarding = true;
+      buffer.clear();
+      scanned = 0;
+      return;
+    }
+    scanned = buffer.remaining();
+    buffer.compact();
+  }
+
+  /**
+   * Forgets any partial line, e.g. after the feed reconnects.
+   */
+  void reset() {
+    scanned = 0;
+    discarding = false;
+  }
+
+  /**
+   * Gets the number of lines framed, including those that were dropped.
+   *
+   * @return the total since startup.
+   */
+  long getFramedSentences() {
+    return framed;
+  }
+
+  /**
+   * Gets the number of sentences dropped because their checksum did not match.
+   *
+   * @return the total since startup.
+   */
+  long getChecksumFailures() {
+    return checksumFailures;
+  }
+
+  /**
+   * Gets the number of lines dropped because they were not well-formed AIS sentences.
+   *
+   * @return the total since startup.
+   */
+  long getMalformedSentences() {
+    return malformed;
+  }
+
+  /**
+   * Gets the number of sentences that make up the message.
+   *
+   * @return the fragment count, 1 to 9.
+   */
+  int getFragmentCount() {
+    return fields.getFragmentCount();
+  }
+
+  /**
+   * Gets which part of the message this sentence is.
+   *
+   * @return the fragment number, 1 to the fragment count.
+   */
+  int getFragmentNumber() {
+    return fields.getFragmentNumber();
+  }
+
+  /**
+   * Gets the sequential message id that ties the parts of a multi-part message together.
+   *
+   * @return the id, 0 to 9, or -1 if the field is empty.
+   */
+  int getSequenceId() {
+    return fields.getSequenceId();
+  }
+
+  /**
+   * Gets the radio channel the message was received on.
+   *
+   * @return 'A', 'B', '1' or '2', or 0 if the field is empty.
+   */
+  char getChannel() {
+    return fields.getChannel();
+  }
+
+  /**
+   * Gets the number of padding bits at the end of the payload.
+   *
+   * @return the fill bits, 0 to 5.
+   */
+  int getFillBits() {
+    return fields.getFillBits();
+  }
+
+  /**
+   * Gets the length of the sentence being handed over.
+   *
+   * @return the sentence length in bytes, without its line ending.
+   */
+  int getSentenceLength() {
+    return end - start;
+  }
+
+  /**
+   * Copies the sentence being handed over into an array, without allocating.
+   *
+   * @param target the array to copy into.
+   * @param offset where in the array to start.
+   */
+  void copySentence(byte[] target, int offset) {
+    for (int i = start; i < end; i++) {
+      target[offset++] = buffer.get(i);
+    }
+  }
+
+  /**
+   * Copies the sentence being handed over into a string for the decoder.
+   *
+   * @return the sentence, without its line ending.
+   */
+  String getSentence() {
+    copySentence(sentence, 0);
+    return new String(sentence, 0, end - start, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Unpacks the payload of the sentence being handed over, if it is a position report.
+   *
+   * @param decoder the decoder to load.
+   * @return true if the decoder now describes the sentence's message.
+   */
+  boolean loadPayload(PositionReportDecoder decoder) {
+    return decoder.load(buffer, fields.getPayloadStart(), fields.getPayloadEnd(),
+            fields.getFillBits());
+  }
+
+  /**
+   * Reads the MMSI from the payload of the sentence being handed over.
+   *
+   * @return the MMSI, or 0 if the payload is too short to hold one.
+   */
+  int getMMSI() {
+    return PositionReportDecoder.readMMSI(buffer, fields.getPayloadStart(),
+            fields.getPayloadEnd());
+  }
+
+  /**
+   * Adds the payload of the sentence being handed over to a duplicate hash, without allocating.
+   *
+   * @param hash the hash so far.
+   * @return the updated hash.
+   */
+  long hashPayload(long hash) {
+    return DuplicateFilter.addToHash(hash, buffer, fields.getPayloadStart(),
+            fields.getPayloadEnd());
+  }
+
+  /**
+   * Checks one line and hands it over if it is a valid AIS sentence.
+   */
+  private void check(ByteBuffer buffer, int start, int end) {
+    switch (fields.check(buffer, start, end)) {
+      case CHECKSUM_FAILURE:
+        checksumFailures++;
+        return;
+      case MALFORMED:
+        malformed++;
+        return;
+      default:
+        break;
+    }
+
+    this.buffer = buffer;
+    this.start = start;
+    this.end = end;
+    handler.onSentence(this);
+    this.buffer = null;
+  }
+}
@@ -1,23 +1,24 @@
 package com.aisMessageListener.AisDecodeMessageStore.jdbc;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
 
 /**
  * Abstract implementation of a PostgreSQL DatabaseConnectionManager, that holds common logic that
- * is API-independent.
+ * is API-independent. Connections are borrowed from a {@link ConnectionPool} by
+ * {@link #connectIfDropped()} and held until {@link #releaseConnection()}.
  */
 public abstract class AbstractDatabaseConnectionManager implements DatabaseConnectionInterface {
 
-  private static final String port = "5432";
-  private final String url;
-  private final Properties properties;
+  private final ConnectionPool pool;
+  private final boolean ownsPool;
+  private ConnectionPool.PooledConnection pooled;
   protected Connection connection;
+  protected PreparedStatementCache statements;
 
   /**
-   * Create a database connection manager using the provided database information.
+   * Create a database connection manager using the provided database information. The manager
+   * gets a private pool with a single connection, which it connects straight away.
    *
    * @param host         the database host. An AWS endpoint, or localhost for testing.
    * @param databaseName the name of the database.
@@ -26,46 +27,64 @@ public abstract class AbstractDatabaseConnectionManager implements DatabaseConne
    */
   AbstractDatabaseConnectionManager(String host, String databaseName, String username,
                                     String password) {
-    this.url = "jdbc:postgresql://" + host + ":" + port + "/" + databaseName;
-    this.properties = new Properties();
-    this.properties.setProperty("user", username);
-    this.properties.setProperty("password", password);
-    connectToDatabase();
+    this.pool = new ConnectionPool(host, databaseName, username, password, 1,
+            ConnectionPool.DEFAULT_VALIDATION_INTERVAL_MILLIS);
+    this.ownsPool = true;
+    try {
+      connectIfDropped();
+    } catch (SQLException e) {
+      // Writers journal messages until connectIfDropped succeeds.
+      System.err.println("Error while connecting to database, will retry.\n");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Create a database connection manager that borrows connections from a shared pool. No
+   * connection is borrowed until the first call to {@link #connectIfDropped()}.
+   *
+   * @param pool the pool to borrow connections from.
+   */
+  AbstractDatabaseConnectionManager(ConnectionPool pool) {
+    this.pool = pool;
+    this.ownsPool = false;
   }
 
+  /**
+   * Borrows a connection from the pool if this manager does not hold a usable one. A held
+   * connection is only checked locally; the pool validates idle connections in the background,
+   * so no round trip is made here.
+   *
+   * @throws SQLException if a connection could not be opened.
+   */
   @Override
   public void connectIfDropped() throws SQLException {
-    if (this.connection == null || !this.connection.isValid(2)) {
-      connectToDatabase();
+    if (this.pooled != null && !this.connection.isClosed()) {
+      return;
     }
+    releaseConnection();
+
+    this.pooled = pool.acquire();
+    this.connection = pooled.getConnection();
+    this.statements = pooled.getStatements();
   }
 
   @Override
-  public void closeConnection() {
-    try {
-      this.connection.close();
-    } catch (SQLException e) {
-      System.err.println("Error while closing connection.\n");
-      System.exit(1);
+  public void releaseConnection() {
+    if (this.pooled == null) {
+      return;
     }
+    pool.release(this.pooled);
+    this.pooled = null;
+    this.connection = null;
+    this.statements = null;
   }
 
-  /**
-   * Helper method to get a database connection. Exits the program if a connection is not possible.
-   * Will overwrite current connection stored by connection manager.
-   *
-   * @return a new connection to the database.
-   */
-  private void connectToDatabase() {
-    try {
-      Class.forName("org.postgresql.Driver");
-      this.connection = DriverManager.getConnection(this.url, this.properties);
-    } catch (SQLException e) {
-      System.err.println("Error while connecting to database.\n");
-      e.printStackTrace();
-      System.exit(1);
-    } catch (ClassNotFoundException ex){
-	  ex.printStackTrace();
+  @Override
+  public void closeConnection() {
+    releaseConnection();
+    if (ownsPool) {
+      pool.close();
     }
   }
 }
@@ -0,0 +1,222 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small, fixed-size pool of PostgreSQL connections shared by the connection managers. Each
+ * pooled connection keeps its own {@link PreparedStatementCache}, so statements stay prepared
+ * while the connection moves between managers.
+ *
+ * <p>Borrowing a connection does not check it with the server. Instead, a background thread
+ * validates idle connections at a fixed interval and closes any that have gone stale; closed or
+ * never-opened connections are opened again when they are next borrowed.</p>
+ */
+public final class ConnectionPool implements ConnectionPoolMXBean, AutoCloseable {
+
+  /**
+   * How often idle connections are validated unless configured otherwise.
+   */
+  public static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = 30000;
+
+  private static final String port = "5432";
+  private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+  private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+  private final String url;
+  private final Properties properties;
+  private final int size;
+  private final BlockingQueue<PooledConnection> idle;
+  private final ScheduledExecutorService validator;
+  private final AtomicLong opened = new AtomicLong();
+  private final AtomicLong discarded = new AtomicLong();
+
+  /**
+   * Creates a pool for the provided database. Connections are opened when first borrowed.
+   *
+   * @param host                     the database host. An AWS endpoint, or localhost for testing,
+   *                                 optionally followed by :port if not the default 5432.
+   * @param databaseName             the name of the database.
+   * @param username                 the database username.
+   * @param password                 the database password.
+   * @param size                     the number of connections in the pool.
+   * @param validationIntervalMillis how often idle connections are checked with the server.
+   */
+  public ConnectionPool(String host, String databaseName, String username, String password,
+                        int size, long validationIntervalMillis) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Pool size must be at least 1.");
+    }
+    this.url = "jdbc:postgresql://" + (host.indexOf(':') < 0 ? host + ":" + port : host) + "/"
+            + databaseName;
+    this.properties = new Properties();
+    this.properties.setProperty("user", username);
+    this.properties.setProperty("password", password);
+    this.size = size;
+    this.idle = new ArrayBlockingQueue<>(size);
+    for (int i = 0; i < size; i++) {
+      idle.add(new PooledConnection());
+    }
+
+    this.validator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ais-db-pool-validator");
+      thread.setDaemon(true);
+      return thread;
+    });
+    validator.scheduleWithFixedDelay(this::validateIdle, validationIntervalMillis,
+            validationIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Borrows a connection, opening it if needed. Waits if every connection is borrowed.
+   *
+   * @return a connection that must be handed back with {@link #release(PooledConnection)}.
+   * @throws SQLException if the connection could not be opened, or none became free in time.
+   */
+  PooledConnection acquire() throws SQLException {
+    PooledConnection pooled;
+    try {
+      pooled = idle.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection.\n", e);
+    }
+    if (pooled == null) {
+      throw new SQLException("No database connection became free within "
+              + ACQUIRE_TIMEOUT_SECONDS + " seconds.\n");
+    }
+
+    try {
+      if (pooled.connection == null || pooled.connection.isClosed()) {
+        pooled.discard();
+        pooled.open();
+      }
+      return pooled;
+    } catch (SQLException e) {
+      idle.add(pooled);
+      throw e;
+    }
+  }
+
+  /**
+   * Hands a borrowed connection back. A connection that was closed by a fatal error is discarded
+   * and reopened on its next use.
+   *
+   * @param pooled the connection returned by {@link #acquire()}.
+   */
+  void release(PooledConnection pooled) {
+    try {
+      if (pooled.connection != null
+              && (pooled.connection.isClosed() || !pooled.connection.getAutoCommit())) {
+        // Closed by the driver, or abandoned mid-transaction.
+        pooled.discard();
+      }
+    } catch (SQLException e) {
+      pooled.discard();
+    }
+    idle.add(pooled);
+  }
+
+  /**
+   * Stops validation and closes every idle connection.
+   */
+  @Override
+  public void close() {
+    validator.shutdownNow();
+    List<PooledConnection> connections = new ArrayList<>();
+    idle.drainTo(connections);
+    for (PooledConnection pooled : connections) {
+      pooled.discard();
+      idle.add(pooled);
+    }
+  }
+
+  @Override
+  public int getPoolSize() {
+    return size;
+  }
+
+  @Override
+  public int getIdleConnections() {
+    return idle.size();
+  }
+
+  @Override
+  public long getOpenedConnections() {
+    return opened.get();
+  }
+
+  @Override
+  public long getDiscardedConnections() {
+    return discarded.get();
+  }
+
+  /**
+   * Checks every idle connection with the server and closes those that do not answer. Borrowed
+   * connections are left alone; their managers find out about failures when a statement fails.
+   */
+  private void validateIdle() {
+    List<PooledConnection> connections = new ArrayList<>();
+    idle.drainTo(connections);
+    for (PooledConnection pooled : connections) {
+      try {
+        if (pooled.connection != null && !pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+          pooled.discard();
+        }
+      } catch (SQLException e) {
+        pooled.discard();
+      }
+      idle.add(pooled);
+    }
+  }
+
+  /**
+   * One slot of the pool: a connection, which may not be open, and its statement cache.
+   */
+  final class PooledConnection {
+    private Connection connection;
+    private final PreparedStatementCache statements = new PreparedStatementCache();
+
+    Connection getConnection() {
+      return connection;
+    }
+
+    PreparedStatementCache getStatements() {
+      return statements;
+    }
+
+    private void open() throws SQLException {
+      try {
+        Class.forName("org.postgresql.Driver");
+      } catch (ClassNotFoundException ex) {
+        ex.printStackTrace();
+      }
+      connection = DriverManager.getConnection(url, properties);
+      opened.incrementAndGet();
+    }
+
+    private void discard() {
+      statements.clear();
+      if (connection == null) {
+        return;
+      }
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        // The connection is already broken; nothing more to release.
+      }
+      connection = null;
+      discarded.incrementAndGet();
+    }
+  }
+}
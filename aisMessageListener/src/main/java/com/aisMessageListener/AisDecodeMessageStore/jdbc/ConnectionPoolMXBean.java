@@ -0,0 +1,35 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc;
+
+/**
+ * JMX view of the database connection pool.
+ */
+public interface ConnectionPoolMXBean {
+
+  /**
+   * Gets the number of connections in the pool.
+   *
+   * @return the pool size.
+   */
+  int getPoolSize();
+
+  /**
+   * Gets the number of connections not currently borrowed by a connection manager.
+   *
+   * @return the idle connection count.
+   */
+  int getIdleConnections();
+
+  /**
+   * Gets the number of connections opened since startup, including reconnects.
+   *
+   * @return the total opened.
+   */
+  long getOpenedConnections();
+
+  /**
+   * Gets the number of connections closed because they failed validation or a statement.
+   *
+   * @return the total discarded.
+   */
+  long getDiscardedConnections();
+}
@@ -1,6 +1,8 @@
 package com.aisMessageListener.AisDecodeMessageStore.jdbc;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * DBMS Agnostic interface that provides layout for functions required for API Database
@@ -10,15 +12,21 @@ public interface DatabaseConnectionInterface {
 
   /**
    * Checks if connection has dropped and reestablishes connection as applicable.  Call before
-   * making updates or queries, as connections can go stale over time.  Exits program if connection
-   * is not possible.
+   * making updates or queries, as connections can go stale over time.
    *
-   * @throws SQLException if timeout occurs
+   * @throws SQLException if timeout occurs or the database cannot be reached
    */
   void connectIfDropped() throws SQLException;
 
   /**
-   * Helper method to close the database connection.  Exits the program if a close is not possible.
+   * Hands the connection back to the pool once a unit of work is finished, so that other managers
+   * can use it.  The next call to {@link #connectIfDropped()} borrows a connection again.
+   */
+  void releaseConnection();
+
+  /**
+   * Helper method to close the database connection.  Errors while closing are reported and
+   * ignored.
    */
   void closeConnection();
 
@@ -47,17 +55,18 @@ public interface DatabaseConnectionInterface {
 
   /**
    * Grabs a vessel_signature_id from the vesselSignature table using a fully qualified vesselSignature record.
+   * Null values match null columns.
    *
    * @param mmsi the MMSI number.
-   * @param imo the IMO number.
+   * @param imo the IMO number, or null.
    * @param callSign the ship callsign.
    * @param name the ship's name.
-   * @param vesselTypeID the vessel_type_id corresponding to a record in the vesselData table.
+   * @param vesselTypeID the vessel_type_id corresponding to a record in the vesselData table, or null.
    *
    * @return an integer vessel_signature_id if found.
    * @throws SQLException if the query fails.
    */
-  int getVesselSignatureIdFromFullyQualifiedSignature(int mmsi, String imo, String callSign, String name, String vesselTypeID)
+  int getVesselSignatureIdFromFullyQualifiedSignature(int mmsi, Integer imo, String callSign, String name, Integer vesselTypeID)
           throws SQLException;
 
   /**
@@ -81,6 +90,25 @@ public interface DatabaseConnectionInterface {
    */
   int getVesselDataIdFromRecord(int toBow, int toStern, int toPort, int toStarboard) throws SQLException;
 
+  /**
+   * Gets a reusable server-side prepared insert statement for this connection. Bind its parameters
+   * and pass it to {@link #insertOneRecord(PreparedStatement)}. Do not close it.
+   *
+   * @param insertSQL the parameterized insertion string.
+   * @return a cached statement that returns generated keys.
+   * @throws SQLException if the statement could not be prepared.
+   */
+  PreparedStatement prepareInsert(String insertSQL) throws SQLException;
+
+  /**
+   * Inserts one record to the database using a prepared insert whose parameters are bound.
+   *
+   * @param insert a statement from {@link #prepareInsert(String)}.
+   * @return the primary key of the table inserted to.
+   * @throws SQLException if the query could not be applied to insert new data to the database.
+   */
+  int insertOneRecord(PreparedStatement insert) throws SQLException;
+
   /**
    * Inserts one record to the database using a specified sql query string.
    *
@@ -89,4 +117,92 @@ public interface DatabaseConnectionInterface {
    * @throws SQLException if the query could not be applied to insert new data to the database.
    */
   int insertOneRecord(String insertSQL) throws SQLException;
+
+  /**
+   * Inserts many records to one table as a single JDBC batch using a parameterized insert string.
+   * Each row supplies the parameter values for one execution of the statement, in order.
+   *
+   * @param insertSQL the parameterized insertion string to be applied to the database.
+   * @param rows      the parameter values for each record to be inserted.
+   * @return the primary keys of the inserted records, in the same order as the rows.
+   * @throws SQLException if the batch could not be applied to insert new data to the database.
+   */
+  int[] insertBatch(String insertSQL, List<Object[]> rows) throws SQLException;
+
+  /**
+   * Inserts many records whose primary keys are already assigned to one table as a single JDBC
+   * batch. No generated keys are read back, so the driver can pipeline the whole batch.
+   *
+   * @param insertSQL the parameterized insertion string to be applied to the database.
+   * @param rows      the parameter values for each record to be inserted.
+   * @throws SQLException if the batch could not be applied to insert new data to the database.
+   */
+  void insertRows(String insertSQL, List<Object[]> rows) throws SQLException;
+
+  /**
+   * Gets a reusable server-side prepared insert statement for rows whose primary keys are already
+   * assigned, with no batch queued. Bind each row directly and add it with addBatch, then call
+   * executeBatch, so rows are sent as in {@link #insertRows(String, List)} without building
+   * arrays of boxed values. Do not close it.
+   *
+   * @param insertSQL the parameterized insertion string.
+   * @return a cached statement that does not return generated keys.
+   * @throws SQLException if the statement could not be prepared.
+   */
+  PreparedStatement prepareRows(String insertSQL) throws SQLException;
+
+  /**
+   * Gets a reusable server-side prepared statement for a single statement that is executed once
+   * per call, such as a whole message's write plan. Bind it and execute it. Do not close it.
+   *
+   * @param sql the parameterized statement.
+   * @return a cached statement that does not return generated keys.
+   * @throws SQLException if the statement could not be prepared.
+   */
+  PreparedStatement prepareStatement(String sql) throws SQLException;
+
+  /**
+   * Inserts one record into each of several tables with a single multi-statement query, so that
+   * all of them reach the server in one round trip. Primary keys must already be assigned, since
+   * none are read back.
+   *
+   * @param insertSQL the parameterized insertion string for each record, in the order to apply.
+   * @param rows      the parameter values for each record, in the same order.
+   * @throws SQLException if the records could not be inserted.
+   */
+  void insertPipelined(List<String> insertSQL, List<Object[]> rows) throws SQLException;
+
+  /**
+   * Hands out the next primary key for a table. Keys are reserved from the table's sequence in
+   * blocks, so most calls do not touch the database. Keys that are never used leave gaps in the
+   * sequence, as rolled back inserts already do.
+   *
+   * @param table     the table the key is for.
+   * @param keyColumn the serial primary key column of that table.
+   * @return an unused primary key.
+   * @throws SQLException if a new block could not be reserved.
+   */
+  int nextKey(String table, String keyColumn) throws SQLException;
+
+  /**
+   * Reserves primary keys from the sequence behind a table's serial key column, so that rows can
+   * be written with their keys already assigned.
+   *
+   * @param table     the table the keys are for.
+   * @param keyColumn the serial primary key column of that table.
+   * @param count     the number of keys to reserve.
+   * @return the reserved keys, in increasing order.
+   * @throws SQLException if the sequence could not be advanced.
+   */
+  int[] reserveKeys(String table, String keyColumn, int count) throws SQLException;
+
+  /**
+   * Streams rows into a table using the database's bulk load protocol.
+   *
+   * @param copySQL the copy command naming the table, columns and format of the rows.
+   * @param rows    the rows to load, encoded in the format given by the copy command.
+   * @return the number of rows loaded.
+   * @throws SQLException if the rows could not be loaded.
+   */
+  long copyRecords(String copySQL, String rows) throws SQLException;
 }
\ No newline at end of file
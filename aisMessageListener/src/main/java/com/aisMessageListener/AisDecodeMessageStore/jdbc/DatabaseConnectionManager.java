@@ -1,14 +1,56 @@
 package com.aisMessageListener.AisDecodeMessageStore.jdbc;
 
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.cache.VesselDataCache;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.cache.VesselSignatureCache;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.StatementBinder;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * API for handling interactions with a PostgreSQL database.  Make this class available to any
  * methods that require database access.
  */
 public class DatabaseConnectionManager extends AbstractDatabaseConnectionManager {
+
+  private static final String VESSEL_SIGNATURE_BY_SIGNATURE =
+          "SELECT vessel_signature_id FROM vessel_signature WHERE mmsi = ? "
+                  + "AND imo IS NOT DISTINCT FROM ? "
+                  + "AND call_sign IS NOT DISTINCT FROM ? "
+                  + "AND name IS NOT DISTINCT FROM ? "
+                  + "AND vessel_type_id IS NOT DISTINCT FROM ? LIMIT 1";
+  private static final String VESSEL_SIGNATURE_BY_MMSI =
+          "SELECT vessel_signature_id FROM vessel_signature WHERE mmsi = ? LIMIT 1";
+  private static final String VESSEL_DATA_BY_RECORD =
+          "SELECT vessel_data_id FROM vessel_data WHERE "
+                  + "to_bow = ? AND to_stern = ? AND to_port = ? AND to_starboard = ? LIMIT 1";
+  private static final String RESERVE_KEYS =
+          "SELECT nextval(pg_get_serial_sequence(?, ?)) FROM generate_series(1, ?)";
+  private static final String RECENT_VESSEL_SIGNATURES =
+          "SELECT * FROM (SELECT vessel_signature_id, mmsi, imo, call_sign, name, vessel_type_id "
+                  + "FROM vessel_signature ORDER BY vessel_signature_id DESC LIMIT ?) recent "
+                  + "ORDER BY vessel_signature_id";
+  private static final String ALL_VESSEL_DATA =
+          "SELECT vessel_data_id, to_bow, to_stern, to_port, to_starboard FROM vessel_data "
+                  + "ORDER BY vessel_data_id LIMIT ?";
+
+  private static final int DEFAULT_KEY_BLOCK_SIZE = 1000;
+
+  private final VesselSignatureCache vesselSignatures;
+  private final VesselDataCache vesselData;
+  private final Map<String, KeyBlock> keyBlocks = new HashMap<>();
+  private int keyBlockSize = DEFAULT_KEY_BLOCK_SIZE;
+
   /**
    * Create a database connection manager using the provided database information.
    *
@@ -20,6 +62,95 @@ public class DatabaseConnectionManager extends AbstractDatabaseConnectionManager
   public DatabaseConnectionManager(String host, String databaseName, String username,
                                    String password) {
     super(host, databaseName, username, password);
+    this.vesselSignatures = null;
+    this.vesselData = null;
+  }
+
+  /**
+   * Create a database connection manager that borrows connections from a shared pool and answers
+   * vessel_signature and vessel_data lookups from caches when it can. The caches may be shared
+   * between connection managers.
+   *
+   * @param pool             the pool to borrow connections from.
+   * @param vesselSignatures the vessel_signature cache, or null to always query the database.
+   * @param vesselData       the vessel_data cache, or null to always query the database.
+   */
+  public DatabaseConnectionManager(ConnectionPool pool, VesselSignatureCache vesselSignatures,
+                                   VesselDataCache vesselData) {
+    super(pool);
+    this.vesselSignatures = vesselSignatures;
+    this.vesselData = vesselData;
+  }
+
+  /**
+   * Sets how many primary keys are reserved from a sequence at a time by {@link #nextKey}. Larger
+   * blocks mean fewer round trips, but more unused keys are skipped when the listener restarts.
+   *
+   * @param keyBlockSize the number of keys per block.
+   */
+  public void setKeyBlockSize(int keyBlockSize) {
+    if (keyBlockSize < 1) {
+      throw new IllegalArgumentException("Key block size must be at least 1.");
+    }
+    this.keyBlockSize = keyBlockSize;
+  }
+
+  /**
+   * Loads the most recently added vessel signatures into the cache, up to its capacity, so that
+   * the first messages after startup do not all miss.
+   *
+   * @return the number of signatures loaded.
+   * @throws SQLException if the table cannot be read.
+   */
+  public int warmUpVesselSignatureCache() throws SQLException {
+    if (vesselSignatures == null) {
+      return 0;
+    }
+    connectIfDropped();
+
+    int loaded = 0;
+    PreparedStatement stmt = statements.get(this.connection, RECENT_VESSEL_SIGNATURES, false);
+    stmt.setInt(1, vesselSignatures.getCapacity());
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        int imo = rs.getInt("imo");
+        Integer nullableImo = rs.wasNull() ? null : imo;
+        int vesselTypeId = rs.getInt("vessel_type_id");
+        Integer nullableVesselTypeId = rs.wasNull() ? null : vesselTypeId;
+
+        vesselSignatures.putBySignature(rs.getInt("mmsi"), nullableImo,
+                rs.getString("call_sign"), rs.getString("name"), nullableVesselTypeId,
+                rs.getInt("vessel_signature_id"));
+        loaded++;
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Loads vessel_data rows into the cache, up to its capacity. The table only grows by one row
+   * per distinct set of dimensions, so it usually fits entirely.
+   *
+   * @return the number of rows loaded.
+   * @throws SQLException if the table cannot be read.
+   */
+  public int warmUpVesselDataCache() throws SQLException {
+    if (vesselData == null) {
+      return 0;
+    }
+    connectIfDropped();
+
+    int loaded = 0;
+    PreparedStatement stmt = statements.get(this.connection, ALL_VESSEL_DATA, false);
+    stmt.setInt(1, vesselData.getCapacity());
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        vesselData.put(rs.getInt("to_bow"), rs.getInt("to_stern"), rs.getInt("to_port"),
+                rs.getInt("to_starboard"), rs.getInt("vessel_data_id"));
+        loaded++;
+      }
+    }
+    return loaded;
   }
 
   /**
@@ -45,64 +176,230 @@ public class DatabaseConnectionManager extends AbstractDatabaseConnectionManager
     return key;
   }
 
+  @Override
+  public PreparedStatement prepareInsert(String insertSQL) throws SQLException {
+    return statements.get(this.connection, insertSQL, true);
+  }
+
+  @Override
+  public int insertOneRecord(PreparedStatement insert) throws SQLException {
+    int key = -1;
+    insert.executeUpdate();
+
+    try (ResultSet rs = insert.getGeneratedKeys()) {
+      if (rs.next()) {
+        key = rs.getInt(1);
+      }
+    }
+    return key;
+  }
+
+  @Override
+  public int[] insertBatch(String insertSQL, List<Object[]> rows) throws SQLException {
+    int[] keys = new int[rows.size()];
+    if (rows.isEmpty()) {
+      return keys;
+    }
+
+    PreparedStatement stmt = prepareInsert(insertSQL);
+    stmt.clearBatch();
+    for (Object[] row : rows) {
+      StatementBinder.setRow(stmt, row);
+      stmt.addBatch();
+    }
+    stmt.executeBatch();
+
+    int count = 0;
+    try (ResultSet rs = stmt.getGeneratedKeys()) {
+      while (rs.next() && count < keys.length) {
+        keys[count++] = rs.getInt(1);
+      }
+    }
+
+    if (count != keys.length) {
+      throw new SQLException("Expected " + keys.length + " generated keys but received " + count
+              + ".\n");
+    }
+    return keys;
+  }
+
+  @Override
+  public void insertRows(String insertSQL, List<Object[]> rows) throws SQLException {
+    if (rows.isEmpty()) {
+      return;
+    }
+
+    PreparedStatement stmt = statements.get(this.connection, insertSQL, false);
+    stmt.clearBatch();
+    for (Object[] row : rows) {
+      StatementBinder.setRow(stmt, row);
+      stmt.addBatch();
+    }
+    stmt.executeBatch();
+  }
+
+  @Override
+  public PreparedStatement prepareRows(String insertSQL) throws SQLException {
+    PreparedStatement stmt = statements.get(this.connection, insertSQL, false);
+    stmt.clearBatch();
+    return stmt;
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql) throws SQLException {
+    return statements.get(this.connection, sql, false);
+  }
+
+  @Override
+  public void insertPipelined(List<String> insertSQL, List<Object[]> rows) throws SQLException {
+    if (insertSQL.isEmpty()) {
+      return;
+    }
+
+    // pgjdbc sends each part of a multi-statement query in the same network write.
+    PreparedStatement stmt =
+            statements.get(this.connection, String.join(";\n", insertSQL), false);
+    int index = 1;
+    for (Object[] row : rows) {
+      index = StatementBinder.setRow(stmt, index, row);
+    }
+    stmt.execute();
+  }
+
+  @Override
+  public int nextKey(String table, String keyColumn) throws SQLException {
+    KeyBlock block = keyBlocks.computeIfAbsent(table, t -> new KeyBlock());
+    if (block.next == block.keys.length) {
+      block.keys = reserveKeys(table, keyColumn, keyBlockSize);
+      block.next = 0;
+    }
+    return block.keys[block.next++];
+  }
+
+  @Override
+  public int[] reserveKeys(String table, String keyColumn, int count) throws SQLException {
+    int[] keys = new int[count];
+    if (count == 0) {
+      return keys;
+    }
+
+    int reserved = 0;
+    PreparedStatement stmt = statements.get(this.connection, RESERVE_KEYS, false);
+    stmt.setString(1, table);
+    stmt.setString(2, keyColumn);
+    stmt.setInt(3, count);
+
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next() && reserved < count) {
+        keys[reserved++] = rs.getInt(1);
+      }
+    }
+
+    if (reserved != count) {
+      throw new SQLException("Could only reserve " + reserved + " of " + count + " keys for "
+              + table + ".\n");
+    }
+    return keys;
+  }
+
+  @Override
+  public long copyRecords(String copySQL, String rows) throws SQLException {
+    try {
+      return this.connection.unwrap(PGConnection.class).getCopyAPI()
+              .copyIn(copySQL, new StringReader(rows));
+    } catch (IOException e) {
+      throw new SQLException("Error while streaming rows to the database.\n", e);
+    }
+  }
+
   @Override
   public int getVesselSignatureIdFromFullyQualifiedSignature(
-          int mmsi, String imo, String callSign, String name, String vesselTypeID) throws SQLException {
+          int mmsi, Integer imo, String callSign, String name, Integer vesselTypeID) throws SQLException {
+
+    if (vesselSignatures != null) {
+      int cached = vesselSignatures.getBySignature(mmsi, imo, callSign, name, vesselTypeID);
+      if (cached != VesselSignatureCache.MISSING) {
+        return cached;
+      }
+    }
 
-    String sqlQuery =
-            "SELECT vessel_signature_id from vessel_signature WHERE " +
-                    "mmsi = " + mmsi + " and " +
-                    "imo = " + imo + " and " +
-                    "call_sign = '" + callSign + "' and " +
-                    "name = '" + name + "' and " +
-                    "vessel_type_id = " + vesselTypeID;
+    PreparedStatement stmt = statements.get(this.connection, VESSEL_SIGNATURE_BY_SIGNATURE, false);
+    stmt.setInt(1, mmsi);
+    StatementBinder.setInteger(stmt, 2, imo);
+    StatementBinder.setString(stmt, 3, callSign);
+    StatementBinder.setString(stmt, 4, name);
+    StatementBinder.setInteger(stmt, 5, vesselTypeID);
+    int key = queryOneInt(stmt, 1);
 
-    return queryOneInt(sqlQuery, 1);
+    // Lookups run before any insert in the transaction, so a found row is already committed.
+    if (vesselSignatures != null && key != -1) {
+      vesselSignatures.putBySignature(mmsi, imo, callSign, name, vesselTypeID, key);
+    }
+    return key;
   }
 
   @Override
   public int getVesselSignatureIdWithMMSI(int mmsi)
           throws SQLException {
 
-    String sqlQuery =
-            "SELECT vessel_signature_id from vessel_signature WHERE mmsi = " + mmsi;
-    return queryOneInt(sqlQuery, 1);
+    if (vesselSignatures != null) {
+      int cached = vesselSignatures.getByMMSI(mmsi);
+      if (cached != VesselSignatureCache.MISSING) {
+        return cached;
+      }
+    }
+
+    PreparedStatement stmt = statements.get(this.connection, VESSEL_SIGNATURE_BY_MMSI, false);
+    stmt.setInt(1, mmsi);
+    int key = queryOneInt(stmt, 1);
+
+    if (vesselSignatures != null && key != -1) {
+      vesselSignatures.putByMMSI(mmsi, key);
+    }
+    return key;
   }
 
   @Override
   public int getVesselDataIdFromRecord(int toBow, int toStern, int toPort, int toStarboard)
           throws SQLException {
 
-    String sqlQuery =
-            "SELECT vessel_data_id from vessel_data WHERE " +
-                    "to_bow = " + toBow + " and " +
-                    "to_stern = " + toStern + " and " +
-                    "to_port = " + toPort + " and " +
-                    "to_starboard = " + toStarboard;
+    if (vesselData != null) {
+      int cached = vesselData.get(toBow, toStern, toPort, toStarboard);
+      if (cached != VesselDataCache.MISSING) {
+        return cached;
+      }
+    }
+
+    PreparedStatement stmt = statements.get(this.connection, VESSEL_DATA_BY_RECORD, false);
+    stmt.setInt(1, toBow);
+    stmt.setInt(2, toStern);
+    stmt.setInt(3, toPort);
+    stmt.setInt(4, toStarboard);
+    int key = queryOneInt(stmt, 1);
 
-    return queryOneInt(sqlQuery, 1);
+    if (vesselData != null && key != -1) {
+      vesselData.put(toBow, toStern, toPort, toStarboard, key);
+    }
+    return key;
   }
 
   /**
-   * Executes provided SQL query and returns an integer from the first returned row in the specified
-   * column.  Returns -1 if the query produces no results.
+   * Executes a bound prepared query and returns an integer from the first returned row in the
+   * specified column.  Returns -1 if the query produces no results.
    *
-   * @param selectSQL a SQL query.
-   * @param column    the column number of the int to return (1 for primary keys).
+   * @param query  a prepared SQL query with all parameters bound.
+   * @param column the column number of the int to return (1 for primary keys).
    * @return an integer from the specified column in the first row of the query result.
    * @throws SQLException if query or column number are invalid.
    */
-  private int queryOneInt(String selectSQL, int column) throws SQLException {
+  private int queryOneInt(PreparedStatement query, int column) throws SQLException {
     int result = -1;
-    Statement stmt = this.connection.createStatement();
 
-    ResultSet rs = stmt.executeQuery(selectSQL);
-    if (rs.next()) {
-      result = rs.getInt(column);
+    try (ResultSet rs = query.executeQuery()) {
+      if (rs.next()) {
+        result = rs.getInt(column);
+      }
     }
-
-    rs.close();
-    stmt.close();
     return result;
   }
 
@@ -137,15 +434,22 @@ public class DatabaseConnectionManager extends AbstractDatabaseConnectionManager
   @Override
   public void commitTransaction() throws SQLException {
     connection.commit();
+    IngestMetrics.get().countCommit();
     connection.setAutoCommit(true);
   }
 
   @Override
   public void rollBackTransaction() throws SQLException {
     connection.rollback();
+    IngestMetrics.get().countRollback();
     connection.setAutoCommit(true);
   }
-}
-
-
 
+  /**
+   * Keys reserved from one table's sequence that have not been handed out yet.
+   */
+  private static final class KeyBlock {
+    private int[] keys = new int[0];
+    private int next;
+  }
+}
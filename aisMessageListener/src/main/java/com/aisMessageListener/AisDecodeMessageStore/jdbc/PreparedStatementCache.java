@@ -0,0 +1,60 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc;
+
+import org.postgresql.PGStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds one PreparedStatement per SQL string for a single database connection, so that each table
+ * write and lookup is parsed and planned by the server once rather than once per message. The cache
+ * must be cleared whenever the connection it belongs to is replaced.
+ */
+final class PreparedStatementCache {
+
+  private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+  /**
+   * Gets the cached statement for the SQL string, preparing it on first use.
+   *
+   * @param connection          the connection that owns this cache.
+   * @param sql                 the parameterized SQL string.
+   * @param returnGeneratedKeys whether executing the statement should return generated keys.
+   * @return a reusable statement. Parameters from the previous use are not cleared.
+   * @throws SQLException if the statement could not be prepared.
+   */
+  PreparedStatement get(Connection connection, String sql, boolean returnGeneratedKeys)
+          throws SQLException {
+    PreparedStatement stmt = statements.get(sql);
+    if (stmt == null) {
+      stmt = returnGeneratedKeys
+              ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+              : connection.prepareStatement(sql);
+
+      // Use a named server-side statement from the first execution, rather than after pgjdbc's
+      // default of five executions.
+      stmt.unwrap(PGStatement.class).setPrepareThreshold(1);
+      statements.put(sql, stmt);
+    }
+    return stmt;
+  }
+
+  /**
+   * Closes and forgets every cached statement. Errors are ignored, since this is called when the
+   * connection is being discarded anyway.
+   */
+  void clear() {
+    for (PreparedStatement stmt : statements.values()) {
+      try {
+        stmt.close();
+      } catch (SQLException e) {
+        // Statement belongs to a dropped connection.
+      }
+    }
+    statements.clear();
+  }
+}
@@ -0,0 +1,177 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.cache;
+
+/**
+ * Bounded map from int keys to int values that evicts the least recently used entry when full.
+ * Keys and values are kept in parallel primitive arrays, so lookups do not box or allocate. Entries
+ * are found through an open-addressing hash table and kept in recency order by a doubly linked
+ * list threaded through the same arrays. Not thread-safe.
+ */
+final class IntLruMap {
+
+  private static final int NONE = -1;
+
+  private final int capacity;
+  private final int[] keys;
+  private final int[] values;
+  private final int[] newer;
+  private final int[] older;
+  private final int[] table;
+  private final int mask;
+  private int size;
+  private int newest = NONE;
+  private int oldest = NONE;
+
+  /**
+   * Creates an empty map.
+   *
+   * @param capacity the most entries kept before the least recently used one is evicted.
+   */
+  IntLruMap(int capacity) {
+    if (capacity < 1 || capacity > (1 << 29)) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^29.");
+    }
+    this.capacity = capacity;
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    this.newer = new int[capacity];
+    this.older = new int[capacity];
+
+    // At most half full, so probe sequences stay short.
+    int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+    this.table = new int[tableSize];
+    this.mask = tableSize - 1;
+  }
+
+  /**
+   * Gets the value for a key and marks the entry as most recently used.
+   *
+   * @param key     the key to look up.
+   * @param missing the value to return if the key is not present.
+   * @return the value, or missing.
+   */
+  int get(int key, int missing) {
+    int entry = find(key);
+    if (entry == NONE) {
+      return missing;
+    }
+    unlink(entry);
+    linkNewest(entry);
+    return values[entry];
+  }
+
+  /**
+   * Adds or replaces the value for a key, evicting the least recently used entry if full.
+   *
+   * @param key   the key.
+   * @param value the value.
+   */
+  void put(int key, int value) {
+    int entry = find(key);
+    if (entry != NONE) {
+      unlink(entry);
+    } else if (size == capacity) {
+      entry = oldest;
+      unlink(entry);
+      removeFromTable(keys[entry]);
+      keys[entry] = key;
+      addToTable(entry);
+    } else {
+      entry = size++;
+      keys[entry] = key;
+      addToTable(entry);
+    }
+    values[entry] = value;
+    linkNewest(entry);
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the current size.
+   */
+  int size() {
+    return size;
+  }
+
+  private int find(int key) {
+    int slot = slotFor(key);
+    while (table[slot] != 0) {
+      int entry = table[slot] - 1;
+      if (keys[entry] == key) {
+        return entry;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NONE;
+  }
+
+  private void addToTable(int entry) {
+    int slot = slotFor(keys[entry]);
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    // Table slots hold entry + 1 so that 0 can mean empty.
+    table[slot] = entry + 1;
+  }
+
+  /**
+   * Removes a key from the hash table, shifting later entries of the probe sequence back so that
+   * lookups never stop early at the hole.
+   */
+  private void removeFromTable(int key) {
+    int hole = slotFor(key);
+    while (keys[table[hole] - 1] != key) {
+      hole = (hole + 1) & mask;
+    }
+    table[hole] = 0;
+
+    int slot = hole;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (table[slot] == 0) {
+        return;
+      }
+      int home = slotFor(keys[table[slot] - 1]);
+      boolean canMove = hole <= slot
+              ? home <= hole || home > slot
+              : home <= hole && home > slot;
+      if (canMove) {
+        table[hole] = table[slot];
+        table[slot] = 0;
+        hole = slot;
+      }
+    }
+  }
+
+  private int slotFor(int key) {
+    int hash = key * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private void unlink(int entry) {
+    int newerEntry = newer[entry];
+    int olderEntry = older[entry];
+    if (newerEntry == NONE) {
+      newest = olderEntry;
+    } else {
+      older[newerEntry] = olderEntry;
+    }
+    if (olderEntry == NONE) {
+      oldest = newerEntry;
+    } else {
+      newer[olderEntry] = newerEntry;
+    }
+  }
+
+  private void linkNewest(int entry) {
+    newer[entry] = NONE;
+    older[entry] = newest;
+    if (newest != NONE) {
+      newer[newest] = entry;
+    }
+    newest = entry;
+    if (oldest == NONE) {
+      oldest = entry;
+    }
+  }
+}
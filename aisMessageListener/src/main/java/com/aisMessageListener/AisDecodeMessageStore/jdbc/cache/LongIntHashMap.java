@@ -0,0 +1,117 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.cache;
+
+/**
+ * Open-addressing map from long keys to positive int values, kept in two primitive arrays so that
+ * lookups and updates do not box or allocate. A value of 0 marks an empty slot, which suits
+ * database keys generated from a sequence starting at 1. The table doubles when it is half full,
+ * until it holds the maximum number of entries; after that new keys are ignored. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+  private static final int INITIAL_SLOTS = 1024;
+
+  private final int maxEntries;
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  /**
+   * Creates an empty map.
+   *
+   * @param maxEntries the most entries kept; puts of new keys beyond this are ignored.
+   */
+  LongIntHashMap(int maxEntries) {
+    if (maxEntries < 1 || maxEntries > (1 << 29)) {
+      throw new IllegalArgumentException("Maximum entries must be between 1 and 2^29.");
+    }
+    this.maxEntries = maxEntries;
+    int slots = Math.min(INITIAL_SLOTS, Integer.highestOneBit(maxEntries * 2 - 1) << 1);
+    this.keys = new long[slots];
+    this.values = new int[slots];
+    this.mask = slots - 1;
+  }
+
+  /**
+   * Gets the value for a key.
+   *
+   * @param key the key to look up.
+   * @return the value, or 0 if the key is not present.
+   */
+  int get(long key) {
+    int slot = slotFor(key, mask);
+    while (values[slot] != 0) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+   * Adds or replaces the value for a key.
+   *
+   * @param key   the key.
+   * @param value the value, which must be positive.
+   * @return false if the key was new and the map is already full.
+   */
+  boolean put(long key, int value) {
+    if (value <= 0) {
+      throw new IllegalArgumentException("Values must be positive.");
+    }
+
+    int slot = slotFor(key, mask);
+    while (values[slot] != 0) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (size == maxEntries) {
+      return false;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    if (size * 2 > keys.length) {
+      grow();
+    }
+    return true;
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the current size.
+   */
+  int size() {
+    return size;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    mask = keys.length - 1;
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != 0) {
+        int slot = slotFor(oldKeys[i], mask);
+        while (values[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static int slotFor(long key, int mask) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,99 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of vessel_data primary keys by vessel dimensions, shared by all database connections.
+ * Vessels rebroadcast the same static data every few minutes, so the same dimension tuples are
+ * looked up over and over. The four dimensions are packed into one long and kept in a primitive
+ * open-addressing map, so a lookup does not allocate.
+ *
+ * <p>AIS encodes the dimensions in at most 9 bits each, so any tuple that does not fit 16 bits per
+ * dimension is never cached and always goes to the database. vessel_data rows are never changed or
+ * deleted, so cached keys do not go stale; once full, the cache simply stops adding tuples.</p>
+ */
+public final class VesselDataCache implements VesselDataCacheMXBean {
+
+  /**
+   * Returned by {@link #get(int, int, int, int)} when a tuple is not cached. Matches the -1
+   * returned by the database lookup when no row is found.
+   */
+  public static final int MISSING = -1;
+
+  private static final int DIMENSION_MASK = 0xFFFF;
+
+  private final int capacity;
+  private final LongIntHashMap byDimensions;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the most dimension tuples kept.
+   */
+  public VesselDataCache(int capacity) {
+    this.capacity = capacity;
+    this.byDimensions = new LongIntHashMap(capacity);
+  }
+
+  /**
+   * Gets the vessel_data_id for a set of dimensions.
+   *
+   * @return the cached key, or {@link #MISSING}.
+   */
+  public int get(int toBow, int toStern, int toPort, int toStarboard) {
+    int key = 0;
+    if (fits(toBow, toStern, toPort, toStarboard)) {
+      synchronized (this) {
+        key = byDimensions.get(pack(toBow, toStern, toPort, toStarboard));
+      }
+    }
+
+    if (key == 0) {
+      misses.increment();
+      return MISSING;
+    }
+    hits.increment();
+    return key;
+  }
+
+  /**
+   * Records the key of a committed vessel_data row.
+   */
+  public void put(int toBow, int toStern, int toPort, int toStarboard, int vesselDataId) {
+    if (fits(toBow, toStern, toPort, toStarboard)) {
+      synchronized (this) {
+        byDimensions.put(pack(toBow, toStern, toPort, toStarboard), vesselDataId);
+      }
+    }
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public synchronized int getEntries() {
+    return byDimensions.size();
+  }
+
+  @Override
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private static boolean fits(int toBow, int toStern, int toPort, int toStarboard) {
+    return ((toBow | toStern | toPort | toStarboard) & ~DIMENSION_MASK) == 0;
+  }
+
+  private static long pack(int toBow, int toStern, int toPort, int toStarboard) {
+    return (long) toBow << 48 | (long) toStern << 32 | (long) toPort << 16 | toStarboard;
+  }
+}
@@ -0,0 +1,35 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.cache;
+
+/**
+ * JMX view of the vessel_data lookup cache.
+ */
+public interface VesselDataCacheMXBean {
+
+  /**
+   * Gets the number of lookups answered from the cache.
+   *
+   * @return the total hits since startup.
+   */
+  long getHits();
+
+  /**
+   * Gets the number of lookups that had to query the database.
+   *
+   * @return the total misses since startup.
+   */
+  long getMisses();
+
+  /**
+   * Gets the number of cached dimension tuples.
+   *
+   * @return the current entry count.
+   */
+  int getEntries();
+
+  /**
+   * Gets the most dimension tuples the cache will hold.
+   *
+   * @return the cache capacity.
+   */
+  int getCapacity();
+}
@@ -0,0 +1,174 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of vessel_signature primary keys, shared by all database connections. A small
+ * number of vessels send most of the traffic, so most lookups are answered here instead of with a
+ * query. Position reports are looked up by MMSI alone; static and voyage data reports by the full
+ * (mmsi, imo, call_sign, name, vessel_type_id) signature. Each kind of key keeps its own least
+ * recently used entries, up to the capacity.
+ *
+ * <p>Only keys of committed rows may be added, since a rolled back insert would otherwise leave a
+ * key behind that does not exist.</p>
+ */
+public final class VesselSignatureCache implements VesselSignatureCacheMXBean {
+
+  /**
+   * Returned by the getters when a key is not cached. Matches the -1 returned by the database
+   * lookups when no row is found.
+   */
+  public static final int MISSING = -1;
+
+  private final int capacity;
+  private final IntLruMap byMMSI;
+  private final Map<Signature, Integer> bySignature;
+  private final LongAdder mmsiHits = new LongAdder();
+  private final LongAdder mmsiMisses = new LongAdder();
+  private final LongAdder signatureHits = new LongAdder();
+  private final LongAdder signatureMisses = new LongAdder();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the most entries kept for each kind of key.
+   */
+  public VesselSignatureCache(int capacity) {
+    this.capacity = capacity;
+    this.byMMSI = new IntLruMap(capacity);
+    this.bySignature = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Signature, Integer> eldest) {
+        return size() > VesselSignatureCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Gets a vessel_signature_id for a vessel known only by its MMSI.
+   *
+   * @param mmsi the vessel's MMSI.
+   * @return the cached key, or {@link #MISSING}.
+   */
+  public synchronized int getByMMSI(int mmsi) {
+    int key = byMMSI.get(mmsi, MISSING);
+    (key == MISSING ? mmsiMisses : mmsiHits).increment();
+    return key;
+  }
+
+  /**
+   * Gets the vessel_signature_id for a fully qualified signature.
+   *
+   * @return the cached key, or {@link #MISSING}.
+   */
+  public synchronized int getBySignature(int mmsi, Integer imo, String callSign, String name,
+                                         Integer vesselTypeId) {
+    Integer key = bySignature.get(new Signature(mmsi, imo, callSign, name, vesselTypeId));
+    if (key == null) {
+      signatureMisses.increment();
+      return MISSING;
+    }
+    signatureHits.increment();
+    return key;
+  }
+
+  /**
+   * Records a committed vessel_signature row that can be used for MMSI-only lookups.
+   *
+   * @param mmsi              the vessel's MMSI.
+   * @param vesselSignatureId the row's primary key.
+   */
+  public synchronized void putByMMSI(int mmsi, int vesselSignatureId) {
+    byMMSI.put(mmsi, vesselSignatureId);
+  }
+
+  /**
+   * Records the key of a committed vessel_signature row. It is also used for MMSI-only lookups
+   * unless another row is already cached for the MMSI.
+   */
+  public synchronized void putBySignature(int mmsi, Integer imo, String callSign, String name,
+                                          Integer vesselTypeId, int vesselSignatureId) {
+    bySignature.put(new Signature(mmsi, imo, callSign, name, vesselTypeId), vesselSignatureId);
+    if (byMMSI.get(mmsi, MISSING) == MISSING) {
+      byMMSI.put(mmsi, vesselSignatureId);
+    }
+  }
+
+  @Override
+  public long getMMSIHits() {
+    return mmsiHits.sum();
+  }
+
+  @Override
+  public long getMMSIMisses() {
+    return mmsiMisses.sum();
+  }
+
+  @Override
+  public long getSignatureHits() {
+    return signatureHits.sum();
+  }
+
+  @Override
+  public long getSignatureMisses() {
+    return signatureMisses.sum();
+  }
+
+  @Override
+  public synchronized int getMMSIEntries() {
+    return byMMSI.size();
+  }
+
+  @Override
+  public synchronized int getSignatureEntries() {
+    return bySignature.size();
+  }
+
+  @Override
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * The unique key of the vessel_signature table.
+   */
+  private static final class Signature {
+    private final int mmsi;
+    private final Integer imo;
+    private final String callSign;
+    private final String name;
+    private final Integer vesselTypeId;
+
+    private Signature(int mmsi, Integer imo, String callSign, String name, Integer vesselTypeId) {
+      this.mmsi = mmsi;
+      this.imo = imo;
+      this.callSign = callSign;
+      this.name = name;
+      this.vesselTypeId = vesselTypeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Signature)) {
+        return false;
+      }
+      Signature other = (Signature) o;
+      return mmsi == other.mmsi
+              && Objects.equals(imo, other.imo)
+              && Objects.equals(callSign, other.callSign)
+              && Objects.equals(name, other.name)
+              && Objects.equals(vesselTypeId, other.vesselTypeId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mmsi, imo, callSign, name, vesselTypeId);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.cache;
+
+/**
+ * JMX view of the vessel_signature lookup cache.
+ */
+public interface VesselSignatureCacheMXBean {
+
+  /**
+   * Gets the number of MMSI-only lookups answered from the cache.
+   *
+   * @return the total hits since startup.
+   */
+  long getMMSIHits();
+
+  /**
+   * Gets the number of MMSI-only lookups that had to query the database.
+   *
+   * @return the total misses since startup.
+   */
+  long getMMSIMisses();
+
+  /**
+   * Gets the number of full signature lookups answered from the cache.
+   *
+   * @return the total hits since startup.
+   */
+  long getSignatureHits();
+
+  /**
+   * Gets the number of full signature lookups that had to query the database.
+   *
+   * @return the total misses since startup.
+   */
+  long getSignatureMisses();
+
+  /**
+   * Gets the number of cached MMSI-only keys.
+   *
+   * @return the current MMSI entry count.
+   */
+  int getMMSIEntries();
+
+  /**
+   * Gets the number of cached full signatures.
+   *
+   * @return the current signature entry count.
+   */
+  int getSignatureEntries();
+
+  /**
+   * Gets the most entries kept for each kind of key.
+   *
+   * @return the cache capacity.
+   */
+  int getCapacity();
+}
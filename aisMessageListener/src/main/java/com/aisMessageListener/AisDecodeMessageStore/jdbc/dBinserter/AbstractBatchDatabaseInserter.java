@@ -0,0 +1,133 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Logic shared by the batch inserters. A group of messages is written in a single transaction; if
+ * the group cannot be committed, it is split in half and each half is retried on its own, so that
+ * a single bad message is dropped without rolling back the rest. Subclasses decide how a group is
+ * written, and time each table's rows into {@link IngestMetrics} with {@link #timeInsert}.
+ */
+abstract class AbstractBatchDatabaseInserter implements BatchInserterInterface {
+
+  protected final DatabaseConnectionInterface connection;
+
+  /**
+   * Creates a batch inserter that writes through the provided connection manager.
+   *
+   * @param connection the connection manager for database updates.
+   */
+  AbstractBatchDatabaseInserter(DatabaseConnectionInterface connection) {
+    this.connection = connection;
+  }
+
+  @Override
+  public int writeMessages(List<MessageDataInterface> messages) throws SQLException {
+    if (messages.isEmpty()) {
+      return 0;
+    }
+    connection.connectIfDropped();
+    try {
+      return writeOrSplit(messages, 0, messages.size(), 0);
+    } finally {
+      connection.releaseConnection();
+    }
+  }
+
+  @Override
+  public void checkConnection() throws SQLException {
+    connection.connectIfDropped();
+    connection.releaseConnection();
+  }
+
+  /**
+   * Attempts to commit the messages from index from to index to of the group as one transaction,
+   * splitting them in half on failure. The halves are written in order, so when the connection is
+   * lost every message before from has already been committed or dropped.
+   *
+   * @param committed the number of the group's messages committed so far.
+   * @return the number of the group's messages committed once these have been written.
+   * @throws PartialWriteException if the connection is lost, carrying the messages from index
+   *                               from to the end of the group as uncommitted.
+   */
+  private int writeOrSplit(List<MessageDataInterface> group, int from, int to, int committed)
+          throws PartialWriteException {
+    List<MessageDataInterface> messages = group.subList(from, to);
+    try {
+      connection.beginTransaction();
+      try {
+        writeGroup(messages);
+        connection.commitTransaction();
+        return committed + messages.size();
+      } catch (SQLException ex) {
+        connection.rollBackTransaction();
+
+        // Splitting cannot help if the database went away; let the caller journal the rest.
+        if (isConnectionFailure(ex)) {
+          throw ex;
+        }
+
+        if (messages.size() == 1) {
+          System.err.println("Dropping message that could not be written to the database: "
+                  + messages.get(0).getRawNMEA() + "\n");
+          ex.printStackTrace();
+          return committed;
+        }
+      }
+    } catch (SQLException ex) {
+      throw new PartialWriteException(ex, committed, group.subList(from, group.size()));
+    }
+
+    int middle = from + messages.size() / 2;
+    return writeOrSplit(group, middle, to, writeOrSplit(group, from, middle, committed));
+  }
+
+  /**
+   * Checks for the SQLSTATE class 08 errors PostgreSQL reports when the connection is lost.
+   */
+  private static boolean isConnectionFailure(SQLException ex) {
+    return ex.getSQLState() != null && ex.getSQLState().startsWith("08");
+  }
+
+  /**
+   * Writes a group of messages.
+   *
+   * <p>MUST BE CALLED IN TRANSACTION</p>
+   *
+   * @param messages the messages to be written.
+   * @throws SQLException if operation fails due to database access errors.
+   */
+  abstract void writeGroup(List<MessageDataInterface> messages) throws SQLException;
+
+  /**
+   * Sends one table's rows for a batch and records how long that took. Nothing is recorded if
+   * there were no rows to send.
+   *
+   * @param table   the table the rows belong to.
+   * @param hasRows whether there are any rows to send.
+   * @param send    sends the rows.
+   * @throws SQLException if the rows could not be sent.
+   */
+  static void timeInsert(IngestMetrics.Table table, boolean hasRows, TableWrite send)
+          throws SQLException {
+    if (!hasRows) {
+      return;
+    }
+    long start = System.nanoTime();
+    send.write();
+    IngestMetrics.get().getInsertLatency(table).recordSince(start);
+  }
+
+  /**
+   * Sends one table's rows.
+   */
+  interface TableWrite {
+    void write() throws SQLException;
+  }
+
+}
@@ -2,21 +2,32 @@ package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
 
 
 import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageCapabilities;
 import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
 import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.CoordinateUtil;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
 
 import org.postgresql.geometric.PGpoint;
 
 import java.sql.SQLException;
 import java.time.OffsetDateTime;
-
-import dk.tbsalling.aismessages.ais.exceptions.UnsupportedMessageType;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Insertion logic that can be abstracted out of individual message types live in this Abstract
  * object. DatabaseInserter objects are to be constructed with minimally a MessageDataInterface
  * implementation, i.e our wrappers around supported message functionality. DatabaseInserters must
  * also have a connection to the database attached in order to commit write transactions.
+ *
+ * <p>Primary keys are reserved ahead of time, so each table's row is queued rather than sent as it
+ * is built, and writeMessageData sends all of them in a single round trip.</p>
+ *
+ * <p>Which tables a message has data for is read from its {@link MessageCapabilities} mask, so
+ * no getter the message type lacks is ever called.</p>
+ *
+ * <p>Each table's lookup step is timed into {@link IngestMetrics} as lookup latency, since its
+ * row is only queued, and the round trip that sends every row as the pipelined insert.</p>
  */
 public abstract class AbstractDatabaseInserter implements DatabaseInserterInterface {
 
@@ -29,6 +40,9 @@ public abstract class AbstractDatabaseInserter implements DatabaseInserterInterf
   private int vesselDataPrimaryKey;
   private int geospatialDataPrimaryKey;
 
+  private final List<String> pendingSQL = new ArrayList<>();
+  private final List<Object[]> pendingRows = new ArrayList<>();
+
   /**
    * Constructor that supplies a MessageData implementation wrapper and an existing Database
    * connection to be attached.
@@ -62,14 +76,18 @@ public abstract class AbstractDatabaseInserter implements DatabaseInserterInterf
   public WriteResult writeMessage() throws SQLException {
     connection.connectIfDropped();
     connection.beginTransaction();
+    pendingSQL.clear();
+    pendingRows.clear();
 
     try {
-      writeVesselData();
-      writeVesselSignature();
-      writeVoyageData();
-      writeNavigationData();
-      writeGeospatialData();
+      long start = System.nanoTime();
+      start = recordLookup(IngestMetrics.Table.VESSEL_DATA, writeVesselData(), start);
+      start = recordLookup(IngestMetrics.Table.VESSEL_SIGNATURE, writeVesselSignature(), start);
+      start = recordLookup(IngestMetrics.Table.VOYAGE_DATA, writeVoyageData(), start);
+      start = recordLookup(IngestMetrics.Table.NAVIGATION_DATA, writeNavigationData(), start);
+      start = recordLookup(IngestMetrics.Table.GEOSPATIAL_DATA, writeGeospatialData(), start);
       writeMessageData();
+      IngestMetrics.get().getPipelinedInsert().recordSince(start);
 
       connection.commitTransaction();
       return WriteResult.SUCCESS;
@@ -82,362 +100,214 @@ public abstract class AbstractDatabaseInserter implements DatabaseInserterInterf
 
   @Override
   public WriteResult writeMessageData() throws SQLException {
-    try {
-      OffsetDateTime timeReceived = message.getTimeReceived();
-      Boolean isValidMessage = message.isValidType();
-      Boolean isMultiPart = message.hasMultipleParts();
-      String rawNMEA = message.getRawNMEA();
-      int messageTypeId = message.getMessageTypeId();
-      String geoDataKey = geospatialDataPrimaryKey == -1 ? "NULL" : Integer.toString(geospatialDataPrimaryKey);
-      String navDataKey = navigationDataPrimaryKey == -1 ? "NULL" : Integer.toString(navigationDataPrimaryKey);
-      String voyageDataKey = voyageDataPrimaryKey == -1 ? "NULL" : Integer.toString(voyageDataPrimaryKey);
-      String vesselDataKey = vesselDataPrimaryKey == -1 ? "NULL" : Integer.toString(vesselDataPrimaryKey);
-      if (vesselSignaturePrimaryKey == -1) {
-        System.err.println("Cannot update message_data table without first updating vessel_signature.\n");
-      }
-
-      // TODO: Replace with Prepared Statement
-      String sqlUpdate =
-              "INSERT INTO message_data(" +
-                      "time_received," +
-                      "is_valid_msg," +
-                      "is_multi_part," +
-                      "raw_nmea," +
-                      "message_type_id," +
-                      "geospatial_data_id," +
-                      "navigation_data_id," +
-                      "voyage_data_id," +
-                      "vessel_signature_id," +
-                      "vessel_data_id" +
-                      ") " +
-                      "VALUES ('" +
-                      timeReceived + "'," +
-                      isValidMessage + "," +
-                      isMultiPart + ",'" +
-                      rawNMEA + "'," +
-                      messageTypeId + "," +
-                      geoDataKey + "," +
-                      navDataKey + "," +
-                      voyageDataKey + "," +
-                      vesselSignaturePrimaryKey + "," +
-                      vesselDataKey +
-                      ")";
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for msg_data record.\n");
-      }
-
-      return WriteResult.SUCCESS;
-    } catch (UnsupportedMessageType ex) {
-      // None of these methods should throw an UnsupportedMessageType exception.
-      System.err.println("Could not access data needed for writing to message_data table.\n");
-      System.exit(1);
-
+    if (vesselSignaturePrimaryKey == -1) {
+      System.err.println("Cannot update message_data table without first updating vessel_signature.\n");
+    }
 
-      return WriteResult.UNSUPPORTED;
+    // message_data keys are never referenced, so the column default assigns them. Every message
+    // has these fields.
+    queueInsert(InsertStatements.MESSAGE_DATA,
+            message.getTimeReceived(),
+            message.isValidType(),
+            message.hasMultipleParts(),
+            message.getRawNMEA(),
+            message.getMessageTypeId(),
+            keyOrNull(geospatialDataPrimaryKey),
+            keyOrNull(navigationDataPrimaryKey),
+            keyOrNull(voyageDataPrimaryKey),
+            vesselSignaturePrimaryKey,
+            keyOrNull(vesselDataPrimaryKey));
+
+    // Every row of the message reaches the server in one round trip.
+    try {
+      connection.insertPipelined(pendingSQL, pendingRows);
+    } finally {
+      pendingSQL.clear();
+      pendingRows.clear();
     }
+
+    return WriteResult.SUCCESS;
   }
 
   @Override
   public WriteResult writeVesselSignature() throws SQLException {
-    try {
-      String imo;
-      if (message.getIMO().isPresent()) {
-        imo = "" + message.getIMO().get();
-      } else {
-        imo = "NULL";
-      }
-
-      String vesselTypeId;
-      if (message.getVesselTypeId().isPresent()) {
-        vesselTypeId = "" + message.getVesselTypeId().get();
-      } else {
-        vesselTypeId = "NULL";
-      }
-
+    if (message.hasCapabilities(MessageCapabilities.VESSEL_SIGNATURE)) {
+      Integer imo = message.getIMO().orElse(null);
+      Integer vesselTypeId = message.getVesselTypeId().orElse(null);
       int mmsi = message.getMMSI();
       String callSign = message.getCallsign();
       String name = message.getShipName();
 
       // Check if vessel signature already exists in table.
-      //TODO: getVesselSignatureIdFromFullyQualifiedSignature may not handle null values correctly.
-      //      Currently a non-issue, as we have not encountered a fully qualified signature that
-      //      contains nulls.
       int vesselSignatureID = connection.getVesselSignatureIdFromFullyQualifiedSignature(mmsi, imo, callSign, name, vesselTypeId);
       if (vesselSignatureID != -1) {
         this.vesselSignaturePrimaryKey = vesselSignatureID;
         return WriteResult.SUCCESS;
       }
 
-      // TODO: Replace with Prepared Statement
-      String sqlUpdate =
-              "INSERT INTO vessel_signature(" +
-                      "mmsi," +
-                      "imo," +
-                      "call_sign," +
-                      "name," +
-                      "vessel_type_id" +
-                      ") " +
-                      "VALUES (" +
-                      mmsi + "," +
-                      imo + ",'" +
-                      callSign + "','" +
-                      name + "'," +
-                      vesselTypeId +
-                      ")";
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for vessel_signature record.\n");
-      }
+      int primaryKey =
+              InsertStatements.nextKey(connection, InsertStatements.VESSEL_SIGNATURE_TABLE);
+      queueInsert(InsertStatements.VESSEL_SIGNATURE,
+              primaryKey, mmsi, imo, callSign, name, vesselTypeId);
       this.vesselSignaturePrimaryKey = primaryKey; // Update for writeMessageData foreign key.
       return WriteResult.SUCCESS;
+    }
 
-    } catch (UnsupportedMessageType ex) {
-
-      // Check if vessel signature already exists in table.
-      int vesselSignatureID = connection.getVesselSignatureIdWithMMSI(message.getMMSI());
-      if (vesselSignatureID != -1) {
-        this.vesselSignaturePrimaryKey = vesselSignatureID;
-        return WriteResult.SUCCESS;
-      }
-
-      // TODO: Replace with Prepared Statement
-      String sqlUpdate =
-              "INSERT INTO vessel_signature(" +
-                      "mmsi," +
-                      "imo," +
-                      "call_sign," +
-                      "name," +
-                      "vessel_type_id" +
-                      ") " +
-                      "VALUES (" +
-                      message.getMMSI() + "," +
-                      "NULL," +
-                      "NULL," +
-                      "NULL," +
-                      "NULL" +
-                      ")";
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for MMSI-only vessel_signature record.\n");
-      }
-      this.vesselSignaturePrimaryKey = primaryKey;
+    // Only the MMSI is known. Check if vessel signature already exists in table.
+    int vesselSignatureID = connection.getVesselSignatureIdWithMMSI(message.getMMSI());
+    if (vesselSignatureID != -1) {
+      this.vesselSignaturePrimaryKey = vesselSignatureID;
       return WriteResult.SUCCESS;
     }
+
+    int primaryKey =
+            InsertStatements.nextKey(connection, InsertStatements.VESSEL_SIGNATURE_TABLE);
+    queueInsert(InsertStatements.VESSEL_SIGNATURE,
+            primaryKey, message.getMMSI(), null, null, null, null);
+    this.vesselSignaturePrimaryKey = primaryKey;
+    return WriteResult.SUCCESS;
   }
 
   @Override
   public WriteResult writeVoyageData() throws SQLException {
-    try {
-      Float draught = message.getDraught();
-      String destination = message.getDestination();
-
-      // TODO: Replace with Prepared Statements
-      String sqlUpdate;
-      if (message.getETA().isPresent()) {
-        sqlUpdate =
-                "INSERT INTO voyage_data(" +
-                        "draught," +
-                        "eta," +
-                        "destination" +
-                        ") " +
-                        "VALUES (" +
-                        draught + ",'" +
-                        message.getETA().get() + "','" +
-                        destination +
-                        "')";
-      } else {
-        sqlUpdate =
-                "INSERT INTO voyage_data(" +
-                        "draught," +
-                        "eta," +
-                        "destination" +
-                        ") " +
-                        "VALUES (" +
-                        draught + "," +
-                        "NULL" + ",'" +
-                        destination +
-                        "')";
-      }
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for voyage_data record.\n");
-      }
-      this.voyageDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
-
-      return WriteResult.SUCCESS;
-    } catch (
-            UnsupportedMessageType ex) {
+    if (!message.hasCapabilities(MessageCapabilities.VOYAGE_DATA)) {
       // This message does not contain voyage data. FK will be null in Message_Data table.
       return WriteResult.UNSUPPORTED;
     }
 
+    Float draught = message.getDraught();
+    OffsetDateTime eta = message.getETA().orElse(null);
+    String destination = message.getDestination();
+
+    int primaryKey = InsertStatements.nextKey(connection, InsertStatements.VOYAGE_DATA_TABLE);
+    queueInsert(InsertStatements.VOYAGE_DATA, primaryKey, draught, eta, destination);
+    this.voyageDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
+
+    return WriteResult.SUCCESS;
   }
 
   @Override
   public WriteResult writeVesselData() throws SQLException {
-    try {
-      Integer toBow = message.getToBow();
-      Integer toStern = message.getToStern();
-      Integer toPort = message.getToPort();
-      Integer toStarboard = message.getToStarboard();
-
-      // Check if vessel data already exists in table.
-      int vesselDataID = connection.getVesselDataIdFromRecord(toBow, toStern, toPort, toStarboard);
-      if (vesselDataID != -1) {
-        this.vesselDataPrimaryKey = vesselDataID;
-        return WriteResult.SUCCESS;
-      }
-
-      // TODO: Replace with Prepared Statement
-      String sqlUpdate =
-              "INSERT INTO vessel_data(" +
-                      "to_bow," +
-                      "to_stern," +
-                      "to_port," +
-                      "to_starboard" +
-                      ") " +
-                      "VALUES (" +
-                      toBow + "," +
-                      toStern + "," +
-                      toPort + "," +
-                      toStarboard +
-                      ")";
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for vessel_data record.\n");
-      }
-      this.vesselDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
-      return WriteResult.SUCCESS;
-
-    } catch (UnsupportedMessageType ex) {
+    if (!message.hasCapabilities(MessageCapabilities.VESSEL_DATA)) {
       // This message does not contain vessel data. FK will be null in Message_Data table.
       return WriteResult.UNSUPPORTED;
     }
+
+    Integer toBow = message.getToBow();
+    Integer toStern = message.getToStern();
+    Integer toPort = message.getToPort();
+    Integer toStarboard = message.getToStarboard();
+
+    // Check if vessel data already exists in table.
+    int vesselDataID = connection.getVesselDataIdFromRecord(toBow, toStern, toPort, toStarboard);
+    if (vesselDataID != -1) {
+      this.vesselDataPrimaryKey = vesselDataID;
+      return WriteResult.SUCCESS;
+    }
+
+    int primaryKey = InsertStatements.nextKey(connection, InsertStatements.VESSEL_DATA_TABLE);
+    queueInsert(InsertStatements.VESSEL_DATA, primaryKey, toBow, toStern, toPort, toStarboard);
+    this.vesselDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
+    return WriteResult.SUCCESS;
   }
 
   @Override
   public WriteResult writeNavigationData() throws SQLException {
-    try {
-
-      Float sog = message.getSpeedOverGround();
-      Float cog = message.getCourseOverGround();
-      Float heading = message.getHeading();
-      Float rot = message.getRateOfTurn();
-      int navStatusId = message.getNavStatusId();
-      int maneuverIndicatorId = message.getManeuverIndicatorId();
-
-      // TODO: Replace with Prepared Statement
-      String sqlUpdate =
-              "INSERT INTO navigation_data(" +
-                      "speed_over_ground," +
-                      "course_over_ground," +
-                      "heading," +
-                      "rate_of_turn," +
-                      "nav_status_id," +
-                      "maneuver_indicator_id" +
-                      ") " +
-                      "VALUES (" +
-                      sog + "," +
-                      cog + "," +
-                      heading + "," +
-                      rot + "," +
-                      navStatusId + "," +
-                      maneuverIndicatorId +
-                      ")";
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for navigation_data record.\n");
-      }
-      this.navigationDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
-
-      return WriteResult.SUCCESS;
-    } catch (UnsupportedMessageType ex) {
+    if (!message.hasCapabilities(MessageCapabilities.NAVIGATION_DATA)) {
       // This message does not contain navigation data. FK will be null in Message_Data table.
       return WriteResult.UNSUPPORTED;
     }
+
+    Float sog = message.getSpeedOverGround();
+    Float cog = message.getCourseOverGround();
+    Float heading = message.getHeading();
+    Float rot = message.getRateOfTurn();
+    int navStatusId = message.getNavStatusId();
+    int maneuverIndicatorId = message.getManeuverIndicatorId();
+
+    int primaryKey =
+            InsertStatements.nextKey(connection, InsertStatements.NAVIGATION_DATA_TABLE);
+    queueInsert(InsertStatements.NAVIGATION_DATA,
+            primaryKey, sog, cog, heading, rot, navStatusId, maneuverIndicatorId);
+    this.navigationDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
+
+    return WriteResult.SUCCESS;
   }
 
   @Override
   public WriteResult writeGeospatialData() throws SQLException {
-    try {
-      int accuracy = message.getAccuracy() ? 1 : 0;
-      // TODO: use appropriate geography data type for PostGIS extension
-      PGpoint coord = CoordinateUtil.getCoord(message.getLat(), message.getLong());
-
-      // TODO: Replace with Prepared Statement
-      String sqlUpdate =
-              "INSERT INTO geospatial_data(" +
-                      "coord," +
-                      "accuracy" +
-                      ") " +
-                      "VALUES ('" +
-                      coord + "'," +
-                      accuracy +
-                      ")";
-
-      int primaryKey = connection.insertOneRecord(sqlUpdate);
-      if (primaryKey == -1) {
-        throw new SQLException("Error recording primary key for geospatial_data record.\n");
-      }
-      this.geospatialDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
-
-      return WriteResult.SUCCESS;
-    } catch (UnsupportedMessageType ex) {
+    if (!message.hasCapabilities(MessageCapabilities.GEOSPATIAL_DATA)) {
       // This message does not contain geospatial data. FK will be null in Message_Data table.
       return WriteResult.UNSUPPORTED;
     }
+
+    int accuracy = message.getAccuracy() ? 1 : 0;
+    // TODO: use appropriate geography data type for PostGIS extension
+    PGpoint coord = CoordinateUtil.getCoord(message.getLat(), message.getLong());
+
+    int primaryKey =
+            InsertStatements.nextKey(connection, InsertStatements.GEOSPATIAL_DATA_TABLE);
+    queueInsert(InsertStatements.GEOSPATIAL_DATA, primaryKey, coord, accuracy);
+    this.geospatialDataPrimaryKey = primaryKey; // Update for writeMessageData foreign key.
+
+    return WriteResult.SUCCESS;
+  }
+
+  /**
+   * Records how long finding a table's key and queueing its row took, unless the message has no
+   * row for that table.
+   *
+   * @return the {@link System#nanoTime()} at which the next step starts.
+   */
+  private static long recordLookup(IngestMetrics.Table table, WriteResult result,
+                                   long startNanos) {
+    if (result == WriteResult.UNSUPPORTED) {
+      return System.nanoTime();
+    }
+    return IngestMetrics.get().getLookupLatency(table).recordSince(startNanos);
+  }
+
+  /**
+   * Holds a row until writeMessageData sends every row of the message together.
+   */
+  private void queueInsert(String insertSQL, Object... row) {
+    pendingSQL.add(insertSQL);
+    pendingRows.add(row);
+  }
+
+  /**
+   * Gets the foreign key value to bind, where -1 indicates that no row was written.
+   */
+  private static Integer keyOrNull(int primaryKey) {
+    return primaryKey == -1 ? null : primaryKey;
   }
 
   // NOTE: vessel_type table is a static reference table
   @Deprecated
   @Override
   public WriteResult writeVesselType() throws SQLException {
-    try {
-      message.getVesselTypeId();
-
-      return WriteResult.SUCCESS;
-    } catch (UnsupportedMessageType ex) {
+    if (!message.hasCapabilities(MessageCapabilities.VESSEL_SIGNATURE)) {
       // WRITE BLANK RECORD WITH NULL COLUMNS
       return WriteResult.UNSUPPORTED;
-    } catch (Exception ex) {
-      return WriteResult.FAILURE;
     }
+    return WriteResult.SUCCESS;
   }
 
   // NOTE: nav_status table is a static reference table
   @Deprecated
   @Override
   public WriteResult writeNavigationStatus() throws SQLException {
-    try {
-
-      return WriteResult.SUCCESS;
-    } catch (UnsupportedMessageType ex) {
-      // WRITE BLANK RECORD WITH NULL COLUMNS
-      return WriteResult.UNSUPPORTED;
-    }
+    return WriteResult.SUCCESS;
   }
 
   // NOTE: maneuver_indicator table is a static reference table
   @Deprecated
   @Override
   public WriteResult writeManeuverIndicator() throws SQLException {
-    try {
-      message.getManeuverIndicatorId();
-
-      return WriteResult.SUCCESS;
-    } catch (UnsupportedMessageType ex) {
+    if (!message.hasCapabilities(MessageCapabilities.NAVIGATION_DATA)) {
       // WRITE BLANK RECORD WITH NULL COLUMNS
       return WriteResult.UNSUPPORTED;
-    } catch (Exception ex) {
-      return WriteResult.FAILURE;
-
     }
+    return WriteResult.SUCCESS;
   }
 }
@@ -0,0 +1,201 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageCapabilities;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch inserters that resolve the lookup tables on the client. The vessel_data and
+ * vessel_signature keys are looked up here, with one query per distinct key in the group, and
+ * the rows for any that are missing are sent with reserved keys. Subclasses decide how the
+ * per-message rows (voyage_data, navigation_data, geospatial_data and message_data) are sent, and
+ * time each table's rows into {@link IngestMetrics} as the lookup tables' are timed here.
+ */
+abstract class AbstractKeyResolvingBatchInserter extends AbstractBatchDatabaseInserter {
+
+  /**
+   * Creates a key resolving batch inserter that writes through the provided connection manager.
+   *
+   * @param connection the connection manager for database updates.
+   */
+  AbstractKeyResolvingBatchInserter(DatabaseConnectionInterface connection) {
+    super(connection);
+  }
+
+  /**
+   * Writes the per-message rows for a group whose lookup table keys are already resolved.
+   *
+   * <p>MUST BE CALLED IN TRANSACTION</p>
+   *
+   * @param messages            the messages to be written.
+   * @param vesselDataKeys      the vessel_data key for each message, or null if not applicable.
+   * @param vesselSignatureKeys the vessel_signature key for each message.
+   * @throws SQLException if operation fails due to database access errors.
+   */
+  abstract void writeMessageRows(List<MessageDataInterface> messages,
+                                KeyReference[] vesselDataKeys,
+                                KeyReference[] vesselSignatureKeys)
+          throws SQLException;
+
+  /**
+   * Resolves the lookup tables for the group, then writes the per-message rows.
+   *
+   * <p>MUST BE CALLED IN TRANSACTION</p>
+   *
+   * @param messages the messages to be written.
+   * @throws SQLException if operation fails due to database access errors.
+   */
+  @Override
+  final void writeGroup(List<MessageDataInterface> messages) throws SQLException {
+    int size = messages.size();
+    KeyReference[] vesselDataKeys = new KeyReference[size];
+    KeyReference[] vesselSignatureKeys = new KeyReference[size];
+
+    TableBatch vesselDataBatch =
+            new TableBatch(InsertStatements.VESSEL_DATA, IngestMetrics.Table.VESSEL_DATA);
+    TableBatch vesselSignatureBatch = new TableBatch(InsertStatements.VESSEL_SIGNATURE,
+            IngestMetrics.Table.VESSEL_SIGNATURE);
+    Map<List<Integer>, KeyReference> vesselDataByDimensions = new HashMap<>();
+    Map<String, KeyReference> vesselSignatureBySignature = new HashMap<>();
+    Map<Integer, KeyReference> vesselSignatureByMMSI = new HashMap<>();
+
+    for (int i = 0; i < size; i++) {
+      MessageDataInterface message = messages.get(i);
+      vesselDataKeys[i] = resolveVesselData(message, vesselDataByDimensions, vesselDataBatch);
+      vesselSignatureKeys[i] = resolveVesselSignature(
+              message, vesselSignatureBySignature, vesselSignatureByMMSI, vesselSignatureBatch);
+    }
+
+    vesselDataBatch.execute(connection);
+    vesselSignatureBatch.execute(connection);
+    writeMessageRows(messages, vesselDataKeys, vesselSignatureKeys);
+  }
+
+  private KeyReference resolveVesselData(MessageDataInterface message,
+                                         Map<List<Integer>, KeyReference> known,
+                                         TableBatch batch) throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.VESSEL_DATA)) {
+      // This message does not contain vessel data. FK will be null in Message_Data table.
+      return null;
+    }
+    List<Integer> dimensions = Arrays.asList(message.getToBow(), message.getToStern(),
+            message.getToPort(), message.getToStarboard());
+
+    KeyReference reference = known.get(dimensions);
+    if (reference != null) {
+      return reference;
+    }
+
+    reference = new KeyReference();
+    reference.key = connection.getVesselDataIdFromRecord(
+            dimensions.get(0), dimensions.get(1), dimensions.get(2), dimensions.get(3));
+    if (reference.key == -1) {
+      reference.key = InsertStatements.nextKey(connection, InsertStatements.VESSEL_DATA_TABLE);
+      batch.add(reference, dimensions.toArray());
+    }
+    known.put(dimensions, reference);
+    return reference;
+  }
+
+  private KeyReference resolveVesselSignature(MessageDataInterface message,
+                                              Map<String, KeyReference> knownSignatures,
+                                              Map<Integer, KeyReference> knownMMSIs,
+                                              TableBatch batch) throws SQLException {
+    int mmsi = message.getMMSI();
+    if (!message.hasCapabilities(MessageCapabilities.VESSEL_SIGNATURE)) {
+      // Only the MMSI is known, so any signature already recorded for this vessel will do.
+      KeyReference reference = knownMMSIs.get(mmsi);
+      if (reference != null) {
+        return reference;
+      }
+
+      reference = new KeyReference();
+      reference.key = connection.getVesselSignatureIdWithMMSI(mmsi);
+      if (reference.key == -1) {
+        reference.key =
+                InsertStatements.nextKey(connection, InsertStatements.VESSEL_SIGNATURE_TABLE);
+        batch.add(reference, new Object[]{mmsi, null, null, null, null});
+      }
+      knownMMSIs.put(mmsi, reference);
+      return reference;
+    }
+
+    Integer imo = message.getIMO().orElse(null);
+    Integer vesselTypeId = message.getVesselTypeId().orElse(null);
+    String callSign = message.getCallsign();
+    String name = message.getShipName();
+    String signature = mmsi + "|" + imo + "|" + callSign + "|" + name + "|" + vesselTypeId;
+    KeyReference reference = knownSignatures.get(signature);
+    if (reference != null) {
+      return reference;
+    }
+
+    reference = new KeyReference();
+    reference.key = connection.getVesselSignatureIdFromFullyQualifiedSignature(
+            mmsi, imo, callSign, name, vesselTypeId);
+    if (reference.key == -1) {
+      reference.key =
+              InsertStatements.nextKey(connection, InsertStatements.VESSEL_SIGNATURE_TABLE);
+      batch.add(reference, new Object[]{mmsi, imo, callSign, name, vesselTypeId});
+    }
+    knownSignatures.put(signature, reference);
+    knownMMSIs.putIfAbsent(mmsi, reference);
+    return reference;
+  }
+
+  /**
+   * The primary key of a row referenced by message_data, shared by every message in a group that
+   * refers to the same row. -1 indicates that a pk has not been found or reserved yet.
+   */
+  static final class KeyReference {
+    int key = -1;
+
+    /**
+     * Gets the foreign key value to bind for a reference, or -1 if the table was not written.
+     */
+    static int keyOf(KeyReference reference) {
+      return reference == null ? -1 : reference.key;
+    }
+  }
+
+  /**
+   * The rows waiting to be inserted to one table. Keys are reserved before rows are added, so the
+   * whole batch is sent without reading anything back.
+   */
+  static final class TableBatch {
+    private final String insertSQL;
+    private final IngestMetrics.Table table;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    TableBatch(String insertSQL, IngestMetrics.Table table) {
+      this.insertSQL = insertSQL;
+      this.table = table;
+    }
+
+    /**
+     * Queues a row, preceded by its reserved key unless the table's key is left to the database.
+     */
+    void add(KeyReference reference, Object[] row) {
+      if (reference == null) {
+        rows.add(row);
+        return;
+      }
+      Object[] keyedRow = new Object[row.length + 1];
+      keyedRow[0] = reference.key;
+      System.arraycopy(row, 0, keyedRow, 1, row.length);
+      rows.add(keyedRow);
+    }
+
+    void execute(DatabaseConnectionInterface connection) throws SQLException {
+      timeInsert(table, !rows.isEmpty(), () -> connection.insertRows(insertSQL, rows));
+    }
+  }
+}
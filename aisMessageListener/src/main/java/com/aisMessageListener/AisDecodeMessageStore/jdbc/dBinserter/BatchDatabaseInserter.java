@@ -0,0 +1,146 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageCapabilities;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.CoordinateUtil;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.StatementBinder;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes a group of messages to the database in a single transaction. Rows for each table are sent
+ * as one JDBC batch instead of one statement per message, and the transaction is committed once
+ * for the whole group. Primary keys come from reserved blocks, so no batch waits for the keys of
+ * another.
+ *
+ * <p>Each message's fields are read through the primitive getters and bound straight to the
+ * cached statements, so no boxed values or row arrays are built per message.</p>
+ */
+public final class BatchDatabaseInserter extends AbstractKeyResolvingBatchInserter {
+
+  /**
+   * Creates a batch inserter that writes through the provided connection manager.
+   *
+   * @param connection the connection manager for database updates.
+   */
+  public BatchDatabaseInserter(DatabaseConnectionInterface connection) {
+    super(connection);
+  }
+
+  @Override
+  void writeMessageRows(List<MessageDataInterface> messages, KeyReference[] vesselDataKeys,
+                        KeyReference[] vesselSignatureKeys) throws SQLException {
+    int size = messages.size();
+    int[] voyageDataKeys = new int[size];
+    int[] navigationDataKeys = new int[size];
+    int[] geospatialDataKeys = new int[size];
+
+    PreparedStatement voyageData = connection.prepareRows(InsertStatements.VOYAGE_DATA);
+    PreparedStatement navigationData = connection.prepareRows(InsertStatements.NAVIGATION_DATA);
+    PreparedStatement geospatialData = connection.prepareRows(InsertStatements.GEOSPATIAL_DATA);
+    boolean hasVoyageData = false;
+    boolean hasNavigationData = false;
+    boolean hasGeospatialData = false;
+    for (int i = 0; i < size; i++) {
+      MessageDataInterface message = messages.get(i);
+      voyageDataKeys[i] = addVoyageData(voyageData, message);
+      navigationDataKeys[i] = addNavigationData(navigationData, message);
+      geospatialDataKeys[i] = addGeospatialData(geospatialData, message);
+      hasVoyageData |= voyageDataKeys[i] != -1;
+      hasNavigationData |= navigationDataKeys[i] != -1;
+      hasGeospatialData |= geospatialDataKeys[i] != -1;
+    }
+
+    // message_data keys are never referenced, so the column default assigns them.
+    PreparedStatement messageData = connection.prepareRows(InsertStatements.MESSAGE_DATA);
+    for (int i = 0; i < size; i++) {
+      MessageDataInterface message = messages.get(i);
+      StatementBinder.setTimestamp(messageData, 1, message.getTimeReceivedMillis());
+      messageData.setBoolean(2, message.isValidType());
+      messageData.setBoolean(3, message.hasMultipleParts());
+      messageData.setString(4, message.getRawNMEA());
+      messageData.setInt(5, message.getMessageTypeId());
+      StatementBinder.setKey(messageData, 6, geospatialDataKeys[i]);
+      StatementBinder.setKey(messageData, 7, navigationDataKeys[i]);
+      StatementBinder.setKey(messageData, 8, voyageDataKeys[i]);
+      StatementBinder.setKey(messageData, 9, vesselSignatureKeys[i].key);
+      StatementBinder.setKey(messageData, 10, KeyReference.keyOf(vesselDataKeys[i]));
+      messageData.addBatch();
+    }
+
+    timeInsert(IngestMetrics.Table.VOYAGE_DATA, hasVoyageData, voyageData::executeBatch);
+    timeInsert(IngestMetrics.Table.NAVIGATION_DATA, hasNavigationData,
+            navigationData::executeBatch);
+    timeInsert(IngestMetrics.Table.GEOSPATIAL_DATA, hasGeospatialData,
+            geospatialData::executeBatch);
+    timeInsert(IngestMetrics.Table.MESSAGE_DATA, size > 0, messageData::executeBatch);
+  }
+
+  /**
+   * Reserves a key and queues the message's voyage_data row, if it has one.
+   *
+   * @return the row's key, or -1 if there is no row.
+   */
+  private int addVoyageData(PreparedStatement stmt, MessageDataInterface message)
+          throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.VOYAGE_DATA)) {
+      // This message does not contain voyage data. FK will be null in Message_Data table.
+      return -1;
+    }
+    int key = InsertStatements.nextKey(connection, InsertStatements.VOYAGE_DATA_TABLE);
+    stmt.setInt(1, key);
+    StatementBinder.setFloat(stmt, 2, message.getDraughtValue());
+    StatementBinder.setTimestamp(stmt, 3, message.getETAMillis());
+    StatementBinder.setString(stmt, 4, message.getDestination());
+    stmt.addBatch();
+    return key;
+  }
+
+  /**
+   * Reserves a key and queues the message's navigation_data row, if it has one.
+   *
+   * @return the row's key, or -1 if there is no row.
+   */
+  private int addNavigationData(PreparedStatement stmt, MessageDataInterface message)
+          throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.NAVIGATION_DATA)) {
+      // This message does not contain navigation data. FK will be null in Message_Data table.
+      return -1;
+    }
+    int key = InsertStatements.nextKey(connection, InsertStatements.NAVIGATION_DATA_TABLE);
+    stmt.setInt(1, key);
+    StatementBinder.setFloat(stmt, 2, message.getSpeedOverGroundValue());
+    StatementBinder.setFloat(stmt, 3, message.getCourseOverGroundValue());
+    StatementBinder.setFloat(stmt, 4, message.getHeadingValue());
+    StatementBinder.setFloat(stmt, 5, message.getRateOfTurnValue());
+    stmt.setInt(6, message.getNavStatusId());
+    stmt.setInt(7, message.getManeuverIndicatorId());
+    stmt.addBatch();
+    return key;
+  }
+
+  /**
+   * Reserves a key and queues the message's geospatial_data row, if it has one.
+   *
+   * @return the row's key, or -1 if there is no row.
+   */
+  private int addGeospatialData(PreparedStatement stmt, MessageDataInterface message)
+          throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.GEOSPATIAL_DATA)) {
+      // This message does not contain geospatial data. FK will be null in Message_Data table.
+      return -1;
+    }
+    int key = InsertStatements.nextKey(connection, InsertStatements.GEOSPATIAL_DATA_TABLE);
+    stmt.setInt(1, key);
+    // TODO: use appropriate geography data type for PostGIS extension
+    StatementBinder.setPoint(stmt, 2,
+            CoordinateUtil.getCoord(message.getLatValue(), message.getLongValue()));
+    stmt.setInt(3, message.getAccuracy() ? 1 : 0);
+    stmt.addBatch();
+    return key;
+  }
+}
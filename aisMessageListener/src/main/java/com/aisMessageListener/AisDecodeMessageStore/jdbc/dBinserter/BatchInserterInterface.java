@@ -0,0 +1,34 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Interface for writers that commit a whole group of messages to the database at once, rather
+ * than one DatabaseInserter transaction per message.
+ */
+public interface BatchInserterInterface {
+
+  /**
+   * Writes all provided messages to the database. Groups that fail are split and retried until
+   * the failing messages are isolated; those messages are reported and dropped.
+   *
+   * @param messages the messages to be written, in the order they were received.
+   * @return the number of messages that were committed to the database.
+   * @throws PartialWriteException if the connection was lost while writing, or a transaction
+   *                               could not be begun, committed or rolled back. Only the messages
+   *                               it reports as uncommitted should be written again.
+   * @throws SQLException          if the connection could not be re-established before writing.
+   *                               None of the messages were committed.
+   */
+  int writeMessages(List<MessageDataInterface> messages) throws SQLException;
+
+  /**
+   * Re-establishes the database connection if it has dropped.
+   *
+   * @throws SQLException if the database still cannot be reached.
+   */
+  void checkConnection() throws SQLException;
+}
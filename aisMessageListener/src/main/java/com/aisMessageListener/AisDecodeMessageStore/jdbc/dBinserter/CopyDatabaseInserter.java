@@ -0,0 +1,241 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageCapabilities;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Bulk ingest variant of the batch inserter for high-rate feeds and backfills. Keys for the
+ * voyage_data, navigation_data and geospatial_data rows come from blocks reserved from their
+ * sequences, so message_data foreign keys can be filled in without reading generated keys back.
+ * Each table is then loaded with a single PostgreSQL COPY instead of one INSERT per row.
+ *
+ * <p>Rows are appended to reused buffers straight from each message's primitive getters, so
+ * nothing is boxed per message.</p>
+ */
+public final class CopyDatabaseInserter extends AbstractKeyResolvingBatchInserter {
+
+  private static final String VOYAGE_DATA_COPY =
+          "COPY voyage_data(voyage_data_id,draught,eta,destination) FROM STDIN WITH (FORMAT csv)";
+  private static final String NAVIGATION_DATA_COPY =
+          "COPY navigation_data(navigation_data_id,speed_over_ground,course_over_ground,heading,"
+                  + "rate_of_turn,nav_status_id,maneuver_indicator_id) FROM STDIN WITH (FORMAT csv)";
+  private static final String GEOSPATIAL_DATA_COPY =
+          "COPY geospatial_data(geospatial_data_id,coord,accuracy) FROM STDIN WITH (FORMAT csv)";
+  private static final String MESSAGE_DATA_COPY =
+          "COPY message_data(time_received,is_valid_msg,is_multi_part,raw_nmea,message_type_id,"
+                  + "geospatial_data_id,navigation_data_id,voyage_data_id,vessel_signature_id,"
+                  + "vessel_data_id) FROM STDIN WITH (FORMAT csv)";
+
+  private final CsvRows voyageDataRows = new CsvRows();
+  private final CsvRows navigationDataRows = new CsvRows();
+  private final CsvRows geospatialDataRows = new CsvRows();
+  private final CsvRows messageDataRows = new CsvRows();
+
+  /**
+   * Creates a COPY-based batch inserter that writes through the provided connection manager.
+   *
+   * @param connection the connection manager for database updates.
+   */
+  public CopyDatabaseInserter(DatabaseConnectionInterface connection) {
+    super(connection);
+  }
+
+  @Override
+  void writeMessageRows(List<MessageDataInterface> messages, KeyReference[] vesselDataKeys,
+                        KeyReference[] vesselSignatureKeys) throws SQLException {
+    voyageDataRows.clear();
+    navigationDataRows.clear();
+    geospatialDataRows.clear();
+    messageDataRows.clear();
+
+    for (int i = 0; i < messages.size(); i++) {
+      MessageDataInterface message = messages.get(i);
+      int voyageDataKey = appendVoyageData(message);
+      int navigationDataKey = appendNavigationData(message);
+      int geospatialDataKey = appendGeospatialData(message);
+
+      // message_data keys are never referenced, so the column default assigns them.
+      messageDataRows.addTime(message.getTimeReceivedMillis());
+      messageDataRows.addBoolean(message.isValidType());
+      messageDataRows.addBoolean(message.hasMultipleParts());
+      messageDataRows.addString(message.getRawNMEA());
+      messageDataRows.addInt(message.getMessageTypeId());
+      messageDataRows.addKey(geospatialDataKey);
+      messageDataRows.addKey(navigationDataKey);
+      messageDataRows.addKey(voyageDataKey);
+      messageDataRows.addKey(vesselSignatureKeys[i].key);
+      messageDataRows.addKey(KeyReference.keyOf(vesselDataKeys[i]));
+      messageDataRows.endRow();
+    }
+
+    copy(VOYAGE_DATA_COPY, voyageDataRows, IngestMetrics.Table.VOYAGE_DATA);
+    copy(NAVIGATION_DATA_COPY, navigationDataRows, IngestMetrics.Table.NAVIGATION_DATA);
+    copy(GEOSPATIAL_DATA_COPY, geospatialDataRows, IngestMetrics.Table.GEOSPATIAL_DATA);
+    copy(MESSAGE_DATA_COPY, messageDataRows, IngestMetrics.Table.MESSAGE_DATA);
+  }
+
+  /**
+   * Reserves a key and appends the message's voyage_data row, if it has one.
+   *
+   * @return the row's key, or -1 if there is no row.
+   */
+  private int appendVoyageData(MessageDataInterface message) throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.VOYAGE_DATA)) {
+      // This message does not contain voyage data. FK will be null in Message_Data table.
+      return -1;
+    }
+    int key = InsertStatements.nextKey(connection, InsertStatements.VOYAGE_DATA_TABLE);
+    voyageDataRows.addKey(key);
+    voyageDataRows.addFloat(message.getDraughtValue());
+    voyageDataRows.addTime(message.getETAMillis());
+    voyageDataRows.addString(message.getDestination());
+    voyageDataRows.endRow();
+    return key;
+  }
+
+  /**
+   * Reserves a key and appends the message's navigation_data row, if it has one.
+   *
+   * @return the row's key, or -1 if there is no row.
+   */
+  private int appendNavigationData(MessageDataInterface message) throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.NAVIGATION_DATA)) {
+      // This message does not contain navigation data. FK will be null in Message_Data table.
+      return -1;
+    }
+    int key = InsertStatements.nextKey(connection, InsertStatements.NAVIGATION_DATA_TABLE);
+    navigationDataRows.addKey(key);
+    navigationDataRows.addFloat(message.getSpeedOverGroundValue());
+    navigationDataRows.addFloat(message.getCourseOverGroundValue());
+    navigationDataRows.addFloat(message.getHeadingValue());
+    navigationDataRows.addFloat(message.getRateOfTurnValue());
+    navigationDataRows.addInt(message.getNavStatusId());
+    navigationDataRows.addInt(message.getManeuverIndicatorId());
+    navigationDataRows.endRow();
+    return key;
+  }
+
+  /**
+   * Reserves a key and appends the message's geospatial_data row, if it has one.
+   *
+   * @return the row's key, or -1 if there is no row.
+   */
+  private int appendGeospatialData(MessageDataInterface message) throws SQLException {
+    if (!message.hasCapabilities(MessageCapabilities.GEOSPATIAL_DATA)) {
+      // This message does not contain geospatial data. FK will be null in Message_Data table.
+      return -1;
+    }
+    int key = InsertStatements.nextKey(connection, InsertStatements.GEOSPATIAL_DATA_TABLE);
+    geospatialDataRows.addKey(key);
+    // TODO: use appropriate geography data type for PostGIS extension
+    geospatialDataRows.addPoint(message.getLatValue(), message.getLongValue());
+    geospatialDataRows.addInt(message.getAccuracy() ? 1 : 0);
+    geospatialDataRows.endRow();
+    return key;
+  }
+
+  private void copy(String copySQL, CsvRows rows, IngestMetrics.Table table)
+          throws SQLException {
+    timeInsert(table, !rows.isEmpty(), () -> connection.copyRecords(copySQL, rows.toString()));
+  }
+
+  /**
+   * Accumulates rows in the CSV format understood by COPY, appending primitive values directly.
+   * Missing values (NaN, NO_VALUE, NO_TIME or null) are written as unquoted empty fields; strings
+   * are quoted, so empty strings survive. Reused for every batch.
+   */
+  private static final class CsvRows {
+    private final StringBuilder text = new StringBuilder();
+    private boolean rowStart = true;
+
+    private void clear() {
+      text.setLength(0);
+      rowStart = true;
+    }
+
+    private boolean isEmpty() {
+      return text.length() == 0;
+    }
+
+    private void addKey(int key) {
+      separate();
+      if (key != -1) {
+        text.append(key);
+      }
+    }
+
+    private void addInt(int value) {
+      separate();
+      if (value != MessageDataInterface.NO_VALUE) {
+        text.append(value);
+      }
+    }
+
+    private void addFloat(float value) {
+      separate();
+      if (!Float.isNaN(value)) {
+        text.append(value);
+      }
+    }
+
+    private void addBoolean(boolean value) {
+      separate();
+      text.append(value);
+    }
+
+    private void addTime(long epochMillis) {
+      separate();
+      if (epochMillis != MessageDataInterface.NO_TIME) {
+        text.append(Instant.ofEpochMilli(epochMillis));
+      }
+    }
+
+    /**
+     * Appends a Postgres point in the same text form as PGpoint.
+     */
+    private void addPoint(float latitude, float longitude) {
+      separate();
+      text.append("\"(").append((double) latitude).append(',').append((double) longitude)
+              .append(")\"");
+    }
+
+    private void addString(String value) {
+      separate();
+      if (value == null) {
+        return;
+      }
+      text.append('"');
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"') {
+          text.append('"');
+        }
+        text.append(c);
+      }
+      text.append('"');
+    }
+
+    private void endRow() {
+      text.append('\n');
+      rowStart = true;
+    }
+
+    private void separate() {
+      if (!rowStart) {
+        text.append(',');
+      }
+      rowStart = false;
+    }
+
+    @Override
+    public String toString() {
+      return text.toString();
+    }
+  }
+}
@@ -39,4 +39,32 @@ public final class DatabaseInserterFactory {
         return new UnsupportedMessageInserter(new UnsupportedMessageData(message));
     }
   }
+
+  /**
+   * Converts a decoded AISmessage into a database inserter that writes the whole message with a
+   * single statement, chosen by the message's type, rather than one statement per table.
+   *
+   * @param message an AISmessage to be added to the database.
+   * @return a database inserter that writes the message in one round trip.
+   */
+  public static DatabaseInserterInterface getPlannedDatabaseInserter(AISMessage message) {
+    switch (message.getMessageType()) {
+      // Message Type 1, 2, and 3, respectively
+      case PositionReportClassAScheduled:
+      case PositionReportClassAAssignedSchedule:
+      case PositionReportClassAResponseToInterrogation:
+        return new PlannedDatabaseInserter(WritePlan.POSITION_REPORT,
+                new ClassAPositionReportData(message));
+
+      // Message Type 5
+      case ShipAndVoyageRelatedData:
+        return new PlannedDatabaseInserter(WritePlan.STATIC_AND_VOYAGE_DATA,
+                new ClassAStaticAndVoyageData(message));
+
+      // Unsupported Message
+      default:
+        return new PlannedDatabaseInserter(WritePlan.UNSUPPORTED,
+                new UnsupportedMessageData(message));
+    }
+  }
 }
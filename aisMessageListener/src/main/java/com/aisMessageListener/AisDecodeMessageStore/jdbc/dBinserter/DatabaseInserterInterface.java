@@ -27,6 +27,7 @@ public interface DatabaseInserterInterface {
     /**
      * Parses an AIS message and writes to the messageData table. This is the top-level table in the star schema. All
      * other relevant tables must be written to first, or this will fail due to foreign key constraint issues.
+     * Implementations may hold back the rows of the other tables and send them together with this one.
      *
      * <p>MUST BE CALLED IN TRANSACTION</p>
      *
@@ -0,0 +1,72 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+
+import java.sql.SQLException;
+
+/**
+ * Parameterized insert statements for each table written by the inserters. Shared by the
+ * per-message and batch inserters so that both use the same cached server-side statements.
+ *
+ * <p>Every table except message_data is referenced by a foreign key, so its primary key is
+ * reserved with {@link #nextKey} and sent as the first parameter. Nothing has to be read back
+ * before the referencing rows can be sent.</p>
+ */
+final class InsertStatements {
+
+  static final String VESSEL_DATA_TABLE = "vessel_data";
+  static final String VESSEL_SIGNATURE_TABLE = "vessel_signature";
+  static final String VOYAGE_DATA_TABLE = "voyage_data";
+  static final String NAVIGATION_DATA_TABLE = "navigation_data";
+  static final String GEOSPATIAL_DATA_TABLE = "geospatial_data";
+
+  static final String VESSEL_DATA =
+          "INSERT INTO vessel_data(vessel_data_id,to_bow,to_stern,to_port,to_starboard) "
+                  + "VALUES (?,?,?,?,?)";
+  static final String VESSEL_SIGNATURE =
+          "INSERT INTO vessel_signature(vessel_signature_id,mmsi,imo,call_sign,name,"
+                  + "vessel_type_id) VALUES (?,?,?,?,?,?)";
+  static final String VOYAGE_DATA =
+          "INSERT INTO voyage_data(voyage_data_id,draught,eta,destination) VALUES (?,?,?,?)";
+  static final String NAVIGATION_DATA =
+          "INSERT INTO navigation_data(navigation_data_id,speed_over_ground,course_over_ground,"
+                  + "heading,rate_of_turn,nav_status_id,maneuver_indicator_id) "
+                  + "VALUES (?,?,?,?,?,?,?)";
+  static final String GEOSPATIAL_DATA =
+          "INSERT INTO geospatial_data(geospatial_data_id,coord,accuracy) VALUES (?,?,?)";
+  static final String MESSAGE_DATA =
+          "INSERT INTO message_data(time_received,is_valid_msg,is_multi_part,raw_nmea,"
+                  + "message_type_id,geospatial_data_id,navigation_data_id,voyage_data_id,"
+                  + "vessel_signature_id,vessel_data_id) VALUES (?,?,?,?,?,?,?,?,?,?)";
+
+  // Write plan fragments. The CTEs find the first vessel_signature with the input row's MMSI, or
+  // add one, and the expression reads whichever key they produced.
+  static final String SIGNATURE_BY_MMSI_CTE =
+          "signature AS (SELECT s.vessel_signature_id FROM vessel_signature s, input i "
+                  + "WHERE s.mmsi = i.mmsi LIMIT 1), "
+                  + "new_signature AS (INSERT INTO vessel_signature(mmsi) SELECT mmsi FROM input "
+                  + "WHERE NOT EXISTS (SELECT 1 FROM signature) RETURNING vessel_signature_id), ";
+  static final String SIGNATURE_KEY_EXPRESSION =
+          "COALESCE((SELECT vessel_signature_id FROM signature),"
+                  + "(SELECT vessel_signature_id FROM new_signature))";
+
+  /**
+   * Gets the next reserved primary key for one of the tables above. Each table's key column is
+   * named after the table.
+   *
+   * @param connection the connection whose reserved keys to use.
+   * @param table      one of the table name constants.
+   * @return an unused primary key.
+   * @throws SQLException if a new block of keys could not be reserved.
+   */
+  static int nextKey(DatabaseConnectionInterface connection, String table) throws SQLException {
+    return connection.nextKey(table, table + "_id");
+  }
+
+  /**
+   * Prevent instantiation of constants class.
+   */
+  private InsertStatements() {
+    throw new AssertionError("Cannot instantiate constants class");
+  }
+}
@@ -0,0 +1,52 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Thrown by a batch inserter when the connection is lost after part of a group has already been
+ * committed, as can happen once a failing group has been split. The messages before the
+ * uncommitted ones were either committed or dropped, and must not be written again.
+ */
+public final class PartialWriteException extends SQLException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int committedMessages;
+  private final transient List<MessageDataInterface> uncommittedMessages;
+
+  /**
+   * Wraps the error that stopped a group part way through.
+   *
+   * @param cause               the error reported by the database.
+   * @param committedMessages   the number of the group's messages already committed.
+   * @param uncommittedMessages the messages not written, a tail of the group.
+   */
+  PartialWriteException(SQLException cause, int committedMessages,
+                        List<MessageDataInterface> uncommittedMessages) {
+    super(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+    this.committedMessages = committedMessages;
+    this.uncommittedMessages = uncommittedMessages;
+  }
+
+  /**
+   * Gets the number of the group's messages that were committed before the failure.
+   *
+   * @return the count.
+   */
+  public int getCommittedMessages() {
+    return committedMessages;
+  }
+
+  /**
+   * Gets the messages that were not written, which are the end of the group in the order they
+   * were given. This is a view of the list passed to the inserter, valid until that list changes.
+   *
+   * @return the messages to journal or retry.
+   */
+  public List<MessageDataInterface> getUncommittedMessages() {
+    return uncommittedMessages;
+  }
+}
@@ -0,0 +1,52 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes a group of messages in a single transaction with one {@link WritePlan} statement per
+ * message. The lookup tables are resolved by the statements themselves on the server, so nothing
+ * is read back before the rows are sent. Consecutive messages with the same plan are sent as one
+ * JDBC batch, which pgjdbc pipelines, so the messages keep their order and a group costs one round
+ * trip per change of message type rather than one per table.
+ *
+ * <p>All of a group's rows are timed as message_data inserts, since every plan writes them in the
+ * same statement.</p>
+ */
+public final class PlannedBatchInserter extends AbstractBatchDatabaseInserter {
+
+  /**
+   * Creates a planned batch inserter that writes through the provided connection manager.
+   *
+   * @param connection the connection manager for database updates.
+   */
+  public PlannedBatchInserter(DatabaseConnectionInterface connection) {
+    super(connection);
+  }
+
+  @Override
+  void writeGroup(List<MessageDataInterface> messages) throws SQLException {
+    int size = messages.size();
+    int start = 0;
+    while (start < size) {
+      WritePlan plan = WritePlan.of(messages.get(start));
+      int end = start + 1;
+      while (end < size && WritePlan.of(messages.get(end)) == plan) {
+        end++;
+      }
+
+      PreparedStatement stmt = connection.prepareRows(plan.getSQL());
+      for (int i = start; i < end; i++) {
+        plan.bind(stmt, messages.get(i));
+        stmt.addBatch();
+      }
+      timeInsert(IngestMetrics.Table.MESSAGE_DATA, true, stmt::executeBatch);
+      start = end;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Writes a message with its type's {@link WritePlan}: one statement, and so one round trip, per
+ * message, with no explicit transaction. The per-table write methods are still available and
+ * write the message the way {@link AbstractDatabaseInserter} does.
+ */
+class PlannedDatabaseInserter extends AbstractDatabaseInserter {
+
+  private final WritePlan plan;
+
+  PlannedDatabaseInserter(WritePlan plan, MessageDataInterface message) {
+    super(message);
+    this.plan = plan;
+  }
+
+  @Override
+  public WriteResult writeMessage() throws SQLException {
+    connection.connectIfDropped();
+
+    try {
+      // A single statement is atomic on its own, so autocommit needs no BEGIN or COMMIT.
+      PreparedStatement stmt = connection.prepareStatement(plan.getSQL());
+      plan.bind(stmt, message);
+      stmt.executeUpdate();
+      return WriteResult.SUCCESS;
+    } catch (SQLException ex) {
+      ex.printStackTrace();
+    }
+    return WriteResult.FAILURE;
+  }
+}
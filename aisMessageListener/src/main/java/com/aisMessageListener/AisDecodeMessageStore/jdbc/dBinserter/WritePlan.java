@@ -0,0 +1,187 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.CoordinateUtil;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.StatementBinder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Single-statement write plans, one per message type the database distinguishes. Each plan is one
+ * INSERT with data-modifying common table expressions: the message's values are bound once into
+ * an {@code input} row, the vessel_signature and vessel_data rows are looked up and inserted only
+ * if missing, the other child rows are inserted with their keys returned, and the message_data row
+ * is built from those keys. The whole message is written by one statement in one round trip, and,
+ * being a single statement, is atomic without an explicit transaction.
+ *
+ * <p>Child keys come from the tables' serial defaults rather than reserved blocks, and lookups run
+ * on the server rather than through the listener's key caches.</p>
+ */
+enum WritePlan {
+
+  /**
+   * Type 1, 2 and 3 position reports: navigation_data, geospatial_data, and a vessel_signature
+   * found or added by MMSI.
+   */
+  POSITION_REPORT("WITH input AS (SELECT ?::timestamptz AS time_received, "
+          + "?::boolean AS is_valid_msg, ?::boolean AS is_multi_part, ?::varchar AS raw_nmea, "
+          + "?::int AS message_type_id, ?::int AS mmsi, ?::real AS speed_over_ground, "
+          + "?::real AS course_over_ground, ?::real AS heading, ?::real AS rate_of_turn, "
+          + "?::int AS nav_status_id, ?::int AS maneuver_indicator_id, ?::point AS coord, "
+          + "?::int AS accuracy), "
+          + InsertStatements.SIGNATURE_BY_MMSI_CTE
+          + "navigation AS (INSERT INTO navigation_data(speed_over_ground,course_over_ground,"
+          + "heading,rate_of_turn,nav_status_id,maneuver_indicator_id) "
+          + "SELECT speed_over_ground,course_over_ground,heading,rate_of_turn,nav_status_id,"
+          + "maneuver_indicator_id FROM input RETURNING navigation_data_id), "
+          + "geospatial AS (INSERT INTO geospatial_data(coord,accuracy) "
+          + "SELECT coord,accuracy FROM input RETURNING geospatial_data_id) "
+          + "INSERT INTO message_data(time_received,is_valid_msg,is_multi_part,raw_nmea,"
+          + "message_type_id,geospatial_data_id,navigation_data_id,vessel_signature_id) "
+          + "SELECT time_received,is_valid_msg,is_multi_part,raw_nmea,message_type_id,"
+          + "geospatial_data_id,navigation_data_id," + InsertStatements.SIGNATURE_KEY_EXPRESSION
+          + " FROM input, geospatial, navigation") {
+    @Override
+    void bind(PreparedStatement stmt, MessageDataInterface message) throws SQLException {
+      int index = bindMessage(stmt, message);
+      stmt.setInt(index++, message.getMMSI());
+      StatementBinder.setFloat(stmt, index++, message.getSpeedOverGroundValue());
+      StatementBinder.setFloat(stmt, index++, message.getCourseOverGroundValue());
+      StatementBinder.setFloat(stmt, index++, message.getHeadingValue());
+      StatementBinder.setFloat(stmt, index++, message.getRateOfTurnValue());
+      stmt.setInt(index++, message.getNavStatusId());
+      stmt.setInt(index++, message.getManeuverIndicatorId());
+      StatementBinder.setPoint(stmt, index++,
+              CoordinateUtil.getCoord(message.getLatValue(), message.getLongValue()));
+      stmt.setInt(index, message.getAccuracy() ? 1 : 0);
+    }
+  },
+
+  /**
+   * Type 5 static and voyage data: voyage_data, and a vessel_signature and vessel_data found or
+   * added by their full contents.
+   */
+  STATIC_AND_VOYAGE_DATA("WITH input AS (SELECT ?::timestamptz AS time_received, "
+          + "?::boolean AS is_valid_msg, ?::boolean AS is_multi_part, ?::varchar AS raw_nmea, "
+          + "?::int AS message_type_id, ?::int AS mmsi, ?::int AS imo, ?::varchar AS call_sign, "
+          + "?::varchar AS name, ?::int AS vessel_type_id, ?::int AS to_bow, "
+          + "?::int AS to_stern, ?::int AS to_port, ?::int AS to_starboard, "
+          + "?::real AS draught, ?::timestamptz AS eta, ?::varchar AS destination), "
+          + "signature AS (SELECT s.vessel_signature_id FROM vessel_signature s, input i "
+          + "WHERE s.mmsi = i.mmsi AND s.imo IS NOT DISTINCT FROM i.imo "
+          + "AND s.call_sign IS NOT DISTINCT FROM i.call_sign "
+          + "AND s.name IS NOT DISTINCT FROM i.name "
+          + "AND s.vessel_type_id IS NOT DISTINCT FROM i.vessel_type_id LIMIT 1), "
+          + "new_signature AS (INSERT INTO vessel_signature(mmsi,imo,call_sign,name,"
+          + "vessel_type_id) SELECT mmsi,imo,call_sign,name,vessel_type_id FROM input "
+          + "WHERE NOT EXISTS (SELECT 1 FROM signature) RETURNING vessel_signature_id), "
+          + "vessel AS (SELECT v.vessel_data_id FROM vessel_data v, input i "
+          + "WHERE v.to_bow = i.to_bow AND v.to_stern = i.to_stern "
+          + "AND v.to_port = i.to_port AND v.to_starboard = i.to_starboard LIMIT 1), "
+          + "new_vessel AS (INSERT INTO vessel_data(to_bow,to_stern,to_port,to_starboard) "
+          + "SELECT to_bow,to_stern,to_port,to_starboard FROM input "
+          + "WHERE NOT EXISTS (SELECT 1 FROM vessel) RETURNING vessel_data_id), "
+          + "voyage AS (INSERT INTO voyage_data(draught,eta,destination) "
+          + "SELECT draught,eta,destination FROM input RETURNING voyage_data_id) "
+          + "INSERT INTO message_data(time_received,is_valid_msg,is_multi_part,raw_nmea,"
+          + "message_type_id,voyage_data_id,vessel_signature_id,vessel_data_id) "
+          + "SELECT time_received,is_valid_msg,is_multi_part,raw_nmea,message_type_id,"
+          + "voyage_data_id," + InsertStatements.SIGNATURE_KEY_EXPRESSION + ","
+          + "COALESCE((SELECT vessel_data_id FROM vessel),"
+          + "(SELECT vessel_data_id FROM new_vessel)) FROM input, voyage") {
+    @Override
+    void bind(PreparedStatement stmt, MessageDataInterface message) throws SQLException {
+      int index = bindMessage(stmt, message);
+      stmt.setInt(index++, message.getMMSI());
+      StatementBinder.setInteger(stmt, index++, message.getIMOValue());
+      StatementBinder.setString(stmt, index++, message.getCallsign());
+      StatementBinder.setString(stmt, index++, message.getShipName());
+      StatementBinder.setInteger(stmt, index++, message.getVesselTypeIdValue());
+      StatementBinder.setInteger(stmt, index++, message.getToBowValue());
+      StatementBinder.setInteger(stmt, index++, message.getToSternValue());
+      StatementBinder.setInteger(stmt, index++, message.getToPortValue());
+      StatementBinder.setInteger(stmt, index++, message.getToStarboardValue());
+      StatementBinder.setFloat(stmt, index++, message.getDraughtValue());
+      StatementBinder.setTimestamp(stmt, index++, message.getETAMillis());
+      StatementBinder.setString(stmt, index, message.getDestination());
+    }
+  },
+
+  /**
+   * Every other message type: only the raw message, and a vessel_signature found or added by
+   * MMSI.
+   */
+  UNSUPPORTED("WITH input AS (SELECT ?::timestamptz AS time_received, "
+          + "?::boolean AS is_valid_msg, ?::boolean AS is_multi_part, ?::varchar AS raw_nmea, "
+          + "?::int AS message_type_id, ?::int AS mmsi), "
+          + InsertStatements.SIGNATURE_BY_MMSI_CTE
+          + "INSERT INTO message_data(time_received,is_valid_msg,is_multi_part,raw_nmea,"
+          + "message_type_id,vessel_signature_id) "
+          + "SELECT time_received,is_valid_msg,is_multi_part,raw_nmea,message_type_id,"
+          + InsertStatements.SIGNATURE_KEY_EXPRESSION + " FROM input") {
+    @Override
+    void bind(PreparedStatement stmt, MessageDataInterface message) throws SQLException {
+      int index = bindMessage(stmt, message);
+      stmt.setInt(index, message.getMMSI());
+    }
+  };
+
+  private final String sql;
+
+  WritePlan(String sql) {
+    this.sql = sql;
+  }
+
+  /**
+   * Chooses the plan for a message by its type.
+   *
+   * @param message the message to be written.
+   * @return the plan for its type.
+   */
+  static WritePlan of(MessageDataInterface message) {
+    switch (message.getMessageTypeId()) {
+      case 1:
+      case 2:
+      case 3:
+        return POSITION_REPORT;
+      case 5:
+        return STATIC_AND_VOYAGE_DATA;
+      default:
+        return UNSUPPORTED;
+    }
+  }
+
+  /**
+   * Gets the plan's statement.
+   *
+   * @return the parameterized SQL.
+   */
+  String getSQL() {
+    return sql;
+  }
+
+  /**
+   * Binds every parameter of the plan's statement for one message.
+   *
+   * @param stmt    a prepared statement for {@link #getSQL()}.
+   * @param message a message of the plan's type.
+   * @throws SQLException if a parameter cannot be bound.
+   */
+  abstract void bind(PreparedStatement stmt, MessageDataInterface message) throws SQLException;
+
+  /**
+   * Binds the message_data values every plan starts with.
+   *
+   * @return the index of the next parameter.
+   */
+  private static int bindMessage(PreparedStatement stmt, MessageDataInterface message)
+          throws SQLException {
+    StatementBinder.setTimestamp(stmt, 1, message.getTimeReceivedMillis());
+    stmt.setBoolean(2, message.isValidType());
+    stmt.setBoolean(3, message.hasMultipleParts());
+    stmt.setString(4, message.getRawNMEA());
+    stmt.setInt(5, message.getMessageTypeId());
+    return 6;
+  }
+}
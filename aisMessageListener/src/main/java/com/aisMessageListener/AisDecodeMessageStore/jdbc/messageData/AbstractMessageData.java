@@ -14,15 +14,32 @@ import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
  * A wrapper class around the MessageData interface. Most getters are unsupported in the abstract
  * class, and have the correct implementation in the relevant objects that should be accessing these
  * getters. We are adapting different message types to a consolidated abstract object.
+ *
+ * <p>Each subclass reports the getters it implements through {@link #getCapabilities()}; the
+ * unsupported getters still throw, but only when called without checking it first.</p>
  */
 public abstract class AbstractMessageData implements MessageDataInterface {
   private final AISMessage message;
+  private final Instant timeReceived;
 
   /**
    * Default constructor instantiates a Message Data wrapper via an input AISMessage object.
    */
   public AbstractMessageData(AISMessage message) {
+    this(message, null);
+  }
+
+  /**
+   * Instantiates a Message Data wrapper for a message that was received earlier than it was
+   * decoded, such as one replayed from the spill journal.
+   *
+   * @param message      an AISMessage object.
+   * @param timeReceived when the message was originally received, or null to use the decoder's
+   *                     metadata.
+   */
+  public AbstractMessageData(AISMessage message, Instant timeReceived) {
     this.message = message;
+    this.timeReceived = timeReceived;
   }
 
   @Override
@@ -30,6 +47,11 @@ public abstract class AbstractMessageData implements MessageDataInterface {
     return this.message.getMessageType().getCode() > -1;
   }
 
+  @Override
+  public int getCapabilities() {
+    return MessageCapabilities.NONE;
+  }
+
   @Override
   public int getMMSI() {
     return this.message.getSourceMmsi().getMMSI();
@@ -75,7 +97,9 @@ public abstract class AbstractMessageData implements MessageDataInterface {
 
   @Override
   public OffsetDateTime getTimeReceived() {
-    Instant time = this.message.getMetadata().getReceived();
+    Instant time = this.timeReceived != null
+            ? this.timeReceived
+            : this.message.getMetadata().getReceived();
     return time.atOffset(ZoneOffset.UTC);
   }
 
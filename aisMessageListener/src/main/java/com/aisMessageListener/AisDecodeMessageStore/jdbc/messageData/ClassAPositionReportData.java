@@ -1,7 +1,11 @@
 package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
 
+import java.time.Instant;
+
 import dk.tbsalling.aismessages.ais.messages.AISMessage;
 import dk.tbsalling.aismessages.ais.messages.PositionReport;
+import dk.tbsalling.aismessages.ais.messages.types.ManeuverIndicator;
+import dk.tbsalling.aismessages.ais.messages.types.NavigationStatus;
 
 /**
  * Extension of message to support Class A position reports (i.e message types 1, 2, 3).
@@ -10,6 +14,8 @@ public final class ClassAPositionReportData extends AbstractMessageData {
 
   private static final int DEFAULT_MANEUVER_INDICATOR_ID = 0;
   private static final int DEFAULT_NAV_STATUS_ID = 15;
+  private static final int CAPABILITIES =
+          MessageCapabilities.GEOSPATIAL_DATA | MessageCapabilities.NAVIGATION_DATA;
 
   private final PositionReport positionReport;
 
@@ -19,8 +25,20 @@ public final class ClassAPositionReportData extends AbstractMessageData {
    * @param message an AISMessage object
    * @throws IllegalArgumentException if the AIS message isn't a {@link PositionReport}.
    */
-  public ClassAPositionReportData(AISMessage message) throws IllegalArgumentException {
-    super(message);
+  public ClassAPositionReportData(AISMessage message) {
+    this(message, null);
+  }
+
+  /**
+   * Constructor initializes the wrapper with the time the message was originally received.
+   *
+   * @param message      an AISMessage object
+   * @param timeReceived when the message was received, or null to use the decoder's metadata.
+   * @throws IllegalArgumentException if the AIS message isn't a {@link PositionReport}.
+   */
+  public ClassAPositionReportData(AISMessage message, Instant timeReceived)
+          throws IllegalArgumentException {
+    super(message, timeReceived);
 
     if (!(message instanceof PositionReport)) {
       throw new IllegalArgumentException("Message is not a position report!");
@@ -28,6 +46,11 @@ public final class ClassAPositionReportData extends AbstractMessageData {
     this.positionReport = (PositionReport) message;
   }
 
+  @Override
+  public int getCapabilities() {
+    return CAPABILITIES;
+  }
+
   @Override
   public Float getLat() {
     return positionReport.getLatitude();
@@ -45,21 +68,16 @@ public final class ClassAPositionReportData extends AbstractMessageData {
 
   @Override
   public int getNavStatusId() {
-    try {
-      return positionReport.getNavigationStatus().getCode();
-    } catch (NullPointerException e) {
-        return DEFAULT_NAV_STATUS_ID;
-    }
+    NavigationStatus navigationStatus = positionReport.getNavigationStatus();
+    return navigationStatus == null ? DEFAULT_NAV_STATUS_ID : navigationStatus.getCode();
   }
 
   @Override
   public int getManeuverIndicatorId() {
-    try {
-      return positionReport.getSpecialManeuverIndicator().getCode();
-    } catch (NullPointerException e) {
-        return DEFAULT_MANEUVER_INDICATOR_ID;
-    }
-
+    ManeuverIndicator maneuverIndicator = positionReport.getSpecialManeuverIndicator();
+    return maneuverIndicator == null
+            ? DEFAULT_MANEUVER_INDICATOR_ID
+            : maneuverIndicator.getCode();
   }
 
   @Override
@@ -75,11 +93,15 @@ public final class ClassAPositionReportData extends AbstractMessageData {
   // TODO: internal implementations of both of these are integers?
   @Override
   public Float getHeading() {
-    return Float.valueOf(String.valueOf(positionReport.getTrueHeading()));
+    return toFloat(positionReport.getTrueHeading());
   }
 
   @Override
   public Float getRateOfTurn() {
-    return Float.valueOf(String.valueOf(positionReport.getRateOfTurn()));
+    return toFloat(positionReport.getRateOfTurn());
+  }
+
+  private static Float toFloat(Integer value) {
+    return value == null ? null : value.floatValue();
   }
 }
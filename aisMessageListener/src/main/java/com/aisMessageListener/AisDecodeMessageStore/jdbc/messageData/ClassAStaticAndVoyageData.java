@@ -1,5 +1,6 @@
 package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.util.Optional;
@@ -7,6 +8,8 @@ import java.util.Optional;
 import dk.tbsalling.aismessages.ais.messages.AISMessage;
 import dk.tbsalling.aismessages.ais.messages.PositionReport;
 import dk.tbsalling.aismessages.ais.messages.ShipAndVoyageData;
+import dk.tbsalling.aismessages.ais.messages.types.IMO;
+import dk.tbsalling.aismessages.ais.messages.types.ShipType;
 
 
 /**
@@ -14,6 +17,9 @@ import dk.tbsalling.aismessages.ais.messages.ShipAndVoyageData;
  */
 public final class ClassAStaticAndVoyageData extends AbstractMessageData {
 
+  private static final int CAPABILITIES = MessageCapabilities.VESSEL_SIGNATURE
+          | MessageCapabilities.VESSEL_DATA | MessageCapabilities.VOYAGE_DATA;
+
   private final ShipAndVoyageData shipVoyageData;
 
   /**
@@ -23,7 +29,18 @@ public final class ClassAStaticAndVoyageData extends AbstractMessageData {
    * @throws IllegalArgumentException if the AIS message isn't a {@link ShipAndVoyageData}.
    */
   public ClassAStaticAndVoyageData(AISMessage message) {
-    super(message);
+    this(message, null);
+  }
+
+  /**
+   * Constructor initializes the wrapper with the time the message was originally received.
+   *
+   * @param message      an AISMessage object
+   * @param timeReceived when the message was received, or null to use the decoder's metadata.
+   * @throws IllegalArgumentException if the AIS message isn't a {@link ShipAndVoyageData}.
+   */
+  public ClassAStaticAndVoyageData(AISMessage message, Instant timeReceived) {
+    super(message, timeReceived);
 
     if (!(message instanceof ShipAndVoyageData)) {
       throw new IllegalArgumentException("Message is not a ship and voyage data!");
@@ -32,13 +49,15 @@ public final class ClassAStaticAndVoyageData extends AbstractMessageData {
     this.shipVoyageData = (ShipAndVoyageData) message;
   }
 
+  @Override
+  public int getCapabilities() {
+    return CAPABILITIES;
+  }
+
   @Override
   public Optional<Integer> getIMO() {
-    try {
-      return Optional.of(shipVoyageData.getImo().getIMO());
-    } catch (NullPointerException e) {
-      return Optional.empty();
-    }
+    IMO imo = shipVoyageData.getImo();
+    return imo == null ? Optional.empty() : Optional.ofNullable(imo.getIMO());
   }
 
   @Override
@@ -53,11 +72,8 @@ public final class ClassAStaticAndVoyageData extends AbstractMessageData {
 
   @Override
   public Optional<Integer> getVesselTypeId() {
-    try {
-      return  Optional.of(shipVoyageData.getShipType().getCode());
-    } catch (NullPointerException e) {
-      return Optional.empty();
-    }
+    ShipType shipType = shipVoyageData.getShipType();
+    return shipType == null ? Optional.empty() : Optional.ofNullable(shipType.getCode());
   }
 
   @Override
@@ -0,0 +1,52 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
+
+/**
+ * The groups of fields a message type carries, as bits of the mask returned by
+ * {@link MessageDataInterface#getCapabilities()}. Each group is the data for one table, so an
+ * inserter checks a single bit to decide whether to write that table, instead of calling the
+ * getters and catching the exception thrown when the message type lacks them.
+ *
+ * <p>The MMSI, message type, raw NMEA and receive time are available for every message and have
+ * no bit.</p>
+ */
+public final class MessageCapabilities {
+
+  /**
+   * No optional fields, e.g. a message type that is not decoded further.
+   */
+  public static final int NONE = 0;
+
+  /**
+   * Latitude, longitude and position accuracy, written to geospatial_data.
+   */
+  public static final int GEOSPATIAL_DATA = 1;
+
+  /**
+   * Speed and course over ground, heading, rate of turn, navigation status and maneuver
+   * indicator, written to navigation_data.
+   */
+  public static final int NAVIGATION_DATA = 1 << 1;
+
+  /**
+   * IMO number, call sign, ship name and vessel type, written to vessel_signature.
+   */
+  public static final int VESSEL_SIGNATURE = 1 << 2;
+
+  /**
+   * Distances from the position fixing antenna to the bow, stern, port and starboard, written to
+   * vessel_data.
+   */
+  public static final int VESSEL_DATA = 1 << 3;
+
+  /**
+   * Draught, ETA and destination, written to voyage_data.
+   */
+  public static final int VOYAGE_DATA = 1 << 4;
+
+  /**
+   * Prevent instantiation of utility class.
+   */
+  private MessageCapabilities() {
+    throw new AssertionError("Cannot instantiate utility class");
+  }
+}
@@ -0,0 +1,78 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
+
+import java.time.Instant;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.Metadata;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * Factory to handle an incoming AISMessage and parse its type in order to construct the matching
+ * MessageData wrapper. Used by writers that handle many messages at once instead of building one
+ * DatabaseInserter per message.
+ */
+public final class MessageDataFactory {
+
+  /**
+   * Prevent instantiation of factory class.
+   */
+  private MessageDataFactory() {
+    throw new AssertionError("Cannot instantiate factory class");
+  }
+
+  /**
+   * Converts a decoded AISmessage into a MessageData wrapper.
+   *
+   * @param message an AISmessage to be added to the database.
+   * @return a MessageData wrapper corresponding to the provided message's type.
+   */
+  public static MessageDataInterface getMessageData(AISMessage message) {
+    return getMessageData(message, null);
+  }
+
+  /**
+   * Converts a decoded AISmessage into a MessageData wrapper, keeping the time it was originally
+   * received.
+   *
+   * @param message      an AISmessage to be added to the database.
+   * @param timeReceived when the message was received, or null to use the decoder's metadata.
+   * @return a MessageData wrapper corresponding to the provided message's type.
+   */
+  public static MessageDataInterface getMessageData(AISMessage message, Instant timeReceived) {
+    switch (message.getMessageType()) {
+      // Message Type 1, 2, and 3, respectively
+      case PositionReportClassAScheduled:
+      case PositionReportClassAAssignedSchedule:
+      case PositionReportClassAResponseToInterrogation:
+        return new ClassAPositionReportData(message, timeReceived);
+
+      // Message Type 5
+      case ShipAndVoyageRelatedData:
+        return new ClassAStaticAndVoyageData(message, timeReceived);
+
+      // Unsupported Message
+      default:
+        return new UnsupportedMessageData(message, timeReceived);
+    }
+  }
+
+  /**
+   * Decodes raw NMEA as stored in the raw_nmea column, where the parts of a multi-part message are
+   * separated by " | ".
+   *
+   * @param rawNMEA      the raw NMEA sentence or sentences.
+   * @param source       a name for where the message came from, kept in the decoder's metadata.
+   * @param timeReceived when the message was originally received.
+   * @return a MessageData wrapper corresponding to the decoded message's type.
+   * @throws RuntimeException if the sentences cannot be decoded.
+   */
+  public static MessageDataInterface fromRawNMEA(String rawNMEA, String source,
+                                                 Instant timeReceived) {
+    String[] parts = rawNMEA.split(" \\| ");
+    NMEAMessage[] nmeaMessages = new NMEAMessage[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      nmeaMessages[i] = NMEAMessage.fromString(parts[i]);
+    }
+    return getMessageData(AISMessage.create(new Metadata(source), nmeaMessages), timeReceived);
+  }
+}
@@ -8,9 +8,24 @@ import dk.tbsalling.aismessages.ais.messages.types.AISMessageType;
 /**
  * Base Interface for supporting incoming Message data. Messages come in from a VHF Receiver,
  * whereby they are processed and written to the underlying PostgreSQL database.
+ *
+ * <p>Numeric fields can also be read in primitive form, with NaN, {@link #NO_VALUE} or
+ * {@link #NO_TIME} where the boxed getter would return null or an empty Optional. The writers use
+ * these, so a {@link MessageRecord} reaches the database without boxing; the defaults convert
+ * from the boxed getters.</p>
  */
 public interface MessageDataInterface {
 
+  /**
+   * Returned by the primitive int getters when the field is not available.
+   */
+  int NO_VALUE = Integer.MIN_VALUE;
+
+  /**
+   * Returned by the primitive time getters when the field is not available.
+   */
+  long NO_TIME = Long.MIN_VALUE;
+
   /**
    * Checks if the the integer message type is valid.
    *
@@ -18,6 +33,25 @@ public interface MessageDataInterface {
    */
   boolean isValidType();
 
+  /**
+   * Gets the groups of fields this message carries, as a mask of {@link MessageCapabilities}
+   * bits. The getters for a group that is not in the mask throw an UnsupportedMessageType
+   * exception, so check the mask before calling them.
+   *
+   * @return the capability mask, the same for every message of a type.
+   */
+  int getCapabilities();
+
+  /**
+   * Checks whether this message carries every group of fields in a mask.
+   *
+   * @param capabilities one or more {@link MessageCapabilities} bits.
+   * @return true if all of them are in {@link #getCapabilities()}.
+   */
+  default boolean hasCapabilities(int capabilities) {
+    return (getCapabilities() & capabilities) == capabilities;
+  }
+
   /**
    * Grabs the MMSI of the sender. Each country has a different organization responsible for allocating a designated
    * block of MMSI numbers. In the United States, federal users get them through the National Telecommunications
@@ -244,5 +278,146 @@ public interface MessageDataInterface {
    */
   String getDestination();
 
-}
+  /**
+   * Gets the receive time as epoch milliseconds.
+   *
+   * @return the time the message was received.
+   */
+  default long getTimeReceivedMillis() {
+    return getTimeReceived().toInstant().toEpochMilli();
+  }
+
+  /**
+   * Primitive form of {@link #getLat()}.
+   *
+   * @return the latitude, or NaN if not available.
+   */
+  default float getLatValue() {
+    return floatOrNaN(getLat());
+  }
+
+  /**
+   * Primitive form of {@link #getLong()}.
+   *
+   * @return the longitude, or NaN if not available.
+   */
+  default float getLongValue() {
+    return floatOrNaN(getLong());
+  }
+
+  /**
+   * Primitive form of {@link #getSpeedOverGround()}.
+   *
+   * @return the speed over ground in knots, or NaN if not available.
+   */
+  default float getSpeedOverGroundValue() {
+    return floatOrNaN(getSpeedOverGround());
+  }
+
+  /**
+   * Primitive form of {@link #getCourseOverGround()}.
+   *
+   * @return the course over ground in degrees, or NaN if not available.
+   */
+  default float getCourseOverGroundValue() {
+    return floatOrNaN(getCourseOverGround());
+  }
+
+  /**
+   * Primitive form of {@link #getHeading()}.
+   *
+   * @return the true heading in degrees, or NaN if not available.
+   */
+  default float getHeadingValue() {
+    return floatOrNaN(getHeading());
+  }
 
+  /**
+   * Primitive form of {@link #getRateOfTurn()}.
+   *
+   * @return the rate of turn, or NaN if not available.
+   */
+  default float getRateOfTurnValue() {
+    return floatOrNaN(getRateOfTurn());
+  }
+
+  /**
+   * Primitive form of {@link #getIMO()}.
+   *
+   * @return the IMO number, or {@link #NO_VALUE} if not available.
+   */
+  default int getIMOValue() {
+    return getIMO().orElse(NO_VALUE);
+  }
+
+  /**
+   * Primitive form of {@link #getVesselTypeId()}.
+   *
+   * @return the ship type code, or {@link #NO_VALUE} if not available.
+   */
+  default int getVesselTypeIdValue() {
+    return getVesselTypeId().orElse(NO_VALUE);
+  }
+
+  /**
+   * Primitive form of {@link #getToBow()}.
+   *
+   * @return the distance in meters, or {@link #NO_VALUE} if not available.
+   */
+  default int getToBowValue() {
+    return intOrNoValue(getToBow());
+  }
+
+  /**
+   * Primitive form of {@link #getToStern()}.
+   *
+   * @return the distance in meters, or {@link #NO_VALUE} if not available.
+   */
+  default int getToSternValue() {
+    return intOrNoValue(getToStern());
+  }
+
+  /**
+   * Primitive form of {@link #getToStarboard()}.
+   *
+   * @return the distance in meters, or {@link #NO_VALUE} if not available.
+   */
+  default int getToStarboardValue() {
+    return intOrNoValue(getToStarboard());
+  }
+
+  /**
+   * Primitive form of {@link #getToPort()}.
+   *
+   * @return the distance in meters, or {@link #NO_VALUE} if not available.
+   */
+  default int getToPortValue() {
+    return intOrNoValue(getToPort());
+  }
+
+  /**
+   * Primitive form of {@link #getDraught()}.
+   *
+   * @return the draught in meters, or NaN if not available.
+   */
+  default float getDraughtValue() {
+    return floatOrNaN(getDraught());
+  }
+
+  /**
+   * Primitive form of {@link #getETA()}, as epoch milliseconds.
+   *
+   * @return the estimated time of arrival, or {@link #NO_TIME} if not available.
+   */
+  default long getETAMillis() {
+    return getETA().map(eta -> eta.toInstant().toEpochMilli()).orElse(NO_TIME);
+  }
+
+  private static float floatOrNaN(Float value) {
+    return value == null ? Float.NaN : value;
+  }
+
+  private static int intOrNoValue(Integer value) {
+    return value == null ? NO_VALUE : value;
+  }
+}
@@ -0,0 +1,499 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import dk.tbsalling.aismessages.ais.exceptions.UnsupportedMessageType;
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.PositionReport;
+import dk.tbsalling.aismessages.ais.messages.ShipAndVoyageData;
+import dk.tbsalling.aismessages.ais.messages.types.AISMessageType;
+import dk.tbsalling.aismessages.ais.messages.types.IMO;
+import dk.tbsalling.aismessages.ais.messages.types.ManeuverIndicator;
+import dk.tbsalling.aismessages.ais.messages.types.NavigationStatus;
+import dk.tbsalling.aismessages.ais.messages.types.ShipType;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * A reusable, primitive-typed copy of a decoded message. Every field the database needs is read
+ * from the AISMessage once, when the record is filled, and kept in primitive form with NaN,
+ * {@link #NO_VALUE} or {@link #NO_TIME} for missing values. The writers read the primitive getters
+ * and bind them straight to their statements, so nothing is boxed between decoding and the
+ * database.
+ *
+ * <p>Records come from a {@link MessageRecordPool} and go back to it through {@link #recycle()}
+ * once written, so the same few thousand records carry every message. A record must not be used
+ * after it has been recycled. The boxed getters are kept for the code that still uses them; they
+ * allocate on each call.</p>
+ */
+public final class MessageRecord implements MessageDataInterface {
+
+  private static final int DEFAULT_MANEUVER_INDICATOR_ID = 0;
+  private static final int DEFAULT_NAV_STATUS_ID = 15;
+
+  private final MessageRecordPool pool;
+
+  private AISMessageType messageType;
+  private int messageTypeId;
+  private boolean validType;
+  private int capabilities;
+  private int mmsi;
+  private String rawNMEA;
+  private boolean multipleParts;
+  private long timeReceivedMillis;
+  private long queuedNanos;
+
+  private float lat;
+  private float lon;
+  private boolean accuracy;
+  private float speedOverGround;
+  private float courseOverGround;
+  private float heading;
+  private float rateOfTurn;
+  private int navStatusId;
+  private int maneuverIndicatorId;
+
+  private int imo;
+  private String callsign;
+  private String shipName;
+  private int vesselTypeId;
+  private int toBow;
+  private int toStern;
+  private int toStarboard;
+  private int toPort;
+  private float draught;
+  private long etaMillis;
+  private String destination;
+
+  /**
+   * Creates an empty record.
+   *
+   * @param pool the pool to return to when recycled, or null if the record is not pooled.
+   */
+  MessageRecord(MessageRecordPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Copies every field the database needs out of a decoded message, replacing whatever the
+   * record held before.
+   *
+   * @param message      an AISMessage object.
+   * @param timeReceived when the message was received, or null to use the decoder's metadata.
+   * @return this record.
+   */
+  public MessageRecord fill(AISMessage message, Instant timeReceived) {
+    messageType = message.getMessageType();
+    int code = messageType.getCode();
+    validType = code > -1;
+    messageTypeId = validType ? code : 0;
+    mmsi = message.getSourceMmsi().getMMSI();
+
+    NMEAMessage[] parts = message.getNmeaMessages();
+    multipleParts = parts.length > 1;
+    rawNMEA = multipleParts ? joinParts(parts) : parts[0].getRawMessage();
+    Instant time = timeReceived != null ? timeReceived : message.getMetadata().getReceived();
+    timeReceivedMillis = time.toEpochMilli();
+
+    switch (messageType) {
+      // Message Type 1, 2, and 3, respectively
+      case PositionReportClassAScheduled:
+      case PositionReportClassAAssignedSchedule:
+      case PositionReportClassAResponseToInterrogation:
+        fillPositionReport((PositionReport) message);
+        break;
+
+      // Message Type 5
+      case ShipAndVoyageRelatedData:
+        fillShipAndVoyageData((ShipAndVoyageData) message);
+        break;
+
+      // Unsupported Message
+      default:
+        capabilities = MessageCapabilities.NONE;
+    }
+    return this;
+  }
+
+  /**
+   * Copies a position report unpacked by a {@link PositionReportDecoder}, replacing whatever the
+   * record held before.
+   *
+   * @param report             a decoder that has just loaded a position report.
+   * @param rawNMEA            the sentence the report was decoded from.
+   * @param timeReceivedMillis when the message was received, in epoch milliseconds.
+   * @return this record.
+   */
+  MessageRecord fill(PositionReportDecoder report, String rawNMEA, long timeReceivedMillis) {
+    messageType = report.getMessageType();
+    messageTypeId = report.getMessageTypeId();
+    validType = true;
+    mmsi = report.getMMSI();
+    this.rawNMEA = rawNMEA;
+    multipleParts = false;
+    this.timeReceivedMillis = timeReceivedMillis;
+
+    capabilities = MessageCapabilities.GEOSPATIAL_DATA | MessageCapabilities.NAVIGATION_DATA;
+    lat = report.getLatitude();
+    lon = report.getLongitude();
+    accuracy = report.getAccuracy();
+    speedOverGround = report.getSpeedOverGround();
+    courseOverGround = report.getCourseOverGround();
+    heading = report.getHeading();
+    rateOfTurn = report.getRateOfTurn();
+    navStatusId = report.getNavStatusId();
+    maneuverIndicatorId = report.getManeuverIndicatorId();
+    return this;
+  }
+
+  /**
+   * Returns the record to its pool. The record must not be used afterwards.
+   */
+  public void recycle() {
+    if (pool != null) {
+      pool.release(this);
+    }
+  }
+
+  /**
+   * Notes when the record was queued for a writer, so the writer can tell how long it waited.
+   *
+   * @param nanoTime the {@link System#nanoTime()} when it was queued.
+   */
+  public void markQueued(long nanoTime) {
+    queuedNanos = nanoTime;
+  }
+
+  /**
+   * Gets when the record was last queued for a writer.
+   *
+   * @return the {@link System#nanoTime()} passed to {@link #markQueued(long)}.
+   */
+  public long getQueuedNanos() {
+    return queuedNanos;
+  }
+
+  private void fillPositionReport(PositionReport report) {
+    capabilities = MessageCapabilities.GEOSPATIAL_DATA | MessageCapabilities.NAVIGATION_DATA;
+    lat = floatOrNaN(report.getLatitude());
+    lon = floatOrNaN(report.getLongitude());
+    accuracy = Boolean.TRUE.equals(report.getPositionAccuracy());
+    speedOverGround = floatOrNaN(report.getSpeedOverGround());
+    courseOverGround = floatOrNaN(report.getCourseOverGround());
+    heading = intToFloatOrNaN(report.getTrueHeading());
+    rateOfTurn = intToFloatOrNaN(report.getRateOfTurn());
+
+    NavigationStatus navigationStatus = report.getNavigationStatus();
+    navStatusId = navigationStatus == null ? DEFAULT_NAV_STATUS_ID : navigationStatus.getCode();
+    ManeuverIndicator maneuverIndicator = report.getSpecialManeuverIndicator();
+    maneuverIndicatorId = maneuverIndicator == null
+            ? DEFAULT_MANEUVER_INDICATOR_ID
+            : maneuverIndicator.getCode();
+  }
+
+  private void fillShipAndVoyageData(ShipAndVoyageData data) {
+    capabilities = MessageCapabilities.VESSEL_SIGNATURE | MessageCapabilities.VESSEL_DATA
+            | MessageCapabilities.VOYAGE_DATA;
+    IMO imoNumber = data.getImo();
+    imo = imoNumber == null ? NO_VALUE : intOrNoValue(imoNumber.getIMO());
+    callsign = data.getCallsign();
+    shipName = data.getShipName();
+    ShipType shipType = data.getShipType();
+    vesselTypeId = shipType == null ? NO_VALUE : intOrNoValue(shipType.getCode());
+
+    toBow = intOrNoValue(data.getToBow());
+    toStern = intOrNoValue(data.getToStern());
+    toStarboard = intOrNoValue(data.getToStarboard());
+    toPort = intOrNoValue(data.getToPort());
+
+    draught = floatOrNaN(data.getDraught());
+    etaMillis = data.getEtaAfterReceived()
+            .map(eta -> eta.toInstant().toEpochMilli())
+            .orElse(NO_TIME);
+    destination = data.getDestination();
+  }
+
+  @Override
+  public boolean isValidType() {
+    return validType;
+  }
+
+  @Override
+  public int getCapabilities() {
+    return capabilities;
+  }
+
+  @Override
+  public int getMMSI() {
+    return mmsi;
+  }
+
+  @Override
+  public AISMessageType getMessageType() {
+    return messageType;
+  }
+
+  @Override
+  public int getMessageTypeId() {
+    return messageTypeId;
+  }
+
+  @Override
+  public String getRawNMEA() {
+    return rawNMEA;
+  }
+
+  @Override
+  public boolean hasMultipleParts() {
+    return multipleParts;
+  }
+
+  @Override
+  public long getTimeReceivedMillis() {
+    return timeReceivedMillis;
+  }
+
+  @Override
+  public OffsetDateTime getTimeReceived() {
+    return Instant.ofEpochMilli(timeReceivedMillis).atOffset(ZoneOffset.UTC);
+  }
+
+  @Override
+  public float getLatValue() {
+    check(MessageCapabilities.GEOSPATIAL_DATA);
+    return lat;
+  }
+
+  @Override
+  public float getLongValue() {
+    check(MessageCapabilities.GEOSPATIAL_DATA);
+    return lon;
+  }
+
+  @Override
+  public float getSpeedOverGroundValue() {
+    check(MessageCapabilities.NAVIGATION_DATA);
+    return speedOverGround;
+  }
+
+  @Override
+  public float getCourseOverGroundValue() {
+    check(MessageCapabilities.NAVIGATION_DATA);
+    return courseOverGround;
+  }
+
+  @Override
+  public float getHeadingValue() {
+    check(MessageCapabilities.NAVIGATION_DATA);
+    return heading;
+  }
+
+  @Override
+  public float getRateOfTurnValue() {
+    check(MessageCapabilities.NAVIGATION_DATA);
+    return rateOfTurn;
+  }
+
+  @Override
+  public int getIMOValue() {
+    check(MessageCapabilities.VESSEL_SIGNATURE);
+    return imo;
+  }
+
+  @Override
+  public int getVesselTypeIdValue() {
+    check(MessageCapabilities.VESSEL_SIGNATURE);
+    return vesselTypeId;
+  }
+
+  @Override
+  public int getToBowValue() {
+    check(MessageCapabilities.VESSEL_DATA);
+    return toBow;
+  }
+
+  @Override
+  public int getToSternValue() {
+    check(MessageCapabilities.VESSEL_DATA);
+    return toStern;
+  }
+
+  @Override
+  public int getToStarboardValue() {
+    check(MessageCapabilities.VESSEL_DATA);
+    return toStarboard;
+  }
+
+  @Override
+  public int getToPortValue() {
+    check(MessageCapabilities.VESSEL_DATA);
+    return toPort;
+  }
+
+  @Override
+  public float getDraughtValue() {
+    check(MessageCapabilities.VOYAGE_DATA);
+    return draught;
+  }
+
+  @Override
+  public long getETAMillis() {
+    check(MessageCapabilities.VOYAGE_DATA);
+    return etaMillis;
+  }
+
+  @Override
+  public Float getLat() {
+    return boxed(getLatValue());
+  }
+
+  @Override
+  public Float getLong() {
+    return boxed(getLongValue());
+  }
+
+  @Override
+  public Boolean getAccuracy() {
+    check(MessageCapabilities.GEOSPATIAL_DATA);
+    return accuracy;
+  }
+
+  @Override
+  public int getNavStatusId() {
+    check(MessageCapabilities.NAVIGATION_DATA);
+    return navStatusId;
+  }
+
+  @Override
+  public int getManeuverIndicatorId() {
+    check(MessageCapabilities.NAVIGATION_DATA);
+    return maneuverIndicatorId;
+  }
+
+  @Override
+  public Float getSpeedOverGround() {
+    return boxed(getSpeedOverGroundValue());
+  }
+
+  @Override
+  public Float getCourseOverGround() {
+    return boxed(getCourseOverGroundValue());
+  }
+
+  @Override
+  public Float getHeading() {
+    return boxed(getHeadingValue());
+  }
+
+  @Override
+  public Float getRateOfTurn() {
+    return boxed(getRateOfTurnValue());
+  }
+
+  @Override
+  public Optional<Integer> getIMO() {
+    return optional(getIMOValue());
+  }
+
+  @Override
+  public String getCallsign() {
+    check(MessageCapabilities.VESSEL_SIGNATURE);
+    return callsign;
+  }
+
+  @Override
+  public String getShipName() {
+    check(MessageCapabilities.VESSEL_SIGNATURE);
+    return shipName;
+  }
+
+  @Override
+  public Optional<Integer> getVesselTypeId() {
+    return optional(getVesselTypeIdValue());
+  }
+
+  @Override
+  public Integer getToBow() {
+    return boxed(getToBowValue());
+  }
+
+  @Override
+  public Integer getToStern() {
+    return boxed(getToSternValue());
+  }
+
+  @Override
+  public Integer getToStarboard() {
+    return boxed(getToStarboardValue());
+  }
+
+  @Override
+  public Integer getToPort() {
+    return boxed(getToPortValue());
+  }
+
+  @Override
+  public Float getDraught() {
+    return boxed(getDraughtValue());
+  }
+
+  @Override
+  public Optional<OffsetDateTime> getETA() {
+    long eta = getETAMillis();
+    return eta == NO_TIME
+            ? Optional.empty()
+            : Optional.of(Instant.ofEpochMilli(eta).atOffset(ZoneOffset.UTC));
+  }
+
+  @Override
+  public String getDestination() {
+    check(MessageCapabilities.VOYAGE_DATA);
+    return destination;
+  }
+
+  /**
+   * Throws the same exception as {@link AbstractMessageData} for a field the type lacks.
+   */
+  private void check(int capability) {
+    if ((capabilities & capability) == 0) {
+      throw new UnsupportedMessageType(messageTypeId);
+    }
+  }
+
+  private static String joinParts(NMEAMessage[] parts) {
+    StringBuilder messages = new StringBuilder();
+    for (int i = 0; i < parts.length; i++) {
+      if (i > 0) {
+        messages.append(" | ");
+      }
+      messages.append(parts[i].getRawMessage());
+    }
+    return messages.toString();
+  }
+
+  private static float floatOrNaN(Float value) {
+    return value == null ? Float.NaN : value;
+  }
+
+  private static float intToFloatOrNaN(Integer value) {
+    return value == null ? Float.NaN : value;
+  }
+
+  private static int intOrNoValue(Integer value) {
+    return value == null ? NO_VALUE : value;
+  }
+
+  private static Float boxed(float value) {
+    return Float.isNaN(value) ? null : value;
+  }
+
+  private static Integer boxed(int value) {
+    return value == NO_VALUE ? null : value;
+  }
+
+  private static Optional<Integer> optional(int value) {
+    return value == NO_VALUE ? Optional.empty() : Optional.of(value);
+  }
+}
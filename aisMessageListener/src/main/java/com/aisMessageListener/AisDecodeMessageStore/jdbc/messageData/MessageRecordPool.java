@@ -0,0 +1,75 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+
+/**
+ * A bounded pool of {@link MessageRecord}s shared by the decoding threads, which take records,
+ * and the writer threads, which give them back once the records are written. Neither side waits:
+ * a new record is created when the pool is empty, and a returned record is left to the garbage
+ * collector when the pool is full. Sized to the number of messages the pipeline holds at once,
+ * the pool stops creating records once the listener has warmed up.
+ */
+public final class MessageRecordPool {
+
+  private final BlockingQueue<MessageRecord> idle;
+
+  /**
+   * Creates an empty pool.
+   *
+   * @param capacity the largest number of idle records kept.
+   */
+  public MessageRecordPool(int capacity) {
+    this.idle = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Takes an idle record, or creates one, and fills it from a decoded message. Safe to call from
+   * any thread.
+   *
+   * @param message      an AISMessage object.
+   * @param timeReceived when the message was received, or null to use the decoder's metadata.
+   * @return a filled record, to be recycled once it has been written.
+   */
+  public MessageRecord acquire(AISMessage message, Instant timeReceived) {
+    return take().fill(message, timeReceived);
+  }
+
+  /**
+   * Takes an idle record, or creates one, and fills it from a position report unpacked without
+   * the library. Safe to call from any thread, with a decoder owned by the calling thread.
+   *
+   * @param report             a decoder that has just loaded a position report.
+   * @param rawNMEA            the sentence the report was decoded from.
+   * @param timeReceivedMillis when the message was received, in epoch milliseconds.
+   * @return a filled record, to be recycled once it has been written.
+   */
+  public MessageRecord acquire(PositionReportDecoder report, String rawNMEA,
+                               long timeReceivedMillis) {
+    return take().fill(report, rawNMEA, timeReceivedMillis);
+  }
+
+  /**
+   * Gets the number of records waiting to be reused.
+   *
+   * @return the current number of idle records.
+   */
+  public int getIdleRecords() {
+    return idle.size();
+  }
+
+  /**
+   * Takes back a record. Safe to call from any thread.
+   */
+  void release(MessageRecord record) {
+    idle.offer(record);
+  }
+
+  private MessageRecord take() {
+    MessageRecord record = idle.poll();
+    return record != null ? record : new MessageRecord(this);
+  }
+}
@@ -0,0 +1,236 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Checks an AIS sentence where it lies in a buffer and keeps the values of its fields. This is the
+ * one definition of a valid sentence: the feed's framer, the log replay and the
+ * {@link PositionReportDecoder} all check sentences here, so they cannot disagree about which ones
+ * to pass on.
+ *
+ * <p>A sentence is valid if it is an {@code !xxVDM} or {@code !xxVDO} sentence of at most
+ * {@link #MAX_SENTENCE_BYTES} with seven fields, a well-formed header, a payload of 6-bit armored
+ * characters, and a {@code *hh} checksum that matches. Nothing is allocated and no exceptions are
+ * thrown for an invalid sentence.</p>
+ *
+ * <p>Not thread safe; each thread keeps its own instance, whose getters describe the last sentence
+ * found valid.</p>
+ */
+public final class NmeaSentence {
+
+  /**
+   * The outcome of checking a sentence.
+   */
+  public enum Check {
+    VALID, MALFORMED, CHECKSUM_FAILURE
+  }
+
+  /**
+   * The longest sentence accepted, without its line ending.
+   */
+  public static final int MAX_SENTENCE_BYTES = 256;
+
+  private static final int FIELD_COUNT = 7;
+  private static final int PAYLOAD_FIELD = 5;
+  private static final int FILL_BITS_FIELD = 6;
+
+  private final int[] fieldStarts = new int[FIELD_COUNT + 1];
+  private int fragmentCount;
+  private int fragmentNumber;
+  private int sequenceId;
+  private char channel;
+  private int fillBits;
+
+  /**
+   * Checks one sentence and, if it is valid, keeps its field values.
+   *
+   * @param buffer the buffer holding the sentence.
+   * @param start  the index of the sentence's '!'.
+   * @param end    the index after the checksum, without the line ending.
+   * @return VALID if the getters now describe the sentence, CHECKSUM_FAILURE if it is well framed
+   *         but its checksum does not match, and MALFORMED otherwise.
+   */
+  public Check check(ByteBuffer buffer, int start, int end) {
+    int star = end - 3;
+    if (end - start > MAX_SENTENCE_BYTES || star <= start || buffer.get(start) != '!'
+            || buffer.get(star) != '*') {
+      return Check.MALFORMED;
+    }
+
+    // One pass computes the checksum and finds the fields.
+    int checksum = 0;
+    int fields = 1;
+    fieldStarts[0] = start + 1;
+    for (int i = start + 1; i < star; i++) {
+      byte b = buffer.get(i);
+      checksum ^= b;
+      if (b == ',') {
+        if (fields == FIELD_COUNT) {
+          return Check.MALFORMED;
+        }
+        fieldStarts[fields++] = i + 1;
+      }
+    }
+    fieldStarts[fields] = star + 1;
+
+    int expected = (hexValue(buffer.get(star + 1)) << 4) | hexValue(buffer.get(star + 2));
+    if (expected < 0) {
+      return Check.MALFORMED;
+    }
+    if (checksum != expected) {
+      return Check.CHECKSUM_FAILURE;
+    }
+    if (fields != FIELD_COUNT || !checkFields(buffer)) {
+      return Check.MALFORMED;
+    }
+    return Check.VALID;
+  }
+
+  /**
+   * Gets the number of sentences that make up the message.
+   *
+   * @return the fragment count, 1 to 9.
+   */
+  public int getFragmentCount() {
+    return fragmentCount;
+  }
+
+  /**
+   * Gets which part of the message this sentence is.
+   *
+   * @return the fragment number, 1 to the fragment count.
+   */
+  public int getFragmentNumber() {
+    return fragmentNumber;
+  }
+
+  /**
+   * Gets the sequential message id that ties the parts of a multi-part message together.
+   *
+   * @return the id, 0 to 9, or -1 if the field is empty.
+   */
+  public int getSequenceId() {
+    return sequenceId;
+  }
+
+  /**
+   * Gets the radio channel the message was received on.
+   *
+   * @return 'A', 'B', '1' or '2', or 0 if the field is empty.
+   */
+  public char getChannel() {
+    return channel;
+  }
+
+  /**
+   * Gets the number of padding bits at the end of the payload.
+   *
+   * @return the fill bits, 0 to 5.
+   */
+  public int getFillBits() {
+    return fillBits;
+  }
+
+  /**
+   * Gets where the payload starts in the buffer.
+   *
+   * @return the index of the payload's first character.
+   */
+  public int getPayloadStart() {
+    return fieldStarts[PAYLOAD_FIELD];
+  }
+
+  /**
+   * Gets where the payload ends in the buffer.
+   *
+   * @return the index after the payload's last character.
+   */
+  public int getPayloadEnd() {
+    return fieldStarts[PAYLOAD_FIELD] + fieldLength(PAYLOAD_FIELD);
+  }
+
+  /**
+   * Checks the header, fragment, channel, payload and fill bit fields, and keeps their values.
+   */
+  private boolean checkFields(ByteBuffer buffer) {
+    int header = fieldStarts[0];
+    if (fieldLength(0) != 5 || buffer.get(header + 2) != 'V' || buffer.get(header + 3) != 'D'
+            || (buffer.get(header + 4) != 'M' && buffer.get(header + 4) != 'O')) {
+      return false;
+    }
+
+    fragmentCount = digitField(buffer, 1);
+    fragmentNumber = digitField(buffer, 2);
+    if (fragmentCount < 1 || fragmentNumber < 1 || fragmentNumber > fragmentCount) {
+      return false;
+    }
+    sequenceId = fieldLength(3) == 0 ? -1 : digitField(buffer, 3);
+    if (sequenceId < -1) {
+      return false;
+    }
+
+    if (fieldLength(4) == 0) {
+      channel = 0;
+    } else if (fieldLength(4) == 1) {
+      channel = (char) buffer.get(fieldStarts[4]);
+      if (channel != 'A' && channel != 'B' && channel != '1' && channel != '2') {
+        return false;
+      }
+    } else {
+      return false;
+    }
+
+    int payloadStart = getPayloadStart();
+    int payloadEnd = getPayloadEnd();
+    if (payloadEnd == payloadStart) {
+      return false;
+    }
+    for (int i = payloadStart; i < payloadEnd; i++) {
+      byte b = buffer.get(i);
+      if (b < '0' || b > 'w' || (b > 'W' && b < '`')) {
+        return false;
+      }
+    }
+
+    fillBits = digitField(buffer, FILL_BITS_FIELD);
+    return fillBits >= 0 && fillBits <= 5;
+  }
+
+  /**
+   * Gets the length of a field, not counting the separator after it.
+   */
+  private int fieldLength(int field) {
+    return fieldStarts[field + 1] - fieldStarts[field] - 1;
+  }
+
+  /**
+   * Reads a single-digit field.
+   *
+   * @return the digit, or -2 if the field is not exactly one digit.
+   */
+  private int digitField(ByteBuffer buffer, int field) {
+    if (fieldLength(field) != 1) {
+      return -2;
+    }
+    byte b = buffer.get(fieldStarts[field]);
+    return b >= '0' && b <= '9' ? b - '0' : -2;
+  }
+
+  /**
+   * Reads a hex digit.
+   *
+   * @return the digit's value, or a negative number if it is not a hex digit.
+   */
+  private static int hexValue(byte b) {
+    if (b >= '0' && b <= '9') {
+      return b - '0';
+    }
+    if (b >= 'A' && b <= 'F') {
+      return b - 'A' + 10;
+    }
+    if (b >= 'a' && b <= 'f') {
+      return b - 'a' + 10;
+    }
+    return -0x100;
+  }
+}
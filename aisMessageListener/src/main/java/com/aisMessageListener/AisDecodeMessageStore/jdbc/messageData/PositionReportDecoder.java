@@ -0,0 +1,225 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
+
+import java.nio.ByteBuffer;
+
+import dk.tbsalling.aismessages.ais.messages.types.AISMessageType;
+
+/**
+ * Decodes type 1, 2 and 3 position reports, which are most of the traffic, without the
+ * aismessages library. The 6-bit armored payload is unpacked into a reusable bit buffer and the
+ * fields the database needs are read from it as primitives, with the same offsets, scaling and
+ * special values as the library, so a record filled from this decoder is identical to one filled
+ * from the library's PositionReport. Nothing is allocated.
+ *
+ * <p>Any other payload, or one that is too short to be a position report, is rejected and should
+ * be decoded by the library instead.</p>
+ *
+ * <p>Not thread safe; each decoding thread keeps its own decoder.</p>
+ */
+public final class PositionReportDecoder {
+
+  private static final int REPORT_BITS = 168;
+  private static final int REPORT_CHARACTERS = REPORT_BITS / 6;
+  private static final int MANEUVER_INDICATOR_RESERVED = 3;
+  // Characters 1 to 6 hold bits 6 to 41, which include the MMSI in bits 8 to 37.
+  private static final int MMSI_CHARACTERS = 7;
+
+  private final long[] bits = new long[(REPORT_BITS + 63) / 64];
+  private final NmeaSentence sentence = new NmeaSentence();
+  private int messageTypeId;
+
+  /**
+   * Unpacks a payload if it is a position report.
+   *
+   * @param buffer   the buffer holding the payload's armored characters.
+   * @param start    the index of the payload's first character.
+   * @param end      the index after the payload's last character.
+   * @param fillBits the number of padding bits at the end of the payload.
+   * @return true if the payload is a type 1, 2 or 3 message and the getters now describe it;
+   *         false if it must be decoded by the library.
+   */
+  public boolean load(ByteBuffer buffer, int start, int end, int fillBits) {
+    if ((end - start) * 6 - fillBits < REPORT_BITS) {
+      return false;
+    }
+    int type = sixBits(buffer.get(start));
+    if (type < 1 || type > 3) {
+      return false;
+    }
+
+    bits[0] = 0;
+    bits[1] = 0;
+    bits[2] = 0;
+    for (int i = 0; i < REPORT_CHARACTERS; i++) {
+      int value = sixBits(buffer.get(start + i));
+      if (value < 0) {
+        return false;
+      }
+      int offset = i * 6;
+      int shift = 58 - (offset & 63);
+      int word = offset >>> 6;
+      if (shift >= 0) {
+        bits[word] |= (long) value << shift;
+      } else {
+        // The character straddles two words.
+        bits[word] |= (long) value >>> -shift;
+        bits[word + 1] |= (long) value << (64 + shift);
+      }
+    }
+    messageTypeId = type;
+    return true;
+  }
+
+  /**
+   * Unpacks the payload of a whole single-part sentence, such as {@code !AIVDM,1,1,,A,...,0*5C},
+   * if it is a position report and {@link NmeaSentence} finds it valid.
+   *
+   * @param buffer the buffer holding the sentence.
+   * @param start  the index of the sentence's '!'.
+   * @param end    the index after the checksum, without the line ending.
+   * @return true if the getters now describe the sentence's message; false if it must be decoded
+   *         by the library.
+   */
+  public boolean loadSentence(ByteBuffer buffer, int start, int end) {
+    return sentence.check(buffer, start, end) == NmeaSentence.Check.VALID
+            && sentence.getFragmentCount() == 1
+            && load(buffer, sentence.getPayloadStart(), sentence.getPayloadEnd(),
+                    sentence.getFillBits());
+  }
+
+  /**
+   * Reads the MMSI from the header every message type shares, without unpacking the rest of the
+   * payload.
+   *
+   * @param buffer the buffer holding the payload's armored characters.
+   * @param start  the index of the payload's first character.
+   * @param end    the index after the payload's last character.
+   * @return the MMSI, or 0 if the payload is too short to hold one.
+   */
+  public static int readMMSI(ByteBuffer buffer, int start, int end) {
+    if (end - start < MMSI_CHARACTERS) {
+      return 0;
+    }
+    long header = 0;
+    for (int i = 1; i < MMSI_CHARACTERS; i++) {
+      header = header << 6 | (sixBits(buffer.get(start + i)) & 0x3f);
+    }
+    return mmsiFromHeader(header);
+  }
+
+  /**
+   * Reads the MMSI from the header every message type shares, without unpacking the rest of the
+   * payload.
+   *
+   * @param payload the payload's armored characters.
+   * @return the MMSI, or 0 if the payload is too short to hold one.
+   */
+  public static int readMMSI(CharSequence payload) {
+    if (payload.length() < MMSI_CHARACTERS) {
+      return 0;
+    }
+    long header = 0;
+    for (int i = 1; i < MMSI_CHARACTERS; i++) {
+      header = header << 6 | (sixBits((byte) payload.charAt(i)) & 0x3f);
+    }
+    return mmsiFromHeader(header);
+  }
+
+  int getMessageTypeId() {
+    return messageTypeId;
+  }
+
+  AISMessageType getMessageType() {
+    switch (messageTypeId) {
+      case 1:
+        return AISMessageType.PositionReportClassAScheduled;
+      case 2:
+        return AISMessageType.PositionReportClassAAssignedSchedule;
+      default:
+        return AISMessageType.PositionReportClassAResponseToInterrogation;
+    }
+  }
+
+  int getMMSI() {
+    return unsigned(8, 30);
+  }
+
+  int getNavStatusId() {
+    return unsigned(38, 4);
+  }
+
+  float getRateOfTurn() {
+    return signed(42, 8);
+  }
+
+  float getSpeedOverGround() {
+    return unsigned(50, 10) / 10f;
+  }
+
+  boolean getAccuracy() {
+    return unsigned(60, 1) == 1;
+  }
+
+  float getLongitude() {
+    return signed(61, 28) / 600000f;
+  }
+
+  float getLatitude() {
+    return signed(89, 27) / 600000f;
+  }
+
+  float getCourseOverGround() {
+    return unsigned(116, 12) / 10f;
+  }
+
+  float getHeading() {
+    return unsigned(128, 9);
+  }
+
+  /**
+   * Gets the special maneuver indicator, with the reserved value read as not available like the
+   * library does.
+   */
+  int getManeuverIndicatorId() {
+    int value = unsigned(143, 2);
+    return value == MANEUVER_INDICATOR_RESERVED ? 0 : value;
+  }
+
+  /**
+   * Reads up to 32 bits, left-aligned in the result.
+   */
+  private long field(int offset, int width) {
+    int word = offset >>> 6;
+    int shift = offset & 63;
+    long value = bits[word] << shift;
+    if (shift != 0 && shift + width > 64) {
+      value |= bits[word + 1] >>> (64 - shift);
+    }
+    return value;
+  }
+
+  private int unsigned(int offset, int width) {
+    return (int) (field(offset, width) >>> (64 - width));
+  }
+
+  private int signed(int offset, int width) {
+    return (int) (field(offset, width) >> (64 - width));
+  }
+
+  private static int mmsiFromHeader(long header) {
+    return (int) (header >>> 4) & ((1 << 30) - 1);
+  }
+
+  /**
+   * De-armors one payload character.
+   *
+   * @return its 6-bit value, or -1 if it is not an armored character.
+   */
+  private static int sixBits(byte b) {
+    if (b < '0' || b > 'w' || (b > 'W' && b < '`')) {
+      return -1;
+    }
+    int value = b - '0';
+    return value > 40 ? value - 8 : value;
+  }
+}
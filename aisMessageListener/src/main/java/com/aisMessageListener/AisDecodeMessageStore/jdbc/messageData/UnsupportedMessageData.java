@@ -1,5 +1,7 @@
 package com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData;
 
+import java.time.Instant;
+
 import dk.tbsalling.aismessages.ais.messages.AISMessage;
 
 /**
@@ -13,7 +15,17 @@ public final class UnsupportedMessageData extends AbstractMessageData {
    * @param message the AIS Message
    */
   public UnsupportedMessageData(AISMessage message) {
-    super(message);
+    this(message, null);
+  }
+
+  /**
+   * Constructor initializes the wrapper with the time the message was originally received.
+   *
+   * @param message      an AISMessage object
+   * @param timeReceived when the message was received, or null to use the decoder's metadata.
+   */
+  public UnsupportedMessageData(AISMessage message, Instant timeReceived) {
+    super(message, timeReceived);
   }
 
 }
@@ -24,4 +24,14 @@ public class CoordinateUtil {
     public static PGpoint getCoord(Float latitude, Float longitude) {
         return new PGpoint(latitude, longitude);
     }
+
+    /**
+     * Gets a Postgres coordinate from primitive latitude and longitude values, without boxing.
+     * @param latitude a float
+     * @param longitude a float
+     * @return a PGPoint
+     */
+    public static PGpoint getCoord(float latitude, float longitude) {
+        return new PGpoint(latitude, longitude);
+    }
 }
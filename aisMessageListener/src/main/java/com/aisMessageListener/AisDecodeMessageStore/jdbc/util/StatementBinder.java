@@ -0,0 +1,230 @@
+package com.aisMessageListener.AisDecodeMessageStore.jdbc.util;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import org.postgresql.geometric.PGpoint;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Utility class for binding typed, possibly-null values to PreparedStatement parameters. Nulls are
+ * bound with their SQL type so the server can plan the statement once for every message.
+ */
+public class StatementBinder {
+
+  /**
+   * Prevent instantiation of utility class by deliberately not supporting public constructor and
+   * throwing an error when accessed via reflection.
+   */
+  private StatementBinder() {
+    throw new AssertionError("Cannot instantiate utility class");
+  }
+
+  /**
+   * Binds a nullable Integer.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or null.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setInteger(PreparedStatement stmt, int index, Integer value)
+          throws SQLException {
+    if (value == null) {
+      stmt.setNull(index, Types.INTEGER);
+    } else {
+      stmt.setInt(index, value);
+    }
+  }
+
+  /**
+   * Binds a nullable Float.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or null.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setFloat(PreparedStatement stmt, int index, Float value)
+          throws SQLException {
+    if (value == null) {
+      stmt.setNull(index, Types.REAL);
+    } else {
+      stmt.setFloat(index, value);
+    }
+  }
+
+  /**
+   * Binds an int read from a primitive getter, where {@link MessageDataInterface#NO_VALUE} is
+   * bound as null.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or NO_VALUE.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setInteger(PreparedStatement stmt, int index, int value)
+          throws SQLException {
+    if (value == MessageDataInterface.NO_VALUE) {
+      stmt.setNull(index, Types.INTEGER);
+    } else {
+      stmt.setInt(index, value);
+    }
+  }
+
+  /**
+   * Binds a float read from a primitive getter, where NaN is bound as null.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or NaN.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setFloat(PreparedStatement stmt, int index, float value)
+          throws SQLException {
+    if (Float.isNaN(value)) {
+      stmt.setNull(index, Types.REAL);
+    } else {
+      stmt.setFloat(index, value);
+    }
+  }
+
+  /**
+   * Binds a nullable String.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or null.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setString(PreparedStatement stmt, int index, String value)
+          throws SQLException {
+    if (value == null) {
+      stmt.setNull(index, Types.VARCHAR);
+    } else {
+      stmt.setString(index, value);
+    }
+  }
+
+  /**
+   * Binds a nullable timestamp with time zone.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or null.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setTimestamp(PreparedStatement stmt, int index, OffsetDateTime value)
+          throws SQLException {
+    if (value == null) {
+      stmt.setNull(index, Types.TIMESTAMP_WITH_TIMEZONE);
+    } else {
+      stmt.setObject(index, value);
+    }
+  }
+
+  /**
+   * Binds a time read from a primitive getter as a timestamp with time zone, where
+   * {@link MessageDataInterface#NO_TIME} is bound as null.
+   *
+   * @param stmt        the statement to bind to.
+   * @param index       the 1-based parameter index.
+   * @param epochMillis the time in epoch milliseconds, or NO_TIME.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setTimestamp(PreparedStatement stmt, int index, long epochMillis)
+          throws SQLException {
+    if (epochMillis == MessageDataInterface.NO_TIME) {
+      stmt.setNull(index, Types.TIMESTAMP_WITH_TIMEZONE);
+    } else {
+      stmt.setObject(index, Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC));
+    }
+  }
+
+  /**
+   * Binds a nullable Postgres point, as built by {@link CoordinateUtil}.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param value the value, or null.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setPoint(PreparedStatement stmt, int index, PGpoint value)
+          throws SQLException {
+    if (value == null) {
+      stmt.setNull(index, Types.OTHER);
+    } else {
+      stmt.setObject(index, value);
+    }
+  }
+
+  /**
+   * Binds a foreign key, where -1 indicates that no row was written and the column is null.
+   *
+   * @param stmt  the statement to bind to.
+   * @param index the 1-based parameter index.
+   * @param key   the primary key of the referenced row, or -1.
+   * @throws SQLException if the parameter index is invalid.
+   */
+  public static void setKey(PreparedStatement stmt, int index, int key) throws SQLException {
+    if (key == -1) {
+      stmt.setNull(index, Types.BIGINT);
+    } else {
+      stmt.setLong(index, key);
+    }
+  }
+
+  /**
+   * Binds every value of a row to consecutive parameters, choosing the typed setter from each
+   * value's class.
+   *
+   * @param stmt the statement to bind to.
+   * @param row  the values, which may be Integer, Float, Boolean, String, OffsetDateTime, PGpoint
+   *             or null.
+   * @throws SQLException if the row does not fit the statement.
+   */
+  public static void setRow(PreparedStatement stmt, Object[] row) throws SQLException {
+    setRow(stmt, 1, row);
+  }
+
+  /**
+   * Binds every value of a row to consecutive parameters starting at the provided index, so that
+   * several rows can fill one multi-statement query.
+   *
+   * @param stmt       the statement to bind to.
+   * @param firstIndex the 1-based index of the first parameter to bind.
+   * @param row        the values, as for {@link #setRow(PreparedStatement, Object[])}.
+   * @return the index of the parameter after the last one bound.
+   * @throws SQLException if the row does not fit the statement.
+   */
+  public static int setRow(PreparedStatement stmt, int firstIndex, Object[] row)
+          throws SQLException {
+    int index = firstIndex;
+    for (Object value : row) {
+      if (value == null) {
+        stmt.setNull(index, Types.OTHER);
+      } else if (value instanceof Integer) {
+        stmt.setInt(index, (Integer) value);
+      } else if (value instanceof Float) {
+        stmt.setFloat(index, (Float) value);
+      } else if (value instanceof Boolean) {
+        stmt.setBoolean(index, (Boolean) value);
+      } else if (value instanceof String) {
+        stmt.setString(index, (String) value);
+      } else if (value instanceof OffsetDateTime) {
+        setTimestamp(stmt, index, (OffsetDateTime) value);
+      } else if (value instanceof PGpoint) {
+        setPoint(stmt, index, (PGpoint) value);
+      } else {
+        stmt.setObject(index, value);
+      }
+      index++;
+    }
+    return index;
+  }
+}
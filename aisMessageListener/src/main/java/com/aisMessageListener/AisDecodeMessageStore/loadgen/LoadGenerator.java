@@ -0,0 +1,314 @@
+package com.aisMessageListener.AisDecodeMessageStore.loadgen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Emulates a kplex multiplexer under any load, for soak testing the listener. Listens on the
+ * loopback address and streams valid, checksummed !AIVDM sentences from a simulated fleet to
+ * every client that connects, at a fixed rate per client, until the client disconnects. The
+ * message types, multi-part share and injected duplicates and damage are set with the options in
+ * {@link LoadGeneratorConfiguration}. Run on its own, it prints the achieved rates at a regular
+ * interval; harnesses can also start it in-process and change the rate between steps.
+ *
+ * <p>Each client is served on a thread of its own, in ticks of {@value #TICK_MILLIS} ms: every
+ * message due since the client connected, or since the rate last changed, is generated and
+ * written in one go. A client that reads too slowly falls behind by at most a second of messages,
+ * and the achieved rate shows the shortfall.</p>
+ */
+public final class LoadGenerator implements AutoCloseable {
+
+  private static final long TICK_MILLIS = 10;
+  private static final int FIRST_MMSI = 366_000_000;
+  private static final int MAX_MMSI = 999_999_999;
+  private static final int FLUSH_CHARS = 64 * 1024;
+
+  private final LoadGeneratorConfiguration configuration;
+  private final Totals totals = new Totals();
+  private final Socket[] slots;
+  private volatile double rate;
+  private volatile boolean closed;
+  private ServerSocket server;
+
+  /**
+   * The load generator's counters, shared by every client and read by the report.
+   */
+  static final class Totals {
+    final LongAdder messages = new LongAdder();
+    final LongAdder sentences = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    final LongAdder duplicates = new LongAdder();
+    final LongAdder corrupted = new LongAdder();
+    final LongAdder clients = new LongAdder();
+  }
+
+  /**
+   * Creates a load generator. Call {@link #start(int)} to begin accepting clients.
+   *
+   * @param configuration the load generator options.
+   * @throws IllegalArgumentException if the clients' fleets would not fit in the MMSI range.
+   */
+  public LoadGenerator(LoadGeneratorConfiguration configuration) {
+    if ((long) configuration.getMaxClients() * configuration.getVessels()
+            > MAX_MMSI - FIRST_MMSI) {
+      throw new IllegalArgumentException("Too many vessels: the fleets of "
+              + configuration.getMaxClients() + " clients would run out of MMSIs.");
+    }
+    this.configuration = configuration;
+    this.slots = new Socket[configuration.getMaxClients()];
+    this.rate = configuration.getRate();
+  }
+
+  /**
+   * Starts the load generator and reports the achieved rates until the process is stopped.
+   *
+   * @param args port
+   */
+  public static void main(String[] args) {
+    if (args.length != 1) {
+      System.err.println("Argument must be <port>. Options are set with -Dais.loadgen.* "
+              + "properties.\n");
+      System.exit(1);
+    }
+
+    LoadGeneratorConfiguration configuration = LoadGeneratorConfiguration.fromSystemProperties();
+    int port = Integer.parseInt(args[0]);
+    try {
+      LoadGenerator generator = new LoadGenerator(configuration);
+      generator.start(port);
+      generator.startReport(configuration.getReportSeconds());
+      System.out.println("Serving " + configuration.getRate() + " messages/s from "
+              + configuration.getVessels() + " vessels to each client on port " + port + ".");
+    } catch (IllegalArgumentException | IOException e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Binds the port and accepts clients on a thread of its own until closed.
+   *
+   * @param port the loopback port to listen on.
+   * @throws IOException if the port cannot be bound.
+   */
+  public void start(int port) throws IOException {
+    server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    new Thread(this::accept, "ais-loadgen-accept").start();
+  }
+
+  /**
+   * Gets the port clients connect to, which is chosen by the system if 0 was passed to
+   * {@link #start(int)}.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  /**
+   * Changes the number of messages sent to each client per second, from the next tick on.
+   *
+   * @param messagesPerSecond the new rate.
+   */
+  public void setRate(double messagesPerSecond) {
+    if (!(messagesPerSecond > 0)) {
+      throw new IllegalArgumentException("Rate must be greater than 0.");
+    }
+    rate = messagesPerSecond;
+  }
+
+  /**
+   * Gets the number of messages sent to all clients so far, not counting injected duplicates.
+   *
+   * @return the message count.
+   */
+  public long getMessagesSent() {
+    return totals.messages.sum();
+  }
+
+  /**
+   * Stops accepting clients and disconnects the connected ones.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      if (server != null) {
+        server.close();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    synchronized (this) {
+      for (Socket socket : slots) {
+        try {
+          if (socket != null) {
+            socket.close();
+          }
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  private void startReport(long reportSeconds) {
+    ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ais-loadgen-report");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.scheduleAtFixedRate(new Report(reportSeconds), reportSeconds, reportSeconds,
+            TimeUnit.SECONDS);
+  }
+
+  private void accept() {
+    while (!closed) {
+      try {
+        Socket socket = server.accept();
+        int slot = claimSlot(socket);
+        if (slot < 0) {
+          System.err.println("Refused a client: " + slots.length + " are already connected.");
+          socket.close();
+          continue;
+        }
+        Thread client = new Thread(() -> stream(socket, slot), "ais-loadgen-client-" + slot);
+        client.setDaemon(true);
+        client.start();
+      } catch (IOException e) {
+        if (!closed) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  private synchronized int claimSlot(Socket socket) {
+    for (int i = 0; i < slots.length; i++) {
+      if (slots[i] == null) {
+        slots[i] = socket;
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private synchronized void releaseSlot(int slot) {
+    slots[slot] = null;
+  }
+
+  /**
+   * Streams messages to one client until it disconnects. A client reconnecting into the same slot
+   * gets the same fleet again.
+   */
+  private void stream(Socket socket, int slot) {
+    int vessels = configuration.getVessels();
+    TrafficGenerator generator = new TrafficGenerator(configuration,
+            FIRST_MMSI + slot * vessels, configuration.getSeed() + slot, totals);
+    StringBuilder sentences = new StringBuilder(FLUSH_CHARS + 1024);
+    byte[] bytes = new byte[FLUSH_CHARS + 1024];
+
+    totals.clients.increment();
+    try (Socket client = socket; OutputStream out = client.getOutputStream()) {
+      double currentRate = 0;
+      long start = 0;
+      long sent = 0;
+      while (!closed) {
+        long now = System.nanoTime();
+        if (rate != currentRate) {
+          currentRate = rate;
+          start = now;
+          sent = 0;
+        }
+        long due = (long) ((now - start) * currentRate / 1e9);
+        sent = Math.max(sent, due - Math.max(1, (long) currentRate));
+        while (sent < due) {
+          totals.sentences.add(generator.nextMessage(sentences, now));
+          sent++;
+          totals.messages.increment();
+          if (sentences.length() >= FLUSH_CHARS) {
+            bytes = write(out, sentences, bytes);
+          }
+        }
+        bytes = write(out, sentences, bytes);
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS));
+      }
+    } catch (IOException e) {
+      if (!closed) {
+        System.out.println("Client " + slot + " disconnected: " + e.getMessage());
+      }
+    } finally {
+      totals.clients.decrement();
+      releaseSlot(slot);
+    }
+  }
+
+  /**
+   * Writes and empties the buffered sentences.
+   *
+   * @return the byte buffer, grown if the sentences did not fit.
+   */
+  private byte[] write(OutputStream out, StringBuilder sentences, byte[] bytes)
+          throws IOException {
+    int length = sentences.length();
+    if (length == 0) {
+      return bytes;
+    }
+    if (bytes.length < length) {
+      bytes = new byte[length];
+    }
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) sentences.charAt(i);
+    }
+    out.write(bytes, 0, length);
+    out.flush();
+    totals.bytes.add(length);
+    sentences.setLength(0);
+    return bytes;
+  }
+
+  /**
+   * Prints the rates achieved over the last interval.
+   */
+  private final class Report implements Runnable {
+
+    private final long intervalSeconds;
+    private long lastMessages;
+    private long lastSentences;
+    private long lastBytes;
+
+    Report(long intervalSeconds) {
+      this.intervalSeconds = intervalSeconds;
+    }
+
+    @Override
+    public void run() {
+      long messages = totals.messages.sum();
+      long sentences = totals.sentences.sum();
+      long bytes = totals.bytes.sum();
+      long clients = totals.clients.sum();
+      System.out.println(String.format(Locale.ROOT,
+              "clients %d, messages/s %.1f (target %.1f), sentences/s %.1f, KiB/s %.1f, "
+                      + "duplicates %d, corrupted %d",
+              clients,
+              (double) (messages - lastMessages) / intervalSeconds,
+              clients * rate,
+              (double) (sentences - lastSentences) / intervalSeconds,
+              (bytes - lastBytes) / 1024.0 / intervalSeconds,
+              totals.duplicates.sum(), totals.corrupted.sum()));
+      lastMessages = messages;
+      lastSentences = sentences;
+      lastBytes = bytes;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package com.aisMessageListener.AisDecodeMessageStore.loadgen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Options for the {@link LoadGenerator}. Everything has a default that resembles a quiet harbor
+ * feed and can be overridden with a JVM system property, e.g. {@code -Dais.loadgen.rate=2000}.
+ */
+public final class LoadGeneratorConfiguration {
+
+  static final String VESSELS = "ais.loadgen.vessels";
+  static final String RATE = "ais.loadgen.rate";
+  static final String TYPE_MIX = "ais.loadgen.typeMix";
+  static final String MULTIPART_RATIO = "ais.loadgen.multipartRatio";
+  static final String DUPLICATE_RATIO = "ais.loadgen.duplicateRatio";
+  static final String CORRUPT_RATIO = "ais.loadgen.corruptRatio";
+  static final String MAX_CLIENTS = "ais.loadgen.maxClients";
+  static final String REPORT_SECONDS = "ais.loadgen.reportSeconds";
+  static final String SEED = "ais.loadgen.seed";
+
+  private static final int DEFAULT_VESSELS = 2000;
+  private static final double DEFAULT_RATE = 20;
+  private static final String DEFAULT_TYPE_MIX = "1:50,2:5,3:15,5:10,18:12,24:8";
+  private static final int DEFAULT_MAX_CLIENTS = 16;
+  private static final long DEFAULT_REPORT_SECONDS = 5;
+  private static final long DEFAULT_SEED = 1;
+  private static final int MAX_VESSELS = 1_000_000;
+
+  private final Properties properties;
+
+  /**
+   * Creates a configuration backed by the provided properties.
+   *
+   * @param properties the properties to read options from.
+   */
+  public LoadGeneratorConfiguration(Properties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Creates a configuration backed by the JVM system properties.
+   *
+   * @return the load generator configuration.
+   */
+  public static LoadGeneratorConfiguration fromSystemProperties() {
+    return new LoadGeneratorConfiguration(System.getProperties());
+  }
+
+  /**
+   * Gets the number of vessels simulated for each client. Each client gets a fleet of its own,
+   * with its own MMSIs, so that several clients add up to a busier area rather than repeating
+   * each other.
+   *
+   * @return the fleet size, at least 1.
+   */
+  public int getVessels() {
+    long vessels = getPositiveLong(VESSELS, DEFAULT_VESSELS);
+    if (vessels > MAX_VESSELS) {
+      throw new IllegalArgumentException(VESSELS + " must be at most " + MAX_VESSELS + ".");
+    }
+    return (int) vessels;
+  }
+
+  /**
+   * Gets the number of messages sent to each client per second, before duplicates are added.
+   *
+   * @return the target rate.
+   */
+  public double getRate() {
+    return getPositiveDouble(RATE, DEFAULT_RATE);
+  }
+
+  /**
+   * Gets the relative weights of the message types sent, as a comma-separated list of
+   * type:weight pairs. Types 1, 2, 3 and 5 are sent for class A vessels and 18 and 24 for class B
+   * vessels; a type 24 message is sent as its part A or part B at random.
+   *
+   * @return the weight of each type, in the order given.
+   * @throws IllegalArgumentException if an entry is malformed, repeats a type or names an
+   *                                  unsupported type, or if no weight is positive.
+   */
+  public Map<Integer, Integer> getTypeMix() {
+    String value = properties.getProperty(TYPE_MIX, DEFAULT_TYPE_MIX);
+    Map<Integer, Integer> mix = new LinkedHashMap<>();
+    int total = 0;
+    for (String entry : value.split(",")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) {
+        continue;
+      }
+
+      int separator = entry.indexOf(':');
+      int type;
+      int weight;
+      try {
+        type = Integer.parseInt(entry.substring(0, Math.max(separator, 0)).trim());
+        weight = Integer.parseInt(entry.substring(separator + 1).trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(TYPE_MIX + " entries must be type:weight, got '"
+                + entry + "'.", e);
+      }
+      if (type != 1 && type != 2 && type != 3 && type != 5 && type != 18 && type != 24) {
+        throw new IllegalArgumentException(TYPE_MIX + " types must be 1, 2, 3, 5, 18 or 24, got "
+                + type + ".");
+      }
+      if (weight < 0 || mix.put(type, weight) != null) {
+        throw new IllegalArgumentException(TYPE_MIX + " must give each type once, with a weight "
+                + "of at least 0.");
+      }
+      total += weight;
+    }
+
+    if (total <= 0) {
+      throw new IllegalArgumentException(TYPE_MIX + " must give at least one type a weight.");
+    }
+    return mix;
+  }
+
+  /**
+   * Gets the share of otherwise single-sentence messages that are split across two sentences, as
+   * receivers may do. Type 5 messages are too long for one sentence and are always sent in two.
+   *
+   * @return the ratio, 0 by default.
+   */
+  public double getMultipartRatio() {
+    return getRatio(MULTIPART_RATIO);
+  }
+
+  /**
+   * Gets the share of messages sent a second time, as happens when two receivers feeding the same
+   * multiplexer hear one broadcast.
+   *
+   * @return the ratio, 0 by default.
+   */
+  public double getDuplicateRatio() {
+    return getRatio(DUPLICATE_RATIO);
+  }
+
+  /**
+   * Gets the share of messages damaged in transmission: a payload character changed without the
+   * checksum being updated, a sentence cut short, or one part of a multi-part message lost.
+   *
+   * @return the ratio, 0 by default.
+   */
+  public double getCorruptRatio() {
+    return getRatio(CORRUPT_RATIO);
+  }
+
+  /**
+   * Gets the largest number of clients served at once; later connections are refused until one
+   * disconnects.
+   *
+   * @return the client limit, at least 1.
+   */
+  public int getMaxClients() {
+    return (int) getPositiveLong(MAX_CLIENTS, DEFAULT_MAX_CLIENTS);
+  }
+
+  /**
+   * Gets how often the achieved rates are printed.
+   *
+   * @return the report interval in seconds.
+   */
+  public long getReportSeconds() {
+    return getPositiveLong(REPORT_SECONDS, DEFAULT_REPORT_SECONDS);
+  }
+
+  /**
+   * Gets the seed the fleets are generated from, so that runs with the same options simulate the
+   * same vessels.
+   *
+   * @return the seed.
+   */
+  public long getSeed() {
+    String value = properties.getProperty(SEED);
+    if (value == null) {
+      return DEFAULT_SEED;
+    }
+
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(SEED + " must be a whole number.", e);
+    }
+  }
+
+  /**
+   * Reads a numeric option, falling back to the default if it is missing.
+   *
+   * @throws IllegalArgumentException if the option is set but is not a positive number.
+   */
+  private long getPositiveLong(String name, long defaultValue) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      long parsed = Long.parseLong(value.trim());
+      if (parsed < 1) {
+        throw new IllegalArgumentException(name + " must be at least 1.");
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a whole number.", e);
+    }
+  }
+
+  /**
+   * Reads a decimal option, falling back to the default if it is missing.
+   *
+   * @throws IllegalArgumentException if the option is set but is not a positive number.
+   */
+  private double getPositiveDouble(String name, double defaultValue) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      double parsed = Double.parseDouble(value.trim());
+      if (!(parsed > 0) || Double.isInfinite(parsed)) {
+        throw new IllegalArgumentException(name + " must be greater than 0.");
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number.", e);
+    }
+  }
+
+  /**
+   * Reads a ratio option, falling back to 0 if it is missing.
+   *
+   * @throws IllegalArgumentException if the option is set but is not between 0 and 1.
+   */
+  private double getRatio(String name) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return 0;
+    }
+
+    try {
+      double parsed = Double.parseDouble(value.trim());
+      if (!(parsed >= 0 && parsed <= 1)) {
+        throw new IllegalArgumentException(name + " must be between 0 and 1.");
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number.", e);
+    }
+  }
+}
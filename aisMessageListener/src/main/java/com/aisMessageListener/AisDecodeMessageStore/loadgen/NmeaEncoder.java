@@ -0,0 +1,127 @@
+package com.aisMessageListener.AisDecodeMessageStore.loadgen;
+
+/**
+ * Packs AIS message fields into a bit buffer and writes the buffer out as checksummed !AIVDM
+ * sentences, the reverse of what the decoders do. Fields are appended in message order with
+ * {@link #putUnsigned}, {@link #putSigned} and {@link #putText}; {@link #writeSentences} then
+ * armors the payload six bits to a character and splits it across as many fragments as needed.
+ *
+ * <p>Not thread safe; each generator owns one and reuses it for every message.</p>
+ */
+final class NmeaEncoder {
+
+  /**
+   * The most payload characters real receivers put in one fragment; a type 5 message of 71
+   * characters goes out as 60 and 11.
+   */
+  static final int MAX_FRAGMENT_CHARS = 60;
+
+  private static final int MAX_BITS = 1008;
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private final boolean[] bits = new boolean[MAX_BITS];
+  private final char[] payload = new char[MAX_BITS / 6];
+  private int length;
+
+  /**
+   * Empties the buffer for the next message.
+   */
+  void reset() {
+    length = 0;
+  }
+
+  /**
+   * Appends an unsigned field.
+   *
+   * @param width the field's width in bits.
+   * @param value the value; only its low width bits are kept.
+   */
+  void putUnsigned(int width, long value) {
+    for (int i = width - 1; i >= 0; i--) {
+      bits[length++] = (value >>> i & 1) != 0;
+    }
+  }
+
+  /**
+   * Appends a two's complement signed field.
+   *
+   * @param width the field's width in bits.
+   * @param value the value, which must fit in width bits.
+   */
+  void putSigned(int width, long value) {
+    putUnsigned(width, value & (1L << width) - 1);
+  }
+
+  /**
+   * Appends a text field in the AIS six-bit character set, padded with '@'. Lower case letters are
+   * sent as upper case and characters outside the set as '?'.
+   *
+   * @param characters the field's width in characters.
+   * @param text       the text; anything past the field's width is cut off.
+   */
+  void putText(int characters, String text) {
+    for (int i = 0; i < characters; i++) {
+      char c = i < text.length() ? Character.toUpperCase(text.charAt(i)) : '@';
+      if (c < ' ' || c > '_') {
+        c = '?';
+      }
+      putUnsigned(6, c >= '@' ? c - '@' : c);
+    }
+  }
+
+  /**
+   * Gets the number of bits appended so far.
+   *
+   * @return the message length in bits.
+   */
+  int getLength() {
+    return length;
+  }
+
+  /**
+   * Writes the message as one or more sentences, each ending with CR LF.
+   *
+   * @param out           where to write.
+   * @param channel       the radio channel, A or B.
+   * @param sequenceId    the sequential message id, 0 to 9, for multi-part messages.
+   * @param fragmentChars the most payload characters to put in one fragment.
+   * @return the number of sentences written.
+   */
+  int writeSentences(StringBuilder out, char channel, int sequenceId, int fragmentChars) {
+    int characters = (length + 5) / 6;
+    int fillBits = characters * 6 - length;
+    for (int i = 0; i < characters; i++) {
+      int value = 0;
+      for (int bit = i * 6; bit < i * 6 + 6; bit++) {
+        value = value << 1 | (bit < length && bits[bit] ? 1 : 0);
+      }
+      payload[i] = (char) (value < 40 ? value + 48 : value + 56);
+    }
+
+    int fragments = (characters + fragmentChars - 1) / fragmentChars;
+    for (int fragment = 0; fragment < fragments; fragment++) {
+      int start = fragment * fragmentChars;
+      int end = Math.min(start + fragmentChars, characters);
+      int sentenceStart = out.length();
+      out.append("!AIVDM,").append(fragments).append(',').append(fragment + 1).append(',');
+      if (fragments > 1) {
+        out.append(sequenceId);
+      }
+      out.append(',').append(channel).append(',').append(payload, start, end - start)
+              .append(',').append(fragment == fragments - 1 ? fillBits : 0);
+      appendChecksum(out, sentenceStart);
+    }
+    return fragments;
+  }
+
+  /**
+   * Appends the checksum of the sentence starting at the given index, and the line ending.
+   */
+  private static void appendChecksum(StringBuilder out, int sentenceStart) {
+    int checksum = 0;
+    for (int i = sentenceStart + 1; i < out.length(); i++) {
+      checksum ^= out.charAt(i);
+    }
+    out.append('*').append(HEX[checksum >> 4]).append(HEX[checksum & 0xf]).append("\r\n");
+  }
+}
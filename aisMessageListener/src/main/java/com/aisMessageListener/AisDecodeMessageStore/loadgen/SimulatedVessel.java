@@ -0,0 +1,273 @@
+package com.aisMessageListener.AisDecodeMessageStore.loadgen;
+
+import java.util.SplittableRandom;
+
+/**
+ * One vessel of a generated fleet: its identity and dimensions, which never change, and a track
+ * that is advanced in real time whenever the vessel next reports. Vessels under way hold a course
+ * for a few minutes, then turn toward a new one at a plausible rate of turn, and turn back toward
+ * the middle of the area when they reach its edge; moored and anchored vessels only drift.
+ *
+ * <p>Not thread safe; each vessel belongs to one generator.</p>
+ */
+final class SimulatedVessel {
+
+  // Boston Harbor and Massachusetts Bay.
+  static final double MIN_LAT = 42.20;
+  static final double MAX_LAT = 42.55;
+  static final double MIN_LON = -71.05;
+  static final double MAX_LON = -70.55;
+
+  static final int UNDER_WAY = 0;
+  static final int AT_ANCHOR = 1;
+  static final int MOORED = 5;
+
+  private static final String[] DESTINATIONS = {
+          "BOSTON", "CHELSEA", "SALEM", "GLOUCESTER", "PORTLAND ME", "NEW YORK", "HALIFAX",
+          "PROVINCETOWN", "CAPE COD CANAL", "NEW BEDFORD"
+  };
+  private static final int[] SHIP_TYPES = {30, 31, 36, 37, 52, 60, 69, 70, 79, 80, 89};
+  private static final double NANOS_PER_HOUR = 3.6e12;
+  private static final double MAX_TURN_DEGREES_PER_MINUTE = 30;
+
+  private final int mmsi;
+  private final boolean classB;
+  private final int imo;
+  private final String callsign;
+  private final String name;
+  private final int shipType;
+  private final int toBow;
+  private final int toStern;
+  private final int toPort;
+  private final int toStarboard;
+  private final int draughtDecimeters;
+  private final String destination;
+  private final int etaMonth;
+  private final int etaDay;
+  private final int etaHour;
+  private final int etaMinute;
+  private final int navStatus;
+  private final double cruiseKnots;
+
+  private double lat;
+  private double lon;
+  private double speedKnots;
+  private double course;
+  private double targetCourse;
+  private double turnDegreesPerMinute;
+  private long courseHeldUntilNanos;
+  private long updatedAtNanos;
+
+  /**
+   * Creates a vessel somewhere in the area.
+   *
+   * @param mmsi   the vessel's MMSI.
+   * @param classB whether it carries a class B transponder, reporting with types 18 and 24.
+   * @param random the generator's random numbers.
+   * @param now    the current {@link System#nanoTime()}.
+   */
+  SimulatedVessel(int mmsi, boolean classB, SplittableRandom random, long now) {
+    this.mmsi = mmsi;
+    this.classB = classB;
+    this.imo = classB ? 0 : imoNumber(random.nextInt(100_000, 1_000_000) * 10);
+    this.callsign = "W" + (char) ('A' + random.nextInt(26)) + random.nextInt(1000, 10000);
+    this.name = (classB ? "SIM YACHT " : "SIM VESSEL ") + (mmsi % 100_000);
+    this.shipType = classB ? 37 : SHIP_TYPES[random.nextInt(SHIP_TYPES.length)];
+    int length = classB ? random.nextInt(8, 25) : random.nextInt(30, 300);
+    int beam = Math.max(3, length / 6);
+    this.toBow = length / 3;
+    this.toStern = length - toBow;
+    this.toPort = beam / 2;
+    this.toStarboard = beam - toPort;
+    this.draughtDecimeters = classB ? random.nextInt(10, 30) : random.nextInt(30, 150);
+    this.destination = DESTINATIONS[random.nextInt(DESTINATIONS.length)];
+    this.etaMonth = random.nextInt(1, 13);
+    this.etaDay = random.nextInt(1, 29);
+    this.etaHour = random.nextInt(24);
+    this.etaMinute = random.nextInt(60);
+
+    int roll = random.nextInt(10);
+    this.navStatus = roll < 7 ? UNDER_WAY : roll < 9 ? MOORED : AT_ANCHOR;
+    this.cruiseKnots = navStatus != UNDER_WAY ? 0
+            : classB ? 4 + random.nextDouble() * 20 : 6 + random.nextDouble() * 12;
+    this.lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+    this.lon = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+    this.speedKnots = navStatus == UNDER_WAY ? cruiseKnots : random.nextDouble() * 0.2;
+    this.course = random.nextDouble() * 360;
+    this.targetCourse = course;
+    this.courseHeldUntilNanos = now;
+    this.updatedAtNanos = now;
+  }
+
+  /**
+   * Moves the vessel along its track to the given time.
+   *
+   * @param now    the current {@link System#nanoTime()}.
+   * @param random the generator's random numbers.
+   */
+  void advance(long now, SplittableRandom random) {
+    long elapsed = now - updatedAtNanos;
+    if (elapsed <= 0) {
+      return;
+    }
+    updatedAtNanos = now;
+    double minutes = elapsed / 6e10;
+
+    if (navStatus != UNDER_WAY) {
+      // Swinging at anchor or nudging a berth: a slow wander, never far.
+      course = normalize(course + (random.nextDouble() - 0.5) * 20 * Math.min(minutes, 1));
+      speedKnots = random.nextDouble() * 0.2;
+      turnDegreesPerMinute = 0;
+    } else {
+      if (now >= courseHeldUntilNanos) {
+        targetCourse = outsideArea()
+                ? bearingToCenter() + (random.nextDouble() - 0.5) * 60
+                : course + (random.nextDouble() - 0.5) * 90;
+        targetCourse = normalize(targetCourse);
+        courseHeldUntilNanos = now + (long) ((1 + random.nextDouble() * 4) * 6e10);
+        speedKnots = Math.max(0.5, cruiseKnots * (0.8 + random.nextDouble() * 0.4));
+      }
+      double turn = signedDifference(targetCourse, course);
+      double maxTurn = MAX_TURN_DEGREES_PER_MINUTE * minutes;
+      double applied = Math.max(-maxTurn, Math.min(maxTurn, turn));
+      turnDegreesPerMinute = minutes > 0 ? applied / minutes : 0;
+      course = normalize(course + applied);
+    }
+
+    double nauticalMiles = speedKnots * elapsed / NANOS_PER_HOUR;
+    double radians = Math.toRadians(course);
+    lat += nauticalMiles * Math.cos(radians) / 60;
+    lon += nauticalMiles * Math.sin(radians) / (60 * Math.cos(Math.toRadians(lat)));
+  }
+
+  private boolean outsideArea() {
+    return lat < MIN_LAT || lat > MAX_LAT || lon < MIN_LON || lon > MAX_LON;
+  }
+
+  private double bearingToCenter() {
+    double north = (MIN_LAT + MAX_LAT) / 2 - lat;
+    double east = ((MIN_LON + MAX_LON) / 2 - lon) * Math.cos(Math.toRadians(lat));
+    return Math.toDegrees(Math.atan2(east, north));
+  }
+
+  private static double normalize(double degrees) {
+    double normalized = degrees % 360;
+    return normalized < 0 ? normalized + 360 : normalized;
+  }
+
+  private static double signedDifference(double to, double from) {
+    double difference = normalize(to - from);
+    return difference > 180 ? difference - 360 : difference;
+  }
+
+  /**
+   * Completes a seven digit IMO number, whose last digit is a check digit: the sum of the first
+   * six digits weighted 7 down to 2, modulo 10.
+   */
+  private static int imoNumber(int withoutCheckDigit) {
+    int digits = withoutCheckDigit / 10;
+    int sum = 0;
+    for (int weight = 2; weight <= 7; weight++) {
+      sum += digits % 10 * weight;
+      digits /= 10;
+    }
+    return withoutCheckDigit + sum % 10;
+  }
+
+  int getMmsi() {
+    return mmsi;
+  }
+
+  boolean isClassB() {
+    return classB;
+  }
+
+  int getNavStatus() {
+    return navStatus;
+  }
+
+  double getLat() {
+    return lat;
+  }
+
+  double getLon() {
+    return lon;
+  }
+
+  double getSpeedKnots() {
+    return speedKnots;
+  }
+
+  double getCourse() {
+    return course;
+  }
+
+  /**
+   * Gets the heading, which differs from the course over ground by a little leeway.
+   *
+   * @return the heading in whole degrees.
+   */
+  int getHeading() {
+    return (int) normalize(Math.round(course + (mmsi % 7 - 3)));
+  }
+
+  double getTurnDegreesPerMinute() {
+    return turnDegreesPerMinute;
+  }
+
+  int getImo() {
+    return imo;
+  }
+
+  String getCallsign() {
+    return callsign;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  int getShipType() {
+    return shipType;
+  }
+
+  int getToBow() {
+    return toBow;
+  }
+
+  int getToStern() {
+    return toStern;
+  }
+
+  int getToPort() {
+    return toPort;
+  }
+
+  int getToStarboard() {
+    return toStarboard;
+  }
+
+  int getDraughtDecimeters() {
+    return draughtDecimeters;
+  }
+
+  String getDestination() {
+    return destination;
+  }
+
+  int getEtaMonth() {
+    return etaMonth;
+  }
+
+  int getEtaDay() {
+    return etaDay;
+  }
+
+  int getEtaHour() {
+    return etaHour;
+  }
+
+  int getEtaMinute() {
+    return etaMinute;
+  }
+}
@@ -0,0 +1,292 @@
+package com.aisMessageListener.AisDecodeMessageStore.loadgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the sentence stream one client receives: reports from a simulated fleet, in the
+ * configured mix of message types, with the configured share of multi-part, duplicated and
+ * corrupted messages. Each message is encoded from the current state of the vessel that sends it,
+ * so positions follow continuous tracks and static data is consistent for each MMSI.
+ *
+ * <p>Not thread safe; each client connection has its own generator and fleet.</p>
+ */
+final class TrafficGenerator {
+
+  private static final int MAX_ROT_AIS = 126;
+  private static final double ROT_FACTOR = 4.733;
+  private static final int NO_HEADING = 511;
+  private static final int MAX_SPEED_TENTHS = 1022;
+  private static final int SEQUENCE_IDS = 10;
+
+  private final SplittableRandom random;
+  private final NmeaEncoder encoder = new NmeaEncoder();
+  private final LoadGenerator.Totals totals;
+  private final List<SimulatedVessel> classA = new ArrayList<>();
+  private final List<SimulatedVessel> classB = new ArrayList<>();
+  private final int[] types;
+  private final int[] cumulativeWeights;
+  private final double multipartRatio;
+  private final double duplicateRatio;
+  private final double corruptRatio;
+  private int nextSequenceId;
+
+  /**
+   * Creates a generator with a fleet of its own.
+   *
+   * @param configuration the load generator options.
+   * @param firstMmsi     the MMSI of the fleet's first vessel; the rest follow it.
+   * @param seed          the seed the fleet and its traffic are generated from.
+   * @param totals        where duplicated and corrupted messages are counted.
+   */
+  TrafficGenerator(LoadGeneratorConfiguration configuration, int firstMmsi, long seed,
+                   LoadGenerator.Totals totals) {
+    this.random = new SplittableRandom(seed);
+    this.totals = totals;
+    this.multipartRatio = configuration.getMultipartRatio();
+    this.duplicateRatio = configuration.getDuplicateRatio();
+    this.corruptRatio = configuration.getCorruptRatio();
+
+    Map<Integer, Integer> mix = configuration.getTypeMix();
+    types = new int[mix.size()];
+    cumulativeWeights = new int[mix.size()];
+    int total = 0;
+    int classBWeight = 0;
+    int i = 0;
+    for (Map.Entry<Integer, Integer> entry : mix.entrySet()) {
+      total += entry.getValue();
+      types[i] = entry.getKey();
+      cumulativeWeights[i++] = total;
+      if (isClassBType(entry.getKey())) {
+        classBWeight += entry.getValue();
+      }
+    }
+
+    // The fleet is split between the classes in proportion to the traffic each class sends.
+    int vessels = configuration.getVessels();
+    int classBVessels = (int) Math.round((double) vessels * classBWeight / total);
+    if (classBWeight > 0) {
+      classBVessels = Math.max(classBVessels, 1);
+    }
+    int classAVessels = vessels - classBVessels;
+    if (classBWeight < total) {
+      classAVessels = Math.max(classAVessels, 1);
+    }
+    long now = System.nanoTime();
+    int mmsi = firstMmsi;
+    for (int v = 0; v < classAVessels; v++) {
+      classA.add(new SimulatedVessel(mmsi++, false, random, now));
+    }
+    for (int v = 0; v < classBVessels; v++) {
+      classB.add(new SimulatedVessel(mmsi++, true, random, now));
+    }
+  }
+
+  private static boolean isClassBType(int type) {
+    return type == 18 || type == 24;
+  }
+
+  /**
+   * Appends the sentences of the next message, and of its duplicate if one is injected.
+   *
+   * @param out where to write the sentences.
+   * @param now the current {@link System#nanoTime()}.
+   * @return the number of sentences appended.
+   */
+  int nextMessage(StringBuilder out, long now) {
+    int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    int index = 0;
+    while (pick >= cumulativeWeights[index]) {
+      index++;
+    }
+    int type = types[index];
+    List<SimulatedVessel> fleet = isClassBType(type) ? classB : classA;
+    SimulatedVessel vessel = fleet.get(random.nextInt(fleet.size()));
+    vessel.advance(now, random);
+
+    encoder.reset();
+    switch (type) {
+      case 5:
+        encodeStaticAndVoyageData(vessel);
+        break;
+      case 18:
+        encodeClassBPositionReport(vessel);
+        break;
+      case 24:
+        encodeStaticDataReport(vessel, random.nextBoolean());
+        break;
+      default:
+        encodeClassAPositionReport(type, vessel);
+        break;
+    }
+
+    int characters = (encoder.getLength() + 5) / 6;
+    int fragmentChars = characters <= NmeaEncoder.MAX_FRAGMENT_CHARS
+            && random.nextDouble() < multipartRatio
+            ? (characters + 1) / 2 : NmeaEncoder.MAX_FRAGMENT_CHARS;
+    char channel = random.nextBoolean() ? 'A' : 'B';
+    int sequenceId = nextSequenceId;
+    nextSequenceId = (nextSequenceId + 1) % SEQUENCE_IDS;
+
+    int start = out.length();
+    int sentences = encoder.writeSentences(out, channel, sequenceId, fragmentChars);
+    if (corruptRatio > 0 && random.nextDouble() < corruptRatio) {
+      sentences -= corrupt(out, start, sentences);
+      totals.corrupted.increment();
+    }
+    if (duplicateRatio > 0 && random.nextDouble() < duplicateRatio) {
+      sentences += encoder.writeSentences(out, channel, sequenceId, fragmentChars);
+      totals.duplicates.increment();
+    }
+    return sentences;
+  }
+
+  /**
+   * Damages the message just written, which starts at the given index, in one of the ways radio
+   * reception does.
+   *
+   * @return the number of sentences removed.
+   */
+  private int corrupt(StringBuilder out, int start, int sentences) {
+    int damage = random.nextInt(sentences > 1 ? 3 : 2);
+    if (damage == 2) {
+      // Lose the last part of a multi-part message.
+      int lastSentence = out.lastIndexOf("!", out.length() - 1);
+      out.setLength(lastSentence);
+      return 1;
+    }
+
+    int payloadStart = start;
+    for (int commas = 0; commas < 5; payloadStart++) {
+      if (out.charAt(payloadStart) == ',') {
+        commas++;
+      }
+    }
+    int payloadEnd = out.indexOf(",", payloadStart);
+    int position = payloadStart + random.nextInt(payloadEnd - payloadStart);
+    if (damage == 0) {
+      // Change one character; the checksum no longer matches.
+      char original = out.charAt(position);
+      out.setCharAt(position, original == '0' ? '1' : '0');
+    } else {
+      // Cut the sentence short, as when reception drops mid-sentence.
+      out.delete(position, out.indexOf("\r\n", position));
+    }
+    return 0;
+  }
+
+  private void encodeClassAPositionReport(int type, SimulatedVessel vessel) {
+    encoder.putUnsigned(6, type);
+    encoder.putUnsigned(2, 0);
+    encoder.putUnsigned(30, vessel.getMmsi());
+    encoder.putUnsigned(4, vessel.getNavStatus());
+    encoder.putSigned(8, rateOfTurn(vessel.getTurnDegreesPerMinute()));
+    encoder.putUnsigned(10, speed(vessel.getSpeedKnots()));
+    encoder.putUnsigned(1, vessel.getMmsi() & 1);
+    encoder.putSigned(28, Math.round(vessel.getLon() * 600_000));
+    encoder.putSigned(27, Math.round(vessel.getLat() * 600_000));
+    encoder.putUnsigned(12, course(vessel.getCourse()));
+    encoder.putUnsigned(9, heading(vessel));
+    encoder.putUnsigned(6, utcSecond());
+    encoder.putUnsigned(2, 0);
+    encoder.putUnsigned(3, 0);
+    encoder.putUnsigned(1, 0);
+    encoder.putUnsigned(19, 0);
+  }
+
+  private void encodeStaticAndVoyageData(SimulatedVessel vessel) {
+    encoder.putUnsigned(6, 5);
+    encoder.putUnsigned(2, 0);
+    encoder.putUnsigned(30, vessel.getMmsi());
+    encoder.putUnsigned(2, 0);
+    encoder.putUnsigned(30, vessel.getImo());
+    encoder.putText(7, vessel.getCallsign());
+    encoder.putText(20, vessel.getName());
+    encoder.putUnsigned(8, vessel.getShipType());
+    encoder.putUnsigned(9, vessel.getToBow());
+    encoder.putUnsigned(9, vessel.getToStern());
+    encoder.putUnsigned(6, vessel.getToPort());
+    encoder.putUnsigned(6, vessel.getToStarboard());
+    encoder.putUnsigned(4, 1);
+    encoder.putUnsigned(4, vessel.getEtaMonth());
+    encoder.putUnsigned(5, vessel.getEtaDay());
+    encoder.putUnsigned(5, vessel.getEtaHour());
+    encoder.putUnsigned(6, vessel.getEtaMinute());
+    encoder.putUnsigned(8, vessel.getDraughtDecimeters());
+    encoder.putText(20, vessel.getDestination());
+    encoder.putUnsigned(1, 0);
+    encoder.putUnsigned(1, 0);
+  }
+
+  private void encodeClassBPositionReport(SimulatedVessel vessel) {
+    encoder.putUnsigned(6, 18);
+    encoder.putUnsigned(2, 0);
+    encoder.putUnsigned(30, vessel.getMmsi());
+    encoder.putUnsigned(8, 0);
+    encoder.putUnsigned(10, speed(vessel.getSpeedKnots()));
+    encoder.putUnsigned(1, vessel.getMmsi() & 1);
+    encoder.putSigned(28, Math.round(vessel.getLon() * 600_000));
+    encoder.putSigned(27, Math.round(vessel.getLat() * 600_000));
+    encoder.putUnsigned(12, course(vessel.getCourse()));
+    encoder.putUnsigned(9, heading(vessel));
+    encoder.putUnsigned(6, utcSecond());
+    encoder.putUnsigned(2, 0);
+    // A carrier sense unit with DSC, the whole marine band and message 22 support.
+    encoder.putUnsigned(1, 1);
+    encoder.putUnsigned(1, 0);
+    encoder.putUnsigned(1, 1);
+    encoder.putUnsigned(1, 1);
+    encoder.putUnsigned(1, 1);
+    encoder.putUnsigned(1, 0);
+    encoder.putUnsigned(1, 0);
+    encoder.putUnsigned(20, 0);
+  }
+
+  private void encodeStaticDataReport(SimulatedVessel vessel, boolean partB) {
+    encoder.putUnsigned(6, 24);
+    encoder.putUnsigned(2, 0);
+    encoder.putUnsigned(30, vessel.getMmsi());
+    encoder.putUnsigned(2, partB ? 1 : 0);
+    if (!partB) {
+      encoder.putText(20, vessel.getName());
+      return;
+    }
+    encoder.putUnsigned(8, vessel.getShipType());
+    encoder.putText(3, "SIM");
+    encoder.putUnsigned(4, 1);
+    encoder.putUnsigned(20, vessel.getMmsi() & 0xfffff);
+    encoder.putText(7, vessel.getCallsign());
+    encoder.putUnsigned(9, vessel.getToBow());
+    encoder.putUnsigned(9, vessel.getToStern());
+    encoder.putUnsigned(6, vessel.getToPort());
+    encoder.putUnsigned(6, vessel.getToStarboard());
+    encoder.putUnsigned(6, 0);
+  }
+
+  /**
+   * Encodes a rate of turn in degrees per minute the way a turn indicator reports it.
+   */
+  private static int rateOfTurn(double degreesPerMinute) {
+    int value = (int) Math.round(ROT_FACTOR * Math.sqrt(Math.abs(degreesPerMinute)));
+    value = Math.min(value, MAX_ROT_AIS);
+    return degreesPerMinute < 0 ? -value : value;
+  }
+
+  private static int speed(double knots) {
+    return (int) Math.min(Math.round(knots * 10), MAX_SPEED_TENTHS);
+  }
+
+  private static int course(double degrees) {
+    return (int) (Math.round(degrees * 10) % 3600);
+  }
+
+  private static int heading(SimulatedVessel vessel) {
+    return vessel.getNavStatus() == SimulatedVessel.UNDER_WAY ? vessel.getHeading() : NO_HEADING;
+  }
+
+  private static int utcSecond() {
+    return (int) (System.currentTimeMillis() / 1000 % 60);
+  }
+}
@@ -0,0 +1,250 @@
+package com.aisMessageListener.AisDecodeMessageStore.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the whole ingest path, from sentences read off a feed to
+ * transactions committed. There is one instance per process, shared by every stage, so the stages
+ * record into it without it being passed through their constructors.
+ *
+ * <p>Counters are {@link LongAdder}s, striped across cells so that threads recording at the same
+ * time do not contend, and latencies go into {@link LatencyHistogram}s. Recording is cheap enough
+ * to stay on the hot path; reading, for JMX or {@link MetricsServer}, does the summing.</p>
+ */
+public final class IngestMetrics implements IngestMetricsMXBean {
+
+  /**
+   * The tables whose inserts, or on the per-message path lookups, are timed separately.
+   */
+  public enum Table {
+    VESSEL_DATA, VESSEL_SIGNATURE, VOYAGE_DATA, NAVIGATION_DATA, GEOSPATIAL_DATA, MESSAGE_DATA;
+
+    /**
+     * Gets the table's name in the schema.
+     *
+     * @return the lower case table name.
+     */
+    public String getTableName() {
+      return name().toLowerCase();
+    }
+  }
+
+  private static final IngestMetrics INSTANCE = new IngestMetrics();
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final LongAdder sentencesRead = new LongAdder();
+  private final LongAdder messagesDecoded = new LongAdder();
+  private final LongAdder commits = new LongAdder();
+  private final LongAdder rollbacks = new LongAdder();
+  private final LatencyHistogram decodeTime = new LatencyHistogram();
+  private final LatencyHistogram queueWait = new LatencyHistogram();
+  private final LatencyHistogram receiveToCommit = new LatencyHistogram();
+  private final Map<Table, LatencyHistogram> insertLatency = new EnumMap<>(Table.class);
+  private final Map<Table, LatencyHistogram> lookupLatency = new EnumMap<>(Table.class);
+  private final LatencyHistogram pipelinedInsert = new LatencyHistogram();
+
+  private IngestMetrics() {
+    for (Table table : Table.values()) {
+      insertLatency.put(table, new LatencyHistogram());
+      if (table != Table.MESSAGE_DATA) {
+        lookupLatency.put(table, new LatencyHistogram());
+      }
+    }
+  }
+
+  /**
+   * Gets the process's metrics.
+   *
+   * @return the shared instance.
+   */
+  public static IngestMetrics get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Counts sentences read from a feed or log.
+   *
+   * @param count the number of sentences, valid or not.
+   */
+  public void addSentencesRead(long count) {
+    sentencesRead.add(count);
+  }
+
+  /**
+   * Counts one message decoded into a record and records how long decoding took.
+   *
+   * @param startNanos the {@link System#nanoTime()} taken before decoding started.
+   */
+  public void recordDecode(long startNanos) {
+    messagesDecoded.increment();
+    decodeTime.recordSince(startNanos);
+  }
+
+  /**
+   * Counts one committed transaction.
+   */
+  public void countCommit() {
+    commits.increment();
+  }
+
+  /**
+   * Counts one rolled back transaction.
+   */
+  public void countRollback() {
+    rollbacks.increment();
+  }
+
+  /**
+   * Gets the time each message spends decoding.
+   *
+   * @return the histogram.
+   */
+  public LatencyHistogram getDecodeTime() {
+    return decodeTime;
+  }
+
+  /**
+   * Gets the time each message waits in the writer queue before a writer takes it.
+   *
+   * @return the histogram.
+   */
+  public LatencyHistogram getQueueWait() {
+    return queueWait;
+  }
+
+  /**
+   * Gets the time from a message being received to its transaction being committed. Messages
+   * loaded from replayed logs are not recorded.
+   *
+   * @return the histogram, with millisecond resolution.
+   */
+  public LatencyHistogram getReceiveToCommit() {
+    return receiveToCommit;
+  }
+
+  /**
+   * Gets the time a batch inserter takes to send one table's rows for a whole batch.
+   *
+   * @param table the table.
+   * @return the histogram.
+   */
+  public LatencyHistogram getInsertLatency(Table table) {
+    return insertLatency.get(table);
+  }
+
+  /**
+   * Gets the time a per-message inserter takes to find one table's key, by looking it up or
+   * reserving it, and to queue the table's row. Nothing is sent to the database in this step;
+   * every row of the message is sent together, see {@link #getPipelinedInsert()}.
+   *
+   * @param table a table message_data refers to.
+   * @return the histogram, or null for message_data.
+   */
+  public LatencyHistogram getLookupLatency(Table table) {
+    return lookupLatency.get(table);
+  }
+
+  /**
+   * Gets the time a per-message inserter takes to send every row of one message in a single
+   * pipelined round trip.
+   *
+   * @return the histogram.
+   */
+  public LatencyHistogram getPipelinedInsert() {
+    return pipelinedInsert;
+  }
+
+  @Override
+  public long getSentencesRead() {
+    return sentencesRead.sum();
+  }
+
+  @Override
+  public long getMessagesDecoded() {
+    return messagesDecoded.sum();
+  }
+
+  @Override
+  public long getCommits() {
+    return commits.sum();
+  }
+
+  @Override
+  public long getRollbacks() {
+    return rollbacks.sum();
+  }
+
+  /**
+   * Writes every metric in the Prometheus text exposition format. Counters are written as
+   * counters, and histograms as summaries in seconds.
+   *
+   * @param out where to write.
+   */
+  public void writePrometheus(StringBuilder out) {
+    writeCounter(out, "ais_sentences_read_total",
+            "NMEA sentences read from the feeds and logs.", getSentencesRead());
+    writeCounter(out, "ais_messages_decoded_total",
+            "Messages decoded into records.", getMessagesDecoded());
+    writeCounter(out, "ais_commits_total", "Database transactions committed.", getCommits());
+    writeCounter(out, "ais_rollbacks_total", "Database transactions rolled back.", getRollbacks());
+
+    writeSummaryHeader(out, "ais_decode_seconds", "Time to decode one message.");
+    writeSummary(out, "ais_decode_seconds", "", decodeTime);
+    writeSummaryHeader(out, "ais_queue_wait_seconds",
+            "Time a message waits in the writer queue.");
+    writeSummary(out, "ais_queue_wait_seconds", "", queueWait);
+    writeSummaryHeader(out, "ais_receive_to_commit_seconds",
+            "Time from receiving a message to committing it.");
+    writeSummary(out, "ais_receive_to_commit_seconds", "", receiveToCommit);
+    writeSummaryHeader(out, "ais_insert_seconds", "Time to send one table's rows for a batch.");
+    for (Map.Entry<Table, LatencyHistogram> entry : insertLatency.entrySet()) {
+      writeSummary(out, "ais_insert_seconds",
+              "table=\"" + entry.getKey().getTableName() + "\",", entry.getValue());
+    }
+    writeSummaryHeader(out, "ais_lookup_seconds",
+            "Time to find one table's key and queue its row for a single message.");
+    for (Map.Entry<Table, LatencyHistogram> entry : lookupLatency.entrySet()) {
+      writeSummary(out, "ais_lookup_seconds",
+              "table=\"" + entry.getKey().getTableName() + "\",", entry.getValue());
+    }
+    writeSummaryHeader(out, "ais_pipelined_insert_seconds",
+            "Time to send every row of a single message in one round trip.");
+    writeSummary(out, "ais_pipelined_insert_seconds", "", pipelinedInsert);
+  }
+
+  private static void writeCounter(StringBuilder out, String name, String help, long value) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" counter\n");
+    out.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static void writeSummaryHeader(StringBuilder out, String name, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" summary\n");
+  }
+
+  /**
+   * Writes one summary's quantiles, sum and count.
+   *
+   * @param labels the summary's labels, each followed by a comma, or an empty string.
+   */
+  private static void writeSummary(StringBuilder out, String name, String labels,
+                                   LatencyHistogram histogram) {
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    for (double quantile : QUANTILES) {
+      out.append(name).append('{').append(labels).append("quantile=\"").append(quantile)
+              .append("\"} ")
+              .append(snapshot.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND)
+              .append('\n');
+    }
+    String sumLabels = labels.isEmpty()
+            ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+    out.append(name).append("_sum").append(sumLabels).append(' ')
+            .append(snapshot.getSum() / NANOS_PER_SECOND).append('\n');
+    out.append(name).append("_count").append(sumLabels).append(' ')
+            .append(snapshot.getCount()).append('\n');
+  }
+}
@@ -0,0 +1,36 @@
+package com.aisMessageListener.AisDecodeMessageStore.metrics;
+
+/**
+ * JMX view of the counters along the ingest path. The latencies are registered as separate
+ * {@link LatencyHistogramMXBean}s.
+ */
+public interface IngestMetricsMXBean {
+
+  /**
+   * Gets the number of NMEA sentences read from the feeds and logs, including invalid ones.
+   *
+   * @return the total since startup.
+   */
+  long getSentencesRead();
+
+  /**
+   * Gets the number of messages decoded into records.
+   *
+   * @return the total since startup.
+   */
+  long getMessagesDecoded();
+
+  /**
+   * Gets the number of database transactions committed.
+   *
+   * @return the total since startup.
+   */
+  long getCommits();
+
+  /**
+   * Gets the number of database transactions rolled back.
+   *
+   * @return the total since startup.
+   */
+  long getRollbacks();
+}
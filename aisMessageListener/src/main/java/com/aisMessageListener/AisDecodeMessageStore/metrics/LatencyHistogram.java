@@ -0,0 +1,203 @@
+package com.aisMessageListener.AisDecodeMessageStore.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size histogram of latencies in nanoseconds, bucketed like an HDR histogram: values below
+ * 32 ns have a bucket each, and every power of two above that is split into 32 linear buckets, so
+ * any percentile read back is within about 3% of the recorded value. Recording is one atomic
+ * increment and never allocates or locks, so any number of threads can record into the same
+ * histogram on the hot path.
+ *
+ * <p>Percentiles are computed from a copy of the buckets taken when they are read, which is
+ * consistent enough for monitoring but not an atomic snapshot.</p>
+ */
+public final class LatencyHistogram implements LatencyHistogramMXBean {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // One linear range for values below SUB_BUCKETS, then one for each remaining power of two.
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+  private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records one latency.
+   *
+   * @param nanos the latency in nanoseconds; negative values, from a clock step, count as 0.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    total.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Records the time since a {@link System#nanoTime()} reading.
+   *
+   * @param startNanos the reading taken when the timed work started.
+   * @return the current {@link System#nanoTime()}, so consecutive steps can be timed in turn.
+   */
+  public long recordSince(long startNanos) {
+    long now = System.nanoTime();
+    record(now - startNanos);
+    return now;
+  }
+
+  /**
+   * Takes a copy of the histogram to read percentiles from.
+   *
+   * @return the snapshot.
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new Snapshot(copy, count, sum.sum(), max.get());
+  }
+
+  @Override
+  public long getCount() {
+    return total.sum();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    long count = total.sum();
+    return count == 0 ? 0 : sum.sum() / NANOS_PER_MICRO / count;
+  }
+
+  @Override
+  public double getP50Micros() {
+    return snapshot().getValueAtPercentile(50) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getP90Micros() {
+    return snapshot().getValueAtPercentile(90) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getP99Micros() {
+    return snapshot().getValueAtPercentile(99) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getP999Micros() {
+    return snapshot().getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return max.get() / NANOS_PER_MICRO;
+  }
+
+  /**
+   * Finds a value's bucket: the value itself below SUB_BUCKETS, otherwise the power of two it
+   * falls in and its top SUB_BUCKET_BITS bits below the leading one.
+   */
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  /**
+   * Gets the largest value that falls in a bucket.
+   */
+  static long highestValueIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long top = SUB_BUCKETS + bucket % SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+
+  /**
+   * A copy of a histogram's buckets.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long sum, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * Gets the number of values in the snapshot.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Gets the sum of the recorded values, which may include values recorded after the buckets
+     * were copied.
+     *
+     * @return the sum in nanoseconds.
+     */
+    public long getSum() {
+      return sum;
+    }
+
+    /**
+     * Gets the values recorded between an earlier snapshot of the same histogram and this one.
+     * The largest value is not known for the interval alone, so this snapshot's is kept as a
+     * bound.
+     *
+     * @param earlier the earlier snapshot.
+     * @return the difference.
+     */
+    public Snapshot since(Snapshot earlier) {
+      long[] difference = new long[counts.length];
+      for (int i = 0; i < counts.length; i++) {
+        difference[i] = counts[i] - earlier.counts[i];
+      }
+      return new Snapshot(difference, count - earlier.count, sum - earlier.sum, max);
+    }
+
+    /**
+     * Gets the value below which the given share of recorded values fall.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the value in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValueIn(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
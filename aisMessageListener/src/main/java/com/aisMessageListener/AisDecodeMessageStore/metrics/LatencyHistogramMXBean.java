@@ -0,0 +1,56 @@
+package com.aisMessageListener.AisDecodeMessageStore.metrics;
+
+/**
+ * JMX view of one latency histogram. Every value covers everything recorded since startup.
+ */
+public interface LatencyHistogramMXBean {
+
+  /**
+   * Gets the number of recorded latencies.
+   *
+   * @return the total since startup.
+   */
+  long getCount();
+
+  /**
+   * Gets the mean latency.
+   *
+   * @return the mean in microseconds, or 0 if nothing was recorded.
+   */
+  double getMeanMicros();
+
+  /**
+   * Gets the median latency.
+   *
+   * @return the 50th percentile in microseconds.
+   */
+  double getP50Micros();
+
+  /**
+   * Gets the 90th percentile latency.
+   *
+   * @return the 90th percentile in microseconds.
+   */
+  double getP90Micros();
+
+  /**
+   * Gets the 99th percentile latency.
+   *
+   * @return the 99th percentile in microseconds.
+   */
+  double getP99Micros();
+
+  /**
+   * Gets the 99.9th percentile latency.
+   *
+   * @return the 99.9th percentile in microseconds.
+   */
+  double getP999Micros();
+
+  /**
+   * Gets the longest recorded latency.
+   *
+   * @return the maximum in microseconds.
+   */
+  double getMaxMicros();
+}
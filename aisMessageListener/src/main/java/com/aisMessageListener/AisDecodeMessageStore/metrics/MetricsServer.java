@@ -0,0 +1,76 @@
+package com.aisMessageListener.AisDecodeMessageStore.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link IngestMetrics} at {@code /metrics} in the Prometheus text format, for a scraper
+ * on the same host. The server listens on the loopback address only and answers on a single
+ * thread, so scraping never competes with the ingest threads for more than one core.
+ *
+ * <p>The JDK server's dispatcher thread is not a daemon, so a running server keeps the JVM alive:
+ * close it before the listener is meant to exit.</p>
+ */
+public final class MetricsServer implements AutoCloseable {
+
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Starts serving the metrics.
+   *
+   * @param port    the loopback port to listen on.
+   * @param metrics the metrics to serve.
+   * @throws IOException if the port cannot be bound.
+   */
+  public MetricsServer(int port, IngestMetrics metrics) throws IOException {
+    server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ais-metrics-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/metrics", exchange -> serve(exchange, metrics));
+    server.start();
+  }
+
+  /**
+   * Stops serving, without waiting for a scrape in progress.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private static void serve(HttpExchange exchange, IngestMetrics metrics) throws IOException {
+    try {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      StringBuilder body = new StringBuilder(4096);
+      metrics.writePrometheus(body);
+      byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,544 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.PartialWriteException;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Writer stage that decouples the thread decoding the TCP stream from the database. Each writer
+ * thread has its own bounded {@link RingBuffer}, and decoded messages are routed to one of them by
+ * a hash of their MMSI. Writers take messages out in groups and hand each group to their
+ * {@link BatchInserterInterface}. A group is written once it holds the configured number of
+ * messages, or once its oldest message has waited for the configured linger time, whichever comes
+ * first.
+ *
+ * <p>Because a vessel's messages always go to the same writer, they are committed in the order
+ * they were received, while different vessels are written in parallel. When a writer's queue is
+ * full, the {@link OverflowPolicy} decides whether the decoder waits, drops the oldest message
+ * queued for that writer, or spills the new one.</p>
+ *
+ * <p>If a writer loses its database connection, it enters degraded mode: the messages of the
+ * batch it was writing that were not yet committed, and everything it takes from the queue
+ * afterwards, go to the spill handler, and it retries the connection every few seconds. Without a
+ * spill handler, a lost connection stops the listener. Journaled messages come back through
+ * {@link #replay(List)}, which hands each vessel's messages to the writer that owns its MMSI, so
+ * they stay in order with its live messages.</p>
+ *
+ * <p>Submitted {@link MessageRecord}s belong to the writer: each is recycled once it has been
+ * written, journaled or dropped.</p>
+ *
+ * <p>How long records wait in the queue, and how long after being received each message is
+ * committed, are recorded in {@link IngestMetrics}. The latter can be turned off with
+ * {@link #setReceiveToCommitRecorded(boolean)} when messages were not received live.</p>
+ */
+public final class BatchingMessageWriter implements MessageQueueMXBean, AutoCloseable {
+
+  private static final String MBEAN_NAME =
+          "com.aisMessageListener.AisDecodeMessageStore:type=MessageQueue";
+  private static final long RECONNECT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+  private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final List<BatchInserterInterface> inserters;
+  private final int batchSize;
+  private final long lingerNanos;
+  private final List<RingBuffer<MessageDataInterface>> partitions = new ArrayList<>();
+  private final List<WriterStats> stats = new ArrayList<>();
+  private final WaitStrategy waitStrategy;
+  private final OverflowPolicy overflowPolicy;
+  private final SpillHandler spillHandler;
+  private final List<Thread> writerThreads = new ArrayList<>();
+  private final List<Queue<ReplayPart>> replays = new ArrayList<>();
+  private final AtomicInteger degradedWriters = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong spilled = new AtomicLong();
+  private final LatencyHistogram queueWait = IngestMetrics.get().getQueueWait();
+  private final LatencyHistogram receiveToCommit = IngestMetrics.get().getReceiveToCommit();
+  private boolean receiveToCommitRecorded = true;
+  private volatile boolean running;
+
+  /**
+   * Creates a batching writer with one writer thread per inserter. Call {@link #start()} before
+   * submitting messages.
+   *
+   * @param inserters      one inserter, with its own database connection manager, per writer
+   *                       thread.
+   * @param batchSize      the largest number of messages per transaction.
+   * @param lingerMillis   the longest time a message waits for its batch to fill.
+   * @param queueCapacity  the number of messages that can wait to be written, shared evenly
+   *                       between the writers.
+   * @param waitStrategy   how idle writers, and the decoder under BLOCK, wait.
+   * @param overflowPolicy what to do with a message when the queue is full.
+   * @param spillHandler   where messages go under the SPILL policy and while the database is
+   *                       unreachable; may be null unless the policy is SPILL.
+   */
+  public BatchingMessageWriter(List<BatchInserterInterface> inserters, int batchSize,
+                               long lingerMillis, int queueCapacity, WaitStrategy waitStrategy,
+                               OverflowPolicy overflowPolicy, SpillHandler spillHandler) {
+    if (inserters.isEmpty()) {
+      throw new IllegalArgumentException("At least one inserter is required.");
+    }
+    if (overflowPolicy == OverflowPolicy.SPILL && spillHandler == null) {
+      throw new IllegalArgumentException("The SPILL overflow policy requires a spill handler.");
+    }
+
+    this.inserters = inserters;
+    this.batchSize = batchSize;
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+    int partitionCapacity = Math.max(1, (queueCapacity + inserters.size() - 1) / inserters.size());
+    for (int i = 0; i < inserters.size(); i++) {
+      partitions.add(new RingBuffer<>(partitionCapacity));
+      replays.add(new ConcurrentLinkedQueue<>());
+      stats.add(new WriterStats());
+    }
+    this.waitStrategy = waitStrategy;
+    this.overflowPolicy = overflowPolicy;
+    this.spillHandler = spillHandler;
+  }
+
+  /**
+   * Sets whether the time from each message being received to its commit is recorded. Replayed
+   * logs carry the time kplex received each message, so recording them would fill the histogram
+   * with the age of the log rather than the ingest lag. Must be called before {@link #start()}.
+   *
+   * @param recorded false to leave the receive-to-commit histogram alone; true by default.
+   */
+  public void setReceiveToCommitRecorded(boolean recorded) {
+    this.receiveToCommitRecorded = recorded;
+  }
+
+  /**
+   * Starts the writer threads and registers the queue metrics with JMX.
+   */
+  public void start() {
+    running = true;
+    for (int i = 0; i < inserters.size(); i++) {
+      int writer = i;
+      Thread writerThread = new Thread(() -> run(writer), "ais-batch-writer-" + i);
+      writerThreads.add(writerThread);
+      writerThread.start();
+    }
+
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MBEAN_NAME));
+    } catch (JMException e) {
+      System.err.println("Could not register message queue metrics with JMX.\n");
+    }
+  }
+
+  /**
+   * Queues a message with the writer that owns its MMSI. Safe to call from several threads, but a
+   * vessel's messages keep their order only if they are all submitted by the same thread. If that
+   * writer's queue is full, the overflow policy decides what happens. A record must not be used by
+   * the caller once submitted.
+   *
+   * @param message a decoded message.
+   * @throws InterruptedException if interrupted while waiting under the BLOCK policy.
+   */
+  public void submit(MessageDataInterface message) throws InterruptedException {
+    RingBuffer<MessageDataInterface> queue = partitions.get(partitionFor(message.getMMSI()));
+    if (message instanceof MessageRecord) {
+      ((MessageRecord) message).markQueued(System.nanoTime());
+    }
+    int attempt = 0;
+    while (!queue.offer(message)) {
+      switch (overflowPolicy) {
+        case DROP_OLDEST:
+          MessageDataInterface oldest = queue.poll();
+          if (oldest != null) {
+            dropped.incrementAndGet();
+            recycle(oldest);
+          }
+          break;
+        case SPILL:
+          spillHandler.spill(message);
+          spilled.incrementAndGet();
+          recycle(message);
+          return;
+        default:
+          waitStrategy.idle(attempt++);
+      }
+    }
+    waitStrategy.signalAll();
+  }
+
+  /**
+   * Splits a group of journaled messages by the writer that owns each MMSI, hands each part to
+   * its writer once that writer is healthy, and waits until every part has been dealt with.
+   * Replayed messages are written ahead of queued ones, so callers should limit how fast they
+   * replay.
+   *
+   * @param messages the messages to write, at most one batch.
+   * @return true if the group was committed or journaled again, false if the writer closed first.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean replay(List<MessageDataInterface> messages) throws InterruptedException {
+    List<List<MessageDataInterface>> parts = new ArrayList<>(partitions.size());
+    for (int i = 0; i < partitions.size(); i++) {
+      parts.add(new ArrayList<>());
+    }
+    for (MessageDataInterface message : messages) {
+      parts.get(partitionFor(message.getMMSI())).add(message);
+    }
+
+    int partCount = 0;
+    for (List<MessageDataInterface> part : parts) {
+      if (!part.isEmpty()) {
+        partCount++;
+      }
+    }
+    CountDownLatch done = new CountDownLatch(partCount);
+    List<ReplayPart> handed = new ArrayList<>(partCount);
+    for (int i = 0; i < parts.size(); i++) {
+      if (!parts.get(i).isEmpty()) {
+        ReplayPart part = new ReplayPart(parts.get(i), done);
+        handed.add(part);
+        replays.get(i).add(part);
+      }
+    }
+    waitStrategy.signalAll();
+    done.await();
+
+    for (ReplayPart part : handed) {
+      if (!part.durable) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether any writer has lost its database connection.
+   *
+   * @return true while at least one writer is journaling instead of writing.
+   */
+  public boolean isDegraded() {
+    return degradedWriters.get() > 0;
+  }
+
+  /**
+   * Stops the writers once the queue has been drained, and waits for the last batches to be
+   * written.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer threads.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    running = false;
+    waitStrategy.signalAll();
+    for (Thread writerThread : writerThreads) {
+      writerThread.join();
+    }
+
+    // Anything still waiting to be replayed stays in the journal.
+    for (Queue<ReplayPart> writerReplays : replays) {
+      ReplayPart part;
+      while ((part = writerReplays.poll()) != null) {
+        part.done.countDown();
+      }
+    }
+  }
+
+  @Override
+  public int getQueueDepth() {
+    int depth = 0;
+    for (RingBuffer<MessageDataInterface> queue : partitions) {
+      depth += queue.size();
+    }
+    return depth;
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    int capacity = 0;
+    for (RingBuffer<MessageDataInterface> queue : partitions) {
+      capacity += queue.capacity();
+    }
+    return capacity;
+  }
+
+  @Override
+  public long getDroppedMessages() {
+    return dropped.get();
+  }
+
+  @Override
+  public long getSpilledMessages() {
+    return spilled.get();
+  }
+
+  @Override
+  public long getWrittenMessages() {
+    long total = 0;
+    for (WriterStats writer : stats) {
+      total += writer.written;
+    }
+    return total;
+  }
+
+  @Override
+  public int getDegradedWriters() {
+    return degradedWriters.get();
+  }
+
+  @Override
+  public int[] getQueueDepthPerWriter() {
+    int[] depths = new int[partitions.size()];
+    for (int i = 0; i < depths.length; i++) {
+      depths[i] = partitions.get(i).size();
+    }
+    return depths;
+  }
+
+  @Override
+  public long[] getWrittenMessagesPerWriter() {
+    long[] written = new long[stats.size()];
+    for (int i = 0; i < written.length; i++) {
+      written[i] = stats.get(i).written;
+    }
+    return written;
+  }
+
+  @Override
+  public double[] getMessagesPerSecondPerWriter() {
+    double[] rates = new double[stats.size()];
+    for (int i = 0; i < rates.length; i++) {
+      rates[i] = stats.get(i).messagesPerSecond;
+    }
+    return rates;
+  }
+
+  /**
+   * Picks the writer for an MMSI. MMSIs are allocated in country blocks, so they are mixed before
+   * being reduced to a writer index.
+   */
+  private int partitionFor(int mmsi) {
+    int hash = mmsi * 0x9E3779B9;
+    return Math.floorMod(hash ^ (hash >>> 16), partitions.size());
+  }
+
+  private void run(int writer) {
+    BatchInserterInterface inserter = inserters.get(writer);
+    RingBuffer<MessageDataInterface> queue = partitions.get(writer);
+    Queue<ReplayPart> writerReplays = replays.get(writer);
+    WriterStats writerStats = stats.get(writer);
+    List<MessageDataInterface> batch = new ArrayList<>(batchSize);
+    boolean degraded = false;
+    long nextReconnect = 0;
+
+    try {
+      int attempt = 0;
+      while (running || queue.size() > 0) {
+        if (degraded && System.nanoTime() - nextReconnect >= 0) {
+          degraded = !reconnect(inserter);
+          nextReconnect = System.nanoTime() + RECONNECT_INTERVAL_NANOS;
+        }
+
+        ReplayPart part = degraded ? null : writerReplays.poll();
+        if (part != null) {
+          degraded = !write(inserter, writerStats, part.messages);
+          nextReconnect = System.nanoTime() + RECONNECT_INTERVAL_NANOS;
+          part.durable = true;
+          part.done.countDown();
+          continue;
+        }
+
+        MessageDataInterface first = queue.poll();
+        if (first == null) {
+          waitStrategy.idle(attempt++);
+          continue;
+        }
+        attempt = 0;
+        recordQueueWait(first);
+
+        batch.add(first);
+        fillBatch(queue, batch, System.nanoTime() + lingerNanos);
+        waitStrategy.signalAll();
+        if (degraded) {
+          spill(batch);
+        } else {
+          degraded = !write(inserter, writerStats, batch);
+          nextReconnect = System.nanoTime() + RECONNECT_INTERVAL_NANOS;
+        }
+        for (MessageDataInterface message : batch) {
+          recycle(message);
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Writes a batch, or journals what was not committed and enters degraded mode if the database
+   * cannot be reached.
+   *
+   * @return true if the batch was written, false if the writer is now degraded.
+   */
+  private boolean write(BatchInserterInterface inserter, WriterStats writerStats,
+                        List<MessageDataInterface> batch) {
+    List<MessageDataInterface> uncommitted = batch;
+    try {
+      writerStats.record(inserter.writeMessages(batch), System.nanoTime());
+      if (receiveToCommitRecorded) {
+        recordReceiveToCommit(batch);
+      }
+      return true;
+    } catch (PartialWriteException e) {
+      // Part of the batch was committed before the connection went; only the rest is journaled.
+      uncommitted = e.getUncommittedMessages();
+      writerStats.record(e.getCommittedMessages(), System.nanoTime());
+      if (receiveToCommitRecorded) {
+        recordReceiveToCommit(batch.subList(0, batch.size() - uncommitted.size()));
+      }
+      return degrade(e, uncommitted);
+    } catch (SQLException e) {
+      return degrade(e, uncommitted);
+    }
+  }
+
+  /**
+   * Journals the messages a lost connection left unwritten and enters degraded mode, or stops the
+   * listener if there is nowhere to journal them.
+   *
+   * @return false, as the writer is now degraded.
+   */
+  private boolean degrade(SQLException e, List<MessageDataInterface> uncommitted) {
+    if (spillHandler == null) {
+      System.err.println("Unexpected database error\n");
+      e.printStackTrace();
+      System.exit(1);
+    }
+
+    System.err.println("Lost database connection, journaling messages until it returns.\n");
+    e.printStackTrace();
+    degradedWriters.incrementAndGet();
+    spill(uncommitted);
+    return false;
+  }
+
+  /**
+   * Tries to re-establish a degraded writer's connection.
+   *
+   * @return true if the writer can write again.
+   */
+  private boolean reconnect(BatchInserterInterface inserter) {
+    try {
+      inserter.checkConnection();
+    } catch (SQLException e) {
+      return false;
+    }
+    degradedWriters.decrementAndGet();
+    System.err.println("Database connection restored, resuming writes.\n");
+    return true;
+  }
+
+  private void spill(List<MessageDataInterface> batch) {
+    for (MessageDataInterface message : batch) {
+      spillHandler.spill(message);
+    }
+    spilled.addAndGet(batch.size());
+  }
+
+  /**
+   * Records how long a record taken from a queue waited there.
+   */
+  private void recordQueueWait(MessageDataInterface message) {
+    if (message instanceof MessageRecord) {
+      queueWait.recordSince(((MessageRecord) message).getQueuedNanos());
+    }
+  }
+
+  /**
+   * Records how long after being received each message of a committed batch was committed.
+   * Messages the batch inserter had to drop are counted too.
+   */
+  private void recordReceiveToCommit(List<MessageDataInterface> batch) {
+    long now = System.currentTimeMillis();
+    for (MessageDataInterface message : batch) {
+      receiveToCommit.record(
+              TimeUnit.MILLISECONDS.toNanos(now - message.getTimeReceivedMillis()));
+    }
+  }
+
+  /**
+   * Returns a message to its pool if it is a pooled record.
+   */
+  private static void recycle(MessageDataInterface message) {
+    if (message instanceof MessageRecord) {
+      ((MessageRecord) message).recycle();
+    }
+  }
+
+  /**
+   * Adds queued messages to the batch until it is full or the deadline passes.
+   */
+  private void fillBatch(RingBuffer<MessageDataInterface> queue,
+                         List<MessageDataInterface> batch, long deadline)
+          throws InterruptedException {
+    int attempt = 0;
+    while (batch.size() < batchSize) {
+      MessageDataInterface next = queue.poll();
+      if (next != null) {
+        recordQueueWait(next);
+        batch.add(next);
+        attempt = 0;
+      } else if (!running || System.nanoTime() - deadline >= 0) {
+        return;
+      } else {
+        waitStrategy.idle(attempt++);
+      }
+    }
+  }
+
+  /**
+   * Throughput of one writer. Only its writer thread updates it.
+   */
+  private static final class WriterStats {
+    private volatile long written;
+    private volatile double messagesPerSecond;
+    private long windowStart = System.nanoTime();
+    private long windowWritten;
+
+    private void record(int count, long now) {
+      written += count;
+      long elapsed = now - windowStart;
+      if (elapsed >= RATE_WINDOW_NANOS) {
+        messagesPerSecond = (written - windowWritten) * 1e9 / elapsed;
+        windowStart = now;
+        windowWritten = written;
+      }
+    }
+  }
+
+  /**
+   * The journaled messages of one replayed group that belong to one writer.
+   */
+  private static final class ReplayPart {
+    private final List<MessageDataInterface> messages;
+    private final CountDownLatch done;
+    private volatile boolean durable;
+
+    private ReplayPart(List<MessageDataInterface> messages, CountDownLatch done) {
+      this.messages = messages;
+      this.done = done;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+/**
+ * JMX view of the spill journal and its replay into the database.
+ */
+public interface JournalMXBean {
+
+  /**
+   * Gets the number of journal segments waiting to be replayed, including the one being written.
+   *
+   * @return the segment count.
+   */
+  int getJournalSegments();
+
+  /**
+   * Gets the size of the journaled messages waiting to be replayed.
+   *
+   * @return the journal size in bytes.
+   */
+  long getJournalBytes();
+
+  /**
+   * Gets the number of journaled messages handed back to the database writers.
+   *
+   * @return the total replayed since startup.
+   */
+  long getReplayedMessages();
+
+  /**
+   * Gets the replay rate achieved for the most recently replayed segment.
+   *
+   * @return messages per second, or 0 if nothing has been replayed.
+   */
+  double getReplayMessagesPerSecond();
+}
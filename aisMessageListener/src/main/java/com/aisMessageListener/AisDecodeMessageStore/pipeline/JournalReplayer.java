@@ -0,0 +1,197 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Replays the {@link SpillJournal} into the database once every writer is healthy again. Sealed
+ * segments are read oldest first, decoded, and handed to the {@link BatchingMessageWriter} one
+ * batch at a time at no more than the configured rate, so that catching up does not starve the
+ * live feed. A segment is deleted once every batch in it has been committed or journaled again.
+ *
+ * <p>Replay is at-least-once: if the listener stops part way through a segment, the messages
+ * already committed from it are written again after the restart.</p>
+ */
+public final class JournalReplayer implements JournalMXBean, AutoCloseable {
+
+  private static final String MBEAN_NAME =
+          "com.aisMessageListener.AisDecodeMessageStore:type=Journal";
+  private static final String SOURCE = "journal";
+  private static final long IDLE_MILLIS = 1000;
+
+  private final SpillJournal journal;
+  private final BatchingMessageWriter writer;
+  private final int batchSize;
+  private final long messagesPerSecond;
+  private final AtomicLong replayed = new AtomicLong();
+  private volatile double lastReplayRate;
+  private volatile boolean running;
+  private Thread replayThread;
+
+  /**
+   * Creates a replayer. Call {@link #start()} to begin replaying.
+   *
+   * @param journal           the journal to replay.
+   * @param writer            the started writer that commits replayed messages.
+   * @param batchSize         the number of messages handed to the writer at a time.
+   * @param messagesPerSecond the highest replay rate.
+   */
+  public JournalReplayer(SpillJournal journal, BatchingMessageWriter writer, int batchSize,
+                         long messagesPerSecond) {
+    this.journal = journal;
+    this.writer = writer;
+    this.batchSize = batchSize;
+    this.messagesPerSecond = messagesPerSecond;
+  }
+
+  /**
+   * Starts the replay thread and registers the journal metrics with JMX.
+   */
+  public void start() {
+    running = true;
+    replayThread = new Thread(this::run, "ais-journal-replay");
+    replayThread.setDaemon(true);
+    replayThread.start();
+
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MBEAN_NAME));
+    } catch (JMException e) {
+      System.err.println("Could not register journal metrics with JMX.\n");
+    }
+  }
+
+  /**
+   * Stops replaying. Segments that were not finished stay in the journal for the next run.
+   *
+   * @throws InterruptedException if interrupted while waiting for the replay thread.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    running = false;
+    if (replayThread != null) {
+      replayThread.interrupt();
+      replayThread.join();
+    }
+  }
+
+  @Override
+  public int getJournalSegments() {
+    return journal.getSegmentCount();
+  }
+
+  @Override
+  public long getJournalBytes() {
+    return journal.getJournaledBytes();
+  }
+
+  @Override
+  public long getReplayedMessages() {
+    return replayed.get();
+  }
+
+  @Override
+  public double getReplayMessagesPerSecond() {
+    return lastReplayRate;
+  }
+
+  private void run() {
+    try {
+      while (running) {
+        Path segment = writer.isDegraded() ? null : nextSegment();
+        if (segment == null) {
+          Thread.sleep(IDLE_MILLIS);
+        } else if (!replaySegment(segment)) {
+          // The writer closed; leave the segment for the next run.
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      System.err.println("Error reading spill journal, replay stopped.\n");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Gets the oldest sealed segment, sealing the one being written if nothing else is waiting.
+   */
+  private Path nextSegment() throws IOException {
+    Path segment = journal.oldestSealed();
+    if (segment == null) {
+      journal.sealActive();
+      segment = journal.oldestSealed();
+    }
+    return segment;
+  }
+
+  /**
+   * Replays one segment at the configured rate and deletes it.
+   *
+   * @return false if the writer closed before the segment was finished.
+   */
+  private boolean replaySegment(Path segment) throws IOException, InterruptedException {
+    List<SpillJournal.Record> records = SpillJournal.read(segment);
+    long start = System.nanoTime();
+    int count = 0;
+
+    List<MessageDataInterface> batch = new ArrayList<>(batchSize);
+    for (SpillJournal.Record record : records) {
+      try {
+        batch.add(MessageDataFactory.fromRawNMEA(record.getRawNMEA(), SOURCE,
+                record.getTimeReceived()));
+      } catch (RuntimeException e) {
+        System.err.println("Skipping journaled message that could not be decoded: "
+                + record.getRawNMEA() + "\n");
+        continue;
+      }
+
+      if (batch.size() == batchSize) {
+        if (!writer.replay(batch)) {
+          return false;
+        }
+        count += batch.size();
+        replayed.addAndGet(batch.size());
+        batch = new ArrayList<>(batchSize);
+        throttle(start, count);
+      }
+    }
+    if (!batch.isEmpty()) {
+      if (!writer.replay(batch)) {
+        return false;
+      }
+      count += batch.size();
+      replayed.addAndGet(batch.size());
+    }
+
+    journal.delete(segment);
+    double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+    lastReplayRate = count / seconds;
+    System.out.println(String.format("Replayed %d journaled messages from %s at %.0f messages/s; "
+                    + "%d bytes in %d segments remain.", count, segment.getFileName(),
+            lastReplayRate, journal.getJournaledBytes(), journal.getSegmentCount()));
+    return true;
+  }
+
+  /**
+   * Sleeps until replaying the provided number of messages would not exceed the rate limit.
+   */
+  private void throttle(long start, int count) throws InterruptedException {
+    long earliest = start + TimeUnit.SECONDS.toNanos(count) / messagesPerSecond;
+    long wait = earliest - System.nanoTime();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+/**
+ * JMX view of the queue between the TCP decoder and the database writers.
+ */
+public interface MessageQueueMXBean {
+
+  /**
+   * Gets the number of messages waiting to be written.
+   *
+   * @return the current queue depth.
+   */
+  int getQueueDepth();
+
+  /**
+   * Gets the number of messages the queue can hold.
+   *
+   * @return the queue capacity.
+   */
+  int getQueueCapacity();
+
+  /**
+   * Gets the number of queued messages discarded under the DROP_OLDEST overflow policy.
+   *
+   * @return the total dropped since startup.
+   */
+  long getDroppedMessages();
+
+  /**
+   * Gets the number of messages handed to the spill journal, either under the SPILL overflow
+   * policy or because the database could not be reached.
+   *
+   * @return the total spilled since startup.
+   */
+  long getSpilledMessages();
+
+  /**
+   * Gets the number of messages committed to the database by the writer threads.
+   *
+   * @return the total written since startup.
+   */
+  long getWrittenMessages();
+
+  /**
+   * Gets the number of writer threads that have lost their database connection and are
+   * journaling messages instead of writing them.
+   *
+   * @return the number of degraded writers, 0 when healthy.
+   */
+  int getDegradedWriters();
+
+  /**
+   * Gets the number of messages waiting for each writer thread.
+   *
+   * @return the queue depth of each writer, indexed by writer number.
+   */
+  int[] getQueueDepthPerWriter();
+
+  /**
+   * Gets the number of messages committed by each writer thread, including replayed ones.
+   *
+   * @return the total written since startup, indexed by writer number.
+   */
+  long[] getWrittenMessagesPerWriter();
+
+  /**
+   * Gets each writer thread's recent throughput, measured over windows of about ten seconds.
+   *
+   * @return messages committed per second, indexed by writer number.
+   */
+  double[] getMessagesPerSecondPerWriter();
+}
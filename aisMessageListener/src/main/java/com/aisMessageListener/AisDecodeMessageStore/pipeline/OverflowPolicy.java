@@ -0,0 +1,11 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+/**
+ * What the decoder thread does with a message when the writer queue is full:
+ * - BLOCK: wait for a writer to free a slot. Nothing is lost, but the TCP stream stops being read.
+ * - DROP_OLDEST: discard the oldest queued message to make room, so the newest data wins.
+ * - SPILL: hand the message to a {@link SpillHandler} instead of queueing it.
+ */
+public enum OverflowPolicy {
+  BLOCK, DROP_OLDEST, SPILL
+}
@@ -0,0 +1,117 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free ring buffer with any number of producers and consumers. Each slot carries a
+ * sequence number that says whether it is ready to be written or read, so neither side ever takes
+ * a lock; producers only contend with each other through a compare-and-set on the tail, and
+ * consumers through a compare-and-set on the head. Neither method blocks. Callers decide how to
+ * wait through a {@link WaitStrategy}.
+ *
+ * <p>Entries offered by one thread are polled in the order that thread offered them. Producers may
+ * also call {@link #poll()}, e.g. to discard the oldest entry when the buffer is full.</p>
+ *
+ * @param <T> the type of entry.
+ */
+public final class RingBuffer<T> {
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<T> entries;
+  private final AtomicLongArray sequences;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Creates an empty ring buffer.
+   *
+   * @param requestedCapacity the minimum number of entries, rounded up to a power of two.
+   */
+  public RingBuffer(int requestedCapacity) {
+    if (requestedCapacity < 1 || requestedCapacity > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+    }
+    int rounded = 1;
+    while (rounded < requestedCapacity) {
+      rounded <<= 1;
+    }
+    this.capacity = rounded;
+    this.mask = capacity - 1;
+    this.entries = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds an entry at the tail. Safe to call from any thread.
+   *
+   * @param entry the entry to add.
+   * @return true if added, or false if the buffer is full.
+   */
+  public boolean offer(T entry) {
+    while (true) {
+      long position = tail.get();
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+
+      if (difference < 0) {
+        // The slot still holds an entry from the previous lap.
+        return false;
+      }
+      if (difference == 0 && tail.compareAndSet(position, position + 1)) {
+        entries.set(index, entry);
+        sequences.set(index, position + 1);
+        return true;
+      }
+      // Another producer took this slot first; try the next one.
+    }
+  }
+
+  /**
+   * Removes the entry at the head. Safe to call from any thread.
+   *
+   * @return the oldest entry, or null if the buffer is empty.
+   */
+  public T poll() {
+    while (true) {
+      long position = head.get();
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+
+      if (difference < 0) {
+        return null;
+      }
+      if (difference == 0 && head.compareAndSet(position, position + 1)) {
+        T entry = entries.get(index);
+        entries.set(index, null);
+        sequences.set(index, position + capacity);
+        return entry;
+      }
+      // Another consumer took this slot first; try the next one.
+    }
+  }
+
+  /**
+   * Gets the number of entries waiting. Approximate while other threads are active.
+   *
+   * @return the current depth.
+   */
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  /**
+   * Gets the number of entries the buffer can hold.
+   *
+   * @return the capacity, a power of two.
+   */
+  public int capacity() {
+    return capacity;
+  }
+}
@@ -0,0 +1,17 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+/**
+ * Destination for messages that could not be queued for, or written by, the database writers.
+ */
+public interface SpillHandler {
+
+  /**
+   * Stores a message outside the pipeline. Must not block for long, since it is called from the
+   * thread reading the TCP stream. May be called from several threads at once.
+   *
+   * @param message the message that could not be queued or written.
+   */
+  void spill(MessageDataInterface message);
+}
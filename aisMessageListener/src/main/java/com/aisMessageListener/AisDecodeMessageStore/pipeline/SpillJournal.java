@@ -0,0 +1,284 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Local journal for messages that cannot be written to the database right now, either because the
+ * connection is down or because the writer queue overflowed. Records are appended to fixed-size,
+ * memory-mapped segment files in a directory; when a segment fills up it is sealed and a new one
+ * is started. Sealed segments are replayed into the database by a {@link JournalReplayer} and
+ * deleted once their contents are committed.
+ *
+ * <p>Each record is the length of the raw NMEA in bytes, the receive time in epoch milliseconds,
+ * and the raw NMEA as UTF-8. A zero length marks the end of a segment. Segments left over from a
+ * previous run are treated as sealed and replayed after startup.</p>
+ *
+ * <p>Appends go to the page cache and survive the listener being killed; segments are forced to
+ * disk when they are sealed.</p>
+ */
+public final class SpillJournal implements SpillHandler, Closeable {
+
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final Deque<Segment> sealed = new ArrayDeque<>();
+  private long nextSegmentIndex;
+  private FileChannel activeChannel;
+  private MappedByteBuffer active;
+  private Path activePath;
+
+  /**
+   * Opens the journal in the provided directory, creating it if needed, and picks up any segments
+   * left over from a previous run.
+   *
+   * @param directory    the directory that holds the segment files.
+   * @param segmentBytes the size of each segment file.
+   * @throws IOException if the directory cannot be created or read.
+   */
+  public SpillJournal(Path directory, int segmentBytes) throws IOException {
+    if (segmentBytes <= RECORD_HEADER_BYTES) {
+      throw new IllegalArgumentException("Journal segments must hold at least one record.");
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    Files.createDirectories(directory);
+
+    List<Path> existing = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        existing.add(file);
+      }
+    }
+    // Names are zero-padded segment numbers, so they sort in the order they were written.
+    Collections.sort(existing);
+    for (Path file : existing) {
+      sealed.add(new Segment(file, usedBytes(file)));
+      nextSegmentIndex = Math.max(nextSegmentIndex, segmentIndex(file) + 1);
+    }
+  }
+
+  @Override
+  public void spill(MessageDataInterface message) {
+    append(message.getTimeReceived().toInstant(), message.getRawNMEA());
+  }
+
+  /**
+   * Appends a record, starting a new segment if the current one is full.
+   *
+   * @param timeReceived when the message was received.
+   * @param rawNMEA      the raw NMEA, with multi-part messages separated by " | ".
+   */
+  public synchronized void append(Instant timeReceived, String rawNMEA) {
+    byte[] payload = rawNMEA.getBytes(StandardCharsets.UTF_8);
+    int recordBytes = RECORD_HEADER_BYTES + payload.length;
+    if (recordBytes > segmentBytes) {
+      System.err.println("Message too large for the spill journal, message lost: " + rawNMEA
+              + "\n");
+      return;
+    }
+
+    try {
+      if (active != null && active.remaining() < recordBytes) {
+        seal();
+      }
+      if (active == null) {
+        openSegment();
+      }
+      active.putInt(payload.length);
+      active.putLong(timeReceived.toEpochMilli());
+      active.put(payload);
+    } catch (IOException e) {
+      System.err.println("Error writing to spill journal, message lost.\n");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Seals the segment being written, if it holds anything, so that it can be replayed.
+   *
+   * @throws IOException if the segment cannot be forced to disk.
+   */
+  public synchronized void sealActive() throws IOException {
+    if (active != null && active.position() > 0) {
+      seal();
+    }
+  }
+
+  /**
+   * Gets the oldest sealed segment without removing it.
+   *
+   * @return the path of the oldest sealed segment, or null if there are none.
+   */
+  public synchronized Path oldestSealed() {
+    Segment oldest = sealed.peekFirst();
+    return oldest == null ? null : oldest.path;
+  }
+
+  /**
+   * Deletes a sealed segment once its contents have been committed to the database.
+   *
+   * @param segment the segment returned by {@link #oldestSealed()}.
+   * @throws IOException if the file cannot be deleted.
+   */
+  public synchronized void delete(Path segment) throws IOException {
+    sealed.removeIf(s -> s.path.equals(segment));
+    Files.deleteIfExists(segment);
+  }
+
+  /**
+   * Reads every record in a sealed segment.
+   *
+   * @param segment the segment returned by {@link #oldestSealed()}.
+   * @return the segment's records in the order they were appended.
+   * @throws IOException if the segment cannot be read.
+   */
+  public static List<Record> read(Path segment) throws IOException {
+    List<Record> records = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+        int length = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining() - Long.BYTES) {
+          break;
+        }
+        long epochMillis = buffer.getLong();
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        records.add(new Record(Instant.ofEpochMilli(epochMillis),
+                new String(payload, StandardCharsets.UTF_8)));
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Gets the number of segments holding messages that have not been replayed, including the one
+   * being written.
+   *
+   * @return the segment count.
+   */
+  public synchronized int getSegmentCount() {
+    return sealed.size() + (active != null && active.position() > 0 ? 1 : 0);
+  }
+
+  /**
+   * Gets the number of bytes of journaled records that have not been replayed.
+   *
+   * @return the journal size in bytes.
+   */
+  public synchronized long getJournaledBytes() {
+    long bytes = active == null ? 0 : active.position();
+    for (Segment segment : sealed) {
+      bytes += segment.usedBytes;
+    }
+    return bytes;
+  }
+
+  /**
+   * Seals the segment being written.
+   *
+   * @throws IOException if the segment cannot be forced to disk.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    sealActive();
+    if (activeChannel != null) {
+      activeChannel.close();
+      activeChannel = null;
+      active = null;
+    }
+  }
+
+  private void openSegment() throws IOException {
+    activePath = directory.resolve(String.format("%020d%s", nextSegmentIndex++, SEGMENT_SUFFIX));
+    activeChannel = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+  }
+
+  private void seal() throws IOException {
+    active.force();
+    sealed.addLast(new Segment(activePath, active.position()));
+    activeChannel.close();
+    activeChannel = null;
+    active = null;
+    activePath = null;
+  }
+
+  private static long segmentIndex(Path file) {
+    String name = file.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static long usedBytes(Path file) throws IOException {
+    long bytes = 0;
+    for (Record record : read(file)) {
+      bytes += RECORD_HEADER_BYTES + record.rawNMEA.getBytes(StandardCharsets.UTF_8).length;
+    }
+    return bytes;
+  }
+
+  /**
+   * One journaled message.
+   */
+  public static final class Record {
+    private final Instant timeReceived;
+    private final String rawNMEA;
+
+    private Record(Instant timeReceived, String rawNMEA) {
+      this.timeReceived = timeReceived;
+      this.rawNMEA = rawNMEA;
+    }
+
+    /**
+     * Gets when the message was originally received.
+     *
+     * @return the receive time.
+     */
+    public Instant getTimeReceived() {
+      return timeReceived;
+    }
+
+    /**
+     * Gets the raw NMEA, with multi-part messages separated by " | ".
+     *
+     * @return the raw NMEA.
+     */
+    public String getRawNMEA() {
+      return rawNMEA;
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private final long usedBytes;
+
+    private Segment(Path path, long usedBytes) {
+      this.path = path;
+      this.usedBytes = usedBytes;
+    }
+  }
+}
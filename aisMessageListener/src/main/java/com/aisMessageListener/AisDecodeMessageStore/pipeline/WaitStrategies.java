@@ -0,0 +1,132 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The available {@link WaitStrategy} implementations, from lowest latency to lowest CPU use:
+ * <ul>
+ *   <li>busy-spin: never gives up the core. Only for dedicated cores.</li>
+ *   <li>yielding: spins briefly, then yields to other threads.</li>
+ *   <li>sleeping: spins, yields, then parks for short, fixed periods.</li>
+ *   <li>blocking: parks on a condition until signalled. The default.</li>
+ * </ul>
+ */
+public final class WaitStrategies {
+
+  private static final int SPIN_ATTEMPTS = 100;
+  private static final int YIELD_ATTEMPTS = 200;
+  private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Prevent instantiation of utility class.
+   */
+  private WaitStrategies() {
+    throw new AssertionError("Cannot instantiate utility class");
+  }
+
+  /**
+   * Creates a wait strategy by name.
+   *
+   * @param name one of busy-spin, yielding, sleeping or blocking.
+   * @return a new wait strategy.
+   * @throws IllegalArgumentException if the name is not recognised.
+   */
+  public static WaitStrategy forName(String name) {
+    switch (name.trim().toLowerCase()) {
+      case "busy-spin":
+        return new BusySpin();
+      case "yielding":
+        return new Yielding();
+      case "sleeping":
+        return new Sleeping();
+      case "blocking":
+        return new Blocking();
+      default:
+        throw new IllegalArgumentException(
+                "Wait strategy must be 'busy-spin', 'yielding', 'sleeping' or 'blocking'.");
+    }
+  }
+
+  private static final class BusySpin implements WaitStrategy {
+    @Override
+    public void idle(int attempt) {
+      Thread.onSpinWait();
+    }
+
+    @Override
+    public void signalAll() {
+    }
+  }
+
+  private static final class Yielding implements WaitStrategy {
+    @Override
+    public void idle(int attempt) {
+      if (attempt < SPIN_ATTEMPTS) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    }
+
+    @Override
+    public void signalAll() {
+    }
+  }
+
+  private static final class Sleeping implements WaitStrategy {
+    @Override
+    public void idle(int attempt) throws InterruptedException {
+      if (attempt < SPIN_ATTEMPTS) {
+        Thread.onSpinWait();
+      } else if (attempt < YIELD_ATTEMPTS) {
+        Thread.yield();
+      } else {
+        LockSupport.parkNanos(SLEEP_NANOS);
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+    }
+
+    @Override
+    public void signalAll() {
+    }
+  }
+
+  private static final class Blocking implements WaitStrategy {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    // Lets signalAll skip the lock entirely while nobody is waiting.
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @Override
+    public void idle(int attempt) throws InterruptedException {
+      lock.lock();
+      try {
+        waiters.incrementAndGet();
+        progress.awaitNanos(BLOCK_NANOS);
+      } finally {
+        waiters.decrementAndGet();
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void signalAll() {
+      if (waiters.get() == 0) {
+        return;
+      }
+      lock.lock();
+      try {
+        progress.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
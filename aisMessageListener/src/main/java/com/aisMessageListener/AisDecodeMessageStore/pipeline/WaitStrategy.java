@@ -0,0 +1,23 @@
+package com.aisMessageListener.AisDecodeMessageStore.pipeline;
+
+/**
+ * How a pipeline thread waits when it cannot make progress, e.g. a writer finding the ring buffer
+ * empty or the decoder finding it full. Implementations trade latency against CPU use; see
+ * {@link WaitStrategies}.
+ */
+public interface WaitStrategy {
+
+  /**
+   * Waits briefly. May return early or spuriously, so callers must re-check their condition and
+   * call again. Never waits much longer than a millisecond, so callers can honour deadlines.
+   *
+   * @param attempt the number of consecutive times this thread has waited without progress.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  void idle(int attempt) throws InterruptedException;
+
+  /**
+   * Wakes any threads waiting in {@link #idle(int)}. Called after an entry is added or removed.
+   */
+  void signalAll();
+}
@@ -0,0 +1,184 @@
+package com.aisMessageListener.AisDecodeMessageStore.replay;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.NmeaSentence;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.PositionReportDecoder;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.nmea.NMEAMessageHandler;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * Decodes one {@link LogChunk}. The chunk is memory-mapped, split into lines, and each sentence is
+ * checked by an {@link NmeaSentence}, as the live feed's are, and decoded with its own NMEA
+ * handler, which combines multi-part messages within the chunk. Single-part position reports skip
+ * the handler and are unpacked by a {@link PositionReportDecoder} straight from the line's
+ * bytes.
+ *
+ * <p>A sentence's receive time is taken from its tag block. A sentence without one gets the time
+ * of the closest earlier sentence in the chunk that had one, or the log file's modification time
+ * if there is none.</p>
+ */
+final class ChunkDecoder implements Callable<ChunkDecoder.Result> {
+
+  private final LogChunk chunk;
+  private final MessageRecordPool records;
+  private final List<MessageDataInterface> messages = new ArrayList<>();
+  private final NmeaSentence fields = new NmeaSentence();
+  private final PositionReportDecoder positionReports = new PositionReportDecoder();
+  private final IngestMetrics metrics = IngestMetrics.get();
+  private Instant sentenceTime;
+  private long lineStartNanos;
+  private int sentences;
+  private int invalidSentences;
+
+  /**
+   * Creates a decoder for a chunk.
+   *
+   * @param chunk   the chunk to decode.
+   * @param records the pool that decoded messages are copied into.
+   */
+  ChunkDecoder(LogChunk chunk, MessageRecordPool records) {
+    this.chunk = chunk;
+    this.records = records;
+    this.sentenceTime = chunk.getFileTime();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Result call() throws IOException {
+    Consumer<AISMessage> decoded = this::addMessage;
+    NMEAMessageHandler handler = new NMEAMessageHandler(chunk.getFile().toString(), decoded);
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(chunk.getFile(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.getStart(),
+              chunk.getEnd() - chunk.getStart());
+    }
+
+    byte[] line = new byte[SentenceParser.MAX_LINE_BYTES];
+    ByteBuffer lineBuffer = ByteBuffer.wrap(line);
+    int lineLength = 0;
+    boolean overlong = false;
+    int limit = buffer.limit();
+    for (int i = 0; i <= limit; i++) {
+      byte b = i < limit ? buffer.get(i) : (byte) '\n';
+      if (b != '\n' && b != '\r') {
+        if (lineLength < line.length) {
+          line[lineLength++] = b;
+        } else {
+          overlong = true;
+        }
+        continue;
+      }
+
+      if (overlong) {
+        sentences++;
+        invalidSentences++;
+      } else if (lineLength > 0) {
+        sentences++;
+        decodeLine(handler, lineBuffer, line, lineLength);
+      }
+      lineLength = 0;
+      overlong = false;
+    }
+
+    metrics.addSentencesRead(sentences);
+    return new Result(messages, sentences, invalidSentences, chunk.getEnd() - chunk.getStart());
+  }
+
+  private void decodeLine(NMEAMessageHandler handler, ByteBuffer lineBuffer, byte[] line,
+                          int length) {
+    int start = SentenceParser.sentenceStart(line, length);
+    if (start < 0 || start >= length
+            || fields.check(lineBuffer, start, length) != NmeaSentence.Check.VALID) {
+      invalidSentences++;
+      return;
+    }
+    long time = SentenceParser.tagTime(line, length);
+    if (time != SentenceParser.NO_TIME) {
+      sentenceTime = Instant.ofEpochMilli(time);
+    }
+
+    lineStartNanos = System.nanoTime();
+    if (fields.getFragmentCount() == 1 && positionReports.load(lineBuffer,
+            fields.getPayloadStart(), fields.getPayloadEnd(), fields.getFillBits())) {
+      String sentence = new String(line, start, length - start, StandardCharsets.US_ASCII);
+      messages.add(records.acquire(positionReports, sentence, sentenceTime.toEpochMilli()));
+      metrics.recordDecode(lineStartNanos);
+      return;
+    }
+
+    try {
+      handler.accept(NMEAMessage.fromString(
+              new String(line, start, length - start, StandardCharsets.US_ASCII)));
+    } catch (RuntimeException e) {
+      invalidSentences++;
+    }
+  }
+
+  /**
+   * Called by the handler once a message is complete, which is while its last sentence is being
+   * decoded, so the current sentence time is the message's receive time.
+   */
+  private void addMessage(AISMessage message) {
+    try {
+      // Filling the record unpacks the payload on this thread rather than the writer's.
+      MessageRecord record = records.acquire(message, sentenceTime);
+      messages.add(record);
+      // Timed from the start of the message's last sentence.
+      metrics.recordDecode(lineStartNanos);
+    } catch (RuntimeException e) {
+      invalidSentences++;
+    }
+  }
+
+  /**
+   * The messages decoded from a chunk, in the order they were logged.
+   */
+  static final class Result {
+    private final List<MessageDataInterface> messages;
+    private final int sentences;
+    private final int invalidSentences;
+    private final long bytes;
+
+    private Result(List<MessageDataInterface> messages, int sentences, int invalidSentences,
+                   long bytes) {
+      this.messages = messages;
+      this.sentences = sentences;
+      this.invalidSentences = invalidSentences;
+      this.bytes = bytes;
+    }
+
+    List<MessageDataInterface> getMessages() {
+      return messages;
+    }
+
+    int getSentences() {
+      return sentences;
+    }
+
+    int getInvalidSentences() {
+      return invalidSentences;
+    }
+
+    long getBytes() {
+      return bytes;
+    }
+  }
+}
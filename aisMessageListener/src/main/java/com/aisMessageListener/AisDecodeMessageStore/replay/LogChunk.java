@@ -0,0 +1,135 @@
+package com.aisMessageListener.AisDecodeMessageStore.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte range of a log file that starts at the beginning of a message and ends just before the
+ * beginning of another, so that it can be decoded independently of the rest of the file.
+ */
+final class LogChunk {
+
+  private static final int SCAN_BUFFER_BYTES = 64 * 1024;
+
+  private final Path file;
+  private final long start;
+  private final long end;
+  private final Instant fileTime;
+
+  private LogChunk(Path file, long start, long end, Instant fileTime) {
+    this.file = file;
+    this.start = start;
+    this.end = end;
+    this.fileTime = fileTime;
+  }
+
+  /**
+   * Splits a log file into chunks of roughly the provided size. Each chunk boundary is moved
+   * forward to the start of the next line that begins a message, i.e. the next line that is not
+   * the second or later part of a multi-part message.
+   *
+   * @param file       the log file.
+   * @param chunkBytes the target chunk size.
+   * @return the file's chunks, in file order.
+   * @throws IOException if the file cannot be read.
+   */
+  static List<LogChunk> split(Path file, long chunkBytes) throws IOException {
+    List<LogChunk> chunks = new ArrayList<>();
+    long size = Files.size(file);
+    Instant fileTime = Files.getLastModifiedTime(file).toInstant();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long start = 0;
+      while (start < size) {
+        long end = size - start <= chunkBytes ? size
+                : nextMessageStart(channel, start + chunkBytes, size);
+        chunks.add(new LogChunk(file, start, end, fileTime));
+        start = end;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Gets the log file.
+   *
+   * @return the file path.
+   */
+  Path getFile() {
+    return file;
+  }
+
+  /**
+   * Gets the offset of the chunk's first byte.
+   *
+   * @return the start offset.
+   */
+  long getStart() {
+    return start;
+  }
+
+  /**
+   * Gets the offset just past the chunk's last byte.
+   *
+   * @return the end offset.
+   */
+  long getEnd() {
+    return end;
+  }
+
+  /**
+   * Gets the time the log file was last modified, used for sentences with no time of their own.
+   *
+   * @return the file's modification time.
+   */
+  Instant getFileTime() {
+    return fileTime;
+  }
+
+  /**
+   * Finds the first line at or after the offset's line that begins a message.
+   *
+   * @return the offset of that line, or the file size if there is none.
+   */
+  private static long nextMessageStart(FileChannel channel, long offset, long size)
+          throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+    byte[] line = new byte[SentenceParser.MAX_LINE_BYTES];
+    int lineLength = 0;
+    boolean atLineStart = false;
+    long lineStart = offset;
+    long position = offset;
+
+    // Skip the rest of the line the offset falls in.
+    while (position < size) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++, position++) {
+        byte b = buffer.get(i);
+        if (b == '\n' || b == '\r') {
+          if (atLineStart && lineLength > 0
+                  && SentenceParser.fragmentNumber(line, lineLength) <= 1) {
+            return lineStart;
+          }
+          atLineStart = true;
+          lineLength = 0;
+          lineStart = position + 1;
+        } else if (atLineStart && lineLength < line.length) {
+          line[lineLength++] = b;
+        }
+      }
+    }
+    return atLineStart && lineLength > 0 && SentenceParser.fragmentNumber(line, lineLength) <= 1
+            ? lineStart : size;
+  }
+}
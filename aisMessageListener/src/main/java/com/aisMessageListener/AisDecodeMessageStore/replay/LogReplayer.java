@@ -0,0 +1,145 @@
+package com.aisMessageListener.AisDecodeMessageStore.replay;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.BatchingMessageWriter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the NMEA text logs kept by a kplex server into the database. Each log is split into
+ * chunks at message boundaries, the chunks are decoded in parallel on a {@link ForkJoinPool}, and
+ * the decoded messages are handed to the {@link BatchingMessageWriter} in the order they were
+ * logged, so each vessel's messages are still written in order.
+ *
+ * <p>Receive times come from the tag blocks kplex writes when timestamping is enabled; see
+ * {@link ChunkDecoder}. Only a bounded number of decoded chunks wait for the writer at a time.</p>
+ */
+public final class LogReplayer {
+
+  private final List<Path> logs;
+  private final BatchingMessageWriter writer;
+  private final MessageRecordPool records;
+  private final int threads;
+  private final long chunkBytes;
+  private long messages;
+  private long sentences;
+  private long invalidSentences;
+  private long bytes;
+
+  /**
+   * Creates a replayer.
+   *
+   * @param logs       the log files, or directories whose files are all logs, in the order they
+   *                   should be loaded. Files in a directory are loaded in name order.
+   * @param writer     the started writer that groups messages into database transactions.
+   * @param records    the pool that decoded messages are copied into.
+   * @param threads    the number of decoding threads.
+   * @param chunkBytes the size of the pieces each log is decoded in.
+   */
+  public LogReplayer(List<Path> logs, BatchingMessageWriter writer, MessageRecordPool records,
+                     int threads, long chunkBytes) {
+    this.logs = logs;
+    this.writer = writer;
+    this.records = records;
+    this.threads = threads;
+    this.chunkBytes = chunkBytes;
+  }
+
+  /**
+   * Replays every log and prints a summary. Returns once every message has been handed to the
+   * writer; close the writer to wait for them to be committed.
+   *
+   * @throws IOException          if a log or directory cannot be read.
+   * @throws InterruptedException if interrupted while waiting for the decoders or the writer.
+   */
+  public void replay() throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      for (Path log : expand(logs)) {
+        replayLog(pool, log);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+    System.out.println(String.format("Replayed %d messages from %d sentences (%d invalid, "
+                    + "%.1f MiB) in %.1f s, %.0f messages/s.", messages, sentences,
+            invalidSentences, bytes / (1024.0 * 1024.0), seconds, messages / seconds));
+  }
+
+  private void replayLog(ForkJoinPool pool, Path log) throws IOException, InterruptedException {
+    long logMessages = messages;
+    Deque<Future<ChunkDecoder.Result>> decoding = new ArrayDeque<>();
+    for (LogChunk chunk : LogChunk.split(log, chunkBytes)) {
+      decoding.addLast(pool.submit(new ChunkDecoder(chunk, records)));
+      // Enough chunks in flight to keep every thread busy, without decoding far ahead of the
+      // writer.
+      if (decoding.size() > threads * 2) {
+        submit(log, decoding.removeFirst());
+      }
+    }
+    while (!decoding.isEmpty()) {
+      submit(log, decoding.removeFirst());
+    }
+    System.out.println("Replayed " + (messages - logMessages) + " messages from " + log + ".");
+  }
+
+  /**
+   * Waits for a chunk to be decoded and hands its messages to the writer.
+   */
+  private void submit(Path log, Future<ChunkDecoder.Result> decoded) throws InterruptedException {
+    ChunkDecoder.Result result;
+    try {
+      result = decoded.get();
+    } catch (ExecutionException e) {
+      System.err.println("Error decoding part of " + log + ", skipping it.\n");
+      e.getCause().printStackTrace();
+      return;
+    }
+
+    for (MessageDataInterface message : result.getMessages()) {
+      writer.submit(message);
+    }
+    messages += result.getMessages().size();
+    sentences += result.getSentences();
+    invalidSentences += result.getInvalidSentences();
+    bytes += result.getBytes();
+  }
+
+  /**
+   * Replaces each directory with the files in it, in name order.
+   */
+  private static List<Path> expand(List<Path> logs) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (Path log : logs) {
+      if (!Files.isDirectory(log)) {
+        files.add(log);
+        continue;
+      }
+
+      List<Path> contents = new ArrayList<>();
+      try (DirectoryStream<Path> directory = Files.newDirectoryStream(log, Files::isRegularFile)) {
+        for (Path file : directory) {
+          contents.add(file);
+        }
+      }
+      Collections.sort(contents);
+      files.addAll(contents);
+    }
+    return files;
+  }
+}
@@ -0,0 +1,112 @@
+package com.aisMessageListener.AisDecodeMessageStore.replay;
+
+/**
+ * Reads the parts of a logged line that the replay needs before handing the sentence to the
+ * decoder: the optional NMEA 4.0 tag block that kplex writes in front of each sentence when
+ * timestamping is on, e.g. {@code \c:1577836800*5C\!AIVDM,...}, its receive time, and the
+ * sentence's fragment number. Works on the raw bytes and does not allocate.
+ */
+final class SentenceParser {
+
+  /**
+   * The longest line that is decoded; longer lines are counted as invalid.
+   */
+  static final int MAX_LINE_BYTES = 512;
+
+  /**
+   * Returned when a line has no usable receive time.
+   */
+  static final long NO_TIME = Long.MIN_VALUE;
+
+  // Tag block times after this are in milliseconds rather than seconds (the year 5138 in seconds).
+  private static final long LARGEST_SECONDS = 100_000_000_000L;
+
+  /**
+   * Prevent instantiation of utility class.
+   */
+  private SentenceParser() {
+    throw new AssertionError("Cannot instantiate utility class");
+  }
+
+  /**
+   * Finds where the sentence starts, after the tag block if there is one.
+   *
+   * @param line   the line's bytes.
+   * @param length the line's length.
+   * @return the offset of the sentence, or -1 if the tag block is not closed.
+   */
+  static int sentenceStart(byte[] line, int length) {
+    if (length == 0 || line[0] != '\\') {
+      return 0;
+    }
+    for (int i = 1; i < length; i++) {
+      if (line[i] == '\\') {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads the receive time from the line's tag block.
+   *
+   * @param line   the line's bytes.
+   * @param length the line's length.
+   * @return the receive time in epoch milliseconds, or {@link #NO_TIME} if the line has no tag
+   *         block or the tag block has no time.
+   */
+  static long tagTime(byte[] line, int length) {
+    int end = sentenceStart(line, length) - 1;
+    if (end <= 0) {
+      return NO_TIME;
+    }
+
+    int field = 1;
+    while (field < end) {
+      if (line[field] == 'c' && field + 1 < end && line[field + 1] == ':') {
+        long value = 0;
+        int digits = 0;
+        for (int i = field + 2; i < end && line[i] >= '0' && line[i] <= '9'; i++, digits++) {
+          value = value * 10 + (line[i] - '0');
+        }
+        if (digits == 0 || digits > 15) {
+          return NO_TIME;
+        }
+        return value > LARGEST_SECONDS ? value : value * 1000;
+      }
+
+      // Move to the next field, stopping at the tag block checksum.
+      while (field < end && line[field] != ',' && line[field] != '*') {
+        field++;
+      }
+      if (field >= end || line[field] == '*') {
+        return NO_TIME;
+      }
+      field++;
+    }
+    return NO_TIME;
+  }
+
+  /**
+   * Reads which part of a multi-part message the line's sentence is.
+   *
+   * @param line   the line's bytes.
+   * @param length the line's length.
+   * @return the fragment number, or 0 if the line is not an AIS sentence.
+   */
+  static int fragmentNumber(byte[] line, int length) {
+    int start = sentenceStart(line, length);
+    if (start < 0 || start >= length || line[start] != '!') {
+      return 0;
+    }
+
+    int commas = 0;
+    for (int i = start; i < length - 1; i++) {
+      if (line[i] == ',' && ++commas == 2) {
+        byte digit = line[i + 1];
+        return digit >= '0' && digit <= '9' ? digit - '0' : 0;
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,434 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.ListenerConfiguration;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchDatabaseInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.CopyDatabaseInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.PlannedBatchInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.WriteResult;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.PositionReportDecoder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.sun.management.ThreadMXBean;
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.Metadata;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * Fails when any message kind allocates more bytes per message than its budget on any write path.
+ * Each message of the corpus, plus the unsupported types of {@link FieldAccessBenchmark}, is
+ * replayed the way the listener handles it: decoded into a pooled record, with the position
+ * report decoder where it applies and the library otherwise, and written in batches by the
+ * inserter of each write mode (insert, copy and planned). The per-message inserters from
+ * {@link DatabaseInserterFactory} are checked too (perMessage). Everything is written to a
+ * {@link RecordingDatabaseConnection}, so only the listener's and the decoder's allocations are
+ * counted, not the driver's. Bytes are read from the thread's allocation counter after the path
+ * has been warmed up, and the lowest of several rounds is kept, so a budget is exceeded only by a
+ * lasting change and not by a stray JIT or GC event.
+ *
+ * <p>Budgets are read from allocation-budgets.properties in the benchmarks directory, one
+ * {@code <path>.<kind>} entry each, and a single one can be overridden with
+ * -Dais.budget.&lt;path&gt;.&lt;kind&gt;. A kind without a budget fails the check. By default only
+ * the kinds in {@link #CHECKED_KINDS}, whose budgets have been measured, are checked; any other
+ * can be chosen with -Dais.budget.kinds. Run with -Dais.budget.record=true to write the measured
+ * values, plus a margin, to the file instead of checking them. Once a kind's budget is recorded
+ * it belongs in {@link #CHECKED_KINDS}.</p>
+ *
+ * <p>The benchmarks build runs this check in its verify phase. It is not part of the listener's
+ * tests, since it needs this module's corpus and stubs, so a change is gated with
+ * {@code (cd aisMessageListener && mvn install) && (cd benchmarks && mvn verify)}.</p>
+ */
+public final class AllocationBudgetCheck {
+
+  private static final String BUDGET_PROPERTY_PREFIX = "ais.budget.";
+  private static final String BUDGETS_FILE_PROPERTY = "ais.budget.file";
+  private static final String RECORD_PROPERTY = "ais.budget.record";
+  private static final String KINDS_PROPERTY = "ais.budget.kinds";
+  private static final String DEFAULT_BUDGETS_FILE = "allocation-budgets.properties";
+  private static final String[] PATHS = {"perMessage", "insert", "copy", "planned"};
+  private static final String[] MESSAGE_KINDS = {"positionReport", "staticAndVoyage",
+          "unsupported"};
+  // The kinds checked when none are chosen: those with a measured budget. The others decode with
+  // the aismessages library and have yet to be recorded.
+  private static final String[] CHECKED_KINDS = {"insert.positionReport", "copy.positionReport",
+          "planned.positionReport"};
+  // Recorded budgets leave this much room above the measured value, rounded up to 8 bytes.
+  private static final double RECORD_MARGIN = 1.1;
+  private static final String SOURCE = "allocation-budget";
+  private static final int MAX_SENTENCE_BYTES = 256;
+  private static final int WARMUP_MESSAGES = 50_000;
+  private static final int ROUND_MESSAGES = 10_000;
+  private static final int ROUNDS = 5;
+
+  /**
+   * Prevent instantiation of utility class.
+   */
+  private AllocationBudgetCheck() {
+    throw new AssertionError("Cannot instantiate utility class");
+  }
+
+  /**
+   * Measures the selected kinds and exits with 1 if any is over budget or has none.
+   *
+   * @param args none; the corpus is chosen with -Dais.benchmark.messages.
+   * @throws Exception if the corpus or the budgets cannot be read or decoded.
+   */
+  public static void main(String[] args) throws Exception {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemorySupported()) {
+      System.err.println("This JVM does not count allocated bytes per thread.\n");
+      System.exit(1);
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    List<String[]> corpus = groupSentences(BenchmarkSupport.readCorpusLines());
+    for (String sentence : FieldAccessBenchmark.UNSUPPORTED_SENTENCES) {
+      corpus.add(new String[] {sentence});
+    }
+    Path budgetsFile = Paths.get(System.getProperty(BUDGETS_FILE_PROPERTY, DEFAULT_BUDGETS_FILE));
+    Map<String, Long> budgets = readBudgets(budgetsFile);
+    boolean record = Boolean.getBoolean(RECORD_PROPERTY);
+    List<String> selected = selectedKinds();
+    int batchSize = ListenerConfiguration.fromSystemProperties().getBatchSize();
+    List<String> known = new ArrayList<>();
+    for (String path : PATHS) {
+      for (String messageKind : MESSAGE_KINDS) {
+        known.add(path + "." + messageKind);
+      }
+    }
+    if (!known.containsAll(selected)) {
+      System.err.println("Unknown kind in " + selected + "; the kinds are " + known + ".");
+      System.exit(1);
+    }
+
+    boolean failed = false;
+    System.out.println(String.format("%-28s %8s %14s %14s", "kind", "messages", "bytes/message",
+            "budget"));
+    for (String path : PATHS) {
+      for (String messageKind : MESSAGE_KINDS) {
+        String kind = path + "." + messageKind;
+        if (!selected.contains(kind)) {
+          continue;
+        }
+        List<String[]> messages = messagesOfKind(corpus, messageKind);
+        if (messages.isEmpty()) {
+          System.err.println("The corpus has no " + messageKind + " messages.");
+          failed = true;
+          continue;
+        }
+
+        RecordingDatabaseConnection connection = new RecordingDatabaseConnection();
+        Replay replay = path.equals("perMessage") ? new PerMessageReplay(connection)
+                : new BatchReplay(inserterFor(path, connection), batchSize);
+        long bytesPerMessage = measure(threads, replay, messages);
+        failed |= !replay.verify(connection, WARMUP_MESSAGES + ROUNDS * ROUND_MESSAGES, kind);
+
+        Long budget = Long.getLong(BUDGET_PROPERTY_PREFIX + kind, budgets.get(kind));
+        String verdict = "";
+        if (record) {
+          budgets.put(kind, (long) Math.ceil(bytesPerMessage * RECORD_MARGIN / 8) * 8);
+        } else if (budget == null) {
+          verdict = "  NO BUDGET";
+          failed = true;
+        } else if (bytesPerMessage > budget) {
+          verdict = "  OVER BUDGET";
+          failed = true;
+        }
+        System.out.println(String.format("%-28s %8d %14d %14s%s", kind, messages.size(),
+                bytesPerMessage, budget == null ? "-" : budget.toString(), verdict));
+      }
+    }
+
+    if (record) {
+      writeBudgets(budgetsFile, budgets);
+      System.out.println("Wrote " + budgetsFile + ".");
+    } else if (failed) {
+      System.err.println("\nRe-measure deliberate changes with -D" + RECORD_PROPERTY + "=true.");
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Warms the path up on the messages, then gets the fewest bytes allocated per message over the
+   * measured rounds.
+   */
+  private static long measure(ThreadMXBean threads, Replay replay, List<String[]> messages)
+          throws SQLException {
+    long threadId = Thread.currentThread().getId();
+    replay.write(messages, WARMUP_MESSAGES);
+
+    // Reading the counter may allocate, so that is taken off each round.
+    long counterBytes = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      long before = threads.getThreadAllocatedBytes(threadId);
+      counterBytes = Math.min(counterBytes, threads.getThreadAllocatedBytes(threadId) - before);
+    }
+
+    long fewest = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; i++) {
+      long before = threads.getThreadAllocatedBytes(threadId);
+      replay.write(messages, ROUND_MESSAGES);
+      long allocated = threads.getThreadAllocatedBytes(threadId) - before - counterBytes;
+      fewest = Math.min(fewest, allocated);
+    }
+    return fewest / ROUND_MESSAGES;
+  }
+
+  private static BatchInserterInterface inserterFor(String path,
+                                                    RecordingDatabaseConnection connection) {
+    switch (path) {
+      case "copy":
+        return new CopyDatabaseInserter(connection);
+      case "planned":
+        return new PlannedBatchInserter(connection);
+      default:
+        return new BatchDatabaseInserter(connection);
+    }
+  }
+
+  /**
+   * Gets the kinds chosen with -Dais.budget.kinds, or the checked kinds.
+   */
+  private static List<String> selectedKinds() {
+    String value = System.getProperty(KINDS_PROPERTY);
+    List<String> kinds = new ArrayList<>();
+    if (value != null) {
+      for (String kind : value.split(",")) {
+        kinds.add(kind.trim());
+      }
+      return kinds;
+    }
+    return Arrays.asList(CHECKED_KINDS);
+  }
+
+  /**
+   * Selects the messages of a kind, named by the inserter they are written with, from the type in
+   * their first payload character.
+   */
+  private static List<String[]> messagesOfKind(List<String[]> corpus, String kind) {
+    List<String[]> messages = new ArrayList<>();
+    for (String[] sentences : corpus) {
+      String[] fields = sentences[0].split(",", 7);
+      int type = fields.length < 7 || fields[5].isEmpty() ? -1 : sixBits(fields[5].charAt(0));
+      String messageKind = type >= 1 && type <= 3 ? "positionReport"
+              : type == 5 ? "staticAndVoyage" : "unsupported";
+      if (messageKind.equals(kind)) {
+        messages.add(sentences);
+      }
+    }
+    return messages;
+  }
+
+  private static int sixBits(char c) {
+    int value = c - 48;
+    return value > 40 ? value - 8 : value;
+  }
+
+  /**
+   * Groups consecutive sentences into messages by their fragment count and number fields. A
+   * message missing a fragment is dropped.
+   */
+  private static List<String[]> groupSentences(List<String> lines) {
+    List<String[]> messages = new ArrayList<>();
+    List<String> parts = new ArrayList<>();
+    for (String line : lines) {
+      String[] fields = line.split(",", 4);
+      if (fields.length < 4) {
+        continue;
+      }
+      int fragments = Integer.parseInt(fields[1]);
+      int fragment = Integer.parseInt(fields[2]);
+      if (fragment == 1) {
+        parts.clear();
+      } else if (fragment != parts.size() + 1) {
+        parts.clear();
+        continue;
+      }
+      parts.add(line);
+      if (fragment == fragments) {
+        messages.add(parts.toArray(new String[0]));
+        parts.clear();
+      }
+    }
+    return messages;
+  }
+
+  private static Map<String, Long> readBudgets(Path file) throws IOException {
+    Map<String, Long> budgets = new TreeMap<>();
+    if (!Files.exists(file)) {
+      return budgets;
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    for (String kind : properties.stringPropertyNames()) {
+      budgets.put(kind, Long.parseLong(properties.getProperty(kind).trim()));
+    }
+    return budgets;
+  }
+
+  private static void writeBudgets(Path file, Map<String, Long> budgets) throws IOException {
+    List<String> lines = new ArrayList<>(Arrays.asList(
+            "# Bytes allocated per message by AllocationBudgetCheck, as <path>.<kind>=<budget>.",
+            "# Written with -D" + RECORD_PROPERTY + "=true: the measured value plus "
+                    + Math.round((RECORD_MARGIN - 1) * 100) + "%."));
+    for (Map.Entry<String, Long> budget : budgets.entrySet()) {
+      lines.add(budget.getKey() + "=" + budget.getValue());
+    }
+    Files.write(file, lines, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Parses a message's sentences for the library.
+   */
+  private static NMEAMessage[] parse(String[] sentences) {
+    NMEAMessage[] parts = new NMEAMessage[sentences.length];
+    for (int i = 0; i < sentences.length; i++) {
+      parts[i] = NMEAMessage.fromString(sentences[i]);
+    }
+    return parts;
+  }
+
+  /**
+   * Decodes and writes messages along one path.
+   */
+  private interface Replay {
+
+    /**
+     * Decodes and writes the given number of messages, cycling through the list.
+     */
+    void write(List<String[]> messages, int count) throws SQLException;
+
+    /**
+     * Checks that every message written was committed, and reports any that were not.
+     *
+     * @return true if the connection saw what the messages should have caused.
+     */
+    boolean verify(RecordingDatabaseConnection connection, long messages, String kind);
+  }
+
+  /**
+   * The per-message inserters: one inserter and one transaction per message.
+   */
+  private static final class PerMessageReplay implements Replay {
+    private final RecordingDatabaseConnection connection;
+
+    private PerMessageReplay(RecordingDatabaseConnection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public void write(List<String[]> messages, int count) throws SQLException {
+      for (int i = 0; i < count; i++) {
+        AISMessage message = AISMessage.create(new Metadata(SOURCE),
+                parse(messages.get(i % messages.size())));
+        DatabaseInserterInterface inserter = DatabaseInserterFactory.getDatabaseInserter(message);
+        inserter.attachConnection(connection);
+        if (inserter.writeMessage() != WriteResult.SUCCESS) {
+          throw new IllegalStateException("Could not write " + message + ".");
+        }
+      }
+    }
+
+    @Override
+    public boolean verify(RecordingDatabaseConnection connection, long messages, String kind) {
+      if (connection.getRollbacks() == 0 && connection.getCommits() == messages
+              && connection.getTransactions() == messages) {
+        return true;
+      }
+      System.err.println(kind + ": " + messages + " messages written but "
+              + connection.getTransactions() + " transactions, " + connection.getCommits()
+              + " commits and " + connection.getRollbacks() + " rollbacks recorded.");
+      return false;
+    }
+  }
+
+  /**
+   * The listener's path: decoded into pooled records as the decode stage does, and written in
+   * batches by a batch inserter as the batching writer does.
+   */
+  private static final class BatchReplay implements Replay {
+    private final BatchInserterInterface inserter;
+    private final int batchSize;
+    private final List<MessageDataInterface> batch;
+    private final MessageRecordPool records;
+    private final PositionReportDecoder positionReports = new PositionReportDecoder();
+    private final byte[] line = new byte[MAX_SENTENCE_BYTES];
+    private final ByteBuffer lineBuffer = ByteBuffer.wrap(line);
+    private long written;
+
+    private BatchReplay(BatchInserterInterface inserter, int batchSize) {
+      this.inserter = inserter;
+      this.batchSize = batchSize;
+      this.batch = new ArrayList<>(batchSize);
+      this.records = new MessageRecordPool(batchSize);
+    }
+
+    @Override
+    public void write(List<String[]> messages, int count) throws SQLException {
+      for (int i = 0; i < count; i++) {
+        batch.add(decode(messages.get(i % messages.size())));
+        if (batch.size() == batchSize || i == count - 1) {
+          written += inserter.writeMessages(batch);
+          for (MessageDataInterface message : batch) {
+            ((MessageRecord) message).recycle();
+          }
+          batch.clear();
+        }
+      }
+    }
+
+    @Override
+    public boolean verify(RecordingDatabaseConnection connection, long messages, String kind) {
+      if (connection.getRollbacks() == 0 && written == messages
+              && connection.getCommits() == connection.getTransactions()) {
+        return true;
+      }
+      System.err.println(kind + ": " + messages + " messages written but " + written
+              + " committed in " + connection.getCommits() + " of "
+              + connection.getTransactions() + " transactions, with "
+              + connection.getRollbacks() + " rollbacks.");
+      return false;
+    }
+
+    /**
+     * Decodes a message with the position report decoder if it can and the library otherwise.
+     */
+    private MessageRecord decode(String[] sentences) {
+      long received = System.currentTimeMillis();
+      String sentence = sentences[0];
+      if (sentences.length == 1 && sentence.length() <= line.length) {
+        for (int i = 0; i < sentence.length(); i++) {
+          line[i] = (byte) sentence.charAt(i);
+        }
+        if (positionReports.loadSentence(lineBuffer, 0, sentence.length())) {
+          return records.acquire(positionReports, sentence, received);
+        }
+      }
+      return records.acquire(AISMessage.create(new Metadata(SOURCE), parse(sentences)),
+              Instant.ofEpochMilli(received));
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the JMH suites with the gc profiler always on, so every result reports the allocation rate
+ * and bytes allocated per operation next to the throughput or time. Takes the usual JMH command
+ * line, for example a regular expression to choose the suites; listing and help go to JMH as is.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs the chosen suites.
+   *
+   * @param args the JMH command line.
+   * @throws Exception if the command line is invalid or a run fails.
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+            || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+      Main.main(args);
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (!hasGCProfiler(commandLine)) {
+      options.addProfiler(GCProfiler.class);
+    }
+    new Runner(options.build()).run();
+  }
+
+  private static boolean hasGCProfiler(CommandLineOptions commandLine) {
+    for (ProfilerConfig profiler : commandLine.getProfilers()) {
+      if (profiler.getKlass().equals("gc")
+              || profiler.getKlass().equals(GCProfiler.class.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,162 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionManager;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import dk.tbsalling.aismessages.AISInputStreamReader;
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+
+/**
+ * Shared setup for the benchmarks: loading NMEA corpora and opening database connections using the
+ * same credentials file layout as the listener's Driver.
+ */
+final class BenchmarkSupport {
+
+  // JMH suites read their inputs from system properties, relative to the benchmarks directory.
+  static final String CREDENTIALS_PROPERTY = "ais.benchmark.credentials";
+  static final String MESSAGES_PROPERTY = "ais.benchmark.messages";
+  private static final String TEST_DATA = "../aisMessageListener/src/test/testData/";
+
+  /**
+   * Prevent instantiation of utility class.
+   */
+  private BenchmarkSupport() {
+    throw new AssertionError("Cannot instantiate utility class");
+  }
+
+  /**
+   * Decodes every message in an NMEA text file.
+   *
+   * @param messageFilePath path to a file with one NMEA sentence per line.
+   * @return the decoded messages, in file order.
+   * @throws IOException if the file cannot be read.
+   */
+  static List<AISMessage> decodeFile(String messageFilePath) throws IOException {
+    List<AISMessage> messages = new ArrayList<>();
+    try (InputStream in = new FileInputStream(messageFilePath)) {
+      new AISInputStreamReader(in, messages::add).run();
+    }
+    return messages;
+  }
+
+  /**
+   * Opens a connection manager using a credentials file (host, database, user, password, port).
+   *
+   * @param credentialsFilePath path to the credentials file.
+   * @return a connected connection manager.
+   * @throws IOException if the file cannot be read.
+   */
+  static DatabaseConnectionManager connect(String credentialsFilePath) throws IOException {
+    String[] credentials = readCredentials(credentialsFilePath);
+    return new DatabaseConnectionManager(credentials[0], credentials[1], credentials[2],
+            credentials[3]);
+  }
+
+  /**
+   * Reads a credentials file (host, database, user, password, port).
+   *
+   * @param credentialsFilePath path to the credentials file.
+   * @return the host, database, user and password.
+   * @throws IOException if the file cannot be read.
+   */
+  static String[] readCredentials(String credentialsFilePath) throws IOException {
+    try (BufferedReader br = new BufferedReader(new FileReader(credentialsFilePath))) {
+      String databaseHost = br.readLine();
+      String databaseName = br.readLine();
+      String username = br.readLine();
+      String password = br.readLine();
+      return new String[] {databaseHost, databaseName, username, password};
+    }
+  }
+
+  /**
+   * Gets the credentials file chosen for a JMH run, defaulting to the test credentials.
+   */
+  static String credentialsFile() {
+    return System.getProperty(CREDENTIALS_PROPERTY, TEST_DATA + "database_credentials.txt");
+  }
+
+  /**
+   * Gets the NMEA corpus files chosen for a JMH run, as a comma-separated list, defaulting to
+   * testMessages.txt and testMessages2.txt.
+   */
+  static List<String> messagesFiles() {
+    List<String> files = new ArrayList<>();
+    String value = System.getProperty(MESSAGES_PROPERTY,
+            TEST_DATA + "testMessages.txt," + TEST_DATA + "testMessages2.txt");
+    for (String file : value.split(",")) {
+      if (!file.trim().isEmpty()) {
+        files.add(file.trim());
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Decodes every message in the corpus chosen for a JMH run. Multi-part messages are only
+   * combined within a file.
+   *
+   * @return the decoded messages, in file order.
+   * @throws IOException if a file cannot be read.
+   */
+  static List<AISMessage> decodeCorpus() throws IOException {
+    List<AISMessage> messages = new ArrayList<>();
+    for (String file : messagesFiles()) {
+      messages.addAll(decodeFile(file));
+    }
+    return messages;
+  }
+
+  /**
+   * Reads every non-blank line of the corpus chosen for a JMH run.
+   *
+   * @return the trimmed lines, in file order.
+   * @throws IOException if a file cannot be read.
+   */
+  static List<String> readCorpusLines() throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (String file : messagesFiles()) {
+      for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.US_ASCII)) {
+        if (!line.trim().isEmpty()) {
+          lines.add(line.trim());
+        }
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Repeats a corpus until it holds at least the requested number of entries.
+   *
+   * @param corpus the entries to repeat.
+   * @param count  the number of entries wanted.
+   * @return a list of exactly count entries.
+   */
+  static <T> List<T> repeat(List<T> corpus, int count) {
+    if (corpus.isEmpty()) {
+      throw new IllegalArgumentException("Corpus is empty.");
+    }
+    List<T> repeated = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      repeated.add(corpus.get(i % corpus.size()));
+    }
+    return repeated;
+  }
+
+  /**
+   * Formats a rate for reporting.
+   */
+  static String perSecond(long operations, long elapsedNanos) {
+    return String.format("%,.0f/s", operations * 1e9 / elapsedNanos);
+  }
+}
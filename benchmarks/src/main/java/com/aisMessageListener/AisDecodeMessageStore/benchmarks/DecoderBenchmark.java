@@ -0,0 +1,96 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecord;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageRecordPool;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.PositionReportDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.AISInputStreamReader;
+
+/**
+ * Nanoseconds per message for turning single-part type 1/2/3 sentences into filled
+ * {@link MessageRecord}s, with AISInputStreamReader and the library's decoder against the
+ * listener's {@link PositionReportDecoder}. Both read the same block of newline-separated
+ * sentences and keep the raw sentence, as the listener does. No database is needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DecoderBenchmark {
+
+  private static final int SENTENCES = 10_000;
+
+  private final PositionReportDecoder decoder = new PositionReportDecoder();
+  private final MessageRecordPool records = new MessageRecordPool(16);
+  private byte[] corpus;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    List<String> positionReports = new ArrayList<>();
+    for (String line : BenchmarkSupport.readCorpusLines()) {
+      byte[] sentence = line.getBytes(StandardCharsets.US_ASCII);
+      if (decoder.loadSentence(ByteBuffer.wrap(sentence), 0, sentence.length)) {
+        positionReports.add(line);
+      }
+    }
+    if (positionReports.isEmpty()) {
+      throw new IllegalStateException("The corpus has no single-part position reports.");
+    }
+    corpus = (String.join("\n", BenchmarkSupport.repeat(positionReports, SENTENCES)) + "\n")
+            .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SENTENCES)
+  public void aisInputStreamReader(Blackhole blackhole) throws IOException {
+    new AISInputStreamReader(new ByteArrayInputStream(corpus), message -> {
+      MessageRecord record = records.acquire(message, null);
+      blackhole.consume(record.getLatValue());
+      record.recycle();
+    }).run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SENTENCES)
+  public void positionReportDecoder(Blackhole blackhole) {
+    ByteBuffer buffer = ByteBuffer.wrap(corpus);
+    long now = System.currentTimeMillis();
+    int start = 0;
+    for (int i = 0; i < corpus.length; i++) {
+      if (corpus[i] != '\n') {
+        continue;
+      }
+      if (decoder.loadSentence(buffer, start, i)) {
+        String sentence = new String(corpus, start, i - start, StandardCharsets.US_ASCII);
+        MessageRecord record = records.acquire(decoder, sentence, now);
+        blackhole.consume(record.getLatValue());
+        record.recycle();
+      }
+      start = i + 1;
+    }
+  }
+}
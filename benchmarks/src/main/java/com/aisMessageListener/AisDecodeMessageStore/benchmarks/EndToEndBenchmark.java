@@ -0,0 +1,389 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.Listener;
+import com.aisMessageListener.AisDecodeMessageStore.ListenerConfiguration;
+import com.aisMessageListener.AisDecodeMessageStore.feed.AisFeedClient;
+import com.aisMessageListener.AisDecodeMessageStore.feed.DeadBandFilter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.ConnectionPool;
+import com.aisMessageListener.AisDecodeMessageStore.loadgen.LoadGenerator;
+import com.aisMessageListener.AisDecodeMessageStore.loadgen.LoadGeneratorConfiguration;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.IngestMetrics;
+import com.aisMessageListener.AisDecodeMessageStore.metrics.LatencyHistogram;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.BatchingMessageWriter;
+import com.aisMessageListener.AisDecodeMessageStore.pipeline.SpillJournal;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Measures the whole listener, from socket to committed rows: a {@link LoadGenerator} feeds an
+ * in-process {@link Listener}, built as the Driver builds it, which writes to a database freshly
+ * loaded with the v4 schema. The rate is raised in steps, and each step records the sustained
+ * messages/sec, counted from the writers' commits, receive-to-commit latency percentiles, the
+ * database server's CPU use and the growth of every table and its indexes per million messages.
+ * The run stops after the first step the listener cannot keep up with.
+ *
+ * <p>The results are written to a JSON report with the commit, JVM and every ais.* option, so
+ * that runs can be compared across commits. Listener and generator options are read from the
+ * usual system properties, e.g. -Dais.batch.size or -Dais.loadgen.typeMix.</p>
+ *
+ * <p>With 'local' in place of a credentials file, a throwaway cluster is created with
+ * {@link LocalPostgres} on the port in -Dais.benchmark.pgPort. Otherwise every table in the given
+ * database is dropped and recreated, so only point it at a scratch database. Database CPU is only
+ * measured when the server runs on this host, and misses backends that have already exited.</p>
+ */
+public final class EndToEndBenchmark {
+
+  private static final String SCHEMA_PROPERTY = "ais.benchmark.schema";
+  private static final String PORT_PROPERTY = "ais.benchmark.pgPort";
+  private static final String COMMIT_PROPERTY = "ais.benchmark.commit";
+  private static final String DEFAULT_SCHEMA = "../database/AisDecodeMessageStore_schema_v4.sql";
+  private static final String DEFAULT_RATES = "500,1000,2000,4000,8000,16000";
+  private static final int DEFAULT_PORT = 55432;
+  private static final int DEFAULT_STEP_SECONDS = 30;
+  private static final int WARM_UP_SECONDS = 5;
+  private static final double SATURATION = 0.9;
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+  private final String host;
+  private final String databaseName;
+  private final String username;
+  private final String password;
+
+  private EndToEndBenchmark(String host, String databaseName, String username,
+                            String password) {
+    this.host = host;
+    this.databaseName = databaseName;
+    this.username = username;
+    this.password = password;
+  }
+
+  /**
+   * Runs the stepped load against a fresh schema and writes the report.
+   *
+   * @param args credentials_file|local report_file [rates] [step_seconds]
+   * @throws Exception if the database, the listener or the generator cannot be set up.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("Arguments must be <credentials_file|local> <report_file> "
+              + "[comma_separated_rates] [step_seconds].\n");
+      System.exit(1);
+    }
+
+    List<Double> rates = new ArrayList<>();
+    for (String rate : (args.length > 2 ? args[2] : DEFAULT_RATES).split(",")) {
+      rates.add(Double.parseDouble(rate.trim()));
+    }
+    int stepSeconds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_STEP_SECONDS;
+    Path report = Paths.get(args[1]);
+
+    if (args[0].equals("local")) {
+      int port = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+      try (LocalPostgres postgres = LocalPostgres.start(port)) {
+        new EndToEndBenchmark(postgres.getHost(), LocalPostgres.DATABASE, LocalPostgres.USER, "")
+                .run(rates, stepSeconds, report, "local");
+      }
+    } else {
+      String[] credentials = BenchmarkSupport.readCredentials(args[0]);
+      new EndToEndBenchmark(credentials[0], credentials[1], credentials[2], credentials[3])
+              .run(rates, stepSeconds, report, credentials[0]);
+    }
+  }
+
+  private void run(List<Double> rates, int stepSeconds, Path report, String database)
+          throws Exception {
+    String url = "jdbc:postgresql://" + (host.indexOf(':') < 0 ? host + ":5432" : host) + "/"
+            + databaseName;
+    Instant started = Instant.now();
+    List<String> steps = new ArrayList<>();
+
+    try (Connection monitor = DriverManager.getConnection(url, username, password)) {
+      loadSchema(monitor);
+      ProcessHandle postmaster = findPostmaster(monitor);
+
+      ListenerConfiguration configuration = ListenerConfiguration.fromSystemProperties();
+      Path journalDirectory = Files.createTempDirectory("ais-benchmark-journal");
+      SpillJournal journal = new SpillJournal(journalDirectory,
+              configuration.getJournalSegmentBytes());
+      ConnectionPool pool = new ConnectionPool(host, databaseName, username, password,
+              configuration.getDatabasePoolSize(),
+              configuration.getDatabaseValidationIntervalMillis());
+      Listener listener = Listener.builder(configuration, pool).journal(journal).build();
+      BatchingMessageWriter writer = listener.getWriter();
+
+      LoadGenerator generator =
+              new LoadGenerator(LoadGeneratorConfiguration.fromSystemProperties());
+      generator.setRate(rates.get(0));
+      generator.start(0);
+      DeadBandFilter deadBand = listener.getDeadBandFilter();
+      AisFeedClient client = listener.newFeedClient(
+              Collections.singletonList(new InetSocketAddress("127.0.0.1", generator.getPort())));
+      Thread reader = new Thread(() -> {
+        try {
+          client.start();
+        } catch (IOException e) {
+          e.printStackTrace();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }, "ais-benchmark-listener");
+      reader.start();
+
+      try {
+        for (double rate : rates) {
+          generator.setRate(rate);
+          Thread.sleep(WARM_UP_SECONDS * 1000L);
+          Sample before = sample(monitor, postmaster, generator, writer, deadBand);
+          Thread.sleep(stepSeconds * 1000L);
+          Sample after = sample(monitor, postmaster, generator, writer, deadBand);
+
+          // Position reports the dead band keeps out were dealt with, not lost.
+          boolean saturated = after.committed(before) + after.suppressed(before)
+                  < SATURATION * (after.sent - before.sent);
+          steps.add(describeStep(rate, before, after, saturated));
+          System.out.println(String.format(Locale.ROOT,
+                  "target %.0f/s, offered %.0f/s, sustained %.0f/s, p99 %.1f ms%s",
+                  rate, after.sentPerSecond(before), after.committedPerSecond(before),
+                  after.latency.since(before.latency).getValueAtPercentile(99) / 1e6,
+                  saturated ? ", saturated" : ""));
+          if (saturated) {
+            break;
+          }
+        }
+      } finally {
+        generator.close();
+        reader.interrupt();
+        reader.join();
+        listener.close();
+        journal.close();
+        pool.close();
+      }
+    }
+
+    writeReport(report, started, database, steps);
+    System.out.println("Wrote " + report + ".");
+  }
+
+  /**
+   * Drops and recreates every table from the v4 schema.
+   */
+  private static void loadSchema(Connection connection) throws IOException, SQLException {
+    String schema = new String(Files.readAllBytes(
+            Paths.get(System.getProperty(SCHEMA_PROPERTY, DEFAULT_SCHEMA))),
+            StandardCharsets.UTF_8);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(schema);
+    }
+  }
+
+  /**
+   * Finds the database server's main process, if it runs on this host: the parent of the
+   * monitoring connection's backend.
+   *
+   * @return the process, or null if it is not visible from here.
+   */
+  private static ProcessHandle findPostmaster(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+         ResultSet result = statement.executeQuery("SELECT pg_backend_pid()")) {
+      result.next();
+      return ProcessHandle.of(result.getLong(1))
+              .filter(backend -> backend.info().command().orElse("").contains("postgres"))
+              .flatMap(ProcessHandle::parent)
+              .orElse(null);
+    }
+  }
+
+  /**
+   * The counters at one point of a step.
+   */
+  private static final class Sample {
+    private final long nanoTime = System.nanoTime();
+    private long sent;
+    private long written;
+    private long suppressed;
+    private long dropped;
+    private long cpuNanos;
+    private LatencyHistogram.Snapshot latency;
+    private final Map<String, long[]> tableSizes = new TreeMap<>();
+
+    double seconds(Sample before) {
+      return (nanoTime - before.nanoTime) / 1e9;
+    }
+
+    long committed(Sample before) {
+      return written - before.written;
+    }
+
+    long suppressed(Sample before) {
+      return suppressed - before.suppressed;
+    }
+
+    double sentPerSecond(Sample before) {
+      return (sent - before.sent) / seconds(before);
+    }
+
+    double committedPerSecond(Sample before) {
+      return committed(before) / seconds(before);
+    }
+  }
+
+  private static Sample sample(Connection monitor, ProcessHandle postmaster,
+                               LoadGenerator generator, BatchingMessageWriter writer,
+                               DeadBandFilter deadBand) throws SQLException {
+    Sample sample = new Sample();
+    sample.sent = generator.getMessagesSent();
+    sample.written = writer.getWrittenMessages();
+    sample.suppressed = deadBand == null ? 0 : deadBand.getPositionReportsSuppressed();
+    sample.dropped = writer.getDroppedMessages();
+    sample.latency = IngestMetrics.get().getReceiveToCommit().snapshot();
+    sample.cpuNanos = postmaster == null ? -1 : cpuNanos(postmaster)
+            + postmaster.descendants().mapToLong(EndToEndBenchmark::cpuNanos).sum();
+    try (PreparedStatement sizes = monitor.prepareStatement(
+            "SELECT pg_table_size(?::regclass), pg_indexes_size(?::regclass)")) {
+      for (IngestMetrics.Table table : IngestMetrics.Table.values()) {
+        sizes.setString(1, table.getTableName());
+        sizes.setString(2, table.getTableName());
+        try (ResultSet result = sizes.executeQuery()) {
+          result.next();
+          sample.tableSizes.put(table.getTableName(),
+                  new long[] {result.getLong(1), result.getLong(2)});
+        }
+      }
+    }
+    return sample;
+  }
+
+  private static long cpuNanos(ProcessHandle process) {
+    return process.info().totalCpuDuration().map(Duration::toNanos).orElse(0L);
+  }
+
+  private static String describeStep(double rate, Sample before, Sample after,
+                                     boolean saturated) {
+    long committed = after.committed(before);
+    LatencyHistogram.Snapshot latency = after.latency.since(before.latency);
+    StringBuilder step = new StringBuilder();
+    step.append("    {\n");
+    step.append(String.format(Locale.ROOT, "      \"targetRate\": %.1f,%n", rate));
+    step.append(String.format(Locale.ROOT, "      \"seconds\": %.3f,%n", after.seconds(before)));
+    step.append(String.format(Locale.ROOT, "      \"offeredRate\": %.1f,%n",
+            after.sentPerSecond(before)));
+    step.append(String.format(Locale.ROOT, "      \"sustainedRate\": %.1f,%n",
+            after.committedPerSecond(before)));
+    step.append("      \"committedMessages\": ").append(committed).append(",\n");
+    step.append("      \"suppressedMessages\": ").append(after.suppressed(before))
+            .append(",\n");
+    step.append("      \"droppedMessages\": ").append(after.dropped - before.dropped)
+            .append(",\n");
+    step.append("      \"receiveToCommitMillis\": {");
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      step.append(String.format(Locale.ROOT, "%s\"%s\": %.3f", i == 0 ? "" : ", ",
+              PERCENTILE_NAMES[i], latency.getValueAtPercentile(PERCENTILES[i]) / 1e6));
+    }
+    step.append("},\n");
+    step.append("      \"databaseCpuCores\": ").append(after.cpuNanos < 0 ? "null"
+            : String.format(Locale.ROOT, "%.3f",
+                    (after.cpuNanos - before.cpuNanos) / 1e9 / after.seconds(before)))
+            .append(",\n");
+    step.append("      \"bytesPerMillionMessages\": {\n");
+    int written = 0;
+    for (Map.Entry<String, long[]> table : after.tableSizes.entrySet()) {
+      long[] start = before.tableSizes.get(table.getKey());
+      step.append(String.format(Locale.ROOT,
+              "        \"%s\": {\"table\": %s, \"indexes\": %s}%s%n", table.getKey(),
+              perMillion(table.getValue()[0] - start[0], committed),
+              perMillion(table.getValue()[1] - start[1], committed),
+              ++written < after.tableSizes.size() ? "," : ""));
+    }
+    step.append("      },\n");
+    step.append("      \"saturated\": ").append(saturated).append('\n');
+    step.append("    }");
+    return step.toString();
+  }
+
+  private static String perMillion(long bytes, long messages) {
+    return messages == 0 ? "null" : String.valueOf(Math.round(bytes * 1e6 / messages));
+  }
+
+  private static void writeReport(Path report, Instant started, String database,
+                                  List<String> steps) throws IOException {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"commit\": ").append(quote(commit())).append(",\n");
+    json.append("  \"started\": ").append(quote(started.toString())).append(",\n");
+    json.append("  \"database\": ").append(quote(database)).append(",\n");
+    json.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+    json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors())
+            .append(",\n");
+    json.append("  \"options\": {");
+    Map<String, String> options = new TreeMap<>();
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith("ais.")) {
+        options.put(name, System.getProperty(name));
+      }
+    }
+    int written = 0;
+    for (Map.Entry<String, String> option : options.entrySet()) {
+      json.append(written++ == 0 ? "\n" : ",\n").append("    ").append(quote(option.getKey()))
+              .append(": ").append(quote(option.getValue()));
+    }
+    json.append(options.isEmpty() ? "},\n" : "\n  },\n");
+    json.append("  \"steps\": [\n").append(String.join(",\n", steps)).append("\n  ]\n");
+    json.append("}\n");
+    Files.write(report, json.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the commit being measured, from -Dais.benchmark.commit or git.
+   */
+  private static String commit() {
+    String commit = System.getProperty(COMMIT_PROPERTY);
+    if (commit != null) {
+      return commit;
+    }
+    try {
+      Process git = new ProcessBuilder("git", "rev-parse", "HEAD").start();
+      String head = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+              .trim();
+      return git.waitFor() == 0 ? head : "unknown";
+    } catch (IOException e) {
+      return "unknown";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "unknown";
+    }
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < ' ') {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+}
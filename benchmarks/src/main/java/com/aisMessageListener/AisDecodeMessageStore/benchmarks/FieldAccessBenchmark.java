@@ -0,0 +1,175 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageCapabilities;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.ais.exceptions.UnsupportedMessageType;
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.Metadata;
+import dk.tbsalling.aismessages.nmea.messages.NMEAMessage;
+
+/**
+ * Nanoseconds per message for reading the fields of every table a message might be written to,
+ * the way the inserters used to (calling each group's getters and catching UnsupportedMessageType)
+ * against checking the message's capability mask first. Measured separately for type 1/2/3
+ * position reports, type 5 static and voyage data, and unsupported types. No database is needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FieldAccessBenchmark {
+
+  // The test corpus has no unsupported types, so a base station report (type 4) and a static
+  // data report (type 24) are added.
+  static final String[] UNSUPPORTED_SENTENCES = {
+          "!AIVDM,1,1,,A,403OviQuMGCqWrRO9>E6fE700@GO,0*4D",
+          "!AIVDM,1,1,,A,H42O55i18tMET00000000000000,2*6D"
+  };
+
+  @Param({"positionReport", "staticAndVoyage", "unsupported"})
+  public String messageKind;
+
+  private List<MessageDataInterface> messages;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    List<AISMessage> decoded = BenchmarkSupport.decodeCorpus();
+    for (String sentence : UNSUPPORTED_SENTENCES) {
+      decoded.add(AISMessage.create(new Metadata("benchmark"), NMEAMessage.fromString(sentence)));
+    }
+
+    messages = new ArrayList<>();
+    for (AISMessage message : decoded) {
+      MessageDataInterface messageData = MessageDataFactory.getMessageData(message);
+      if (kindOf(messageData.getMessageTypeId()).equals(messageKind)) {
+        messages.add(messageData);
+      }
+    }
+    if (messages.isEmpty()) {
+      throw new IllegalStateException("The corpus has no " + messageKind + " messages.");
+    }
+  }
+
+  private static String kindOf(int messageTypeId) {
+    switch (messageTypeId) {
+      case 1:
+      case 2:
+      case 3:
+        return "positionReport";
+      case 5:
+        return "staticAndVoyage";
+      default:
+        return "unsupported";
+    }
+  }
+
+  private MessageDataInterface nextMessage() {
+    next = (next + 1) % messages.size();
+    return messages.get(next);
+  }
+
+  @Benchmark
+  public void exceptionProbing(Blackhole blackhole) {
+    MessageDataInterface message = nextMessage();
+    try {
+      blackhole.consume(message.getLat());
+      blackhole.consume(message.getLong());
+      blackhole.consume(message.getAccuracy());
+    } catch (UnsupportedMessageType ex) {
+      blackhole.consume(ex);
+    }
+    try {
+      blackhole.consume(message.getSpeedOverGround());
+      blackhole.consume(message.getCourseOverGround());
+      blackhole.consume(message.getHeading());
+      blackhole.consume(message.getRateOfTurn());
+      blackhole.consume(message.getNavStatusId());
+      blackhole.consume(message.getManeuverIndicatorId());
+    } catch (UnsupportedMessageType ex) {
+      blackhole.consume(ex);
+    }
+    try {
+      blackhole.consume(message.getIMO());
+      blackhole.consume(message.getCallsign());
+      blackhole.consume(message.getShipName());
+      blackhole.consume(message.getVesselTypeId());
+    } catch (UnsupportedMessageType ex) {
+      blackhole.consume(ex);
+    }
+    try {
+      blackhole.consume(message.getToBow());
+      blackhole.consume(message.getToStern());
+      blackhole.consume(message.getToPort());
+      blackhole.consume(message.getToStarboard());
+    } catch (UnsupportedMessageType ex) {
+      blackhole.consume(ex);
+    }
+    try {
+      blackhole.consume(message.getDraught());
+      blackhole.consume(message.getETA());
+      blackhole.consume(message.getDestination());
+    } catch (UnsupportedMessageType ex) {
+      blackhole.consume(ex);
+    }
+  }
+
+  @Benchmark
+  public void capabilityMask(Blackhole blackhole) {
+    MessageDataInterface message = nextMessage();
+    int capabilities = message.getCapabilities();
+    if ((capabilities & MessageCapabilities.GEOSPATIAL_DATA) != 0) {
+      blackhole.consume(message.getLat());
+      blackhole.consume(message.getLong());
+      blackhole.consume(message.getAccuracy());
+    }
+    if ((capabilities & MessageCapabilities.NAVIGATION_DATA) != 0) {
+      blackhole.consume(message.getSpeedOverGround());
+      blackhole.consume(message.getCourseOverGround());
+      blackhole.consume(message.getHeading());
+      blackhole.consume(message.getRateOfTurn());
+      blackhole.consume(message.getNavStatusId());
+      blackhole.consume(message.getManeuverIndicatorId());
+    }
+    if ((capabilities & MessageCapabilities.VESSEL_SIGNATURE) != 0) {
+      blackhole.consume(message.getIMO());
+      blackhole.consume(message.getCallsign());
+      blackhole.consume(message.getShipName());
+      blackhole.consume(message.getVesselTypeId());
+    }
+    if ((capabilities & MessageCapabilities.VESSEL_DATA) != 0) {
+      blackhole.consume(message.getToBow());
+      blackhole.consume(message.getToStern());
+      blackhole.consume(message.getToPort());
+      blackhole.consume(message.getToStarboard());
+    }
+    if ((capabilities & MessageCapabilities.VOYAGE_DATA) != 0) {
+      blackhole.consume(message.getDraught());
+      blackhole.consume(message.getETA());
+      blackhole.consume(message.getDestination());
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A throwaway PostgreSQL cluster for the end-to-end harness, created with the server's own initdb
+ * and pg_ctl in a temporary directory, listening on 127.0.0.1 only, with trust authentication and
+ * one empty database. Closing it stops the server and deletes the directory, so every run starts
+ * from the same state.
+ *
+ * <p>The PostgreSQL binaries are taken from the directory in -Dais.benchmark.pgBin, or from the
+ * PATH. initdb refuses to run as root.</p>
+ */
+final class LocalPostgres implements AutoCloseable {
+
+  static final String BIN_PROPERTY = "ais.benchmark.pgBin";
+  static final String DATABASE = "ais_benchmark";
+  static final String USER = "ais";
+
+  private final String binDirectory;
+  private final Path dataDirectory;
+  private final int port;
+
+  private LocalPostgres(String binDirectory, Path dataDirectory, int port) {
+    this.binDirectory = binDirectory;
+    this.dataDirectory = dataDirectory;
+    this.port = port;
+  }
+
+  /**
+   * Creates a cluster, starts it and creates the database.
+   *
+   * @param port the port for the server to listen on.
+   * @return the running cluster.
+   * @throws IOException          if a PostgreSQL tool fails or the database cannot be created.
+   * @throws InterruptedException if interrupted while waiting for a tool.
+   */
+  static LocalPostgres start(int port) throws IOException, InterruptedException {
+    Path data = Files.createTempDirectory("ais-benchmark-pg");
+    LocalPostgres postgres = new LocalPostgres(System.getProperty(BIN_PROPERTY), data, port);
+    try {
+      postgres.run("initdb", "-D", data.toString(), "-U", USER, "-A", "trust", "-E", "UTF8",
+              "--no-locale");
+      postgres.run("pg_ctl", "-D", data.toString(), "-l", data.resolve("server.log").toString(),
+              "-w", "-o", "-p " + port + " -c listen_addresses=127.0.0.1 -k " + data, "start");
+      try (Connection connection = DriverManager.getConnection(
+              "jdbc:postgresql://127.0.0.1:" + port + "/postgres", USER, "");
+           Statement statement = connection.createStatement()) {
+        statement.execute("CREATE DATABASE " + DATABASE);
+      }
+    } catch (IOException | SQLException | RuntimeException e) {
+      postgres.close();
+      throw e instanceof IOException ? (IOException) e
+              : new IOException("Could not create the benchmark database.", e);
+    }
+    return postgres;
+  }
+
+  /**
+   * Gets the host to pass to the listener's connection pool.
+   *
+   * @return the loopback address and the server's port.
+   */
+  String getHost() {
+    return "127.0.0.1:" + port;
+  }
+
+  /**
+   * Stops the server and deletes the cluster.
+   */
+  @Override
+  public void close() {
+    try {
+      if (Files.exists(dataDirectory.resolve("postmaster.pid"))) {
+        run("pg_ctl", "-D", dataDirectory.toString(), "-m", "fast", "-w", "stop");
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    try (Stream<Path> paths = Files.walk(dataDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Runs a PostgreSQL tool and waits for it.
+   *
+   * @throws IOException if it cannot be started or exits with an error, with its output.
+   */
+  private void run(String tool, String... args) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(binDirectory == null ? tool : Paths.get(binDirectory, tool).toString());
+    command.addAll(Arrays.asList(args));
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    byte[] output = process.getInputStream().readAllBytes();
+    if (process.waitFor() != 0) {
+      throw new IOException(tool + " failed:\n" + new String(output, StandardCharsets.UTF_8));
+    }
+  }
+}
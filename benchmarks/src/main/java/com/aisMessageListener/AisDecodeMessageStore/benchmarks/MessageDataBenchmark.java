@@ -0,0 +1,155 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.ClassAPositionReportData;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.ClassAStaticAndVoyageData;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+
+/**
+ * Calls/sec for the per-message work between a decoded AISMessage and the inserters: choosing an
+ * inserter and a message data wrapper for it, reading every field of the type 1/2/3 and type 5
+ * wrappers, and joining the sentences of multi-part messages into their raw NMEA. Each call takes
+ * the next message of its kind from the corpus. No database is needed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDataBenchmark {
+
+  private List<AISMessage> messages;
+  private List<ClassAPositionReportData> positionReports;
+  private List<ClassAStaticAndVoyageData> staticAndVoyageData;
+  private List<MessageDataInterface> multiPartMessages;
+  private int nextMessage;
+  private int nextPositionReport;
+  private int nextStaticAndVoyageData;
+  private int nextMultiPartMessage;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    messages = BenchmarkSupport.decodeCorpus();
+    positionReports = new ArrayList<>();
+    staticAndVoyageData = new ArrayList<>();
+    multiPartMessages = new ArrayList<>();
+    for (AISMessage message : messages) {
+      switch (kindOf(message)) {
+        case "positionReport":
+          positionReports.add(new ClassAPositionReportData(message));
+          break;
+        case "staticAndVoyage":
+          staticAndVoyageData.add(new ClassAStaticAndVoyageData(message));
+          break;
+        default:
+          break;
+      }
+      MessageDataInterface messageData = MessageDataFactory.getMessageData(message);
+      if (messageData.hasMultipleParts()) {
+        multiPartMessages.add(messageData);
+      }
+    }
+    if (positionReports.isEmpty() || staticAndVoyageData.isEmpty()
+            || multiPartMessages.isEmpty()) {
+      throw new IllegalStateException(
+              "The corpus needs position reports and multi-part static and voyage data.");
+    }
+  }
+
+  /**
+   * Names the inserter a message is written with, as the messageKind parameter of the other
+   * benchmarks does.
+   */
+  static String kindOf(AISMessage message) {
+    switch (message.getMessageType()) {
+      case PositionReportClassAScheduled:
+      case PositionReportClassAAssignedSchedule:
+      case PositionReportClassAResponseToInterrogation:
+        return "positionReport";
+      case ShipAndVoyageRelatedData:
+        return "staticAndVoyage";
+      default:
+        return "unsupported";
+    }
+  }
+
+  private AISMessage nextMessage() {
+    nextMessage = (nextMessage + 1) % messages.size();
+    return messages.get(nextMessage);
+  }
+
+  @Benchmark
+  public DatabaseInserterInterface inserterFactory() {
+    return DatabaseInserterFactory.getDatabaseInserter(nextMessage());
+  }
+
+  @Benchmark
+  public MessageDataInterface messageDataFactory() {
+    return MessageDataFactory.getMessageData(nextMessage());
+  }
+
+  @Benchmark
+  public void positionReportGetters(Blackhole blackhole) {
+    nextPositionReport = (nextPositionReport + 1) % positionReports.size();
+    ClassAPositionReportData message = positionReports.get(nextPositionReport);
+    blackhole.consume(message.getMMSI());
+    blackhole.consume(message.getTimeReceived());
+    blackhole.consume(message.getLat());
+    blackhole.consume(message.getLong());
+    blackhole.consume(message.getAccuracy());
+    blackhole.consume(message.getNavStatusId());
+    blackhole.consume(message.getManeuverIndicatorId());
+    blackhole.consume(message.getSpeedOverGround());
+    blackhole.consume(message.getCourseOverGround());
+    blackhole.consume(message.getHeading());
+    blackhole.consume(message.getRateOfTurn());
+  }
+
+  @Benchmark
+  public void staticAndVoyageGetters(Blackhole blackhole) {
+    nextStaticAndVoyageData = (nextStaticAndVoyageData + 1) % staticAndVoyageData.size();
+    ClassAStaticAndVoyageData message = staticAndVoyageData.get(nextStaticAndVoyageData);
+    blackhole.consume(message.getMMSI());
+    blackhole.consume(message.getTimeReceived());
+    blackhole.consume(message.getIMO());
+    blackhole.consume(message.getCallsign());
+    blackhole.consume(message.getShipName());
+    blackhole.consume(message.getVesselTypeId());
+    blackhole.consume(message.getToBow());
+    blackhole.consume(message.getToStern());
+    blackhole.consume(message.getToStarboard());
+    blackhole.consume(message.getToPort());
+    blackhole.consume(message.getDraught());
+    blackhole.consume(message.getETA());
+    blackhole.consume(message.getDestination());
+  }
+
+  @Benchmark
+  public String multiPartRawNMEA() {
+    nextMultiPartMessage = (nextMultiPartMessage + 1) % multiPartMessages.size();
+    return multiPartMessages.get(nextMultiPartMessage).getRawNMEA();
+  }
+}
@@ -0,0 +1,105 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionManager;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.WriteResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+
+/**
+ * Latency distribution, p50 and p99 included, of writing one message with the per-table insert
+ * chain against the single-statement write plan, for each kind of message the database
+ * distinguishes. Writes real rows, so point -Dais.benchmark.credentials at a test database
+ * loaded with the schema.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageLatencyBenchmark {
+
+  @Param({"positionReport", "staticAndVoyageData", "unsupported"})
+  public String messageKind;
+
+  private DatabaseConnectionManager connection;
+  private List<AISMessage> messages;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    messages = new ArrayList<>();
+    for (AISMessage message : BenchmarkSupport.decodeCorpus()) {
+      if (kindOf(message).equals(messageKind)) {
+        messages.add(message);
+      }
+    }
+    if (messages.isEmpty()) {
+      throw new IllegalStateException("The corpus has no " + messageKind + " messages.");
+    }
+    connection = BenchmarkSupport.connect(BenchmarkSupport.credentialsFile());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    connection.closeConnection();
+  }
+
+  private AISMessage nextMessage() {
+    next = (next + 1) % messages.size();
+    return messages.get(next);
+  }
+
+  @Benchmark
+  public WriteResult chainedInserter() throws SQLException {
+    DatabaseInserterInterface inserter = DatabaseInserterFactory.getDatabaseInserter(nextMessage());
+    inserter.attachConnection(connection);
+    return inserter.writeMessage();
+  }
+
+  @Benchmark
+  public WriteResult writePlan() throws SQLException {
+    DatabaseInserterInterface inserter =
+            DatabaseInserterFactory.getPlannedDatabaseInserter(nextMessage());
+    inserter.attachConnection(connection);
+    return inserter.writeMessage();
+  }
+
+  /**
+   * Names the write plan a message is written with.
+   */
+  private static String kindOf(AISMessage message) {
+    switch (message.getMessageType()) {
+      case PositionReportClassAScheduled:
+      case PositionReportClassAAssignedSchedule:
+      case PositionReportClassAResponseToInterrogation:
+        return "positionReport";
+      case ShipAndVoyageRelatedData:
+        return "staticAndVoyageData";
+      default:
+        return "unsupported";
+    }
+  }
+}
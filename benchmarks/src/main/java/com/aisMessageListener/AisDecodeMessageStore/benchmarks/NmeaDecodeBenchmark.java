@@ -0,0 +1,75 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.AISInputStreamReader;
+
+/**
+ * Messages/sec for decoding the whole corpus, multi-part messages included, with the
+ * AISInputStreamReader the feeds use. Each call reads a block of about ten thousand sentences made
+ * of whole copies of the corpus, so multi-part messages are never split, and the messages counter
+ * reports the decoded messages per second alongside the blocks per second. No database is needed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NmeaDecodeBenchmark {
+
+  private static final int SENTENCES = 10_000;
+
+  private byte[] corpus;
+
+  /**
+   * Counts the messages decoded, which JMH reports as a rate next to the benchmark's own.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Decoded {
+    public long messages;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      messages = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    List<String> lines = BenchmarkSupport.readCorpusLines();
+    List<String> block = new ArrayList<>(SENTENCES + lines.size());
+    while (block.size() < SENTENCES) {
+      block.addAll(lines);
+    }
+    corpus = (String.join("\n", block) + "\n").getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Benchmark
+  public void aisInputStreamReader(Decoded decoded, Blackhole blackhole) throws IOException {
+    new AISInputStreamReader(new ByteArrayInputStream(corpus), message -> {
+      decoded.messages++;
+      blackhole.consume(message.getMessageType());
+    }).run();
+  }
+}
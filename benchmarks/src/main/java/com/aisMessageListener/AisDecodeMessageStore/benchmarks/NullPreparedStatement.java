@@ -0,0 +1,505 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * A prepared statement with no database behind it, for the batch inserters to bind and batch rows
+ * into. Parameters are discarded and batches only counted, so binding costs nothing and allocates
+ * nothing here; what the inserters allocate to produce the values is still theirs. Only binding
+ * and batching are supported.
+ */
+final class NullPreparedStatement implements PreparedStatement {
+
+  private static final int[] NO_COUNTS = new int[0];
+
+  private int pendingRows;
+  private long batches;
+  private long rows;
+
+  /**
+   * Gets the number of batches executed.
+   *
+   * @return the count.
+   */
+  long getBatches() {
+    return batches;
+  }
+
+  /**
+   * Gets the number of rows sent in executed batches.
+   *
+   * @return the count.
+   */
+  long getRows() {
+    return rows;
+  }
+
+  @Override
+  public ResultSet executeQuery() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int executeUpdate() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setNull(int parameterIndex, int sqlType) {
+  }
+
+  @Override
+  public void setBoolean(int parameterIndex, boolean x) {
+  }
+
+  @Override
+  public void setByte(int parameterIndex, byte x) {
+  }
+
+  @Override
+  public void setShort(int parameterIndex, short x) {
+  }
+
+  @Override
+  public void setInt(int parameterIndex, int x) {
+  }
+
+  @Override
+  public void setLong(int parameterIndex, long x) {
+  }
+
+  @Override
+  public void setFloat(int parameterIndex, float x) {
+  }
+
+  @Override
+  public void setDouble(int parameterIndex, double x) {
+  }
+
+  @Override
+  public void setBigDecimal(int parameterIndex, BigDecimal x) {
+  }
+
+  @Override
+  public void setString(int parameterIndex, String x) {
+  }
+
+  @Override
+  public void setBytes(int parameterIndex, byte[] x) {
+  }
+
+  @Override
+  public void setDate(int parameterIndex, Date x) {
+  }
+
+  @Override
+  public void setTime(int parameterIndex, Time x) {
+  }
+
+  @Override
+  public void setTimestamp(int parameterIndex, Timestamp x) {
+  }
+
+  @Override
+  public void setAsciiStream(int parameterIndex, InputStream x, int length) {
+  }
+
+  @Override
+  @Deprecated
+  public void setUnicodeStream(int parameterIndex, InputStream x, int length) {
+  }
+
+  @Override
+  public void setBinaryStream(int parameterIndex, InputStream x, int length) {
+  }
+
+  @Override
+  public void clearParameters() {
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x, int targetSqlType) {
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x) {
+  }
+
+  @Override
+  public boolean execute() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void addBatch() {
+    pendingRows++;
+  }
+
+  @Override
+  public void setCharacterStream(int parameterIndex, Reader reader, int length) {
+  }
+
+  @Override
+  public void setRef(int parameterIndex, Ref x) {
+  }
+
+  @Override
+  public void setBlob(int parameterIndex, Blob x) {
+  }
+
+  @Override
+  public void setClob(int parameterIndex, Clob x) {
+  }
+
+  @Override
+  public void setArray(int parameterIndex, Array x) {
+  }
+
+  @Override
+  public ResultSetMetaData getMetaData() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setDate(int parameterIndex, Date x, Calendar cal) {
+  }
+
+  @Override
+  public void setTime(int parameterIndex, Time x, Calendar cal) {
+  }
+
+  @Override
+  public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) {
+  }
+
+  @Override
+  public void setNull(int parameterIndex, int sqlType, String typeName) {
+  }
+
+  @Override
+  public void setURL(int parameterIndex, URL x) {
+  }
+
+  @Override
+  public ParameterMetaData getParameterMetaData() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setRowId(int parameterIndex, RowId x) {
+  }
+
+  @Override
+  public void setNString(int parameterIndex, String value) {
+  }
+
+  @Override
+  public void setNCharacterStream(int parameterIndex, Reader value, long length) {
+  }
+
+  @Override
+  public void setNClob(int parameterIndex, NClob value) {
+  }
+
+  @Override
+  public void setClob(int parameterIndex, Reader reader, long length) {
+  }
+
+  @Override
+  public void setBlob(int parameterIndex, InputStream inputStream, long length) {
+  }
+
+  @Override
+  public void setNClob(int parameterIndex, Reader reader, long length) {
+  }
+
+  @Override
+  public void setSQLXML(int parameterIndex, SQLXML xmlObject) {
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) {
+  }
+
+  @Override
+  public void setAsciiStream(int parameterIndex, InputStream x, long length) {
+  }
+
+  @Override
+  public void setBinaryStream(int parameterIndex, InputStream x, long length) {
+  }
+
+  @Override
+  public void setCharacterStream(int parameterIndex, Reader reader, long length) {
+  }
+
+  @Override
+  public void setAsciiStream(int parameterIndex, InputStream x) {
+  }
+
+  @Override
+  public void setBinaryStream(int parameterIndex, InputStream x) {
+  }
+
+  @Override
+  public void setCharacterStream(int parameterIndex, Reader reader) {
+  }
+
+  @Override
+  public void setNCharacterStream(int parameterIndex, Reader value) {
+  }
+
+  @Override
+  public void setClob(int parameterIndex, Reader reader) {
+  }
+
+  @Override
+  public void setBlob(int parameterIndex, InputStream inputStream) {
+  }
+
+  @Override
+  public void setNClob(int parameterIndex, Reader reader) {
+  }
+
+  @Override
+  public ResultSet executeQuery(String sql) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int executeUpdate(String sql) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() {
+  }
+
+  @Override
+  public int getMaxFieldSize() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setMaxFieldSize(int max) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getMaxRows() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setMaxRows(int max) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setEscapeProcessing(boolean enable) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getQueryTimeout() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setQueryTimeout(int seconds) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void cancel() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public SQLWarning getWarnings() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clearWarnings() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setCursorName(String name) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean execute(String sql) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ResultSet getResultSet() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getUpdateCount() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean getMoreResults() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setFetchDirection(int direction) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getFetchDirection() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setFetchSize(int rows) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getFetchSize() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getResultSetConcurrency() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getResultSetType() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void addBatch(String sql) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clearBatch() {
+    pendingRows = 0;
+  }
+
+  @Override
+  public int[] executeBatch() {
+    batches++;
+    rows += pendingRows;
+    pendingRows = 0;
+    return NO_COUNTS;
+  }
+
+  @Override
+  public Connection getConnection() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean getMoreResults(int current) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ResultSet getGeneratedKeys() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int executeUpdate(String sql, int autoGeneratedKeys) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int executeUpdate(String sql, int[] columnIndexes) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int executeUpdate(String sql, String[] columnNames) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean execute(String sql, int autoGeneratedKeys) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean execute(String sql, int[] columnIndexes) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean execute(String sql, String[] columnNames) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getResultSetHoldability() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return false;
+  }
+
+  @Override
+  public void setPoolable(boolean poolable) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isPoolable() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void closeOnCompletion() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isCloseOnCompletion() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    throw new UnsupportedOperationException();
+  }
+}
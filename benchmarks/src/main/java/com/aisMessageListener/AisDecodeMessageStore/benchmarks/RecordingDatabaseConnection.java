@@ -0,0 +1,186 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * A connection manager with no database behind it, so that the inserters' own work can be
+ * measured without a round trip. Every lookup finds an existing row, as a warm cache would, keys
+ * are handed out from a counter, and whatever is sent is only counted, without allocating, so
+ * that allocation checks see the inserters' allocations and nobody else's. Statements for the
+ * batch inserters are a {@link NullPreparedStatement}. The single-record and Object[] batch
+ * methods are not used by any inserter and are not supported.
+ */
+class RecordingDatabaseConnection implements DatabaseConnectionInterface {
+
+  private static final int EXISTING_KEY = 1;
+
+  private final NullPreparedStatement statement = new NullPreparedStatement();
+  private int nextKey;
+  private long transactions;
+  private long commits;
+  private long rollbacks;
+  private long statements;
+  private long rows;
+
+  /**
+   * Gets the number of transactions begun.
+   *
+   * @return the count.
+   */
+  long getTransactions() {
+    return transactions;
+  }
+
+  /**
+   * Gets the number of transactions committed.
+   *
+   * @return the count.
+   */
+  long getCommits() {
+    return commits;
+  }
+
+  /**
+   * Gets the number of transactions rolled back.
+   *
+   * @return the count.
+   */
+  long getRollbacks() {
+    return rollbacks;
+  }
+
+  /**
+   * Gets the number of statements, batches and COPY operations sent.
+   *
+   * @return the count.
+   */
+  long getStatements() {
+    return statements + statement.getBatches();
+  }
+
+  /**
+   * Gets the number of rows sent.
+   *
+   * @return the count.
+   */
+  long getRows() {
+    return rows + statement.getRows();
+  }
+
+  @Override
+  public void connectIfDropped() {
+  }
+
+  @Override
+  public void releaseConnection() {
+  }
+
+  @Override
+  public void closeConnection() {
+  }
+
+  @Override
+  public void beginTransaction() {
+    transactions++;
+  }
+
+  @Override
+  public void commitTransaction() {
+    commits++;
+  }
+
+  @Override
+  public void rollBackTransaction() {
+    rollbacks++;
+  }
+
+  @Override
+  public int getVesselSignatureIdFromFullyQualifiedSignature(int mmsi, Integer imo,
+                                                             String callSign, String name,
+                                                             Integer vesselTypeID) {
+    return EXISTING_KEY;
+  }
+
+  @Override
+  public int getVesselSignatureIdWithMMSI(int mmsi) {
+    return EXISTING_KEY;
+  }
+
+  @Override
+  public int getVesselDataIdFromRecord(int toBow, int toStern, int toPort, int toStarboard) {
+    return EXISTING_KEY;
+  }
+
+  @Override
+  public PreparedStatement prepareInsert(String insertSQL) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int insertOneRecord(PreparedStatement insert) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int insertOneRecord(String insertSQL) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[] insertBatch(String insertSQL, List<Object[]> rows) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void insertRows(String insertSQL, List<Object[]> rows) {
+    statements++;
+    this.rows += rows.size();
+  }
+
+  @Override
+  public PreparedStatement prepareRows(String insertSQL) {
+    statement.clearBatch();
+    return statement;
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql) {
+    return statement;
+  }
+
+  @Override
+  public void insertPipelined(List<String> insertSQL, List<Object[]> rows) {
+    statements += insertSQL.size();
+    this.rows += rows.size();
+  }
+
+  @Override
+  public int nextKey(String table, String keyColumn) {
+    return ++nextKey;
+  }
+
+  @Override
+  public int[] reserveKeys(String table, String keyColumn, int count) {
+    int[] keys = new int[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = ++nextKey;
+    }
+    return keys;
+  }
+
+  @Override
+  public long copyRecords(String copySQL, String rows) {
+    long copied = 0;
+    for (int i = 0; i < rows.length(); i++) {
+      if (rows.charAt(i) == '\n') {
+        copied++;
+      }
+    }
+    statements++;
+    this.rows += copied;
+    return copied;
+  }
+}
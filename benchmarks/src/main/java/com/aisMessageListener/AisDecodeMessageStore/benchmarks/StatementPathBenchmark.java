@@ -0,0 +1,120 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionManager;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.ClassAPositionReportData;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.util.StatementBinder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+import dk.tbsalling.aismessages.ais.messages.PositionReport;
+
+/**
+ * Statements/sec for the string-concatenated SQL that the inserters used to build against the
+ * cached server-side prepared statements that replaced it, for one table write and one lookup.
+ * Writes real rows, so point -Dais.benchmark.credentials at a test database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class StatementPathBenchmark {
+
+  private static final String NAVIGATION_DATA_INSERT =
+          "INSERT INTO navigation_data(speed_over_ground,course_over_ground,heading,rate_of_turn,"
+                  + "nav_status_id,maneuver_indicator_id) VALUES (?,?,?,?,?,?)";
+
+  private DatabaseConnectionManager connection;
+  private List<MessageDataInterface> positionReports;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    positionReports = new ArrayList<>();
+    for (AISMessage message : BenchmarkSupport.decodeCorpus()) {
+      if (message instanceof PositionReport) {
+        positionReports.add(new ClassAPositionReportData(message));
+      }
+    }
+    connection = BenchmarkSupport.connect(BenchmarkSupport.credentialsFile());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    connection.closeConnection();
+  }
+
+  private MessageDataInterface nextMessage() {
+    next = (next + 1) % positionReports.size();
+    return positionReports.get(next);
+  }
+
+  @Benchmark
+  public int concatenatedNavigationInsert() throws SQLException {
+    MessageDataInterface message = nextMessage();
+    String sqlUpdate =
+            "INSERT INTO navigation_data(" +
+                    "speed_over_ground," +
+                    "course_over_ground," +
+                    "heading," +
+                    "rate_of_turn," +
+                    "nav_status_id," +
+                    "maneuver_indicator_id" +
+                    ") " +
+                    "VALUES (" +
+                    message.getSpeedOverGround() + "," +
+                    message.getCourseOverGround() + "," +
+                    message.getHeading() + "," +
+                    message.getRateOfTurn() + "," +
+                    message.getNavStatusId() + "," +
+                    message.getManeuverIndicatorId() +
+                    ")";
+    return connection.insertOneRecord(sqlUpdate);
+  }
+
+  @Benchmark
+  public int preparedNavigationInsert() throws SQLException {
+    MessageDataInterface message = nextMessage();
+    PreparedStatement stmt = connection.prepareInsert(NAVIGATION_DATA_INSERT);
+    StatementBinder.setFloat(stmt, 1, message.getSpeedOverGround());
+    StatementBinder.setFloat(stmt, 2, message.getCourseOverGround());
+    StatementBinder.setFloat(stmt, 3, message.getHeading());
+    StatementBinder.setFloat(stmt, 4, message.getRateOfTurn());
+    stmt.setInt(5, message.getNavStatusId());
+    stmt.setInt(6, message.getManeuverIndicatorId());
+    return connection.insertOneRecord(stmt);
+  }
+
+  @Benchmark
+  public String concatenatedSignatureLookup() throws SQLException {
+    String sqlQuery = "SELECT vessel_signature_id from vessel_signature WHERE mmsi = "
+            + nextMessage().getMMSI();
+    return connection.queryOneString(sqlQuery, 1);
+  }
+
+  @Benchmark
+  public int preparedSignatureLookup() throws SQLException {
+    return connection.getVesselSignatureIdWithMMSI(nextMessage().getMMSI());
+  }
+}
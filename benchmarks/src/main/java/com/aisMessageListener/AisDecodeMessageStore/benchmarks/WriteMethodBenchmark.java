@@ -0,0 +1,100 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.WriteResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+
+/**
+ * Calls/sec for each write method of the per-message inserters, and for the whole writeMessage
+ * chain, against a {@link NullDatabaseConnection}: only the inserter's own work of reading the
+ * message's fields and building its rows and SQL is measured. Every lookup hits, as with warm
+ * caches. Each call gets a new inserter from {@link DatabaseInserterFactory}, whose cost alone is
+ * measured by {@link MessageDataBenchmark#inserterFactory()}. No database is needed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WriteMethodBenchmark {
+
+  @Param({"positionReport", "staticAndVoyage"})
+  public String messageKind;
+
+  private final NullDatabaseConnection connection = new NullDatabaseConnection();
+  private List<AISMessage> messages;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    messages = new ArrayList<>();
+    for (AISMessage message : BenchmarkSupport.decodeCorpus()) {
+      if (MessageDataBenchmark.kindOf(message).equals(messageKind)) {
+        messages.add(message);
+      }
+    }
+    if (messages.isEmpty()) {
+      throw new IllegalStateException("The corpus has no " + messageKind + " messages.");
+    }
+  }
+
+  private DatabaseInserterInterface nextInserter() {
+    next = (next + 1) % messages.size();
+    DatabaseInserterInterface inserter =
+            DatabaseInserterFactory.getDatabaseInserter(messages.get(next));
+    inserter.attachConnection(connection);
+    return inserter;
+  }
+
+  @Benchmark
+  public WriteResult writeVesselData() throws SQLException {
+    return nextInserter().writeVesselData();
+  }
+
+  @Benchmark
+  public WriteResult writeVesselSignature() throws SQLException {
+    return nextInserter().writeVesselSignature();
+  }
+
+  @Benchmark
+  public WriteResult writeVoyageData() throws SQLException {
+    return nextInserter().writeVoyageData();
+  }
+
+  @Benchmark
+  public WriteResult writeNavigationData() throws SQLException {
+    return nextInserter().writeNavigationData();
+  }
+
+  @Benchmark
+  public WriteResult writeGeospatialData() throws SQLException {
+    return nextInserter().writeGeospatialData();
+  }
+
+  @Benchmark
+  public WriteResult writeMessage() throws SQLException {
+    return nextInserter().writeMessage();
+  }
+}
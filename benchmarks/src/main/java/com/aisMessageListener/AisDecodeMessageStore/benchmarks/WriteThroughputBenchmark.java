@@ -0,0 +1,81 @@
+package com.aisMessageListener.AisDecodeMessageStore.benchmarks;
+
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.DatabaseConnectionInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchDatabaseInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.BatchInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.CopyDatabaseInserter;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.dBinserter.DatabaseInserterInterface;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataFactory;
+import com.aisMessageListener.AisDecodeMessageStore.jdbc.messageData.MessageDataInterface;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import dk.tbsalling.aismessages.ais.messages.AISMessage;
+
+/**
+ * Compares messages/sec written by the one-transaction-per-message inserters against the batched
+ * group-commit inserter and the COPY-based bulk inserter. Writes real rows, so point it at a test database loaded with the schema.
+ */
+public final class WriteThroughputBenchmark {
+
+  /**
+   * Runs each write path over the same decoded corpus and prints the results.
+   *
+   * @param args credentials_file message_file [message_count] [batch_size]
+   * @throws Exception if the corpus cannot be loaded or the database cannot be written.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("Arguments must be <credentials_file> <message_file> "
+              + "[message_count] [batch_size].\n");
+      System.exit(1);
+    }
+
+    int messageCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+    int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 250;
+    List<AISMessage> messages = BenchmarkSupport.repeat(
+            BenchmarkSupport.decodeFile(args[1]), messageCount);
+    DatabaseConnectionInterface connection = BenchmarkSupport.connect(args[0]);
+
+    long start = System.nanoTime();
+    for (AISMessage message : messages) {
+      DatabaseInserterInterface inserter = DatabaseInserterFactory.getDatabaseInserter(message);
+      inserter.attachConnection(connection);
+      inserter.writeMessage();
+    }
+    long perMessageNanos = System.nanoTime() - start;
+
+    long batchedNanos = timeBatches(new BatchDatabaseInserter(connection), messages, batchSize);
+    long copyNanos = timeBatches(new CopyDatabaseInserter(connection), messages, batchSize);
+
+    connection.closeConnection();
+    System.out.println("messages:              " + messageCount);
+    System.out.println("per-message inserter:  "
+            + BenchmarkSupport.perSecond(messageCount, perMessageNanos));
+    System.out.println("batched (size " + batchSize + "):   "
+            + BenchmarkSupport.perSecond(messageCount, batchedNanos));
+    System.out.println("copy (size " + batchSize + "):      "
+            + BenchmarkSupport.perSecond(messageCount, copyNanos));
+  }
+
+  /**
+   * Writes the messages in groups of batchSize and returns the elapsed time in nanoseconds.
+   */
+  private static long timeBatches(BatchInserterInterface inserter, List<AISMessage> messages,
+                                  int batchSize) throws SQLException {
+    List<MessageDataInterface> batch = new ArrayList<>(batchSize);
+    long start = System.nanoTime();
+    for (AISMessage message : messages) {
+      batch.add(MessageDataFactory.getMessageData(message));
+      if (batch.size() == batchSize) {
+        inserter.writeMessages(batch);
+        batch.clear();
+      }
+    }
+    inserter.writeMessages(batch);
+    return System.nanoTime() - start;
+  }
+}
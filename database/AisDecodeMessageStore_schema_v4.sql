@@ -1080,6 +1080,14 @@ CREATE UNIQUE INDEX "PK_vessel_data" ON "vessel_data"
  "vessel_data_id"
 );
 
+CREATE INDEX "idx_vessel_data_dimensions" ON "vessel_data"
+(
+ "to_bow",
+ "to_stern",
+ "to_port",
+ "to_starboard"
+);
+
 
 
 
@@ -1237,6 +1245,11 @@ CREATE INDEX "fkIdx_vessel_type" ON "vessel_signature"
  "vessel_type_id"
 );
 
+CREATE INDEX "idx_vessel_signature_mmsi" ON "vessel_signature"
+(
+ "mmsi"
+);
+
 
 
 -- ************************************** "navigation_data"